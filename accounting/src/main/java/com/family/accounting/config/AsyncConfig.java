@@ -0,0 +1,119 @@
+package com.family.accounting.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池配置
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * 搜索子查询线程池
+     * 用于与分页查询并行执行的分面统计等查询，队列满时由调用线程直接执行
+     */
+    @Bean("searchExecutor")
+    public ThreadPoolTaskExecutor searchExecutor(
+            @Value("${search.executor.core-size:4}") int coreSize,
+            @Value("${search.executor.max-size:16}") int maxSize,
+            @Value("${search.executor.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 搜索请求线程池
+     * 搜索接口以异步方式在此线程池中执行，请求超时或客户端断开时可中止正在执行的查询；
+     * 队列满时拒绝新的搜索，由全局异常处理返回“系统繁忙”
+     */
+    @Bean("searchRequestExecutor")
+    public ThreadPoolTaskExecutor searchRequestExecutor(
+            @Value("${search.request-executor.core-size:8}") int coreSize,
+            @Value("${search.request-executor.max-size:32}") int maxSize,
+            @Value("${search.request-executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-request-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 审计写入线程池
+     * 用于采样的IP请求等审计记录异步落库，队列满时直接丢弃，不阻塞请求线程
+     */
+    @Bean("auditExecutor")
+    public ThreadPoolTaskExecutor auditExecutor(
+            @Value("${audit.executor.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("audit-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 验证码预渲染线程池
+     * 定时任务只提交补充任务，图片渲染在此线程中进行，不占用共享的定时任务线程；同一时间只有一个补充任务
+     */
+    @Bean("captchaRenderExecutor")
+    public ThreadPoolTaskExecutor captchaRenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("captcha-render-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 密码哈希线程池
+     * 定长线程数限制同时进行的 BCrypt 计算，队列满时拒绝并由调用方返回“系统繁忙”
+     */
+    @Bean("passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${security.password.executor.threads:4}") int threads,
+            @Value("${security.password.executor.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 账本删除线程池
+     * 强制删除账本后在此线程池中分批删除交易，单线程依次执行，任务状态持久化在数据库中
+     */
+    @Bean("accountBookDeleteExecutor")
+    public ThreadPoolTaskExecutor accountBookDeleteExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("account-book-delete-");
+        executor.initialize();
+        return executor;
+    }
+}
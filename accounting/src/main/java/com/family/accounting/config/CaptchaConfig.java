@@ -0,0 +1,32 @@
+package com.family.accounting.config;
+
+import com.family.accounting.mapper.CaptchaMapper;
+import com.family.accounting.security.CaptchaStore;
+import com.family.accounting.security.JdbcCaptchaStore;
+import com.family.accounting.security.LocalCaptchaStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 验证码存储配置
+ * security.captcha.store=local（默认）时验证码只保存在本实例内存中；
+ * 为 jdbc 时保存在 t_captcha 表中，供多实例部署共享
+ */
+@Configuration
+public class CaptchaConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "security.captcha.store", havingValue = "local", matchIfMissing = true)
+    public CaptchaStore localCaptchaStore(
+            @Value("${security.captcha.max-entries:100000}") int maxEntries) {
+        return new LocalCaptchaStore(maxEntries);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.captcha.store", havingValue = "jdbc")
+    public CaptchaStore jdbcCaptchaStore(CaptchaMapper captchaMapper) {
+        return new JdbcCaptchaStore(captchaMapper);
+    }
+}
@@ -91,6 +91,115 @@ public class DefaultCategoryConfig {
         }
     }
 
+    /**
+     * 分类模板快照
+     * 将模板树按层展开为不可变的节点列表，同一层的节点可以一条多行INSERT创建，
+     * 下一层节点通过父节点在上一层中的位置找到父分类ID
+     */
+    public static final class TemplateSnapshot {
+        private final int version;
+        private final List<List<TemplateNode>> levels;
+
+        private TemplateSnapshot(int version, List<List<TemplateNode>> levels) {
+            this.version = version;
+            this.levels = levels;
+        }
+
+        /**
+         * 按层展开支出、收入模板
+         *
+         * @param version  模板版本号
+         * @param expenses 支出分类模板
+         * @param incomes  收入分类模板
+         * @return 模板快照
+         */
+        public static TemplateSnapshot of(int version, List<CategoryTemplate> expenses,
+                                          List<CategoryTemplate> incomes) {
+            List<List<TemplateNode>> levels = new ArrayList<>();
+            List<TemplateNode> roots = new ArrayList<>();
+            List<CategoryTemplate> current = new ArrayList<>();
+            for (CategoryTemplate template : expenses) {
+                roots.add(new TemplateNode(template, TYPE_EXPENSE, -1));
+                current.add(template);
+            }
+            for (CategoryTemplate template : incomes) {
+                roots.add(new TemplateNode(template, TYPE_INCOME, -1));
+                current.add(template);
+            }
+
+            List<TemplateNode> level = roots;
+            while (!level.isEmpty()) {
+                levels.add(Collections.unmodifiableList(level));
+                List<TemplateNode> nextLevel = new ArrayList<>();
+                List<CategoryTemplate> next = new ArrayList<>();
+                for (int i = 0; i < current.size(); i++) {
+                    if (current.get(i).hasChildren()) {
+                        for (CategoryTemplate child : current.get(i).getChildren()) {
+                            nextLevel.add(new TemplateNode(child, level.get(i).getType(), i));
+                            next.add(child);
+                        }
+                    }
+                }
+                level = nextLevel;
+                current = next;
+            }
+            return new TemplateSnapshot(version, Collections.unmodifiableList(levels));
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * 按层排列的模板节点，第0层为根分类
+         */
+        public List<List<TemplateNode>> getLevels() {
+            return levels;
+        }
+    }
+
+    /**
+     * 分类模板快照中的节点
+     */
+    public static final class TemplateNode {
+        private final String name;
+        private final String icon;
+        private final int sortOrder;
+        private final int type;
+        private final int parentIndex;
+
+        private TemplateNode(CategoryTemplate template, int type, int parentIndex) {
+            this.name = template.getName();
+            this.icon = template.getIcon();
+            this.sortOrder = template.getSortOrder();
+            this.type = type;
+            this.parentIndex = parentIndex;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getIcon() {
+            return icon;
+        }
+
+        public int getSortOrder() {
+            return sortOrder;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        /**
+         * 父节点在上一层中的位置，根分类为-1
+         */
+        public int getParentIndex() {
+            return parentIndex;
+        }
+    }
+
     /**
      * 图标库 - 按分类组织的图标列表
      * Key: 图标分类名称, Value: 该分类下的图标列表
@@ -354,4 +463,15 @@ public class DefaultCategoryConfig {
             new CategoryTemplate("兼职", "parttime", 4),
             new CategoryTemplate("其他收入", "other", 99)
     );
+
+    /**
+     * 默认分类模板版本号，调整默认分类时递增
+     */
+    public static final int TEMPLATE_VERSION = 1;
+
+    /**
+     * 当前版本的默认分类模板快照，新家庭按此创建默认分类
+     */
+    public static final TemplateSnapshot DEFAULT_TEMPLATE = TemplateSnapshot.of(
+            TEMPLATE_VERSION, DEFAULT_EXPENSE_CATEGORIES, DEFAULT_INCOME_CATEGORIES);
 }
@@ -0,0 +1,46 @@
+package com.family.accounting.config;
+
+import com.family.accounting.util.QueryCancellation;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * MyBatis 查询取消拦截器
+ * 当前线程绑定了 {@link QueryCancellation} 时，将准备好的语句登记到令牌，查询结束后解除登记
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}),
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class})
+})
+public class QueryCancellationInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        QueryCancellation token = QueryCancellation.current();
+        if (token == null) {
+            return invocation.proceed();
+        }
+
+        if ("prepare".equals(invocation.getMethod().getName())) {
+            Statement statement = (Statement) invocation.proceed();
+            token.register(statement);
+            return statement;
+        }
+
+        Statement statement = (Statement) invocation.getArgs()[0];
+        try {
+            return invocation.proceed();
+        } finally {
+            token.unregister(statement);
+        }
+    }
+}
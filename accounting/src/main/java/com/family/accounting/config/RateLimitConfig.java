@@ -0,0 +1,46 @@
+package com.family.accounting.config;
+
+import com.family.accounting.security.InMemorySyncBackend;
+import com.family.accounting.security.LocalRateLimitStore;
+import com.family.accounting.security.RateLimitStore;
+import com.family.accounting.security.RateLimitSyncBackend;
+import com.family.accounting.security.SyncedRateLimitStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * IP限流存储配置
+ * security.rate-limit.store=local（默认）时计数只保存在本实例；
+ * 为 synced 时各实例通过共享存储定期同步计数，未提供 {@link RateLimitSyncBackend} 时使用进程内替身
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "security.rate-limit.store", havingValue = "local", matchIfMissing = true)
+    public RateLimitStore localRateLimitStore(
+            @Value("${security.rate-limit.max-requests-per-minute:100}") int limit,
+            @Value("${security.rate-limit.max-tracked-keys:100000}") int maxKeys) {
+        return new LocalRateLimitStore(limit, maxKeys);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.rate-limit.store", havingValue = "synced")
+    @ConditionalOnMissingBean(RateLimitSyncBackend.class)
+    public RateLimitSyncBackend inMemorySyncBackend(
+            @Value("${security.rate-limit.max-tracked-keys:100000}") int maxKeys) {
+        return new InMemorySyncBackend(maxKeys);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "security.rate-limit.store", havingValue = "synced")
+    public RateLimitStore syncedRateLimitStore(
+            RateLimitSyncBackend backend,
+            @Value("${security.rate-limit.max-requests-per-minute:100}") int limit,
+            @Value("${security.rate-limit.max-tracked-keys:100000}") int maxKeys) {
+        return new SyncedRateLimitStore(backend, limit, maxKeys);
+    }
+}
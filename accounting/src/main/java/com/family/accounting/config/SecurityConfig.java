@@ -1,13 +1,18 @@
 package com.family.accounting.config;
 
+import com.family.accounting.security.BoundedPasswordEncoder;
 import com.family.accounting.security.IpRateLimitFilter;
 import com.family.accounting.security.JwtAuthenticationEntryPoint;
 import com.family.accounting.security.JwtAuthenticationFilter;
 import com.family.accounting.service.TokenBlacklistService;
 import com.family.accounting.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -51,9 +56,18 @@ public class SecurityConfig {
         return new JwtAuthenticationFilter(jwtUtil, tokenBlacklistService);
     }
 
+    /**
+     * 密码编码器
+     * BCrypt 在专用线程池中执行；调整 strength 后，旧 cost 的哈希会在用户下次登录时重新计算
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor passwordHashExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${security.password.strength:10}") int strength,
+            @Value("${security.password.timeout-ms:3000}") long timeoutMillis) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength),
+                passwordHashExecutor, timeoutMillis, meterRegistry);
     }
 
     @Bean
@@ -90,6 +104,7 @@ public class SecurityConfig {
                 .antMatchers(
                         "/api/auth/register",
                         "/api/auth/login",
+                        "/api/auth/refresh",
                         "/api/auth/captcha",
                         "/error",
                         "/actuator/**"
@@ -1,6 +1,7 @@
 package com.family.accounting.controller;
 
 import com.family.accounting.dto.AccountBookDTO;
+import com.family.accounting.dto.AccountBookDeleteJobVO;
 import com.family.accounting.dto.AccountBookVO;
 import com.family.accounting.dto.Result;
 import com.family.accounting.security.SecurityUtils;
@@ -90,14 +91,27 @@ public class AccountBookController {
      *
      * @param id    账本ID
      * @param force 是否强制删除（有交易时）
-     * @return 成功响应
+     * @return 成功响应，有交易时返回后台删除任务
      */
     @DeleteMapping("/{id}")
-    public Result<Void> deleteAccountBook(@PathVariable Long id,
-                                          @RequestParam(required = false, defaultValue = "false") boolean force) {
+    public Result<AccountBookDeleteJobVO> deleteAccountBook(@PathVariable Long id,
+                                                            @RequestParam(required = false, defaultValue = "false") boolean force) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        AccountBookDeleteJobVO job = accountBookService.deleteAccountBook(userId, id, force);
+        return Result.success(job != null ? "账本删除中" : "删除成功", job);
+    }
+
+    /**
+     * 获取账本删除任务进度
+     *
+     * @param jobId 任务ID
+     * @return 删除任务
+     */
+    @GetMapping("/delete-jobs/{jobId}")
+    public Result<AccountBookDeleteJobVO> getDeleteJob(@PathVariable Long jobId) {
         Long userId = SecurityUtils.getCurrentUserId();
-        accountBookService.deleteAccountBook(userId, id, force);
-        return Result.success("删除成功", null);
+        AccountBookDeleteJobVO job = accountBookService.getDeleteJob(userId, jobId);
+        return Result.success(job);
     }
 
     /**
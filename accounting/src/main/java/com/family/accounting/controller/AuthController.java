@@ -3,6 +3,7 @@ package com.family.accounting.controller;
 import com.family.accounting.dto.*;
 import com.family.accounting.security.SecurityUtils;
 import com.family.accounting.service.CaptchaService;
+import com.family.accounting.service.RefreshTokenService;
 import com.family.accounting.service.TokenBlacklistService;
 import com.family.accounting.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,9 @@ public class AuthController {
     @Autowired
     private CaptchaService captchaService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     /**
      * 获取图片验证码
      *
@@ -65,6 +69,19 @@ public class AuthController {
         return Result.success("登录成功", tokenVO);
     }
 
+    /**
+     * 刷新访问令牌
+     * 使用刷新令牌换取新的访问令牌，刷新令牌同时轮换，旧令牌不可再次使用
+     *
+     * @param dto 刷新令牌
+     * @return 新的Token信息
+     */
+    @PostMapping("/refresh")
+    public Result<TokenVO> refresh(@Valid @RequestBody RefreshTokenDTO dto) {
+        TokenVO tokenVO = refreshTokenService.refresh(dto.getRefreshToken());
+        return Result.success(tokenVO);
+    }
+
     /**
      * 获取当前用户信息
      *
@@ -80,11 +97,12 @@ public class AuthController {
     /**
      * 用户登出
      *
+     * @param dto     刷新令牌（可选，提供时一并撤销）
      * @param request HTTP请求对象
      * @return 成功响应
      */
     @PostMapping("/logout")
-    public Result<Void> logout(HttpServletRequest request) {
+    public Result<Void> logout(@RequestBody(required = false) RefreshTokenDTO dto, HttpServletRequest request) {
         try {
             // 获取当前用户ID
             Long userId = SecurityUtils.getCurrentUserId();
@@ -96,6 +114,11 @@ public class AuthController {
                 // 将当前令牌加入黑名单
                 tokenBlacklistService.addToBlacklist(token, userId, "用户登出");
             }
+
+            // 撤销刷新令牌，使该登录会话无法再刷新
+            if (dto != null && StringUtils.hasText(dto.getRefreshToken())) {
+                refreshTokenService.revoke(dto.getRefreshToken());
+            }
         } catch (Exception e) {
             // 登出失败不影响响应，只记录日志
             // 客户端删除token即可实现登出效果
@@ -1,16 +1,23 @@
 package com.family.accounting.controller;
 
-import com.family.accounting.config.DefaultCategoryConfig;
 import com.family.accounting.dto.*;
 import com.family.accounting.security.SecurityUtils;
 import com.family.accounting.service.CategoryService;
+import com.family.accounting.service.CategoryTreeSnapshot;
+import com.family.accounting.service.IconCatalogService;
+import com.family.accounting.util.ETagUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 分类管理控制器
@@ -19,64 +26,102 @@ import java.util.Map;
 @RequestMapping("/api/category")
 public class CategoryController {
 
+    /**
+     * 图标目录的缓存天数
+     */
+    private static final long ICON_MAX_AGE_DAYS = 7;
+
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private IconCatalogService iconCatalogService;
+
     /**
      * 获取分类树
+     * 不含交易数量时返回缓存的分类树并带上ETag，If-None-Match匹配时返回304；
+     * 交易数量随交易变化，含交易数量时每次重新查询
      *
-     * @param type 类型: 1-支出 2-收入，为空则获取所有
+     * @param type        类型: 1-支出 2-收入，为空则获取所有
+     * @param withCounts  是否返回关联交易数量（分类选择器等不展示数量的场景传false）
+     * @param ifNoneMatch 客户端缓存的ETag
      * @return 分类树列表
      */
     @GetMapping
-    public Result<List<CategoryVO>> getCategoryTree(@RequestParam(required = false) Integer type) {
+    public ResponseEntity<?> getCategoryTree(@RequestParam(required = false) Integer type,
+                                             @RequestParam(defaultValue = "true") boolean withCounts,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                     String ifNoneMatch) {
         Long userId = SecurityUtils.getCurrentUserId();
-        List<CategoryVO> categories = categoryService.getCategoryTree(userId, type);
-        return Result.success(categories);
+        if (withCounts) {
+            List<CategoryVO> categories = categoryService.getCategoryTree(userId, type, true);
+            return ResponseEntity.ok(Result.success(categories));
+        }
+
+        CategoryTreeSnapshot snapshot = categoryService.getCategoryTreeSnapshot(userId, type);
+        // 每次使用前向服务端确认，响应只允许浏览器缓存
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (ETagUtils.matches(ifNoneMatch, snapshot.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getBody());
     }
 
     /**
      * 获取分类列表（扁平结构）
      *
-     * @param type 类型: 1-支出 2-收入，为空则获取所有
+     * @param type       类型: 1-支出 2-收入，为空则获取所有
+     * @param withCounts 是否返回关联交易数量
      * @return 分类列表
      */
     @GetMapping("/list")
-    public Result<List<CategoryVO>> getCategoryList(@RequestParam(required = false) Integer type) {
+    public Result<List<CategoryVO>> getCategoryList(@RequestParam(required = false) Integer type,
+                                                    @RequestParam(defaultValue = "true") boolean withCounts) {
         Long userId = SecurityUtils.getCurrentUserId();
-        List<CategoryVO> categories = categoryService.getCategoryList(userId, type);
+        List<CategoryVO> categories = categoryService.getCategoryList(userId, type, withCounts);
         return Result.success(categories);
     }
 
     /**
      * 获取可用图标列表
-     * 返回按分类组织的图标列表，供前端图标选择器使用
+     * 返回按分类组织的图标列表，供前端图标选择器使用；
+     * 响应在启动时预先序列化，支持gzip和If-None-Match，客户端可长期缓存
      *
+     * @param ifNoneMatch    客户端缓存的ETag
+     * @param acceptEncoding 客户端支持的编码
      * @return 按分类组织的图标列表
      */
     @GetMapping("/icons")
-    public Result<List<IconCategoryVO>> getAvailableIcons() {
-        List<IconCategoryVO> result = new ArrayList<>();
-
-        for (Map.Entry<String, List<DefaultCategoryConfig.IconInfo>> entry : 
-                DefaultCategoryConfig.ICON_LIBRARY.entrySet()) {
-            String categoryName = entry.getKey();
-            List<DefaultCategoryConfig.IconInfo> iconInfos = entry.getValue();
-
-            List<IconVO> icons = new ArrayList<>();
-            for (DefaultCategoryConfig.IconInfo iconInfo : iconInfos) {
-                icons.add(new IconVO(
-                        iconInfo.getId(),
-                        iconInfo.getName(),
-                        categoryName,
-                        iconInfo.getType()
-                ));
-            }
-
-            result.add(new IconCategoryVO(categoryName, icons));
+    public ResponseEntity<byte[]> getAvailableIcons(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        // 图标库只随发布变化，内容相同的用户共享同一份响应
+        CacheControl cacheControl = CacheControl.maxAge(ICON_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic();
+        if (iconCatalogService.isNotModified(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(iconCatalogService.getEtag(gzip))
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
         }
 
-        return Result.success(result);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(iconCatalogService.getEtag(gzip))
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(iconCatalogService.getBody(gzip));
     }
 
     /**
@@ -132,6 +177,21 @@ public class CategoryController {
         return Result.success("删除成功", null);
     }
 
+    /**
+     * 合并分类
+     * 源分类及其子分类的交易全部转入目标分类，随后删除源分类及其子分类
+     *
+     * @param id  源分类ID
+     * @param dto 目标分类
+     * @return 合并后的目标分类
+     */
+    @PostMapping("/{id}/merge")
+    public Result<CategoryVO> mergeCategory(@PathVariable Long id, @Valid @RequestBody CategoryMergeDTO dto) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        CategoryVO category = categoryService.mergeCategory(userId, id, dto.getTargetId());
+        return Result.success("合并成功", category);
+    }
+
     /**
      * 检查分类是否可删除
      *
@@ -144,4 +204,25 @@ public class CategoryController {
         boolean canDelete = categoryService.canDeleteCategory(userId, id);
         return Result.success(canDelete);
     }
+
+    /**
+     * 客户端是否接受gzip编码（q=0表示明确拒绝）
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equals(parts[0].trim())) {
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].replace(" ", "").matches("q=0(\\.0{0,3})?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,11 +1,15 @@
 package com.family.accounting.controller;
 
 import com.family.accounting.dto.FilterConditionVO;
+import com.family.accounting.dto.PageVO;
 import com.family.accounting.dto.Result;
 import com.family.accounting.dto.SavedFilterDTO;
 import com.family.accounting.dto.SavedFilterVO;
+import com.family.accounting.dto.TransactionVO;
 import com.family.accounting.service.FilterService;
+import com.family.accounting.util.CancellableSearchTasks;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -18,9 +22,11 @@ import java.util.List;
 public class FilterController {
     
     private final FilterService filterService;
+    private final CancellableSearchTasks cancellableSearchTasks;
     
-    public FilterController(FilterService filterService) {
+    public FilterController(FilterService filterService, CancellableSearchTasks cancellableSearchTasks) {
         this.filterService = filterService;
+        this.cancellableSearchTasks = cancellableSearchTasks;
     }
     
     /**
@@ -84,6 +90,22 @@ public class FilterController {
         return Result.success(filterCondition);
     }
     
+    /**
+     * 在服务端执行筛选条件
+     * 与搜索接口一样在搜索请求线程池中执行，超时或客户端断开时取消查询
+     * 
+     * @param id 筛选条件ID
+     * @param page 页码
+     * @param size 每页数量
+     * @return 搜索结果
+     */
+    @GetMapping("/{id}/execute")
+    public WebAsyncTask<Result<PageVO<TransactionVO>>> executeFilter(@PathVariable Long id,
+                                                                     @RequestParam(defaultValue = "1") int page,
+                                                                     @RequestParam(defaultValue = "20") int size) {
+        return cancellableSearchTasks.create(() -> Result.success(filterService.executeFilter(id, page, size)));
+    }
+    
     /**
      * 删除筛选条件
      * 
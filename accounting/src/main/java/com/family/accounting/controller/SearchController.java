@@ -1,12 +1,15 @@
 package com.family.accounting.controller;
 
-import com.family.accounting.dto.PageVO;
+import com.family.accounting.dto.AmountDistributionVO;
 import com.family.accounting.dto.Result;
 import com.family.accounting.dto.SearchRequestDTO;
-import com.family.accounting.dto.TransactionVO;
+import com.family.accounting.dto.SearchResultVO;
+import com.family.accounting.dto.TrendingKeywordVO;
 import com.family.accounting.entity.SearchHistory;
 import com.family.accounting.service.SearchService;
+import com.family.accounting.util.CancellableSearchTasks;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -19,21 +22,33 @@ import java.util.List;
 public class SearchController {
     
     private final SearchService searchService;
+    private final CancellableSearchTasks cancellableSearchTasks;
     
-    public SearchController(SearchService searchService) {
+    public SearchController(SearchService searchService, CancellableSearchTasks cancellableSearchTasks) {
         this.searchService = searchService;
+        this.cancellableSearchTasks = cancellableSearchTasks;
     }
     
     /**
      * 搜索交易记录
      * 
      * @param request 搜索请求
-     * @return 搜索结果
+     * @return 搜索结果（includeFacets 为 true 时附带分面统计）
      */
     @PostMapping("/transactions")
-    public Result<PageVO<TransactionVO>> searchTransactions(@Valid @RequestBody SearchRequestDTO request) {
-        PageVO<TransactionVO> result = searchService.searchTransactions(request);
-        return Result.success(result);
+    public WebAsyncTask<Result<SearchResultVO>> searchTransactions(@Valid @RequestBody SearchRequestDTO request) {
+        return cancellableSearchTasks.create(() -> Result.success(searchService.searchTransactions(request)));
+    }
+    
+    /**
+     * 统计搜索结果的金额分布（直方图与 p50/p90/p99）
+     * 
+     * @param request 搜索请求（分页参数忽略）
+     * @return 金额分布
+     */
+    @PostMapping("/amount-distribution")
+    public WebAsyncTask<Result<AmountDistributionVO>> getAmountDistribution(@Valid @RequestBody SearchRequestDTO request) {
+        return cancellableSearchTasks.create(() -> Result.success(searchService.getAmountDistribution(request)));
     }
     
     /**
@@ -48,6 +63,18 @@ public class SearchController {
         return Result.success(suggestions);
     }
     
+    /**
+     * 获取家庭热门搜索关键词
+     * 
+     * @param limit 返回数量限制（默认10）
+     * @return 热门关键词列表
+     */
+    @GetMapping("/trending")
+    public Result<List<TrendingKeywordVO>> getTrendingKeywords(@RequestParam(defaultValue = "10") int limit) {
+        List<TrendingKeywordVO> keywords = searchService.getTrendingKeywords(limit);
+        return Result.success(keywords);
+    }
+    
     /**
      * 获取搜索历史
      * 
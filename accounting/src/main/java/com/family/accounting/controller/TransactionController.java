@@ -3,6 +3,7 @@ package com.family.accounting.controller;
 import com.family.accounting.dto.PageVO;
 import com.family.accounting.dto.Result;
 import com.family.accounting.dto.TransactionDTO;
+import com.family.accounting.dto.TransactionMoveDTO;
 import com.family.accounting.dto.TransactionVO;
 import com.family.accounting.security.SecurityUtils;
 import com.family.accounting.service.TransactionService;
@@ -100,4 +101,17 @@ public class TransactionController {
         transactionService.deleteTransaction(userId, id);
         return Result.success("删除成功", null);
     }
+
+    /**
+     * 批量移动交易记录到其他账本
+     *
+     * @param dto 源账本、目标账本及筛选条件
+     * @return 移动的交易数量
+     */
+    @PostMapping("/move")
+    public Result<Integer> moveTransactions(@Valid @RequestBody TransactionMoveDTO dto) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        int moved = transactionService.moveTransactions(userId, dto);
+        return Result.success("移动成功", moved);
+    }
 }
@@ -0,0 +1,35 @@
+package com.family.accounting.dto;
+
+import lombok.Data;
+
+/**
+ * 账本删除任务视图对象
+ */
+@Data
+public class AccountBookDeleteJobVO {
+
+    /**
+     * 任务ID
+     */
+    private Long id;
+
+    /**
+     * 账本ID
+     */
+    private Long accountBookId;
+
+    /**
+     * 开始时的交易数量
+     */
+    private Integer totalCount;
+
+    /**
+     * 已删除的交易数量
+     */
+    private Integer deletedCount;
+
+    /**
+     * 是否已完成
+     */
+    private Boolean completed;
+}
@@ -0,0 +1,59 @@
+package com.family.accounting.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * 金额分布直方图桶VO
+ */
+public class AmountBucketVO {
+    
+    /**
+     * 下界（包含）
+     */
+    private BigDecimal lowerBound;
+    
+    /**
+     * 上界（不包含），为空表示无上界
+     */
+    private BigDecimal upperBound;
+    
+    /**
+     * 落入该桶的交易数量
+     */
+    private Long count;
+
+    public AmountBucketVO() {
+    }
+
+    public AmountBucketVO(BigDecimal lowerBound, BigDecimal upperBound, Long count) {
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    
+    public BigDecimal getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(BigDecimal lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public BigDecimal getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(BigDecimal upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,117 @@
+package com.family.accounting.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索结果金额分布VO（固定分桶直方图 + 分位数）
+ */
+public class AmountDistributionVO {
+    
+    /**
+     * 匹配的交易数量
+     */
+    private Long count;
+    
+    /**
+     * 金额合计
+     */
+    private BigDecimal totalAmount;
+    
+    /**
+     * 最小金额
+     */
+    private BigDecimal minAmount;
+    
+    /**
+     * 最大金额
+     */
+    private BigDecimal maxAmount;
+    
+    /**
+     * 中位数（估算值，相对误差约1%）
+     */
+    private BigDecimal p50;
+    
+    /**
+     * 90分位数（估算值，相对误差约1%）
+     */
+    private BigDecimal p90;
+    
+    /**
+     * 99分位数（估算值，相对误差约1%）
+     */
+    private BigDecimal p99;
+    
+    /**
+     * 固定分桶直方图
+     */
+    private List<AmountBucketVO> buckets = new ArrayList<>();
+
+    // Getters and Setters
+    
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public void setMinAmount(BigDecimal minAmount) {
+        this.minAmount = minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public BigDecimal getP50() {
+        return p50;
+    }
+
+    public void setP50(BigDecimal p50) {
+        this.p50 = p50;
+    }
+
+    public BigDecimal getP90() {
+        return p90;
+    }
+
+    public void setP90(BigDecimal p90) {
+        this.p90 = p90;
+    }
+
+    public BigDecimal getP99() {
+        return p99;
+    }
+
+    public void setP99(BigDecimal p99) {
+        this.p99 = p99;
+    }
+
+    public List<AmountBucketVO> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<AmountBucketVO> buckets) {
+        this.buckets = buckets;
+    }
+}
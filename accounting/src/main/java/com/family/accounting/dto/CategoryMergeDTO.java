@@ -0,0 +1,18 @@
+package com.family.accounting.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * 分类合并请求DTO
+ */
+@Data
+public class CategoryMergeDTO {
+
+    /**
+     * 目标分类ID，源分类及其子分类的交易全部转入该分类
+     */
+    @NotNull(message = "目标分类不能为空")
+    private Long targetId;
+}
@@ -0,0 +1,51 @@
+package com.family.accounting.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 搜索分面统计VO（用于筛选面板展示各筛选项的命中数量）
+ */
+public class SearchFacetsVO {
+    
+    /**
+     * 按分类计数（子分类汇总到顶级分类）：分类ID -> 交易数量
+     */
+    private Map<Long, Long> categoryCounts = new LinkedHashMap<>();
+    
+    /**
+     * 按记录人计数：用户ID -> 交易数量
+     */
+    private Map<Long, Long> memberCounts = new LinkedHashMap<>();
+    
+    /**
+     * 按交易类型计数：类型 -> 交易数量
+     */
+    private Map<Integer, Long> typeCounts = new LinkedHashMap<>();
+
+    // Getters and Setters
+    
+    public Map<Long, Long> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    public void setCategoryCounts(Map<Long, Long> categoryCounts) {
+        this.categoryCounts = categoryCounts;
+    }
+
+    public Map<Long, Long> getMemberCounts() {
+        return memberCounts;
+    }
+
+    public void setMemberCounts(Map<Long, Long> memberCounts) {
+        this.memberCounts = memberCounts;
+    }
+
+    public Map<Integer, Long> getTypeCounts() {
+        return typeCounts;
+    }
+
+    public void setTypeCounts(Map<Integer, Long> typeCounts) {
+        this.typeCounts = typeCounts;
+    }
+}
@@ -63,6 +63,11 @@ public class SearchRequestDTO {
      * 每页数量
      */
     private Integer size = 20;
+    
+    /**
+     * 是否同时返回分面统计（按分类、成员、类型计数）
+     */
+    private Boolean includeFacets = false;
 
     // Getters and Setters
     
@@ -153,4 +158,12 @@ public class SearchRequestDTO {
     public void setSize(Integer size) {
         this.size = size;
     }
+
+    public Boolean getIncludeFacets() {
+        return includeFacets;
+    }
+
+    public void setIncludeFacets(Boolean includeFacets) {
+        this.includeFacets = includeFacets;
+    }
 }
@@ -0,0 +1,38 @@
+package com.family.accounting.dto;
+
+/**
+ * 搜索结果VO（分页结果 + 可选的分面统计）
+ */
+public class SearchResultVO extends PageVO<TransactionVO> {
+    
+    /**
+     * 分面统计（仅在请求 includeFacets 时返回）
+     */
+    private SearchFacetsVO facets;
+    
+    /**
+     * 根据分页结果创建搜索结果
+     */
+    public static SearchResultVO of(PageVO<TransactionVO> page, SearchFacetsVO facets) {
+        SearchResultVO result = new SearchResultVO();
+        result.setList(page.getList());
+        result.setPage(page.getPage());
+        result.setSize(page.getSize());
+        result.setTotal(page.getTotal());
+        result.setTotalPages(page.getTotalPages());
+        result.setHasNext(page.getHasNext());
+        result.setHasPrevious(page.getHasPrevious());
+        result.setFacets(facets);
+        return result;
+    }
+
+    // Getters and Setters
+    
+    public SearchFacetsVO getFacets() {
+        return facets;
+    }
+
+    public void setFacets(SearchFacetsVO facets) {
+        this.facets = facets;
+    }
+}
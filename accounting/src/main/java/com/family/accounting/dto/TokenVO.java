@@ -9,10 +9,20 @@ import lombok.Data;
 public class TokenVO {
 
     /**
-     * JWT Token
+     * JWT访问令牌
      */
     private String token;
 
+    /**
+     * 刷新令牌（每次刷新后轮换）
+     */
+    private String refreshToken;
+
+    /**
+     * 访问令牌有效期（秒）
+     */
+    private Long expiresIn;
+
     /**
      * 用户ID
      */
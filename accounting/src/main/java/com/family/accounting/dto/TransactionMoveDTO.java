@@ -0,0 +1,47 @@
+package com.family.accounting.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 批量移动交易记录请求DTO
+ * 筛选条件均为可选，不指定时移动源账本的全部交易
+ */
+@Data
+public class TransactionMoveDTO {
+
+    /**
+     * 源账本ID
+     */
+    @NotNull(message = "源账本不能为空")
+    private Long sourceAccountBookId;
+
+    /**
+     * 目标账本ID
+     */
+    @NotNull(message = "目标账本不能为空")
+    private Long targetAccountBookId;
+
+    /**
+     * 开始日期
+     */
+    private LocalDate startDate;
+
+    /**
+     * 结束日期
+     */
+    private LocalDate endDate;
+
+    /**
+     * 分类ID列表（包含子分类）
+     */
+    private List<Long> categoryIds;
+
+    /**
+     * 记录人ID列表
+     */
+    private List<Long> memberIds;
+}
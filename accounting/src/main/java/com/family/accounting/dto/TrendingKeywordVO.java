@@ -0,0 +1,43 @@
+package com.family.accounting.dto;
+
+/**
+ * 热门搜索关键词VO
+ */
+public class TrendingKeywordVO {
+    
+    /**
+     * 搜索关键词
+     */
+    private String keyword;
+    
+    /**
+     * 热度（近期搜索次数，随时间衰减）
+     */
+    private Long score;
+
+    public TrendingKeywordVO() {
+    }
+
+    public TrendingKeywordVO(String keyword, Long score) {
+        this.keyword = keyword;
+        this.score = score;
+    }
+
+    // Getters and Setters
+    
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public Long getScore() {
+        return score;
+    }
+
+    public void setScore(Long score) {
+        this.score = score;
+    }
+}
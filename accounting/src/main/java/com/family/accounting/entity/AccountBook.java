@@ -31,6 +31,21 @@ public class AccountBook {
      */
     private Integer isDefault;
 
+    /**
+     * 数据版本号，账本内交易记录变更时递增
+     */
+    private Long dataVersion;
+
+    /**
+     * 关联交易数量，交易增删改时同步维护
+     */
+    private Integer transactionCount;
+
+    /**
+     * 状态: 0-正常 1-删除中
+     */
+    private Integer status;
+
     /**
      * 创建时间
      */
@@ -40,4 +55,8 @@ public class AccountBook {
      * 更新时间
      */
     private LocalDateTime updatedAt;
+
+    // 账本状态常量
+    public static final int STATUS_NORMAL = 0;
+    public static final int STATUS_DELETING = 1;
 }
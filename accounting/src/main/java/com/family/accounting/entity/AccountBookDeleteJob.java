@@ -0,0 +1,57 @@
+package com.family.accounting.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 账本删除任务实体类
+ * 对应数据库表 t_account_book_delete_job
+ */
+@Data
+public class AccountBookDeleteJob {
+
+    /**
+     * 任务ID
+     */
+    private Long id;
+
+    /**
+     * 账本ID
+     */
+    private Long accountBookId;
+
+    /**
+     * 家庭ID
+     */
+    private Long familyId;
+
+    /**
+     * 开始时的交易数量
+     */
+    private Integer totalCount;
+
+    /**
+     * 已删除的交易数量
+     */
+    private Integer deletedCount;
+
+    /**
+     * 状态: 0-进行中 1-已完成
+     */
+    private Integer status;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+    // 任务状态常量
+    public static final int STATUS_RUNNING = 0;
+    public static final int STATUS_COMPLETED = 1;
+}
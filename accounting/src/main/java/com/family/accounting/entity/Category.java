@@ -46,6 +46,11 @@ public class Category {
      */
     private Integer sortOrder;
 
+    /**
+     * 关联交易数量，交易增删改时同步维护
+     */
+    private Integer transactionCount;
+
     /**
      * 创建时间
      */
@@ -26,6 +26,16 @@ public class Family {
      */
     private Long adminId;
 
+    /**
+     * 分类版本号，家庭分类变更时递增
+     */
+    private Long categoryVersion;
+
+    /**
+     * 创建默认分类时使用的模板版本号
+     */
+    private Integer categoryTemplateVersion;
+
     /**
      * 创建时间
      */
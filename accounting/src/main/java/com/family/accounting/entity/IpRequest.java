@@ -10,13 +10,19 @@ public class IpRequest {
     private Long id;
     private String ipAddress;
     private String requestPath;
+    private Integer sampleWeight;
     private LocalDateTime createdAt;
     
     public IpRequest() {}
     
     public IpRequest(String ipAddress, String requestPath) {
+        this(ipAddress, requestPath, 1);
+    }
+    
+    public IpRequest(String ipAddress, String requestPath, int sampleWeight) {
         this.ipAddress = ipAddress;
         this.requestPath = requestPath;
+        this.sampleWeight = sampleWeight;
         this.createdAt = LocalDateTime.now();
     }
     
@@ -44,6 +50,14 @@ public class IpRequest {
         this.requestPath = requestPath;
     }
     
+    public Integer getSampleWeight() {
+        return sampleWeight;
+    }
+    
+    public void setSampleWeight(Integer sampleWeight) {
+        this.sampleWeight = sampleWeight;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,53 @@
+package com.family.accounting.entity;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 刷新令牌实体类
+ * 对应数据库表 t_refresh_token，只保存令牌的hash值
+ */
+@Data
+public class RefreshToken {
+
+    /**
+     * 记录ID
+     */
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 令牌SHA-256 hash值
+     */
+    private String tokenHash;
+
+    /**
+     * 令牌链ID，同一次登录轮换产生的令牌共用
+     */
+    private String chainId;
+
+    /**
+     * 过期时间
+     */
+    private LocalDateTime expiredAt;
+
+    /**
+     * 轮换使用时间，未使用时为null
+     */
+    private LocalDateTime usedAt;
+
+    /**
+     * 撤销时间，未撤销时为null
+     */
+    private LocalDateTime revokedAt;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+}
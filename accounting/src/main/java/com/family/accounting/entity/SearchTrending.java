@@ -0,0 +1,90 @@
+package com.family.accounting.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 家庭热门搜索关键词实体类
+ * 对应数据库表 t_search_trending，是内存高频项草图的持久化快照
+ */
+public class SearchTrending {
+    
+    /**
+     * 记录ID
+     */
+    private Long id;
+    
+    /**
+     * 家庭ID
+     */
+    private Long familyId;
+    
+    /**
+     * 搜索关键词
+     */
+    private String keyword;
+    
+    /**
+     * 热度计数（已按时间衰减）
+     */
+    private Long score;
+    
+    /**
+     * 计数误差上界
+     */
+    private Long scoreError;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(Long familyId) {
+        this.familyId = familyId;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public Long getScore() {
+        return score;
+    }
+
+    public void setScore(Long score) {
+        this.score = score;
+    }
+
+    public Long getScoreError() {
+        return scoreError;
+    }
+
+    public void setScoreError(Long scoreError) {
+        this.scoreError = scoreError;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -36,6 +36,11 @@ public class User {
      */
     private String avatar;
 
+    /**
+     * 令牌生效起点，签发时间早于该时间的令牌全部失效
+     */
+    private LocalDateTime tokenValidAfter;
+
     /**
      * 创建时间
      */
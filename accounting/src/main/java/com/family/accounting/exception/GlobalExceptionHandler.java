@@ -3,6 +3,7 @@ package com.family.accounting.exception;
 import com.family.accounting.dto.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +38,24 @@ public class GlobalExceptionHandler {
         return Result.error(e.getCode(), e.getMessage());
     }
 
+    /**
+     * 处理查询超时异常（语句超过 MyBatis timeout 被驱动中止）
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public Result<Void> handleQueryTimeoutException(QueryTimeoutException e) {
+        logger.warn("查询超时: {}", e.getMessage());
+        return Result.error(504, "查询超时，请缩小查询范围后重试");
+    }
+
+    /**
+     * 处理线程池拒绝异常（如搜索请求线程池队列已满）
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public Result<Void> handleRejectedExecutionException(RejectedExecutionException e) {
+        logger.warn("任务被拒绝: {}", e.getMessage());
+        return Result.error(503, "系统繁忙，请稍后重试");
+    }
+
     /**
      * 处理参数校验异常（@Valid注解）
      */
@@ -0,0 +1,54 @@
+package com.family.accounting.mapper;
+
+import com.family.accounting.entity.AccountBookDeleteJob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 账本删除任务数据访问接口
+ */
+@Mapper
+public interface AccountBookDeleteJobMapper {
+
+    /**
+     * 根据ID查询任务
+     *
+     * @param id 任务ID
+     * @return 任务实体
+     */
+    AccountBookDeleteJob findById(@Param("id") Long id);
+
+    /**
+     * 查询所有进行中的任务
+     *
+     * @return 任务列表
+     */
+    List<AccountBookDeleteJob> findRunning();
+
+    /**
+     * 插入新任务
+     *
+     * @param job 任务实体
+     * @return 影响行数
+     */
+    int insert(AccountBookDeleteJob job);
+
+    /**
+     * 累加已删除的交易数量
+     *
+     * @param id    任务ID
+     * @param delta 本批删除的数量
+     * @return 影响行数
+     */
+    int addDeletedCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 将任务标记为已完成
+     *
+     * @param id 任务ID
+     * @return 影响行数
+     */
+    int markCompleted(@Param("id") Long id);
+}
@@ -13,7 +13,7 @@ import java.util.List;
 public interface AccountBookMapper {
 
     /**
-     * 根据ID查询账本
+     * 根据ID查询账本（不含删除中的账本）
      *
      * @param id 账本ID
      * @return 账本实体
@@ -21,7 +21,7 @@ public interface AccountBookMapper {
     AccountBook findById(@Param("id") Long id);
 
     /**
-     * 根据家庭ID查询所有账本
+     * 根据家庭ID查询所有账本（不含删除中的账本）
      *
      * @param familyId 家庭ID
      * @return 账本列表
@@ -60,6 +60,14 @@ public interface AccountBookMapper {
      */
     int deleteById(@Param("id") Long id);
 
+    /**
+     * 将账本标记为删除中，标记后账本对查询不可见
+     *
+     * @param id 账本ID
+     * @return 影响行数，账本已在删除中时为0
+     */
+    int markDeleting(@Param("id") Long id);
+
     /**
      * 设置默认账本（先清除其他默认）
      *
@@ -77,6 +85,24 @@ public interface AccountBookMapper {
      */
     int clearDefault(@Param("familyId") Long familyId);
 
+    /**
+     * 递增账本数据版本号
+     * 账本内交易记录新增、修改、删除时调用，用于使基于该账本数据的缓存失效
+     *
+     * @param id 账本ID
+     * @return 影响行数
+     */
+    int incrementDataVersion(@Param("id") Long id);
+
+    /**
+     * 递增家庭所有账本的数据版本号
+     * 跨账本批量修改交易（如合并分类）时调用
+     *
+     * @param familyId 家庭ID
+     * @return 影响行数
+     */
+    int incrementDataVersionByFamilyId(@Param("familyId") Long familyId);
+
     /**
      * 统计家庭账本数量
      *
@@ -86,10 +112,27 @@ public interface AccountBookMapper {
     int countByFamilyId(@Param("familyId") Long familyId);
 
     /**
-     * 统计账本下的交易数量
+     * 增减账本的关联交易数量
+     *
+     * @param id    账本ID
+     * @param delta 增减数量
+     * @return 影响行数
+     */
+    int adjustTransactionCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 查询最大账本ID
+     *
+     * @return 最大账本ID，没有账本时为0
+     */
+    long findMaxId();
+
+    /**
+     * 按实际交易数量修正ID区间内账本的关联交易数量
      *
-     * @param accountBookId 账本ID
-     * @return 交易数量
+     * @param fromId 起始账本ID（包含）
+     * @param toId   结束账本ID（包含）
+     * @return 修正的账本数量
      */
-    int countTransactionsByAccountBookId(@Param("accountBookId") Long accountBookId);
+    int reconcileTransactionCounts(@Param("fromId") long fromId, @Param("toId") long toId);
 }
@@ -53,6 +53,14 @@ public interface CategoryMapper {
      */
     int insert(Category category);
 
+    /**
+     * 批量插入分类，生成的ID按顺序回填到各分类实体
+     *
+     * @param list 分类实体列表
+     * @return 影响行数
+     */
+    int batchInsert(@Param("list") List<Category> list);
+
     /**
      * 更新分类
      *
@@ -70,12 +78,53 @@ public interface CategoryMapper {
     int deleteById(@Param("id") Long id);
 
     /**
-     * 统计分类下的交易数量
+     * 批量删除分类
      *
-     * @param categoryId 分类ID
-     * @return 交易数量
+     * @param ids 分类ID列表
+     * @return 影响行数
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 增减分类的关联交易数量
+     *
+     * @param id    分类ID
+     * @param delta 增减数量
+     * @return 影响行数
+     */
+    int adjustTransactionCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /**
+     * 按账本内交易的分类分布扣减分类的关联交易数量（账本删除、交易随之级联删除前调用）
+     *
+     * @param accountBookId 账本ID
+     * @return 影响行数
+     */
+    int subtractTransactionCountsByAccountBookId(@Param("accountBookId") Long accountBookId);
+
+    /**
+     * 扣减指定交易对应分类的关联交易数量（需在删除这些交易前调用）
+     *
+     * @param transactionIds 交易ID列表
+     * @return 影响行数
+     */
+    int subtractTransactionCountsByTransactionIds(@Param("transactionIds") List<Long> transactionIds);
+
+    /**
+     * 查询最大分类ID
+     *
+     * @return 最大分类ID，没有分类时为0
+     */
+    long findMaxId();
+
+    /**
+     * 按实际交易数量修正ID区间内分类的关联交易数量
+     *
+     * @param fromId 起始分类ID（包含）
+     * @param toId   结束分类ID（包含）
+     * @return 修正的分类数量
      */
-    int countTransactionsByCategoryId(@Param("categoryId") Long categoryId);
+    int reconcileTransactionCounts(@Param("fromId") long fromId, @Param("toId") long toId);
 
     /**
      * 统计家庭分类数量
@@ -4,6 +4,8 @@ import com.family.accounting.entity.Family;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
 /**
  * 家庭数据访问接口
  */
@@ -18,6 +20,14 @@ public interface FamilyMapper {
      */
     Family findById(@Param("id") Long id);
 
+    /**
+     * 根据ID列表批量查询家庭
+     *
+     * @param ids 家庭ID列表（不能为空）
+     * @return 家庭列表
+     */
+    List<Family> findByIds(@Param("ids") List<Long> ids);
+
     /**
      * 根据管理员ID查询家庭
      *
@@ -42,6 +52,23 @@ public interface FamilyMapper {
      */
     int update(Family family);
 
+    /**
+     * 查询家庭分类版本号
+     *
+     * @param id 家庭ID
+     * @return 分类版本号，家庭不存在返回null
+     */
+    Long findCategoryVersion(@Param("id") Long id);
+
+    /**
+     * 递增家庭分类版本号
+     * 分类新增、修改、删除时调用，用于使基于分类结构的缓存失效
+     *
+     * @param id 家庭ID
+     * @return 影响行数
+     */
+    int incrementCategoryVersion(@Param("id") Long id);
+
     /**
      * 删除家庭
      *
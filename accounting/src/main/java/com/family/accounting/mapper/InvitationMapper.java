@@ -4,6 +4,7 @@ import com.family.accounting.entity.Invitation;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -62,6 +63,15 @@ public interface InvitationMapper {
      */
     int updateStatus(@Param("id") Long id, @Param("status") Integer status);
 
+    /**
+     * 将已过期的待处理邀请批量标记为已过期
+     *
+     * @param before 过期时间早于该时间的邀请视为已过期
+     * @param limit  最多更新的数量
+     * @return 影响行数
+     */
+    int expireBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
     /**
      * 删除邀请
      *
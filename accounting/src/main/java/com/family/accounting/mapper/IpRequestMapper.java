@@ -22,4 +22,28 @@ public interface IpRequestMapper {
      */
     int countRequestsByIp(@Param("ipAddress") String ipAddress, 
                          @Param("startTime") LocalDateTime startTime);
+
+    /**
+     * 查询最早的请求记录时间
+     */
+    LocalDateTime findEarliestCreatedAt();
+
+    /**
+     * 将时间范围内的请求按IP、小时汇总到 t_ip_request_hourly（覆盖写入，可重复执行）
+     * 明细是按采样率写入的，请求数按每条记录的采样权重求和估算
+     */
+    int rollupHourly(@Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+
+    /**
+     * 删除指定时间之前的请求记录（单批）
+     */
+    int deleteBefore(@Param("before") LocalDateTime before,
+                     @Param("limit") int limit);
+
+    /**
+     * 删除指定时间之前的小时汇总（单批）
+     */
+    int deleteHourlyBefore(@Param("before") LocalDateTime before,
+                           @Param("limit") int limit);
 }
\ No newline at end of file
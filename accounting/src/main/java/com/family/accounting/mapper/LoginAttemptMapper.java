@@ -44,4 +44,34 @@ public interface LoginAttemptMapper {
      * 获取指定手机号最后一次失败登录的时间
      */
     LocalDateTime getLastFailedAttemptTime(@Param("phone") String phone);
+
+    /**
+     * 查询指定手机号在某时间之后最近的若干次失败登录时间
+     */
+    List<LocalDateTime> findRecentFailedAttemptTimes(@Param("phone") String phone,
+                                                     @Param("since") LocalDateTime since,
+                                                     @Param("limit") int limit);
+
+    /**
+     * 查询最早的登录尝试时间
+     */
+    LocalDateTime findEarliestCreatedAt();
+
+    /**
+     * 将时间范围内的登录尝试按手机号、小时汇总到 t_login_attempt_hourly（覆盖写入，可重复执行）
+     */
+    int rollupHourly(@Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+
+    /**
+     * 删除指定时间之前的登录尝试记录（单批）
+     */
+    int deleteBefore(@Param("before") LocalDateTime before,
+                     @Param("limit") int limit);
+
+    /**
+     * 删除指定时间之前的小时汇总（单批）
+     */
+    int deleteHourlyBefore(@Param("before") LocalDateTime before,
+                           @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.family.accounting.mapper;
+
+import com.family.accounting.entity.RefreshToken;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * 刷新令牌数据访问层
+ */
+@Mapper
+public interface RefreshTokenMapper {
+
+    /**
+     * 插入刷新令牌
+     *
+     * @param refreshToken 刷新令牌
+     * @return 影响行数
+     */
+    int insert(RefreshToken refreshToken);
+
+    /**
+     * 根据hash值查询刷新令牌并加行锁（轮换时使用，需在事务中调用）
+     *
+     * @param tokenHash 令牌hash值
+     * @return 刷新令牌
+     */
+    RefreshToken findByTokenHashForUpdate(@Param("tokenHash") String tokenHash);
+
+    /**
+     * 标记刷新令牌已使用（仅未使用且未撤销的令牌）
+     *
+     * @param id     记录ID
+     * @param usedAt 使用时间
+     * @return 影响行数
+     */
+    int markUsed(@Param("id") Long id, @Param("usedAt") LocalDateTime usedAt);
+
+    /**
+     * 撤销整条令牌链
+     *
+     * @param chainId   令牌链ID
+     * @param revokedAt 撤销时间
+     * @return 影响行数
+     */
+    int revokeChain(@Param("chainId") String chainId, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * 撤销用户的所有刷新令牌
+     *
+     * @param userId    用户ID
+     * @param revokedAt 撤销时间
+     * @return 影响行数
+     */
+    int revokeByUserId(@Param("userId") Long userId, @Param("revokedAt") LocalDateTime revokedAt);
+
+    /**
+     * 分批删除已过期的刷新令牌
+     *
+     * @param before 过期时间阈值
+     * @param limit  单批删除数量
+     * @return 删除的记录数
+     */
+    int deleteExpired(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
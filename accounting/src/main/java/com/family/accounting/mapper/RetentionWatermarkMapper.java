@@ -0,0 +1,24 @@
+package com.family.accounting.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据保留水位 Mapper
+ */
+@Mapper
+public interface RetentionWatermarkMapper {
+
+    /**
+     * 查询明细表已汇总到的时间
+     */
+    LocalDateTime findRolledUpUntil(@Param("tableName") String tableName);
+
+    /**
+     * 保存明细表已汇总到的时间
+     */
+    void saveRolledUpUntil(@Param("tableName") String tableName,
+                           @Param("rolledUpUntil") LocalDateTime rolledUpUntil);
+}
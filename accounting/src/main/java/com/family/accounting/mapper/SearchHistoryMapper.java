@@ -4,6 +4,7 @@ import com.family.accounting.entity.SearchHistory;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -80,4 +81,16 @@ public interface SearchHistoryMapper {
      */
     int deleteByUserAndFamily(@Param("userId") Long userId, 
                               @Param("familyId") Long familyId);
+    
+    /**
+     * 分批清理长期未使用且搜索次数较少的搜索历史
+     * 
+     * @param before 最后搜索时间早于该时间的记录
+     * @param maxSearchCount 搜索次数不超过该值的记录
+     * @param limit 单批删除数量
+     * @return 影响行数
+     */
+    int deleteStaleBatch(@Param("before") LocalDateTime before,
+                         @Param("maxSearchCount") int maxSearchCount,
+                         @Param("limit") int limit);
 }
@@ -0,0 +1,59 @@
+package com.family.accounting.mapper;
+
+import com.family.accounting.entity.SearchTrending;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 热门搜索关键词数据访问接口
+ */
+@Mapper
+public interface SearchTrendingMapper {
+    
+    /**
+     * 查询家庭的热门关键词快照
+     * 
+     * @param familyId 家庭ID
+     * @return 热门关键词列表（按热度降序）
+     */
+    List<SearchTrending> findByFamilyId(@Param("familyId") Long familyId);
+    
+    /**
+     * 批量累加家庭的热门关键词增量，关键词已存在时在原热度上累加
+     * 多个实例各自提交本实例的增量，不会互相覆盖
+     * 
+     * @param list 热门关键词增量列表
+     * @return 影响行数
+     */
+    int batchIncrement(@Param("list") List<SearchTrending> list);
+    
+    /**
+     * 删除家庭热度排名在前 keep 名之外的关键词
+     * 
+     * @param familyId 家庭ID
+     * @param keep     保留数量
+     * @return 删除行数
+     */
+    int deleteBeyondTop(@Param("familyId") Long familyId, @Param("keep") int keep);
+    
+    /**
+     * 分批衰减当天尚未衰减的热度
+     * 
+     * @param factor 衰减系数
+     * @param today  当天日期
+     * @param limit  单批数量
+     * @return 影响行数
+     */
+    int decayBatch(@Param("factor") double factor, @Param("today") LocalDate today, @Param("limit") int limit);
+    
+    /**
+     * 分批删除衰减到0的关键词
+     * 
+     * @param limit 单批数量
+     * @return 删除行数
+     */
+    int deleteDepletedBatch(@Param("limit") int limit);
+}
@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * JWT令牌黑名单数据访问层
@@ -28,18 +29,6 @@ public interface TokenBlacklistMapper {
      */
     boolean existsByTokenHash(@Param("tokenHash") String tokenHash);
 
-    /**
-     * 根据用户ID将所有令牌加入黑名单
-     *
-     * @param userId 用户ID
-     * @param reason 失效原因
-     * @param maxExpiredAt 最大过期时间（用于批量失效）
-     * @return 影响行数
-     */
-    int invalidateAllTokensByUserId(@Param("userId") Long userId, 
-                                   @Param("reason") String reason,
-                                   @Param("maxExpiredAt") LocalDateTime maxExpiredAt);
-
     /**
      * 清理已过期的黑名单记录
      * 删除令牌过期时间早于当前时间的记录
@@ -48,4 +37,20 @@ public interface TokenBlacklistMapper {
      * @return 删除的记录数
      */
     int cleanupExpiredTokens(@Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * 查询未过期的令牌hash（用于构建内存过滤器）
+     *
+     * @param currentTime 当前时间
+     * @return 令牌hash列表
+     */
+    List<String> findActiveTokenHashes(@Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * 查询指定时间之后加入黑名单的令牌hash（用于增量刷新内存过滤器）
+     *
+     * @param since 起始时间
+     * @return 令牌hash列表
+     */
+    List<String> findTokenHashesCreatedSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package com.family.accounting.mapper;
 import com.family.accounting.entity.Transaction;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 交易记录数据访问接口
@@ -115,6 +117,56 @@ public interface TransactionMapper {
      * @return 影响行数
      */
     int deleteByAccountBookId(@Param("accountBookId") Long accountBookId);
+
+    /**
+     * 查询并锁定账本内的一批交易ID
+     *
+     * @param accountBookId 账本ID
+     * @param limit         最多返回的数量
+     * @return 交易ID列表
+     */
+    List<Long> findIdsByAccountBookIdForUpdate(@Param("accountBookId") Long accountBookId,
+                                               @Param("limit") int limit);
+
+    /**
+     * 批量删除交易记录
+     *
+     * @param ids 交易ID列表
+     * @return 影响行数
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 将指定分类下的交易转入目标分类
+     *
+     * @param categoryIds      源分类ID列表
+     * @param targetCategoryId 目标分类ID
+     * @param limit            最多转移的交易数量，为空则全部转移
+     * @return 转移的交易数量
+     */
+    int reassignCategory(@Param("categoryIds") List<Long> categoryIds,
+                         @Param("targetCategoryId") Long targetCategoryId,
+                         @Param("limit") Integer limit);
+
+    /**
+     * 将源账本中符合条件的交易移动到目标账本
+     *
+     * @param sourceAccountBookId 源账本ID
+     * @param targetAccountBookId 目标账本ID
+     * @param startDate           开始日期
+     * @param endDate             结束日期
+     * @param categoryIds         分类ID列表
+     * @param memberIds           成员ID列表
+     * @param limit               最多移动的交易数量
+     * @return 移动的交易数量
+     */
+    int moveToAccountBook(@Param("sourceAccountBookId") Long sourceAccountBookId,
+                          @Param("targetAccountBookId") Long targetAccountBookId,
+                          @Param("startDate") LocalDate startDate,
+                          @Param("endDate") LocalDate endDate,
+                          @Param("categoryIds") List<Long> categoryIds,
+                          @Param("memberIds") List<Long> memberIds,
+                          @Param("limit") int limit);
     
     /**
      * 复杂条件搜索交易记录
@@ -169,4 +221,57 @@ public interface TransactionMapper {
             @Param("categoryIds") List<Long> categoryIds,
             @Param("memberIds") List<Long> memberIds,
             @Param("type") Integer type);
+    
+    /**
+     * 复杂条件搜索的分面统计
+     * 按分类、记录人、类型分组计数，与搜索列表使用相同的筛选条件
+     *
+     * @param accountBookId 账本ID
+     * @param keyword       关键词（用于备注搜索）
+     * @param startDate     开始日期
+     * @param endDate       结束日期
+     * @param minAmount     最小金额
+     * @param maxAmount     最大金额
+     * @param categoryIds   分类ID列表（包含子分类）
+     * @param memberIds     成员ID列表
+     * @param type          交易类型
+     * @return 分组计数（categoryId, userId, type, count）
+     */
+    List<Map<String, Object>> countSearchFacets(
+            @Param("accountBookId") Long accountBookId,
+            @Param("keyword") String keyword,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("minAmount") java.math.BigDecimal minAmount,
+            @Param("maxAmount") java.math.BigDecimal maxAmount,
+            @Param("categoryIds") List<Long> categoryIds,
+            @Param("memberIds") List<Long> memberIds,
+            @Param("type") Integer type);
+    
+    /**
+     * 流式读取复杂条件搜索命中的交易金额
+     * 逐行回调，不在内存中保留结果集，用于金额分布统计
+     *
+     * @param accountBookId 账本ID
+     * @param keyword       关键词（用于备注搜索）
+     * @param startDate     开始日期
+     * @param endDate       结束日期
+     * @param minAmount     最小金额
+     * @param maxAmount     最大金额
+     * @param categoryIds   分类ID列表（包含子分类）
+     * @param memberIds     成员ID列表
+     * @param type          交易类型
+     * @param handler       金额回调
+     */
+    void streamSearchAmounts(
+            @Param("accountBookId") Long accountBookId,
+            @Param("keyword") String keyword,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("minAmount") java.math.BigDecimal minAmount,
+            @Param("maxAmount") java.math.BigDecimal maxAmount,
+            @Param("categoryIds") List<Long> categoryIds,
+            @Param("memberIds") List<Long> memberIds,
+            @Param("type") Integer type,
+            ResultHandler<java.math.BigDecimal> handler);
 }
@@ -4,6 +4,9 @@ import com.family.accounting.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * 用户数据访问接口
  */
@@ -18,6 +21,14 @@ public interface UserMapper {
      */
     User findById(@Param("id") Long id);
 
+    /**
+     * 根据ID列表批量查询用户
+     *
+     * @param ids 用户ID列表（不能为空）
+     * @return 用户列表
+     */
+    List<User> findByIds(@Param("ids") List<Long> ids);
+
     /**
      * 根据手机号查询用户
      *
@@ -51,6 +62,23 @@ public interface UserMapper {
      */
     int updatePassword(@Param("id") Long id, @Param("password") String password);
 
+    /**
+     * 查询令牌生效起点
+     *
+     * @param id 用户ID
+     * @return 令牌生效起点，未设置时返回null
+     */
+    LocalDateTime findTokenValidAfter(@Param("id") Long id);
+
+    /**
+     * 更新令牌生效起点
+     *
+     * @param id              用户ID
+     * @param tokenValidAfter 令牌生效起点
+     * @return 影响行数
+     */
+    int updateTokenValidAfter(@Param("id") Long id, @Param("tokenValidAfter") LocalDateTime tokenValidAfter);
+
     /**
      * 检查手机号是否存在
      *
@@ -0,0 +1,35 @@
+package com.family.accounting.security;
+
+/**
+ * 图片验证码存储
+ * 验证码一次性使用且有过期时间。单实例部署使用本地内存实现，
+ * 多实例部署（生成和校验可能落在不同实例）使用共享存储实现
+ */
+public interface CaptchaStore {
+
+    /**
+     * 保存验证码
+     *
+     * @param captchaKey    验证码唯一标识
+     * @param code          验证码内容
+     * @param expireAtMillis 过期时间（毫秒时间戳）
+     * @return 是否保存成功（存储已满时返回false）
+     */
+    boolean save(String captchaKey, String code, long expireAtMillis);
+
+    /**
+     * 取出并删除验证码（一次性使用）
+     * 同一验证码并发取出时只有一个调用方能拿到内容
+     *
+     * @param captchaKey 验证码唯一标识
+     * @return 验证码内容；不存在或已过期时返回null
+     */
+    String take(String captchaKey);
+
+    /**
+     * 清理过期的验证码
+     *
+     * @return 清理数量
+     */
+    int evictExpired();
+}
@@ -0,0 +1,64 @@
+package com.family.accounting.security;
+
+import com.family.accounting.util.SlidingWindowRateLimiter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内的限流共享存储
+ * 作为共享存储的本地替身：同一进程内的多个 {@link SyncedRateLimitStore} 共用一个实例即可模拟多实例部署，
+ * 用于开发环境和测试。全局计数同样按滑动窗口维护
+ */
+public class InMemorySyncBackend implements RateLimitSyncBackend {
+
+    private final SlidingWindowRateLimiter counters;
+
+    private final AtomicLong exchangeCount = new AtomicLong();
+
+    /**
+     * @param maxKeys 最多跟踪的键数量
+     */
+    public InMemorySyncBackend(int maxKeys) {
+        this(maxKeys, System::currentTimeMillis);
+    }
+
+    public InMemorySyncBackend(int maxKeys, LongSupplier clock) {
+        // 共享存储只负责计数，是否限流由各实例判断
+        this.counters = new SlidingWindowRateLimiter(Integer.MAX_VALUE, LocalRateLimitStore.WINDOW_MILLIS,
+                LocalRateLimitStore.WINDOW_BUCKETS, maxKeys, clock);
+    }
+
+    @Override
+    public Map<String, Long> exchange(Map<String, Long> deltas, Set<String> keys) {
+        exchangeCount.incrementAndGet();
+        Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+            counts.put(entry.getKey(), counters.acquire(entry.getKey(), entry.getValue()));
+        }
+        for (String key : keys) {
+            if (!counts.containsKey(key)) {
+                long count = counters.currentCount(key);
+                if (count > 0) {
+                    counts.put(key, count);
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public int evictIdle() {
+        return counters.evictIdle();
+    }
+
+    /**
+     * 已处理的同步次数
+     */
+    public long getExchangeCount() {
+        return exchangeCount.get();
+    }
+}
@@ -35,11 +35,8 @@ public class IpRateLimitFilter extends OncePerRequestFilter {
         String ipAddress = getClientIpAddress(request);
         String requestPath = request.getRequestURI();
         
-        // 记录IP请求
-        securityService.recordIpRequest(ipAddress, requestPath);
-        
-        // 检查IP速率限制
-        if (securityService.isIpRateLimited(ipAddress)) {
+        // 计入IP请求并检查速率限制（内存滑动窗口）
+        if (!securityService.tryAcquireIpRequest(ipAddress, requestPath)) {
             // 返回429状态码
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType(MediaType.APPLICATION_JSON_VALUE);
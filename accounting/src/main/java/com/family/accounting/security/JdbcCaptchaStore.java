@@ -0,0 +1,52 @@
+package com.family.accounting.security;
+
+import com.family.accounting.entity.Captcha;
+import com.family.accounting.mapper.CaptchaMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 数据库验证码存储（t_captcha）
+ * 供多实例部署共享验证码；取出时以删除影响行数判断归属，保证同一验证码只能被使用一次
+ */
+public class JdbcCaptchaStore implements CaptchaStore {
+
+    private final CaptchaMapper captchaMapper;
+
+    public JdbcCaptchaStore(CaptchaMapper captchaMapper) {
+        this.captchaMapper = captchaMapper;
+    }
+
+    @Override
+    public boolean save(String captchaKey, String code, long expireAtMillis) {
+        Captcha captcha = new Captcha();
+        captcha.setCaptchaKey(captchaKey);
+        captcha.setCode(code);
+        captcha.setExpiredAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expireAtMillis), ZoneId.systemDefault()));
+        captchaMapper.insert(captcha);
+        return true;
+    }
+
+    @Override
+    public String take(String captchaKey) {
+        Captcha captcha = captchaMapper.findByCaptchaKey(captchaKey);
+        if (captcha == null) {
+            return null;
+        }
+        // 并发校验时只有删除成功的一方可以使用该验证码
+        if (captchaMapper.deleteByCaptchaKey(captchaKey) == 0) {
+            return null;
+        }
+        if (captcha.getExpiredAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        return captcha.getCode();
+    }
+
+    @Override
+    public int evictExpired() {
+        return captchaMapper.deleteExpired(LocalDateTime.now());
+    }
+}
@@ -1,6 +1,7 @@
 package com.family.accounting.security;
 
 import com.family.accounting.service.TokenBlacklistService;
+import com.family.accounting.util.JwtClaims;
 import com.family.accounting.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,13 +43,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = extractTokenFromRequest(request);
 
-            if (StringUtils.hasText(token) && jwtUtil.validateToken(token)) {
-                // 检查令牌是否在黑名单中
+            // 令牌只验证解析一次，后续使用解析结果
+            JwtClaims claims = StringUtils.hasText(token) ? jwtUtil.parseToken(token) : null;
+
+            if (claims != null) {
+                // 黑名单（登出）由内存过滤器判定；用户级失效（如修改密码）按用户令牌生效起点判定，
+                // 生效起点有短期缓存，绝大多数请求无需查询数据库
                 if (tokenBlacklistService.isTokenBlacklisted(token)) {
                     logger.debug("令牌已在黑名单中，拒绝访问");
+                } else if (tokenBlacklistService.isTokenRevoked(claims.getUserId(), claims.getIssuedAt())) {
+                    logger.debug("令牌签发时间早于用户令牌生效起点，拒绝访问");
                 } else {
-                    Long userId = jwtUtil.getUserIdFromToken(token);
-                    String phone = jwtUtil.getPhoneFromToken(token);
+                    Long userId = claims.getUserId();
+                    String phone = claims.getPhone();
 
                     if (userId != null && phone != null) {
                         // 创建认证用户信息
@@ -0,0 +1,79 @@
+package com.family.accounting.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 本地内存验证码存储
+ * 验证码只在当前实例内有效，适用于单实例部署；条目数量受限，过期条目定期淘汰
+ */
+public class LocalCaptchaStore implements CaptchaStore {
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries 最多保存的验证码数量
+     */
+    public LocalCaptchaStore(int maxEntries) {
+        this(maxEntries, System::currentTimeMillis);
+    }
+
+    public LocalCaptchaStore(int maxEntries, LongSupplier clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean save(String captchaKey, String code, long expireAtMillis) {
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                return false;
+            }
+        }
+        entries.put(captchaKey, new Entry(code, expireAtMillis));
+        return true;
+    }
+
+    @Override
+    public String take(String captchaKey) {
+        Entry entry = entries.remove(captchaKey);
+        if (entry == null || entry.expireAtMillis < clock.getAsLong()) {
+            return null;
+        }
+        return entry.code;
+    }
+
+    @Override
+    public int evictExpired() {
+        long now = clock.getAsLong();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.expireAtMillis < now);
+        return before - entries.size();
+    }
+
+    /**
+     * 当前保存的验证码数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        private final String code;
+        private final long expireAtMillis;
+
+        private Entry(String code, long expireAtMillis) {
+            this.code = code;
+            this.expireAtMillis = expireAtMillis;
+        }
+    }
+}
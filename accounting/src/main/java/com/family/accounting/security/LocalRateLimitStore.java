@@ -0,0 +1,54 @@
+package com.family.accounting.security;
+
+import com.family.accounting.util.SlidingWindowRateLimiter;
+
+/**
+ * 本地内存限流存储
+ * 计数只在当前实例内有效，适用于单实例部署
+ */
+public class LocalRateLimitStore implements RateLimitStore {
+
+    /**
+     * 限流窗口长度（毫秒）
+     */
+    public static final long WINDOW_MILLIS = 60_000L;
+
+    /**
+     * 窗口子桶数量
+     */
+    public static final int WINDOW_BUCKETS = 12;
+
+    private final SlidingWindowRateLimiter limiter;
+
+    /**
+     * @param limit   每分钟允许的最大请求数
+     * @param maxKeys 最多跟踪的键数量
+     */
+    public LocalRateLimitStore(int limit, int maxKeys) {
+        this(new SlidingWindowRateLimiter(limit, WINDOW_MILLIS, WINDOW_BUCKETS, maxKeys));
+    }
+
+    public LocalRateLimitStore(SlidingWindowRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        return limiter.tryAcquire(key);
+    }
+
+    @Override
+    public boolean isLimited(String key) {
+        return limiter.isLimited(key);
+    }
+
+    @Override
+    public int evictIdle() {
+        return limiter.evictIdle();
+    }
+
+    @Override
+    public int size() {
+        return limiter.size();
+    }
+}
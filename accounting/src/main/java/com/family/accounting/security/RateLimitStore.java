@@ -0,0 +1,37 @@
+package com.family.accounting.security;
+
+/**
+ * 限流计数存储
+ * 按键（如IP地址）维护最近一个窗口内的请求计数。单实例部署使用本地实现，
+ * 多实例部署使用与共享存储同步计数的实现，使同一键在所有实例上共享一份额度
+ */
+public interface RateLimitStore {
+
+    /**
+     * 计入一次请求并判断是否放行
+     *
+     * @param key 限流键
+     * @return 计入本次请求后窗口内计数小于上限时返回true
+     */
+    boolean tryAcquire(String key);
+
+    /**
+     * 是否已达到上限（不计入请求）
+     *
+     * @param key 限流键
+     * @return 是否限流
+     */
+    boolean isLimited(String key);
+
+    /**
+     * 淘汰空闲的键
+     *
+     * @return 淘汰数量
+     */
+    int evictIdle();
+
+    /**
+     * 当前跟踪的键数量
+     */
+    int size();
+}
@@ -0,0 +1,29 @@
+package com.family.accounting.security;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 限流计数共享存储
+ * 各实例定期提交本地新增的计数（增量），并取回各键在所有实例上的窗口内总计数
+ */
+public interface RateLimitSyncBackend {
+
+    /**
+     * 提交增量并查询全局计数
+     *
+     * @param deltas 上次同步以来本实例新增的计数
+     * @param keys   需要返回全局计数的键（包含 deltas 中的键）
+     * @return 键 -> 全局窗口内计数，窗口内没有请求的键可以不返回
+     */
+    Map<String, Long> exchange(Map<String, Long> deltas, Set<String> keys);
+
+    /**
+     * 淘汰共享存储中的空闲键，依赖过期机制的实现无需处理
+     *
+     * @return 淘汰数量
+     */
+    default int evictIdle() {
+        return 0;
+    }
+}
@@ -0,0 +1,134 @@
+package com.family.accounting.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 共享限流存储
+ * 请求只累加本地增量，不访问共享存储；按固定间隔批量提交增量并取回全局计数。
+ * 判断时使用“上次同步的全局计数 + 本地未同步增量”，其他实例的请求最多延迟一个同步间隔才会计入，
+ * 每个键的额度在所有实例间共享，而不是每个实例各自一份。键数量已满时新键计入共用的溢出键，按同一上限限流
+ */
+public class SyncedRateLimitStore implements RateLimitStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncedRateLimitStore.class);
+
+    /**
+     * 键数量已满时未跟踪的键共用的计数键
+     */
+    static final String OVERFLOW_KEY = "#overflow";
+
+    private final RateLimitSyncBackend backend;
+    private final int limit;
+    private final int maxKeys;
+
+    /**
+     * 上次同步以来本实例新增、尚未提交的计数
+     */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 上次同步取回的全局计数（已包含提交过的本地增量）
+     */
+    private final Map<String, Long> global = new ConcurrentHashMap<>();
+
+    /**
+     * @param backend 共享存储
+     * @param limit   每分钟允许的最大请求数
+     * @param maxKeys 最多跟踪的键数量
+     */
+    public SyncedRateLimitStore(RateLimitSyncBackend backend, int limit, int maxKeys) {
+        if (limit <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("invalid rate limit store configuration");
+        }
+        this.backend = backend;
+        this.limit = limit;
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public boolean tryAcquire(String key) {
+        String tracked = trackedKey(key);
+        long local = pending.merge(tracked, 1L, Long::sum);
+        return global.getOrDefault(tracked, 0L) + local < limit;
+    }
+
+    @Override
+    public boolean isLimited(String key) {
+        String tracked = trackedKey(key);
+        return global.getOrDefault(tracked, 0L) + pending.getOrDefault(tracked, 0L) >= limit;
+    }
+
+    /**
+     * 键数量已满时，未跟踪的键改用溢出键计数，与本地实现一致
+     */
+    private String trackedKey(String key) {
+        if (global.size() >= maxKeys && !global.containsKey(key) && !pending.containsKey(key)) {
+            return OVERFLOW_KEY;
+        }
+        return key;
+    }
+
+    /**
+     * 提交本地增量并刷新全局计数（默认每秒执行）
+     * 共享存储不可用时增量保留到下次同步，期间按本地计数判断
+     */
+    @Scheduled(fixedDelayString = "${security.rate-limit.sync-interval-ms:1000}")
+    public void sync() {
+        Map<String, Long> deltas = new HashMap<>();
+        for (String key : new ArrayList<>(pending.keySet())) {
+            // 增量移入全局计数与移出待提交在同一个原子操作中完成，判断时不会漏算
+            pending.computeIfPresent(key, (k, delta) -> {
+                deltas.put(k, delta);
+                global.merge(k, delta, Long::sum);
+                return null;
+            });
+        }
+
+        Set<String> keys = new HashSet<>(global.keySet());
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> counts;
+        try {
+            counts = backend.exchange(deltas, keys);
+        } catch (RuntimeException e) {
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                global.computeIfPresent(entry.getKey(), (k, count) -> count > entry.getValue() ? count - entry.getValue() : null);
+                pending.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+            logger.warn("限流计数同步失败: {}", e.getMessage());
+            return;
+        }
+
+        for (String key : keys) {
+            Long count = counts.get(key);
+            if (count != null && count > 0) {
+                global.put(key, count);
+            } else {
+                global.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public int evictIdle() {
+        return backend.evictIdle();
+    }
+
+    @Override
+    public int size() {
+        Set<String> keys = new HashSet<>(global.keySet());
+        keys.addAll(pending.keySet());
+        return keys.size();
+    }
+}
@@ -0,0 +1,199 @@
+package com.family.accounting.service;
+
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.AccountBookDeleteJob;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookDeleteJobMapper;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 账本删除服务
+ * 强制删除有交易的账本时先将账本标记为删除中（对查询不可见），再由后台任务按批删除交易，
+ * 每批在单独的短事务中提交并记录进度；任务中断后在应用启动或定时检查时从剩余交易继续
+ */
+@Service
+public class AccountBookDeleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountBookDeleteService.class);
+
+    @Autowired
+    private AccountBookDeleteJobMapper accountBookDeleteJobMapper;
+
+    @Autowired
+    private AccountBookMapper accountBookMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("accountBookDeleteExecutor")
+    private Executor accountBookDeleteExecutor;
+
+    /**
+     * 单批删除的交易数量
+     */
+    @Value("${account-book.delete-batch-size:1000}")
+    private int batchSize = 1000;
+
+    /**
+     * 本实例正在执行或排队中的任务ID，避免同一任务重复提交
+     */
+    private final Set<Long> activeJobIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 创建删除任务：标记账本为删除中并记录任务，存在事务时在提交后开始执行
+     *
+     * @param accountBook 要删除的账本
+     * @return 删除任务
+     */
+    public AccountBookDeleteJob startDeletion(AccountBook accountBook) {
+        if (accountBookMapper.markDeleting(accountBook.getId()) == 0) {
+            throw new BusinessException("账本正在删除中");
+        }
+
+        AccountBookDeleteJob job = new AccountBookDeleteJob();
+        job.setAccountBookId(accountBook.getId());
+        job.setFamilyId(accountBook.getFamilyId());
+        job.setTotalCount(accountBook.getTransactionCount() != null ? accountBook.getTransactionCount() : 0);
+        job.setDeletedCount(0);
+        job.setStatus(AccountBookDeleteJob.STATUS_RUNNING);
+        accountBookDeleteJobMapper.insert(job);
+
+        afterCommit(() -> submit(job));
+        return job;
+    }
+
+    /**
+     * 应用启动后继续执行未完成的删除任务
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        resumeJobs();
+    }
+
+    /**
+     * 定时重新提交因异常中断的删除任务（默认每5分钟）
+     */
+    @Scheduled(fixedDelayString = "${account-book.delete-resume-interval-ms:300000}",
+            initialDelayString = "${account-book.delete-resume-interval-ms:300000}")
+    public void resumeJobs() {
+        try {
+            List<AccountBookDeleteJob> jobs = accountBookDeleteJobMapper.findRunning();
+            for (AccountBookDeleteJob job : jobs) {
+                submit(job);
+            }
+        } catch (Exception e) {
+            logger.error("加载账本删除任务失败", e);
+        }
+    }
+
+    /**
+     * 提交任务到删除线程池，同一任务在本实例内只会有一个在执行或排队
+     */
+    void submit(AccountBookDeleteJob job) {
+        Long jobId = job.getId();
+        if (!activeJobIds.add(jobId)) {
+            return;
+        }
+        try {
+            accountBookDeleteExecutor.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    activeJobIds.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeJobIds.remove(jobId);
+            logger.warn("账本删除任务提交失败，稍后重试: jobId={}", jobId);
+        }
+    }
+
+    /**
+     * 按批删除账本内的交易，全部删除后删除账本并完成任务
+     * 失败时任务保持进行中，已提交的批次不受影响，下次从剩余交易继续
+     *
+     * @return 是否已完成
+     */
+    boolean run(AccountBookDeleteJob job) {
+        Long accountBookId = job.getAccountBookId();
+        try {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> deleteBatch(job));
+            } while (deleted >= batchSize);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                // 批次之间仍写入的交易随账本级联删除，先扣减对应分类的计数
+                categoryMapper.subtractTransactionCountsByAccountBookId(accountBookId);
+                accountBookMapper.deleteById(accountBookId);
+                accountBookDeleteJobMapper.markCompleted(job.getId());
+            });
+            logger.info("账本删除完成: jobId={}, accountBookId={}", job.getId(), accountBookId);
+            return true;
+        } catch (Exception e) {
+            logger.error("账本删除任务中断，稍后继续: jobId={}, accountBookId={}", job.getId(), accountBookId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 删除一批交易，同步扣减分类和账本的关联交易数量并累加任务进度
+     *
+     * @return 本批选中的交易数量
+     */
+    private int deleteBatch(AccountBookDeleteJob job) {
+        Long accountBookId = job.getAccountBookId();
+        List<Long> ids = transactionMapper.findIdsByAccountBookIdForUpdate(accountBookId, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        categoryMapper.subtractTransactionCountsByTransactionIds(ids);
+        int deleted = transactionMapper.deleteByIds(ids);
+        accountBookMapper.adjustTransactionCount(accountBookId, -deleted);
+        accountBookDeleteJobMapper.addDeletedCount(job.getId(), deleted);
+        return ids.size();
+    }
+
+    /**
+     * 存在事务时在提交后执行，否则立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
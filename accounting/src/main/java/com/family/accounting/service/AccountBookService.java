@@ -1,11 +1,14 @@
 package com.family.accounting.service;
 
 import com.family.accounting.dto.AccountBookDTO;
+import com.family.accounting.dto.AccountBookDeleteJobVO;
 import com.family.accounting.dto.AccountBookVO;
 import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.AccountBookDeleteJob;
 import com.family.accounting.entity.Family;
 import com.family.accounting.entity.FamilyMember;
 import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookDeleteJobMapper;
 import com.family.accounting.mapper.AccountBookMapper;
 import com.family.accounting.mapper.FamilyMapper;
 import com.family.accounting.mapper.FamilyMemberMapper;
@@ -31,6 +34,12 @@ public class AccountBookService {
     @Autowired
     private FamilyMapper familyMapper;
 
+    @Autowired
+    private AccountBookDeleteJobMapper accountBookDeleteJobMapper;
+
+    @Autowired
+    private AccountBookDeleteService accountBookDeleteService;
+
     /**
      * 获取账本列表
      *
@@ -101,6 +110,7 @@ public class AccountBookService {
         accountBook.setFamilyId(familyId);
         accountBook.setName(dto.getName());
         accountBook.setIsDefault(0); // 新创建的账本默认不是默认账本
+        accountBook.setTransactionCount(0);
 
         accountBookMapper.insert(accountBook);
 
@@ -141,13 +151,15 @@ public class AccountBookService {
 
     /**
      * 删除账本
+     * 没有交易的账本直接删除；有交易的账本强制删除时改为后台分批删除，账本立即不可见
      *
      * @param userId        用户ID
      * @param accountBookId 账本ID
      * @param force         是否强制删除（有交易时）
+     * @return 后台删除任务，直接删除时为null
      */
     @Transactional
-    public void deleteAccountBook(Long userId, Long accountBookId, boolean force) {
+    public AccountBookDeleteJobVO deleteAccountBook(Long userId, Long accountBookId, boolean force) {
         Long familyId = getFamilyIdByUser(userId);
 
         // 验证用户是否为家庭管理员
@@ -169,12 +181,34 @@ public class AccountBookService {
         }
 
         // 检查是否有关联交易
-        int transactionCount = accountBookMapper.countTransactionsByAccountBookId(accountBookId);
+        int transactionCount = transactionCountOf(accountBook);
         if (transactionCount > 0 && !force) {
             throw new BusinessException("该账本下有" + transactionCount + "笔交易记录，确认删除请使用强制删除");
         }
 
+        // 有交易时由后台任务分批删除，避免单个事务级联删除大量交易
+        if (transactionCount > 0) {
+            return convertToVO(accountBookDeleteService.startDeletion(accountBook));
+        }
         accountBookMapper.deleteById(accountBookId);
+        return null;
+    }
+
+    /**
+     * 获取账本删除任务进度
+     *
+     * @param userId 用户ID
+     * @param jobId  任务ID
+     * @return 删除任务
+     */
+    public AccountBookDeleteJobVO getDeleteJob(Long userId, Long jobId) {
+        Long familyId = getFamilyIdByUser(userId);
+
+        AccountBookDeleteJob job = accountBookDeleteJobMapper.findById(jobId);
+        if (job == null || !job.getFamilyId().equals(familyId)) {
+            throw new BusinessException("删除任务不存在");
+        }
+        return convertToVO(job);
     }
 
     /**
@@ -228,8 +262,7 @@ public class AccountBookService {
         }
 
         // 检查是否有关联交易
-        int transactionCount = accountBookMapper.countTransactionsByAccountBookId(accountBookId);
-        return transactionCount == 0;
+        return transactionCountOf(accountBook) == 0;
     }
 
     /**
@@ -268,10 +301,28 @@ public class AccountBookService {
         vo.setCreatedAt(accountBook.getCreatedAt());
         vo.setUpdatedAt(accountBook.getUpdatedAt());
 
-        // 获取关联交易数量
-        int transactionCount = accountBookMapper.countTransactionsByAccountBookId(accountBook.getId());
-        vo.setTransactionCount(transactionCount);
+        vo.setTransactionCount(transactionCountOf(accountBook));
 
         return vo;
     }
+
+    /**
+     * 将AccountBookDeleteJob实体转换为AccountBookDeleteJobVO
+     */
+    private AccountBookDeleteJobVO convertToVO(AccountBookDeleteJob job) {
+        AccountBookDeleteJobVO vo = new AccountBookDeleteJobVO();
+        vo.setId(job.getId());
+        vo.setAccountBookId(job.getAccountBookId());
+        vo.setTotalCount(job.getTotalCount());
+        vo.setDeletedCount(job.getDeletedCount());
+        vo.setCompleted(job.getStatus() != null && job.getStatus() == AccountBookDeleteJob.STATUS_COMPLETED);
+        return vo;
+    }
+
+    /**
+     * 账本的关联交易数量（读取账本上维护的计数）
+     */
+    private int transactionCountOf(AccountBook accountBook) {
+        return accountBook.getTransactionCount() != null ? accountBook.getTransactionCount() : 0;
+    }
 }
@@ -3,14 +3,24 @@ package com.family.accounting.service;
 import com.family.accounting.config.DefaultCategoryConfig;
 import com.family.accounting.dto.CategoryDTO;
 import com.family.accounting.dto.CategoryVO;
+import com.family.accounting.dto.Result;
 import com.family.accounting.entity.Category;
 import com.family.accounting.entity.FamilyMember;
 import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
 import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMapper;
 import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import com.family.accounting.util.ETagUtils;
+import com.family.accounting.util.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,45 +39,128 @@ public class CategoryService {
     @Autowired
     private FamilyMemberMapper familyMemberMapper;
 
+    @Autowired
+    private FamilyMapper familyMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionMapper transactionMapper;
+
+    @Autowired
+    private AccountBookMapper accountBookMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
-     * 获取分类树
+     * 合并分类时单批转移的交易数量
+     */
+    @Value("${category.merge-batch-size:5000}")
+    private int mergeBatchSize = 5000;
+
+    /**
+     * 缓存的分类树快照数量上限（家庭 × 类型）
+     */
+    @Value("${category.tree-cache-size:1000}")
+    private int treeCacheSize = 1000;
+
+    /**
+     * 家庭ID:类型 -> 分类树快照，首次使用时创建
+     */
+    private volatile LruCache<String, CategoryTreeSnapshot> treeCache;
+
+    /**
+     * 获取分类树（包含关联交易数量）
      *
      * @param userId 用户ID
      * @param type   类型: 1-支出 2-收入，为空则获取所有
      * @return 分类树列表
      */
     public List<CategoryVO> getCategoryTree(Long userId, Integer type) {
+        return getCategoryTree(userId, type, true);
+    }
+
+    /**
+     * 获取分类树
+     *
+     * @param userId     用户ID
+     * @param type       类型: 1-支出 2-收入，为空则获取所有
+     * @param withCounts 是否统计关联交易数量，为false时transactionCount为空
+     * @return 分类树列表
+     */
+    public List<CategoryVO> getCategoryTree(Long userId, Integer type, boolean withCounts) {
         Long familyId = getFamilyIdByUser(userId);
 
-        List<Category> categories;
-        if (type != null) {
-            categories = categoryMapper.findByFamilyIdAndType(familyId, type);
-        } else {
-            categories = categoryMapper.findByFamilyId(familyId);
+        List<Category> categories = findCategories(familyId, type);
+
+        return buildCategoryTree(categories, withCounts);
+    }
+
+    /**
+     * 获取不含交易数量的分类树快照
+     * 快照按家庭分类版本号缓存，分类新增、修改、删除会递增版本号使其失效；
+     * 版本号未变化时不查询分类，直接复用已序列化的响应
+     *
+     * @param userId 用户ID
+     * @param type   类型: 1-支出 2-收入，为空则获取所有
+     * @return 分类树快照
+     */
+    public CategoryTreeSnapshot getCategoryTreeSnapshot(Long userId, Integer type) {
+        Long familyId = getFamilyIdByUser(userId);
+
+        // 先读取版本号再查询分类，缓存的分类树不会比版本号旧
+        Long storedVersion = familyMapper.findCategoryVersion(familyId);
+        long version = storedVersion != null ? storedVersion : 0L;
+        String key = familyId + ":" + (type != null ? type : "all");
+
+        LruCache<String, CategoryTreeSnapshot> cache = treeCache();
+        CategoryTreeSnapshot snapshot = cache.get(key);
+        if (snapshot != null && snapshot.getCategoryVersion() == version) {
+            return snapshot;
+        }
+
+        List<CategoryVO> tree = buildCategoryTree(findCategories(familyId, type), false);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Result.success(tree));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("分类树序列化失败", e);
         }
 
-        return buildCategoryTree(categories);
+        snapshot = new CategoryTreeSnapshot(version, ETagUtils.of("category", familyId,
+                type != null ? type : "all", version), body);
+        cache.put(key, snapshot);
+        return snapshot;
     }
 
     /**
-     * 获取所有分类（扁平列表）
+     * 获取所有分类（扁平列表，包含关联交易数量）
      *
      * @param userId 用户ID
      * @param type   类型
      * @return 分类列表
      */
     public List<CategoryVO> getCategoryList(Long userId, Integer type) {
+        return getCategoryList(userId, type, true);
+    }
+
+    /**
+     * 获取所有分类（扁平列表）
+     *
+     * @param userId     用户ID
+     * @param type       类型
+     * @param withCounts 是否统计关联交易数量，为false时transactionCount为空
+     * @return 分类列表
+     */
+    public List<CategoryVO> getCategoryList(Long userId, Integer type, boolean withCounts) {
         Long familyId = getFamilyIdByUser(userId);
 
-        List<Category> categories;
-        if (type != null) {
-            categories = categoryMapper.findByFamilyIdAndType(familyId, type);
-        } else {
-            categories = categoryMapper.findByFamilyId(familyId);
-        }
+        List<Category> categories = findCategories(familyId, type);
 
         return categories.stream()
-                .map(this::convertToVO)
+                .map(category -> convertToVO(category, withCounts))
                 .collect(Collectors.toList());
     }
 
@@ -143,7 +236,10 @@ public class CategoryService {
         category.setSortOrder(dto.getSortOrder() != null ? dto.getSortOrder() : 0);
 
         categoryMapper.insert(category);
+        familyMapper.incrementCategoryVersion(familyId);
 
+        // 新建分类没有关联交易
+        category.setTransactionCount(0);
         return convertToVO(category);
     }
 
@@ -184,6 +280,7 @@ public class CategoryService {
         }
 
         categoryMapper.update(category);
+        familyMapper.incrementCategoryVersion(familyId);
 
         return convertToVO(category);
     }
@@ -209,7 +306,7 @@ public class CategoryService {
         }
 
         // 检查是否有关联交易
-        int transactionCount = categoryMapper.countTransactionsByCategoryId(categoryId);
+        int transactionCount = transactionCountOf(category);
         if (transactionCount > 0) {
             throw new BusinessException("该分类下有" + transactionCount + "笔交易记录，无法删除");
         }
@@ -221,6 +318,70 @@ public class CategoryService {
         }
 
         categoryMapper.deleteById(categoryId);
+        familyMapper.incrementCategoryVersion(familyId);
+    }
+
+    /**
+     * 合并分类
+     * 将源分类及其所有子分类下的交易转入目标分类，然后删除这些分类。
+     * 交易按批转移，每批一个事务，同时更新目标分类的交易数量和家庭账本的数据版本号；
+     * 最后一个事务转移剩余交易并删除源分类，中途失败时源分类仍在，重新合并即可继续
+     *
+     * @param userId   用户ID
+     * @param sourceId 源分类ID
+     * @param targetId 目标分类ID
+     * @return 合并后的目标分类
+     */
+    public CategoryVO mergeCategory(Long userId, Long sourceId, Long targetId) {
+        Long familyId = getFamilyIdByUser(userId);
+
+        Category source = categoryMapper.findById(sourceId);
+        Category target = categoryMapper.findById(targetId);
+        if (source == null || target == null) {
+            throw new BusinessException("分类不存在");
+        }
+        if (!source.getFamilyId().equals(familyId) || !target.getFamilyId().equals(familyId)) {
+            throw new BusinessException("无权合并此分类");
+        }
+        if (!source.getType().equals(target.getType())) {
+            throw new BusinessException("只能合并相同类型的分类");
+        }
+
+        List<Long> sourceIds = categoryMapper.findAllDescendantIds(sourceId);
+        if (sourceIds.contains(targetId)) {
+            throw new BusinessException("不能合并到自身或其子分类");
+        }
+
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status ->
+                    reassignTransactions(familyId, sourceIds, targetId, mergeBatchSize));
+        } while (moved >= mergeBatchSize);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // 转移批次之间新增的交易
+            reassignTransactions(familyId, sourceIds, targetId, null);
+            categoryMapper.deleteByIds(sourceIds);
+            familyMapper.incrementCategoryVersion(familyId);
+        });
+
+        return convertToVO(categoryMapper.findById(targetId));
+    }
+
+    /**
+     * 转移一批交易到目标分类，并同步目标分类的交易数量和账本数据版本号
+     * 源分类随后会被删除，无需扣减其交易数量
+     *
+     * @param limit 最多转移的交易数量，为空则全部转移
+     * @return 转移的交易数量
+     */
+    private int reassignTransactions(Long familyId, List<Long> sourceIds, Long targetId, Integer limit) {
+        int moved = transactionMapper.reassignCategory(sourceIds, targetId, limit);
+        if (moved > 0) {
+            categoryMapper.adjustTransactionCount(targetId, moved);
+            accountBookMapper.incrementDataVersionByFamilyId(familyId);
+        }
+        return moved;
     }
 
     /**
@@ -239,8 +400,7 @@ public class CategoryService {
         }
 
         // 检查是否有关联交易
-        int transactionCount = categoryMapper.countTransactionsByCategoryId(categoryId);
-        if (transactionCount > 0) {
+        if (transactionCountOf(category) > 0) {
             return false;
         }
 
@@ -260,13 +420,41 @@ public class CategoryService {
         return member.getFamilyId();
     }
 
+    /**
+     * 查询家庭分类
+     *
+     * @param type 类型，为空则查询所有
+     */
+    private List<Category> findCategories(Long familyId, Integer type) {
+        if (type != null) {
+            return categoryMapper.findByFamilyIdAndType(familyId, type);
+        }
+        return categoryMapper.findByFamilyId(familyId);
+    }
+
+    private LruCache<String, CategoryTreeSnapshot> treeCache() {
+        LruCache<String, CategoryTreeSnapshot> cache = treeCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = treeCache;
+                if (cache == null) {
+                    cache = new LruCache<>(treeCacheSize);
+                    treeCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     /**
      * 构建分类树
+     *
+     * @param withCounts 是否设置关联交易数量
      */
-    private List<CategoryVO> buildCategoryTree(List<Category> categories) {
+    private List<CategoryVO> buildCategoryTree(List<Category> categories, boolean withCounts) {
         // 转换为VO
         List<CategoryVO> voList = categories.stream()
-                .map(this::convertToVO)
+                .map(category -> convertToVO(category, withCounts))
                 .collect(Collectors.toList());
 
         // 按parentId分组
@@ -288,9 +476,25 @@ public class CategoryService {
     }
 
     /**
-     * 将Category实体转换为CategoryVO
+     * 分类的关联交易数量（读取分类上维护的计数）
+     */
+    private int transactionCountOf(Category category) {
+        return category.getTransactionCount() != null ? category.getTransactionCount() : 0;
+    }
+
+    /**
+     * 将Category实体转换为CategoryVO（包含关联交易数量）
      */
     private CategoryVO convertToVO(Category category) {
+        return convertToVO(category, true);
+    }
+
+    /**
+     * 将Category实体转换为CategoryVO
+     *
+     * @param withCounts 是否设置关联交易数量，为false时transactionCount为空
+     */
+    private CategoryVO convertToVO(Category category, boolean withCounts) {
         CategoryVO vo = new CategoryVO();
         vo.setId(category.getId());
         vo.setFamilyId(category.getFamilyId());
@@ -303,9 +507,9 @@ public class CategoryService {
         vo.setSortOrder(category.getSortOrder());
         vo.setCreatedAt(category.getCreatedAt());
 
-        // 获取关联交易数量
-        int transactionCount = categoryMapper.countTransactionsByCategoryId(category.getId());
-        vo.setTransactionCount(transactionCount);
+        if (withCounts) {
+            vo.setTransactionCount(transactionCountOf(category));
+        }
 
         return vo;
     }
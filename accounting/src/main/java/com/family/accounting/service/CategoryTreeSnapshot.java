@@ -0,0 +1,34 @@
+package com.family.accounting.service;
+
+/**
+ * 分类树快照
+ * 某个家庭在某个分类版本号下的分类树（不含交易数量），已序列化为完整的响应JSON，
+ * 可在多个请求之间安全共享，分类版本号变化后失效
+ */
+public final class CategoryTreeSnapshot {
+
+    private final long categoryVersion;
+    private final String etag;
+    private final byte[] body;
+
+    public CategoryTreeSnapshot(long categoryVersion, String etag, byte[] body) {
+        this.categoryVersion = categoryVersion;
+        this.etag = etag;
+        this.body = body;
+    }
+
+    public long getCategoryVersion() {
+        return categoryVersion;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * 响应JSON（调用方不得修改）
+     */
+    public byte[] getBody() {
+        return body;
+    }
+}
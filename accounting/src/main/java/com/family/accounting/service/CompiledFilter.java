@@ -0,0 +1,177 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.FilterConditionVO;
+import com.family.accounting.dto.SearchRequestDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 编译后的筛选条件
+ * 由保存的筛选条件JSON解析一次得到的不可变快照，附带按分类版本号预先展开的子分类ID，
+ * 可在多个请求之间安全共享
+ */
+public final class CompiledFilter {
+
+    private final Long filterId;
+    private final String sourceJson;
+    private final long revision;
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    private final List<Long> categoryIds;
+    private final List<Long> memberIds;
+    private final Integer type;
+    private final Long accountBookId;
+
+    /**
+     * 展开后的分类ID（含所有子分类），未指定分类时为null
+     */
+    private final List<Long> expandedCategoryIds;
+
+    /**
+     * 展开分类时的家庭分类版本号，未展开时为null
+     */
+    private final Long categoryVersion;
+
+    public CompiledFilter(Long filterId, String sourceJson, long revision, FilterConditionVO condition) {
+        this(filterId, sourceJson, revision,
+                condition.getStartDate(), condition.getEndDate(),
+                condition.getMinAmount(), condition.getMaxAmount(),
+                immutableCopy(condition.getCategoryIds()), immutableCopy(condition.getMemberIds()),
+                condition.getType(), condition.getAccountBookId(), null, null);
+    }
+
+    private CompiledFilter(Long filterId, String sourceJson, long revision,
+                           LocalDate startDate, LocalDate endDate,
+                           BigDecimal minAmount, BigDecimal maxAmount,
+                           List<Long> categoryIds, List<Long> memberIds,
+                           Integer type, Long accountBookId,
+                           List<Long> expandedCategoryIds, Long categoryVersion) {
+        this.filterId = filterId;
+        this.sourceJson = sourceJson;
+        this.revision = revision;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.categoryIds = categoryIds;
+        this.memberIds = memberIds;
+        this.type = type;
+        this.accountBookId = accountBookId;
+        this.expandedCategoryIds = expandedCategoryIds;
+        this.categoryVersion = categoryVersion;
+    }
+
+    /**
+     * 生成带有分类展开结果的新实例
+     *
+     * @param expandedCategoryIds 展开后的分类ID
+     * @param categoryVersion     展开时的分类版本号
+     * @return 新的编译结果
+     */
+    public CompiledFilter withExpansion(List<Long> expandedCategoryIds, Long categoryVersion) {
+        return new CompiledFilter(filterId, sourceJson, revision,
+                startDate, endDate, minAmount, maxAmount,
+                categoryIds, memberIds, type, accountBookId,
+                immutableCopy(expandedCategoryIds), categoryVersion);
+    }
+
+    /**
+     * 分类展开结果是否对应指定的分类版本
+     *
+     * @param currentCategoryVersion 当前分类版本号
+     * @return 是否无需重新展开
+     */
+    public boolean isExpansionCurrent(Long currentCategoryVersion) {
+        if (!hasCategories()) {
+            return true;
+        }
+        return categoryVersion != null && categoryVersion.equals(currentCategoryVersion);
+    }
+
+    /**
+     * 是否指定了分类条件
+     */
+    public boolean hasCategories() {
+        return categoryIds != null && !categoryIds.isEmpty();
+    }
+
+    /**
+     * 转换为筛选条件VO（每次返回新的副本）
+     *
+     * @return 筛选条件VO
+     */
+    public FilterConditionVO toConditionVO() {
+        FilterConditionVO vo = new FilterConditionVO();
+        vo.setStartDate(startDate);
+        vo.setEndDate(endDate);
+        vo.setMinAmount(minAmount);
+        vo.setMaxAmount(maxAmount);
+        vo.setCategoryIds(categoryIds != null ? new ArrayList<>(categoryIds) : null);
+        vo.setMemberIds(memberIds != null ? new ArrayList<>(memberIds) : null);
+        vo.setType(type);
+        vo.setAccountBookId(accountBookId);
+        return vo;
+    }
+
+    /**
+     * 转换为搜索请求
+     *
+     * @param bookId 实际查询的账本ID
+     * @param page   页码
+     * @param size   每页数量
+     * @return 搜索请求
+     */
+    public SearchRequestDTO toSearchRequest(Long bookId, int page, int size) {
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setAccountBookId(bookId);
+        request.setStartDate(startDate);
+        request.setEndDate(endDate);
+        request.setMinAmount(minAmount);
+        request.setMaxAmount(maxAmount);
+        request.setCategoryIds(categoryIds);
+        request.setMemberIds(memberIds);
+        request.setType(type);
+        request.setPage(page);
+        request.setSize(size);
+        return request;
+    }
+
+    private static List<Long> immutableCopy(List<Long> ids) {
+        return ids != null ? Collections.unmodifiableList(new ArrayList<>(ids)) : null;
+    }
+
+    public Long getFilterId() {
+        return filterId;
+    }
+
+    public String getSourceJson() {
+        return sourceJson;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public Long getAccountBookId() {
+        return accountBookId;
+    }
+
+    public List<Long> getExpandedCategoryIds() {
+        return expandedCategoryIds;
+    }
+
+    public Long getCategoryVersion() {
+        return categoryVersion;
+    }
+}
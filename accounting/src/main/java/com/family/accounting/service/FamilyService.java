@@ -10,7 +10,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -56,6 +63,7 @@ public class FamilyService {
         Family family = new Family();
         family.setName(dto.getName());
         family.setAdminId(userId);
+        family.setCategoryTemplateVersion(DefaultCategoryConfig.DEFAULT_TEMPLATE.getVersion());
         familyMapper.insert(family);
 
         // 将创建者添加为家庭成员
@@ -65,7 +73,7 @@ public class FamilyService {
         familyMemberMapper.insert(member);
 
         // 创建默认分类
-        createDefaultCategories(family.getId());
+        createDefaultCategories(family.getId(), DefaultCategoryConfig.DEFAULT_TEMPLATE);
 
         // 创建默认账本
         createDefaultAccountBook(family.getId());
@@ -125,9 +133,12 @@ public class FamilyService {
 
         Family family = familyMapper.findById(currentMember.getFamilyId());
         List<FamilyMember> members = familyMemberMapper.findByFamilyId(currentMember.getFamilyId());
+        Map<Long, User> users = findUsers(members.stream()
+                .map(FamilyMember::getUserId)
+                .collect(Collectors.toList()));
 
         return members.stream()
-                .map(m -> convertToMemberVO(m, family.getAdminId()))
+                .map(m -> convertToMemberVO(m, family.getAdminId(), users))
                 .collect(Collectors.toList());
     }
 
@@ -182,8 +193,20 @@ public class FamilyService {
      */
     public List<InvitationVO> getPendingInvitations(Long userId) {
         List<Invitation> invitations = invitationMapper.findPendingByInviteeId(userId);
+        if (invitations.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> familyIds = invitations.stream()
+                .map(Invitation::getFamilyId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Family> families = familyMapper.findByIds(familyIds).stream()
+                .collect(Collectors.toMap(Family::getId, f -> f));
+        Map<Long, User> users = findInvitationUsers(invitations);
+
         return invitations.stream()
-                .map(this::convertToInvitationVO)
+                .map(i -> convertToInvitationVO(i, families, users))
                 .collect(Collectors.toList());
     }
 
@@ -196,8 +219,12 @@ public class FamilyService {
     public List<InvitationVO> getFamilyInvitations(Long userId) {
         Family family = getFamilyByAdmin(userId);
         List<Invitation> invitations = invitationMapper.findByFamilyId(family.getId());
+        // 邀请都来自同一家庭，无需再查询家庭
+        Map<Long, Family> families = Collections.singletonMap(family.getId(), family);
+        Map<Long, User> users = findInvitationUsers(invitations);
+
         return invitations.stream()
-                .map(this::convertToInvitationVO)
+                .map(i -> convertToInvitationVO(i, families, users))
                 .collect(Collectors.toList());
     }
 
@@ -337,39 +364,25 @@ public class FamilyService {
     }
 
     /**
-     * 创建默认分类
+     * 按模板快照创建默认分类
+     * 模板逐层创建，每层一条多行INSERT，用回填的ID设置下一层的父分类
      */
-    private void createDefaultCategories(Long familyId) {
-        // 创建支出分类
-        for (DefaultCategoryConfig.CategoryTemplate template : DefaultCategoryConfig.DEFAULT_EXPENSE_CATEGORIES) {
-            createCategoryFromTemplate(familyId, null, template, Category.TYPE_EXPENSE);
-        }
-
-        // 创建收入分类
-        for (DefaultCategoryConfig.CategoryTemplate template : DefaultCategoryConfig.DEFAULT_INCOME_CATEGORIES) {
-            createCategoryFromTemplate(familyId, null, template, Category.TYPE_INCOME);
-        }
-    }
-
-    /**
-     * 从模板创建分类
-     */
-    private void createCategoryFromTemplate(Long familyId, Long parentId,
-                                            DefaultCategoryConfig.CategoryTemplate template, int type) {
-        Category category = new Category();
-        category.setFamilyId(familyId);
-        category.setParentId(parentId);
-        category.setName(template.getName());
-        category.setType(type);
-        category.setIcon(template.getIcon());
-        category.setSortOrder(template.getSortOrder());
-        categoryMapper.insert(category);
-
-        // 递归创建子分类
-        if (template.hasChildren()) {
-            for (DefaultCategoryConfig.CategoryTemplate child : template.getChildren()) {
-                createCategoryFromTemplate(familyId, category.getId(), child, type);
+    void createDefaultCategories(Long familyId, DefaultCategoryConfig.TemplateSnapshot template) {
+        List<Category> parents = null;
+        for (List<DefaultCategoryConfig.TemplateNode> level : template.getLevels()) {
+            List<Category> categories = new ArrayList<>(level.size());
+            for (DefaultCategoryConfig.TemplateNode node : level) {
+                Category category = new Category();
+                category.setFamilyId(familyId);
+                category.setParentId(node.getParentIndex() >= 0 ? parents.get(node.getParentIndex()).getId() : null);
+                category.setName(node.getName());
+                category.setType(node.getType());
+                category.setIcon(node.getIcon());
+                category.setSortOrder(node.getSortOrder());
+                categories.add(category);
             }
+            categoryMapper.batchInsert(categories);
+            parents = categories;
         }
     }
 
@@ -406,10 +419,38 @@ public class FamilyService {
         return vo;
     }
 
+    /**
+     * 批量查询用户，按用户ID索引
+     */
+    private Map<Long, User> findUsers(Collection<Long> userIds) {
+        Map<Long, User> users = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return users;
+        }
+        for (User user : userMapper.findByIds(new ArrayList<>(userIds))) {
+            users.put(user.getId(), user);
+        }
+        return users;
+    }
+
+    /**
+     * 一次查询邀请列表涉及的所有邀请人和被邀请人
+     */
+    private Map<Long, User> findInvitationUsers(List<Invitation> invitations) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (Invitation invitation : invitations) {
+            userIds.add(invitation.getInviterId());
+            userIds.add(invitation.getInviteeId());
+        }
+        return findUsers(userIds);
+    }
+
     /**
      * 将FamilyMember实体转换为MemberVO
+     *
+     * @param users 已批量查询的用户，按用户ID索引
      */
-    private MemberVO convertToMemberVO(FamilyMember member, Long adminId) {
+    private MemberVO convertToMemberVO(FamilyMember member, Long adminId, Map<Long, User> users) {
         MemberVO vo = new MemberVO();
         vo.setId(member.getId());
         vo.setUserId(member.getUserId());
@@ -418,7 +459,7 @@ public class FamilyService {
         vo.setIsAdmin(member.getUserId().equals(adminId));
 
         // 获取用户信息
-        User user = userMapper.findById(member.getUserId());
+        User user = users.get(member.getUserId());
         if (user != null) {
             vo.setPhone(user.getPhone());
             vo.setUserNickname(user.getNickname());
@@ -430,8 +471,12 @@ public class FamilyService {
 
     /**
      * 将Invitation实体转换为InvitationVO
+     *
+     * @param families 已批量查询的家庭，按家庭ID索引
+     * @param users    已批量查询的用户，按用户ID索引
      */
-    private InvitationVO convertToInvitationVO(Invitation invitation) {
+    private InvitationVO convertToInvitationVO(Invitation invitation, Map<Long, Family> families,
+                                               Map<Long, User> users) {
         InvitationVO vo = new InvitationVO();
         vo.setId(invitation.getId());
         vo.setFamilyId(invitation.getFamilyId());
@@ -442,19 +487,19 @@ public class FamilyService {
         vo.setExpiredAt(invitation.getExpiredAt());
 
         // 获取家庭名称
-        Family family = familyMapper.findById(invitation.getFamilyId());
+        Family family = families.get(invitation.getFamilyId());
         if (family != null) {
             vo.setFamilyName(family.getName());
         }
 
         // 获取邀请人信息
-        User inviter = userMapper.findById(invitation.getInviterId());
+        User inviter = users.get(invitation.getInviterId());
         if (inviter != null) {
             vo.setInviterNickname(inviter.getNickname() != null ? inviter.getNickname() : inviter.getPhone());
         }
 
         // 获取被邀请人信息
-        User invitee = userMapper.findById(invitation.getInviteeId());
+        User invitee = users.get(invitation.getInviteeId());
         if (invitee != null) {
             vo.setInviteeNickname(invitee.getNickname() != null ? invitee.getNickname() : invitee.getPhone());
             vo.setInviteePhone(invitee.getPhone());
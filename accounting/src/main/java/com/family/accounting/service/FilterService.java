@@ -1,37 +1,80 @@
 package com.family.accounting.service;
 
 import com.family.accounting.dto.FilterConditionVO;
+import com.family.accounting.dto.PageVO;
 import com.family.accounting.dto.SavedFilterDTO;
 import com.family.accounting.dto.SavedFilterVO;
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.dto.TransactionVO;
+import com.family.accounting.entity.AccountBook;
 import com.family.accounting.entity.FamilyMember;
 import com.family.accounting.entity.SavedFilter;
 import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.FamilyMapper;
 import com.family.accounting.mapper.FamilyMemberMapper;
 import com.family.accounting.mapper.SavedFilterMapper;
 import com.family.accounting.security.SecurityUtils;
+import com.family.accounting.util.LruCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
  * 筛选条件管理服务
+ * 保存的筛选条件JSON只解析一次，编译结果按筛选条件ID缓存；
+ * 服务端执行前与普通搜索一样经过代价评估（可能降级或拒绝），执行结果按账本数据版本号缓存，账本内交易变更后自动失效；
+ * 缓存中的分页结果不直接返回给调用方，写入和命中时都复制一份
  */
 @Service
 public class FilterService {
     
+    /**
+     * 编译结果缓存容量
+     */
+    private static final int COMPILED_CACHE_SIZE = 1024;
+    
+    /**
+     * 执行结果缓存容量
+     */
+    private static final int RESULT_CACHE_SIZE = 256;
+    
+    /**
+     * 服务端执行时每页最大数量
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final SavedFilterMapper savedFilterMapper;
     private final FamilyMemberMapper familyMemberMapper;
+    private final FamilyMapper familyMapper;
+    private final AccountBookMapper accountBookMapper;
+    private final SearchService searchService;
+    private final SearchCostGuard searchCostGuard;
     private final ObjectMapper objectMapper;
     
+    private final LruCache<Long, CompiledFilter> compiledFilters = new LruCache<>(COMPILED_CACHE_SIZE);
+    private final LruCache<String, PageVO<TransactionVO>> resultCache = new LruCache<>(RESULT_CACHE_SIZE);
+    private final AtomicLong revisionSequence = new AtomicLong();
+    
     public FilterService(SavedFilterMapper savedFilterMapper, 
                         FamilyMemberMapper familyMemberMapper,
+                        FamilyMapper familyMapper,
+                        AccountBookMapper accountBookMapper,
+                        SearchService searchService,
+                        SearchCostGuard searchCostGuard,
                         ObjectMapper objectMapper) {
         this.savedFilterMapper = savedFilterMapper;
         this.familyMemberMapper = familyMemberMapper;
+        this.familyMapper = familyMapper;
+        this.accountBookMapper = accountBookMapper;
+        this.searchService = searchService;
+        this.searchCostGuard = searchCostGuard;
         this.objectMapper = objectMapper;
     }
     
@@ -108,6 +151,7 @@ public class FilterService {
         savedFilter.setName(dto.getName());
         savedFilter.setFilterJson(filterJson);
         savedFilterMapper.update(savedFilter);
+        compiledFilters.remove(id);
         
         return convertToVO(savedFilter);
     }
@@ -164,12 +208,72 @@ public class FilterService {
             throw new BusinessException("筛选条件不存在");
         }
         
-        // 将JSON转换为筛选条件对象
-        try {
-            return objectMapper.readValue(savedFilter.getFilterJson(), FilterConditionVO.class);
-        } catch (JsonProcessingException e) {
+        CompiledFilter compiled = compile(savedFilter);
+        if (compiled == null) {
+            throw new BusinessException("筛选条件格式错误");
+        }
+        return compiled.toConditionVO();
+    }
+    
+    /**
+     * 在服务端直接执行保存的筛选条件
+     * 结果按 (筛选条件编译版本, 账本, 账本数据版本, 分类版本, 分页) 缓存
+     * 
+     * @param id 筛选条件ID
+     * @param page 页码（从1开始）
+     * @param size 每页数量
+     * @return 分页结果
+     */
+    public PageVO<TransactionVO> executeFilter(Long id, int page, int size) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        Long familyId = getCurrentFamilyId(userId);
+        
+        SavedFilter savedFilter = savedFilterMapper.findById(id, userId);
+        if (savedFilter == null) {
+            throw new BusinessException("筛选条件不存在");
+        }
+        CompiledFilter compiled = compile(savedFilter);
+        if (compiled == null) {
             throw new BusinessException("筛选条件格式错误");
         }
+        compiled = ensureExpanded(compiled, familyId);
+        
+        // 确定账本：筛选条件未指定时使用默认账本
+        AccountBook accountBook;
+        if (compiled.getAccountBookId() != null) {
+            accountBook = accountBookMapper.findById(compiled.getAccountBookId());
+            if (accountBook == null) {
+                throw new BusinessException("账本不存在");
+            }
+            if (!accountBook.getFamilyId().equals(familyId)) {
+                throw new BusinessException("无权访问此账本");
+            }
+        } else {
+            accountBook = accountBookMapper.findDefaultByFamilyId(familyId);
+            if (accountBook == null) {
+                throw new BusinessException("请先创建账本");
+            }
+        }
+        
+        int safePage = Math.max(page, 1);
+        int safeSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        
+        // 代价评估：超出上限（分类、成员过多或翻页过深）时拒绝，代价较高时限制每页数量
+        SearchRequestDTO request = compiled.toSearchRequest(accountBook.getId(), safePage, safeSize);
+        searchCostGuard.checkSearch(request, compiled.getExpandedCategoryIds());
+        
+        String cacheKey = compiled.getFilterId() + ":" + compiled.getRevision()
+                + ":" + accountBook.getId() + ":" + accountBook.getDataVersion()
+                + ":" + compiled.getCategoryVersion()
+                + ":" + request.getPage() + ":" + request.getSize();
+        PageVO<TransactionVO> cached = resultCache.get(cacheKey);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        
+        PageVO<TransactionVO> result = searchService.queryPage(request, compiled.getExpandedCategoryIds());
+        resultCache.put(cacheKey, copyOf(result));
+        return result;
     }
     
     /**
@@ -185,6 +289,30 @@ public class FilterService {
         if (rows == 0) {
             throw new BusinessException("筛选条件不存在或无权删除");
         }
+        compiledFilters.remove(id);
+        String keyPrefix = id + ":";
+        resultCache.removeIf(key -> key.startsWith(keyPrefix));
+    }
+    
+    /**
+     * 复制分页结果及其中的交易VO
+     * 
+     * @param page 分页结果
+     * @return 与原对象不共享可变状态的副本
+     */
+    private PageVO<TransactionVO> copyOf(PageVO<TransactionVO> page) {
+        PageVO<TransactionVO> copy = new PageVO<>();
+        BeanUtils.copyProperties(page, copy, "list");
+        if (page.getList() != null) {
+            copy.setList(page.getList().stream()
+                    .map(vo -> {
+                        TransactionVO item = new TransactionVO();
+                        BeanUtils.copyProperties(vo, item);
+                        return item;
+                    })
+                    .collect(Collectors.toList()));
+        }
+        return copy;
     }
     
     /**
@@ -200,19 +328,63 @@ public class FilterService {
         vo.setCreatedAt(savedFilter.getCreatedAt());
         vo.setUpdatedAt(savedFilter.getUpdatedAt());
         
-        // 将JSON转换为筛选条件对象
+        // 使用编译结果，如果解析失败，返回null
+        CompiledFilter compiled = compile(savedFilter);
+        vo.setFilterCondition(compiled != null ? compiled.toConditionVO() : null);
+        
+        return vo;
+    }
+    
+    /**
+     * 获取筛选条件的编译结果
+     * 缓存中的编译结果与当前JSON一致时直接复用，否则重新解析
+     * 
+     * @param savedFilter 保存的筛选条件实体
+     * @return 编译结果，JSON无法解析时返回null
+     */
+    private CompiledFilter compile(SavedFilter savedFilter) {
+        CompiledFilter cached = compiledFilters.get(savedFilter.getId());
+        if (cached != null && cached.getSourceJson().equals(savedFilter.getFilterJson())) {
+            return cached;
+        }
+        
+        FilterConditionVO condition;
         try {
-            FilterConditionVO filterCondition = objectMapper.readValue(
-                    savedFilter.getFilterJson(), 
-                    FilterConditionVO.class
-            );
-            vo.setFilterCondition(filterCondition);
+            condition = objectMapper.readValue(savedFilter.getFilterJson(), FilterConditionVO.class);
         } catch (JsonProcessingException e) {
-            // 如果解析失败，返回null
-            vo.setFilterCondition(null);
+            return null;
+        }
+        if (condition == null) {
+            return null;
         }
         
-        return vo;
+        CompiledFilter compiled = new CompiledFilter(savedFilter.getId(), savedFilter.getFilterJson(),
+                revisionSequence.incrementAndGet(), condition);
+        compiledFilters.put(savedFilter.getId(), compiled);
+        return compiled;
+    }
+    
+    /**
+     * 确保编译结果中的分类展开与家庭当前分类版本一致
+     * 
+     * @param compiled 编译结果
+     * @param familyId 家庭ID
+     * @return 分类展开为最新的编译结果
+     */
+    private CompiledFilter ensureExpanded(CompiledFilter compiled, Long familyId) {
+        if (!compiled.hasCategories()) {
+            return compiled;
+        }
+        // 先读取版本号再展开：展开期间若分类被修改，下次请求会因版本号不一致而重新展开
+        Long categoryVersion = familyMapper.findCategoryVersion(familyId);
+        if (compiled.isExpansionCurrent(categoryVersion)) {
+            return compiled;
+        }
+        
+        CompiledFilter expanded = compiled.withExpansion(
+                searchService.expandCategoryIds(compiled.getCategoryIds()), categoryVersion);
+        compiledFilters.put(expanded.getFilterId(), expanded);
+        return expanded;
     }
     
     /**
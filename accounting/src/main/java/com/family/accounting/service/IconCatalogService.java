@@ -0,0 +1,130 @@
+package com.family.accounting.service;
+
+import com.family.accounting.config.DefaultCategoryConfig;
+import com.family.accounting.dto.IconCategoryVO;
+import com.family.accounting.dto.IconVO;
+import com.family.accounting.dto.Result;
+import com.family.accounting.util.ETagUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 图标目录服务
+ * 图标库只在发布时变化，启动时将图标目录序列化为完整的响应JSON和gzip压缩版本，
+ * ETag取内容摘要，内容不变时跨版本、跨实例保持一致
+ */
+@Service
+public class IconCatalogService {
+
+    private final List<IconCategoryVO> icons;
+    private final byte[] body;
+    private final byte[] gzipBody;
+    private final String etag;
+    private final String gzipEtag;
+
+    public IconCatalogService(ObjectMapper objectMapper) {
+        this.icons = Collections.unmodifiableList(buildIcons());
+        try {
+            this.body = objectMapper.writeValueAsBytes(Result.success(icons));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("图标目录序列化失败", e);
+        }
+        this.gzipBody = gzip(body);
+        String digest = sha256(body);
+        this.etag = ETagUtils.of("icons", digest);
+        // 不同编码是不同的表示，强ETag不能相同
+        this.gzipEtag = ETagUtils.of("icons", digest, "gzip");
+    }
+
+    /**
+     * 按分类组织的图标列表
+     */
+    public List<IconCategoryVO> getIcons() {
+        return icons;
+    }
+
+    /**
+     * 响应JSON（调用方不得修改）
+     *
+     * @param gzip 是否返回gzip压缩版本
+     */
+    public byte[] getBody(boolean gzip) {
+        return gzip ? gzipBody : body;
+    }
+
+    /**
+     * 响应的ETag
+     *
+     * @param gzip 是否为gzip压缩版本
+     */
+    public String getEtag(boolean gzip) {
+        return gzip ? gzipEtag : etag;
+    }
+
+    /**
+     * If-None-Match是否与任一编码版本的ETag匹配
+     *
+     * @param ifNoneMatch If-None-Match请求头，可为空
+     */
+    public boolean isNotModified(String ifNoneMatch) {
+        return ETagUtils.matches(ifNoneMatch, etag) || ETagUtils.matches(ifNoneMatch, gzipEtag);
+    }
+
+    private static List<IconCategoryVO> buildIcons() {
+        List<IconCategoryVO> result = new ArrayList<>();
+        for (Map.Entry<String, List<DefaultCategoryConfig.IconInfo>> entry :
+                DefaultCategoryConfig.ICON_LIBRARY.entrySet()) {
+            String categoryName = entry.getKey();
+
+            List<IconVO> icons = new ArrayList<>();
+            for (DefaultCategoryConfig.IconInfo iconInfo : entry.getValue()) {
+                icons.add(new IconVO(
+                        iconInfo.getId(),
+                        iconInfo.getName(),
+                        categoryName,
+                        iconInfo.getType()
+                ));
+            }
+
+            result.add(new IconCategoryVO(categoryName, icons));
+        }
+        return result;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("图标目录压缩失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 内容的SHA-256摘要（十六进制，取前32位）
+     */
+    private static String sha256(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((hash[i] >> 4) & 0xf, 16)).append(Character.forDigit(hash[i] & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.family.accounting.service;
+
+import com.family.accounting.mapper.InvitationMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 邀请过期服务
+ * 定期将过期的待处理邀请分批标记为已过期，使待处理邀请的查询不再扫描过期数据；
+ * 两次执行之间过期的邀请仍在接受、拒绝时即时标记
+ */
+@Service
+public class InvitationExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvitationExpiryService.class);
+
+    @Autowired
+    private InvitationMapper invitationMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 单批更新数量
+     */
+    @Value("${invitation.expiry-batch-size:1000}")
+    private int batchSize = 1000;
+
+    /**
+     * 标记过期邀请（默认每小时第5分钟执行）
+     */
+    @Scheduled(cron = "${invitation.expiry-cron:0 5 * * * ?}")
+    public void expireInvitations() {
+        try {
+            expire(LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("标记过期邀请失败", e);
+        }
+    }
+
+    /**
+     * 以指定时间为当前时间分批标记过期邀请，每批单独提交
+     *
+     * @param now 当前时间
+     * @return 标记的邀请数量
+     */
+    long expire(LocalDateTime now) {
+        long total = 0;
+        int expired;
+        do {
+            expired = invitationMapper.expireBefore(now, batchSize);
+            total += expired;
+        } while (expired >= batchSize);
+
+        DistributionSummary.builder("invitation.expired.rows")
+                .description("每次执行标记的过期邀请数量")
+                .baseUnit("rows")
+                .register(meterRegistry)
+                .record(total);
+        if (total > 0) {
+            logger.info("过期邀请标记完成: expired={}", total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,228 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.TokenVO;
+import com.family.accounting.entity.RefreshToken;
+import com.family.accounting.entity.User;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.RefreshTokenMapper;
+import com.family.accounting.mapper.UserMapper;
+import com.family.accounting.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * 刷新令牌服务
+ * 访问令牌有效期较短，过滤器验证签名、过期时间、黑名单和用户令牌生效起点；刷新令牌为随机串，只保存hash值，
+ * 每次刷新都轮换为新令牌并签发新的访问令牌，刷新时同样检查令牌撤销。
+ * 已轮换的刷新令牌超过宽限期后再次出现时视为泄露，撤销整条令牌链；
+ * 宽限期内的重复使用（多个标签页同时刷新）视为正常并发，在同一令牌链上签发新令牌
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    /**
+     * 刷新令牌随机字节数
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    @Autowired
+    private RefreshTokenMapper refreshTokenMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenBlacklistService tokenBlacklistService;
+
+    /**
+     * 刷新令牌有效期（毫秒），每次轮换后重新计算
+     */
+    @Value("${jwt.refresh-expiration:2592000000}")
+    private long refreshExpirationMillis = 2592000000L;
+
+    /**
+     * 已轮换令牌的重复使用宽限期（秒），宽限期内重复使用不视为泄露
+     */
+    @Value("${security.refresh-token.reuse-grace-seconds:30}")
+    private long reuseGraceSeconds = 30;
+
+    /**
+     * 过期刷新令牌单批删除数量
+     */
+    @Value("${security.refresh-token.cleanup-batch-size:1000}")
+    private int cleanupBatchSize = 1000;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * 为登录成功的用户创建新的刷新令牌链
+     *
+     * @param userId 用户ID
+     * @return 刷新令牌原文
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return insert(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * 使用刷新令牌换取新的访问令牌和刷新令牌
+     * 校验失败时撤销操作需要保留，因此业务异常不回滚事务
+     *
+     * @param rawToken 刷新令牌原文
+     * @return 新的令牌信息
+     */
+    @Transactional(noRollbackFor = BusinessException.class)
+    public TokenVO refresh(String rawToken) {
+        RefreshToken stored = refreshTokenMapper.findByTokenHashForUpdate(hash(rawToken));
+        if (stored == null || stored.getRevokedAt() != null) {
+            throw invalidToken();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean reusedInGrace = stored.getUsedAt() != null
+                && stored.getUsedAt().isAfter(now.minusSeconds(reuseGraceSeconds));
+        if (stored.getUsedAt() != null && !reusedInGrace) {
+            // 已轮换的令牌在宽限期后被再次使用，说明令牌可能已泄露
+            refreshTokenMapper.revokeChain(stored.getChainId(), now);
+            logger.warn("刷新令牌被重复使用，已撤销令牌链: userId={}, chainId={}",
+                    stored.getUserId(), stored.getChainId());
+            throw invalidToken();
+        }
+        if (stored.getExpiredAt().isBefore(now)) {
+            throw invalidToken();
+        }
+        if (tokenBlacklistService.isTokenRevoked(stored.getUserId(), toDate(stored.getCreatedAt()))) {
+            refreshTokenMapper.revokeChain(stored.getChainId(), now);
+            throw invalidToken();
+        }
+
+        User user = userMapper.findById(stored.getUserId());
+        if (user == null || (!reusedInGrace && refreshTokenMapper.markUsed(stored.getId(), now) == 0)) {
+            throw invalidToken();
+        }
+        if (reusedInGrace) {
+            logger.debug("刷新令牌在宽限期内重复使用: userId={}, chainId={}", stored.getUserId(), stored.getChainId());
+        }
+
+        TokenVO tokenVO = new TokenVO();
+        tokenVO.setToken(jwtUtil.generateToken(user.getId(), user.getPhone()));
+        tokenVO.setRefreshToken(insert(user.getId(), stored.getChainId()));
+        tokenVO.setExpiresIn(jwtUtil.getExpirationSeconds());
+        tokenVO.setUserId(user.getId());
+        tokenVO.setPhone(user.getPhone());
+        tokenVO.setNickname(user.getNickname());
+        return tokenVO;
+    }
+
+    /**
+     * 撤销刷新令牌所在的令牌链（用户登出）
+     *
+     * @param rawToken 刷新令牌原文
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        RefreshToken stored = refreshTokenMapper.findByTokenHashForUpdate(hash(rawToken));
+        if (stored != null) {
+            refreshTokenMapper.revokeChain(stored.getChainId(), LocalDateTime.now());
+        }
+    }
+
+    /**
+     * 撤销用户的所有刷新令牌（修改密码等场景）
+     *
+     * @param userId 用户ID
+     */
+    @Transactional
+    public void revokeAllUserTokens(Long userId) {
+        int revoked = refreshTokenMapper.revokeByUserId(userId, LocalDateTime.now());
+        logger.info("用户刷新令牌已撤销: userId={}, revoked={}", userId, revoked);
+    }
+
+    /**
+     * 分批清理已过期的刷新令牌（每天凌晨2点30分执行）
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void cleanupExpiredTokens() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int total = 0;
+            int deleted;
+            do {
+                deleted = refreshTokenMapper.deleteExpired(now, cleanupBatchSize);
+                total += deleted;
+            } while (deleted >= cleanupBatchSize);
+
+            if (total > 0) {
+                logger.info("清理过期刷新令牌完成: deleted={}", total);
+            }
+        } catch (Exception e) {
+            logger.error("清理过期刷新令牌失败", e);
+        }
+    }
+
+    /**
+     * 生成并保存新的刷新令牌
+     */
+    private String insert(Long userId, String chainId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        // 创建时间精确到秒，与用户令牌生效起点的精度一致
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUserId(userId);
+        refreshToken.setTokenHash(hash(rawToken));
+        refreshToken.setChainId(chainId);
+        refreshToken.setExpiredAt(now.plusSeconds(refreshExpirationMillis / 1000));
+        refreshToken.setCreatedAt(now);
+        refreshTokenMapper.insert(refreshToken);
+        return rawToken;
+    }
+
+    private BusinessException invalidToken() {
+        return new BusinessException(401, "登录已过期，请重新登录");
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return time != null ? Date.from(time.atZone(ZoneId.systemDefault()).toInstant()) : null;
+    }
+
+    /**
+     * 刷新令牌的SHA-256 hash值（十六进制）
+     */
+    private static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+}
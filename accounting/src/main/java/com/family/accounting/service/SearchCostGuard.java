@@ -0,0 +1,171 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * 搜索代价评估
+ * 在查询到达数据库之前，根据日期跨度、关键词长度、筛选列表大小和分页深度估算查询代价：
+ * 代价较高时降级（关闭分面统计、限制每页数量），代价过高或超出硬性上限时直接拒绝
+ */
+@Component
+public class SearchCostGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchCostGuard.class);
+
+    /**
+     * 未指定起止日期时按10年估算
+     */
+    private static final long UNBOUNDED_SPAN_DAYS = 3650;
+
+    /**
+     * 全文索引 ngram 分词长度，短于该长度的关键词无法走索引
+     */
+    private static final int NGRAM_TOKEN_SIZE = 2;
+
+    /**
+     * 分类ID（展开后）数量上限
+     */
+    static final int MAX_CATEGORY_IDS = 200;
+
+    /**
+     * 成员ID数量上限
+     */
+    static final int MAX_MEMBER_IDS = 50;
+
+    /**
+     * 分页偏移量上限
+     */
+    static final int MAX_OFFSET = 10000;
+
+    /**
+     * 每页数量上限
+     */
+    static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 降级后每页数量上限
+     */
+    static final int DOWNGRADED_PAGE_SIZE = 20;
+
+    private final double downgradeThreshold;
+    private final double rejectThreshold;
+
+    public SearchCostGuard(@Value("${search.cost.downgrade-threshold:60}") double downgradeThreshold,
+                           @Value("${search.cost.reject-threshold:150}") double rejectThreshold) {
+        this.downgradeThreshold = downgradeThreshold;
+        this.rejectThreshold = rejectThreshold;
+    }
+
+    /**
+     * 检查分页搜索请求，必要时原地降级请求
+     *
+     * @param request             搜索请求
+     * @param expandedCategoryIds 展开后的分类ID
+     * @return 是否发生了降级
+     */
+    public boolean checkSearch(SearchRequestDTO request, List<Long> expandedCategoryIds) {
+        checkHardLimits(request, expandedCategoryIds);
+
+        int page = request.getPage() != null ? Math.max(request.getPage(), 1) : 1;
+        int size = request.getSize() != null ? request.getSize() : 20;
+        if (size < 1) {
+            size = 20;
+        }
+        boolean downgraded = false;
+        if (size > MAX_PAGE_SIZE) {
+            size = MAX_PAGE_SIZE;
+            downgraded = true;
+        }
+        long offset = (long) (page - 1) * size;
+        if (offset > MAX_OFFSET) {
+            throw new BusinessException("翻页过深，请增加筛选条件后再查看");
+        }
+
+        double cost = estimateBaseCost(request, expandedCategoryIds) + offset / 200.0;
+        if (Boolean.TRUE.equals(request.getIncludeFacets())) {
+            cost += 10;
+        }
+        reject(cost);
+
+        if (cost >= downgradeThreshold) {
+            request.setIncludeFacets(false);
+            size = Math.min(size, DOWNGRADED_PAGE_SIZE);
+            downgraded = true;
+            logger.info("搜索代价较高({})，已降级执行", cost);
+        }
+        request.setPage(page);
+        request.setSize(size);
+        return downgraded;
+    }
+
+    /**
+     * 检查需要遍历全部命中记录的聚合请求（如金额分布），不可降级，超出阈值即拒绝
+     *
+     * @param request             搜索请求
+     * @param expandedCategoryIds 展开后的分类ID
+     */
+    public void checkAggregate(SearchRequestDTO request, List<Long> expandedCategoryIds) {
+        checkHardLimits(request, expandedCategoryIds);
+        reject(estimateBaseCost(request, expandedCategoryIds) + 20);
+    }
+
+    /**
+     * 估算与分页无关的基础代价
+     *
+     * @param request             搜索请求
+     * @param expandedCategoryIds 展开后的分类ID
+     * @return 代价估值
+     */
+    double estimateBaseCost(SearchRequestDTO request, List<Long> expandedCategoryIds) {
+        double cost = 0;
+
+        // 日期跨度：按月计，未限定的一端视为无界
+        long spanDays = UNBOUNDED_SPAN_DAYS;
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = request.getEndDate();
+        if (startDate != null && endDate != null) {
+            spanDays = Math.max(ChronoUnit.DAYS.between(startDate, endDate), 0);
+        }
+        cost += spanDays / 30.0 * 0.25;
+
+        // 关键词：短于分词长度时无法利用全文索引
+        String keyword = request.getKeyword();
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            cost += keyword.trim().length() < NGRAM_TOKEN_SIZE ? 40 : 5;
+        }
+
+        // IN 列表
+        if (expandedCategoryIds != null) {
+            cost += expandedCategoryIds.size() * 0.2;
+        }
+        if (request.getMemberIds() != null) {
+            cost += request.getMemberIds().size() * 0.5;
+        }
+        return cost;
+    }
+
+    private void checkHardLimits(SearchRequestDTO request, List<Long> expandedCategoryIds) {
+        if (expandedCategoryIds != null && expandedCategoryIds.size() > MAX_CATEGORY_IDS) {
+            throw new BusinessException("选择的分类过多，请减少分类后重试");
+        }
+        if (request.getMemberIds() != null && request.getMemberIds().size() > MAX_MEMBER_IDS) {
+            throw new BusinessException("选择的成员过多，请减少成员后重试");
+        }
+    }
+
+    private void reject(double cost) {
+        if (cost >= rejectThreshold) {
+            logger.warn("搜索代价过高({})，已拒绝", cost);
+            throw new BusinessException("搜索范围过大，请缩小日期范围或增加筛选条件");
+        }
+    }
+}
@@ -1,23 +1,50 @@
 package com.family.accounting.service;
 
+import com.family.accounting.dto.AmountBucketVO;
+import com.family.accounting.dto.AmountDistributionVO;
 import com.family.accounting.dto.PageVO;
+import com.family.accounting.dto.SearchFacetsVO;
 import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.dto.SearchResultVO;
 import com.family.accounting.dto.TransactionVO;
+import com.family.accounting.dto.TrendingKeywordVO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.Category;
 import com.family.accounting.entity.FamilyMember;
 import com.family.accounting.entity.SearchHistory;
 import com.family.accounting.entity.Transaction;
 import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
 import com.family.accounting.mapper.CategoryMapper;
 import com.family.accounting.mapper.FamilyMemberMapper;
 import com.family.accounting.mapper.SearchHistoryMapper;
 import com.family.accounting.mapper.TransactionMapper;
 import com.family.accounting.security.SecurityUtils;
+import com.family.accounting.util.AmountQuantileSketch;
+import com.family.accounting.util.QueryCancellation;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -26,40 +53,105 @@ import java.util.stream.Collectors;
 @Service
 public class SearchService {
     
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+    
+    /**
+     * 金额分布直方图的固定分桶边界（元），最后一个桶无上界
+     */
+    private static final BigDecimal[] AMOUNT_BUCKET_BOUNDS = {
+            new BigDecimal("0"), new BigDecimal("10"), new BigDecimal("20"), new BigDecimal("50"),
+            new BigDecimal("100"), new BigDecimal("200"), new BigDecimal("500"), new BigDecimal("1000"),
+            new BigDecimal("2000"), new BigDecimal("5000"), new BigDecimal("10000")
+    };
+    
     private final TransactionMapper transactionMapper;
     private final CategoryMapper categoryMapper;
     private final SearchHistoryMapper searchHistoryMapper;
     private final FamilyMemberMapper familyMemberMapper;
+    private final AccountBookMapper accountBookMapper;
+    private final Executor searchExecutor;
+    private final SearchCostGuard searchCostGuard;
+    private final SearchTrendingService searchTrendingService;
+    
+    /**
+     * 分页查询完成后等待分面统计的最长时间（毫秒）
+     */
+    private final long facetsTimeoutMillis;
     
     public SearchService(TransactionMapper transactionMapper,
                         CategoryMapper categoryMapper,
                         SearchHistoryMapper searchHistoryMapper,
-                        FamilyMemberMapper familyMemberMapper) {
+                        FamilyMemberMapper familyMemberMapper,
+                        AccountBookMapper accountBookMapper,
+                        @Qualifier("searchExecutor") Executor searchExecutor,
+                        SearchCostGuard searchCostGuard,
+                        SearchTrendingService searchTrendingService,
+                        @Value("${search.facets-timeout-ms:3000}") long facetsTimeoutMillis) {
         this.transactionMapper = transactionMapper;
         this.categoryMapper = categoryMapper;
         this.searchHistoryMapper = searchHistoryMapper;
         this.familyMemberMapper = familyMemberMapper;
+        this.accountBookMapper = accountBookMapper;
+        this.searchExecutor = searchExecutor;
+        this.searchCostGuard = searchCostGuard;
+        this.searchTrendingService = searchTrendingService;
+        this.facetsTimeoutMillis = facetsTimeoutMillis;
     }
     
     /**
      * 搜索交易记录
+     * 请求分面统计时，分面查询与分页查询并行执行；
+     * 查询前先评估代价，代价较高时降级执行，过高时拒绝
      * 
      * @param request 搜索请求
-     * @return 分页结果
+     * @return 分页结果（可选包含分面统计）
      */
     @Transactional
-    public PageVO<TransactionVO> searchTransactions(SearchRequestDTO request) {
+    public SearchResultVO searchTransactions(SearchRequestDTO request) {
         Long userId = SecurityUtils.getCurrentUserId();
         Long familyId = getCurrentFamilyId(userId);
+        request.setAccountBookId(resolveAccountBookId(request.getAccountBookId(), familyId));
+        
+        // 处理分类筛选：如果指定了分类，需要包含所有子分类
+        List<Long> expandedCategoryIds = expandCategoryIds(request.getCategoryIds());
         
-        // 如果有关键词，记录搜索历史
+        // 代价评估（可能关闭分面统计、限制每页数量），被拒绝的搜索不记录历史和热门关键词
+        searchCostGuard.checkSearch(request, expandedCategoryIds);
+        
+        // 如果有关键词，记录搜索历史和家庭热门关键词
         if (request.getKeyword() != null && !request.getKeyword().trim().isEmpty()) {
             recordSearchHistory(userId, familyId, request.getKeyword().trim());
+            searchTrendingService.recordKeyword(familyId, request.getKeyword().trim());
         }
         
-        // 处理分类筛选：如果指定了分类，需要包含所有子分类
-        List<Long> expandedCategoryIds = expandCategoryIds(request.getCategoryIds());
+        // 分面统计与分页查询使用相同的筛选条件，提交到搜索线程池并行执行；
+        // 分面使用当前请求取消令牌的子令牌，请求取消时一并取消，分面超时时也可以单独取消
+        CompletableFuture<SearchFacetsVO> facetsFuture = null;
+        QueryCancellation facetsCancellation = null;
+        if (Boolean.TRUE.equals(request.getIncludeFacets())) {
+            QueryCancellation current = QueryCancellation.current();
+            QueryCancellation cancellation = current != null ? current.newChild() : new QueryCancellation();
+            facetsCancellation = cancellation;
+            facetsFuture = CompletableFuture.supplyAsync(
+                    () -> QueryCancellation.runWith(cancellation,
+                            () -> buildFacets(familyId, request, expandedCategoryIds)),
+                    searchExecutor);
+        }
         
+        PageVO<TransactionVO> pageVO = queryPage(request, expandedCategoryIds);
+        return SearchResultVO.of(pageVO,
+                facetsFuture != null ? joinFacets(facetsFuture, facetsCancellation) : null);
+    }
+    
+    /**
+     * 按已展开的分类ID执行分页搜索
+     * 不记录搜索历史，供保存的筛选条件等服务端直接调用
+     * 
+     * @param request 搜索请求
+     * @param expandedCategoryIds 已展开的分类ID列表（含所有子分类）
+     * @return 分页结果
+     */
+    public PageVO<TransactionVO> queryPage(SearchRequestDTO request, List<Long> expandedCategoryIds) {
         // 计算分页参数
         int page = request.getPage() != null ? request.getPage() : 1;
         int size = request.getSize() != null ? request.getSize() : 20;
@@ -102,6 +194,37 @@ public class SearchService {
         return PageVO.of(transactionVOs, page, size, (long) total);
     }
     
+    /**
+     * 统计搜索结果的金额分布
+     * 对命中记录的金额做一次流式遍历，同时累计固定分桶直方图和分位数草图，不加载交易记录
+     * 
+     * @param request 搜索请求（分页参数忽略）
+     * @return 金额分布
+     */
+    public AmountDistributionVO getAmountDistribution(SearchRequestDTO request) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        Long familyId = getCurrentFamilyId(userId);
+        request.setAccountBookId(resolveAccountBookId(request.getAccountBookId(), familyId));
+        
+        List<Long> expandedCategoryIds = expandCategoryIds(request.getCategoryIds());
+        searchCostGuard.checkAggregate(request, expandedCategoryIds);
+        
+        AmountAccumulator accumulator = new AmountAccumulator();
+        transactionMapper.streamSearchAmounts(
+                request.getAccountBookId(),
+                request.getKeyword(),
+                request.getStartDate(),
+                request.getEndDate(),
+                request.getMinAmount(),
+                request.getMaxAmount(),
+                expandedCategoryIds,
+                request.getMemberIds(),
+                request.getType(),
+                accumulator
+        );
+        return accumulator.toVO();
+    }
+    
     /**
      * 获取搜索建议
      * 
@@ -118,6 +241,19 @@ public class SearchService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * 获取当前家庭的热门搜索关键词
+     * 
+     * @param limit 返回数量限制
+     * @return 热门关键词列表
+     */
+    public List<TrendingKeywordVO> getTrendingKeywords(int limit) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        Long familyId = getCurrentFamilyId(userId);
+        
+        return searchTrendingService.getTrending(familyId, limit);
+    }
+    
     /**
      * 获取搜索历史
      * 
@@ -164,6 +300,32 @@ public class SearchService {
         return member.getFamilyId();
     }
     
+    /**
+     * 确定查询的账本并校验其属于当前家庭，未指定时使用家庭默认账本
+     * 
+     * @param accountBookId 请求中的账本ID
+     * @param familyId 家庭ID
+     * @return 账本ID
+     */
+    private Long resolveAccountBookId(Long accountBookId, Long familyId) {
+        AccountBook accountBook;
+        if (accountBookId != null) {
+            accountBook = accountBookMapper.findById(accountBookId);
+            if (accountBook == null) {
+                throw new BusinessException("账本不存在");
+            }
+            if (!accountBook.getFamilyId().equals(familyId)) {
+                throw new BusinessException("无权访问此账本");
+            }
+        } else {
+            accountBook = accountBookMapper.findDefaultByFamilyId(familyId);
+            if (accountBook == null) {
+                throw new BusinessException("请先创建账本");
+            }
+        }
+        return accountBook.getId();
+    }
+    
     /**
      * 记录搜索历史
      * 
@@ -195,7 +357,7 @@ public class SearchService {
      * @param categoryIds 原始分类ID列表
      * @return 扩展后的分类ID列表
      */
-    private List<Long> expandCategoryIds(List<Long> categoryIds) {
+    public List<Long> expandCategoryIds(List<Long> categoryIds) {
         if (categoryIds == null || categoryIds.isEmpty()) {
             return null;
         }
@@ -211,6 +373,87 @@ public class SearchService {
         return expandedIds.stream().distinct().collect(Collectors.toList());
     }
     
+    /**
+     * 构建分面统计
+     * 一次分组查询得到 (分类, 记录人, 类型) 组合计数，再在内存中按三个维度汇总，
+     * 分类计数汇总到顶级分类
+     * 
+     * @param familyId 家庭ID
+     * @param request 搜索请求
+     * @param expandedCategoryIds 扩展后的分类ID列表
+     * @return 分面统计
+     */
+    private SearchFacetsVO buildFacets(Long familyId, SearchRequestDTO request, List<Long> expandedCategoryIds) {
+        List<Map<String, Object>> rows = transactionMapper.countSearchFacets(
+                request.getAccountBookId(),
+                request.getKeyword(),
+                request.getStartDate(),
+                request.getEndDate(),
+                request.getMinAmount(),
+                request.getMaxAmount(),
+                expandedCategoryIds,
+                request.getMemberIds(),
+                request.getType()
+        );
+        
+        Map<Long, Long> parentIds = new HashMap<>();
+        for (Category category : categoryMapper.findByFamilyId(familyId)) {
+            parentIds.put(category.getId(), category.getParentId());
+        }
+        
+        SearchFacetsVO facets = new SearchFacetsVO();
+        for (Map<String, Object> row : rows) {
+            long count = ((Number) row.get("count")).longValue();
+            Long rootCategoryId = findRootCategoryId(((Number) row.get("categoryId")).longValue(), parentIds);
+            facets.getCategoryCounts().merge(rootCategoryId, count, Long::sum);
+            facets.getMemberCounts().merge(((Number) row.get("userId")).longValue(), count, Long::sum);
+            facets.getTypeCounts().merge(((Number) row.get("type")).intValue(), count, Long::sum);
+        }
+        return facets;
+    }
+    
+    /**
+     * 查找分类的顶级分类ID
+     * 
+     * @param categoryId 分类ID
+     * @param parentIds 分类ID -> 父分类ID
+     * @return 顶级分类ID
+     */
+    private Long findRootCategoryId(Long categoryId, Map<Long, Long> parentIds) {
+        Long current = categoryId;
+        Set<Long> visited = new HashSet<>();
+        while (visited.add(current)) {
+            Long parentId = parentIds.get(current);
+            if (parentId == null) {
+                break;
+            }
+            current = parentId;
+        }
+        return current;
+    }
+    
+    /**
+     * 等待分面统计结果
+     * 分面统计只是筛选面板的辅助信息，查询失败或超时时返回null，分页结果照常返回；
+     * 超时时取消分面的令牌，中止仍在数据库中执行的分面查询（尚未开始的任务不再执行）
+     */
+    private SearchFacetsVO joinFacets(CompletableFuture<SearchFacetsVO> facetsFuture, QueryCancellation cancellation) {
+        try {
+            return facetsFuture.get(facetsTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancellation.cancel();
+            logger.warn("分面统计超过{}ms未完成，返回不含分面的结果", facetsTimeoutMillis);
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("分面统计失败，返回不含分面的结果", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            cancellation.cancel();
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
     /**
      * 转换为VO
      * 
@@ -222,4 +465,61 @@ public class SearchService {
         BeanUtils.copyProperties(transaction, vo);
         return vo;
     }
+    
+    /**
+     * 金额流式累加器
+     * 每行金额同时计入直方图、分位数草图和合计值
+     */
+    private static class AmountAccumulator implements ResultHandler<BigDecimal> {
+        
+        private final long[] bucketCounts = new long[AMOUNT_BUCKET_BOUNDS.length];
+        private final AmountQuantileSketch sketch = new AmountQuantileSketch();
+        private BigDecimal total = BigDecimal.ZERO;
+        private BigDecimal min;
+        private BigDecimal max;
+        
+        @Override
+        public void handleResult(ResultContext<? extends BigDecimal> context) {
+            BigDecimal amount = context.getResultObject();
+            if (amount == null) {
+                return;
+            }
+            bucketCounts[bucketIndex(amount)]++;
+            sketch.add(amount.doubleValue());
+            total = total.add(amount);
+            min = min == null || amount.compareTo(min) < 0 ? amount : min;
+            max = max == null || amount.compareTo(max) > 0 ? amount : max;
+        }
+        
+        private int bucketIndex(BigDecimal amount) {
+            for (int i = AMOUNT_BUCKET_BOUNDS.length - 1; i > 0; i--) {
+                if (amount.compareTo(AMOUNT_BUCKET_BOUNDS[i]) >= 0) {
+                    return i;
+                }
+            }
+            return 0;
+        }
+        
+        AmountDistributionVO toVO() {
+            AmountDistributionVO vo = new AmountDistributionVO();
+            vo.setCount(sketch.getCount());
+            vo.setTotalAmount(total);
+            vo.setMinAmount(min);
+            vo.setMaxAmount(max);
+            if (!sketch.isEmpty()) {
+                vo.setP50(toAmount(sketch.quantile(0.5)));
+                vo.setP90(toAmount(sketch.quantile(0.9)));
+                vo.setP99(toAmount(sketch.quantile(0.99)));
+            }
+            for (int i = 0; i < AMOUNT_BUCKET_BOUNDS.length; i++) {
+                BigDecimal upper = i + 1 < AMOUNT_BUCKET_BOUNDS.length ? AMOUNT_BUCKET_BOUNDS[i + 1] : null;
+                vo.getBuckets().add(new AmountBucketVO(AMOUNT_BUCKET_BOUNDS[i], upper, bucketCounts[i]));
+            }
+            return vo;
+        }
+        
+        private static BigDecimal toAmount(double value) {
+            return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
 }
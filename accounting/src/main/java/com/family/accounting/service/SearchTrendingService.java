@@ -0,0 +1,284 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.TrendingKeywordVO;
+import com.family.accounting.entity.SearchTrending;
+import com.family.accounting.mapper.SearchHistoryMapper;
+import com.family.accounting.mapper.SearchTrendingMapper;
+import com.family.accounting.util.LruCache;
+import com.family.accounting.util.SpaceSavingSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 热门搜索关键词服务
+ * 搜索时关键词计入本实例的增量草图，定期把增量累加到 t_search_trending 后清空，多个实例的计数在数据库中合并；
+ * 查询时使用按家庭缓存的草图（容量受限的LRU缓存），首次访问或增量提交后从数据库重新加载。
+ * 关键词统一转为小写后计数，每个家庭在单独的事务中写入，互不影响；
+ * 同时负责每日衰减热度和按批清理长期未使用的搜索历史
+ */
+@Service
+public class SearchTrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchTrendingService.class);
+
+    @Autowired
+    private SearchTrendingMapper searchTrendingMapper;
+
+    @Autowired
+    private SearchHistoryMapper searchHistoryMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 每个家庭跟踪的关键词数量
+     */
+    @Value("${search.trending.capacity:50}")
+    private int capacity = 50;
+
+    /**
+     * 每日衰减系数
+     */
+    @Value("${search.trending.decay-factor:0.8}")
+    private double decayFactor = 0.8;
+
+    /**
+     * 缓存热门关键词草图的家庭数量上限
+     */
+    @Value("${search.trending.cache-size:10000}")
+    private int cacheSize = 10000;
+
+    /**
+     * 衰减热度单批更新数量
+     */
+    @Value("${search.trending.decay-batch-size:1000}")
+    private int decayBatchSize = 1000;
+
+    /**
+     * 搜索历史保留天数
+     */
+    @Value("${search.history.retention-days:180}")
+    private int historyRetentionDays = 180;
+
+    /**
+     * 搜索次数不超过该值的过期历史会被清理
+     */
+    @Value("${search.history.purge-max-count:2}")
+    private int historyPurgeMaxCount = 2;
+
+    /**
+     * 搜索历史单批删除数量
+     */
+    @Value("${search.history.purge-batch-size:1000}")
+    private int historyPurgeBatchSize = 1000;
+
+    /**
+     * 家庭ID -> 用于查询的草图（数据库中的热度 + 本实例尚未提交的增量），首次使用时创建
+     */
+    private volatile LruCache<Long, SpaceSavingSketch> sketches;
+
+    /**
+     * 家庭ID -> 上次提交以来本实例的关键词增量，提交后移除
+     */
+    private final Map<Long, SpaceSavingSketch> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次关键词搜索
+     *
+     * @param familyId 家庭ID
+     * @param keyword  关键词（已去除首尾空白）
+     */
+    public void recordKeyword(Long familyId, String keyword) {
+        String item = normalize(keyword);
+        // 在 compute 中累加，与提交时的 remove 互斥，增量不会在提交过程中丢失
+        pending.compute(familyId, (id, delta) -> {
+            SpaceSavingSketch sketch = delta != null ? delta : new SpaceSavingSketch(capacity);
+            sketch.offer(item);
+            return sketch;
+        });
+        SpaceSavingSketch cached = sketches().get(familyId);
+        if (cached != null) {
+            cached.offer(item);
+        }
+    }
+
+    /**
+     * 获取家庭热门关键词
+     *
+     * @param familyId 家庭ID
+     * @param limit    返回数量
+     * @return 按热度降序的关键词列表
+     */
+    public List<TrendingKeywordVO> getTrending(Long familyId, int limit) {
+        return sketchOf(familyId).top(Math.max(limit, 0)).stream()
+                .map(entry -> new TrendingKeywordVO(entry.getItem(), entry.getCount()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 定时将本实例的关键词增量累加到数据库（默认每5分钟）
+     * 每个家庭单独提交，写入失败的增量合并回待提交增量下次重试，不影响其他家庭；
+     * 提交成功后丢弃家庭的缓存草图，下次查询时重新加载包含其他实例计数的结果
+     */
+    @Scheduled(fixedDelayString = "${search.trending.flush-interval-ms:300000}")
+    public void flushTrending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> familyIds = new ArrayList<>(pending.keySet());
+        int failed = 0;
+        for (Long familyId : familyIds) {
+            SpaceSavingSketch delta = pending.remove(familyId);
+            if (delta == null) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(familyId, delta));
+                sketches().remove(familyId);
+            } catch (RuntimeException e) {
+                pending.merge(familyId, delta, SearchTrendingService::mergeInto);
+                failed++;
+                logger.error("热门关键词持久化失败，下次重试: familyId={}", familyId, e);
+            }
+        }
+        logger.debug("热门关键词持久化完成: families={}, failed={}", familyIds.size(), failed);
+    }
+
+    /**
+     * 每日衰减热度，使近期搜索的关键词排在前面（每天凌晨4点执行）
+     * 只处理当天尚未衰减的行，多个实例同时执行时每行当天只衰减一次
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void decayTrending() {
+        try {
+            LocalDate today = LocalDate.now();
+            int total = 0;
+            int updated;
+            do {
+                updated = searchTrendingMapper.decayBatch(decayFactor, today, decayBatchSize);
+                total += updated;
+            } while (updated >= decayBatchSize);
+
+            int deleted;
+            do {
+                deleted = searchTrendingMapper.deleteDepletedBatch(decayBatchSize);
+            } while (deleted >= decayBatchSize);
+
+            sketches().clear();
+            logger.info("热门关键词衰减完成: decayed={}", total);
+        } catch (Exception e) {
+            logger.error("热门关键词衰减失败", e);
+        }
+    }
+
+    /**
+     * 分批清理长期未使用且搜索次数较少的搜索历史（每天凌晨3点30分执行）
+     * 每批单独提交，避免长事务和大范围锁
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeStaleHistory() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(historyRetentionDays);
+            int total = 0;
+            int deleted;
+            do {
+                deleted = searchHistoryMapper.deleteStaleBatch(before, historyPurgeMaxCount, historyPurgeBatchSize);
+                total += deleted;
+            } while (deleted >= historyPurgeBatchSize);
+
+            if (total > 0) {
+                logger.info("清理过期搜索历史完成: deleted={}", total);
+            }
+        } catch (Exception e) {
+            logger.error("清理过期搜索历史失败", e);
+        }
+    }
+
+    /**
+     * 获取家庭草图，未缓存时从数据库加载并合并本实例尚未提交的增量
+     */
+    private SpaceSavingSketch sketchOf(Long familyId) {
+        LruCache<Long, SpaceSavingSketch> cache = sketches();
+        SpaceSavingSketch sketch = cache.get(familyId);
+        if (sketch != null) {
+            return sketch;
+        }
+
+        SpaceSavingSketch loaded = new SpaceSavingSketch(capacity);
+        for (SearchTrending trending : searchTrendingMapper.findByFamilyId(familyId)) {
+            loaded.offer(normalize(trending.getKeyword()), trending.getScore(),
+                    trending.getScoreError() != null ? trending.getScoreError() : 0);
+        }
+        SpaceSavingSketch delta = pending.get(familyId);
+        if (delta != null) {
+            mergeInto(loaded, delta);
+        }
+        cache.put(familyId, loaded);
+        return loaded;
+    }
+
+    /**
+     * 把本实例的增量累加到家庭的持久化热度，只保留热度最高的 capacity 个关键词
+     */
+    private void persist(Long familyId, SpaceSavingSketch delta) {
+        List<SearchTrending> rows = new ArrayList<>();
+        for (SpaceSavingSketch.Entry entry : delta.snapshot()) {
+            SearchTrending row = new SearchTrending();
+            row.setFamilyId(familyId);
+            row.setKeyword(entry.getItem());
+            row.setScore(entry.getCount());
+            row.setScoreError(entry.getError());
+            rows.add(row);
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        searchTrendingMapper.batchIncrement(rows);
+        searchTrendingMapper.deleteBeyondTop(familyId, capacity);
+    }
+
+    /**
+     * 把 source 的计数累加到 target
+     */
+    private static SpaceSavingSketch mergeInto(SpaceSavingSketch target, SpaceSavingSketch source) {
+        for (SpaceSavingSketch.Entry entry : source.snapshot()) {
+            target.offer(entry.getItem(), entry.getCount(), entry.getError());
+        }
+        return target;
+    }
+
+    private LruCache<Long, SpaceSavingSketch> sketches() {
+        LruCache<Long, SpaceSavingSketch> cache = sketches;
+        if (cache == null) {
+            synchronized (this) {
+                cache = sketches;
+                if (cache == null) {
+                    cache = new LruCache<>(cacheSize);
+                    sketches = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 关键词统一转为小写，大小写不同的关键词计为同一个
+     */
+    private static String normalize(String keyword) {
+        return keyword.toLowerCase(Locale.ROOT);
+    }
+}
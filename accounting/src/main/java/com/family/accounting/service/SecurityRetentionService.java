@@ -0,0 +1,174 @@
+package com.family.accounting.service;
+
+import com.family.accounting.mapper.IpRequestMapper;
+import com.family.accounting.mapper.LoginAttemptMapper;
+import com.family.accounting.mapper.RetentionWatermarkMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * 安全记录保留服务
+ * 定期将超过保留期的 t_ip_request、t_login_attempt 明细按小时汇总，再分批删除已汇总的明细；
+ * t_ip_request 只保存采样的请求，汇总时按采样权重还原请求数；
+ * 汇总进度记录在 t_retention_watermark 中，只删除水位之前的数据，中断后下次从水位继续
+ */
+@Service
+public class SecurityRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityRetentionService.class);
+
+    static final String IP_REQUEST_TABLE = "t_ip_request";
+    static final String LOGIN_ATTEMPT_TABLE = "t_login_attempt";
+
+    @Autowired
+    private IpRequestMapper ipRequestMapper;
+
+    @Autowired
+    private LoginAttemptMapper loginAttemptMapper;
+
+    @Autowired
+    private RetentionWatermarkMapper retentionWatermarkMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * IP请求明细保留天数
+     */
+    @Value("${security.retention.ip-request-days:7}")
+    private int ipRequestRetentionDays = 7;
+
+    /**
+     * 登录尝试明细保留天数
+     */
+    @Value("${security.retention.login-attempt-days:30}")
+    private int loginAttemptRetentionDays = 30;
+
+    /**
+     * 小时汇总保留天数
+     */
+    @Value("${security.retention.hourly-days:365}")
+    private int hourlyRetentionDays = 365;
+
+    /**
+     * 单次汇总覆盖的小时数
+     */
+    @Value("${security.retention.rollup-step-hours:24}")
+    private int rollupStepHours = 24;
+
+    /**
+     * 单批删除数量
+     */
+    @Value("${security.retention.batch-size:5000}")
+    private int batchSize = 5000;
+
+    /**
+     * 汇总并清理过期的安全记录（每天凌晨3点15分执行）
+     */
+    @Scheduled(cron = "${security.retention.cron:0 15 3 * * ?}")
+    public void purgeSecurityRecords() {
+        purge(LocalDateTime.now());
+    }
+
+    /**
+     * 以指定时间为当前时间执行汇总和清理，各表互不影响
+     *
+     * @param now 当前时间
+     */
+    void purge(LocalDateTime now) {
+        try {
+            purgeTable(IP_REQUEST_TABLE, now.minusDays(ipRequestRetentionDays),
+                    ipRequestMapper::findEarliestCreatedAt, ipRequestMapper::rollupHourly,
+                    ipRequestMapper::deleteBefore);
+            purgeHourly(IP_REQUEST_TABLE + "_hourly", now.minusDays(hourlyRetentionDays),
+                    ipRequestMapper::deleteHourlyBefore);
+        } catch (Exception e) {
+            logger.error("清理IP请求记录失败", e);
+        }
+
+        try {
+            purgeTable(LOGIN_ATTEMPT_TABLE, now.minusDays(loginAttemptRetentionDays),
+                    loginAttemptMapper::findEarliestCreatedAt, loginAttemptMapper::rollupHourly,
+                    loginAttemptMapper::deleteBefore);
+            purgeHourly(LOGIN_ATTEMPT_TABLE + "_hourly", now.minusDays(hourlyRetentionDays),
+                    loginAttemptMapper::deleteHourlyBefore);
+        } catch (Exception e) {
+            logger.error("清理登录尝试记录失败", e);
+        }
+    }
+
+    /**
+     * 将水位到截止时间之间的明细逐段汇总并推进水位，再删除水位之前的明细
+     * 汇总为覆盖写入，水位保存前中断时重新汇总结果不变
+     */
+    private void purgeTable(String table, LocalDateTime retainFrom,
+                            Supplier<LocalDateTime> earliest,
+                            BiFunction<LocalDateTime, LocalDateTime, Integer> rollup,
+                            BiFunction<LocalDateTime, Integer, Integer> delete) {
+        LocalDateTime cutoff = retainFrom.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime watermark = retentionWatermarkMapper.findRolledUpUntil(table);
+        if (watermark == null) {
+            LocalDateTime first = earliest.get();
+            watermark = first != null ? first.truncatedTo(ChronoUnit.HOURS) : cutoff;
+            if (!watermark.isBefore(cutoff)) {
+                watermark = cutoff;
+                retentionWatermarkMapper.saveRolledUpUntil(table, watermark);
+            }
+        }
+
+        long rolledUpHours = 0;
+        while (watermark.isBefore(cutoff)) {
+            LocalDateTime to = watermark.plusHours(rollupStepHours);
+            if (to.isAfter(cutoff)) {
+                to = cutoff;
+            }
+            rollup.apply(watermark, to);
+            rolledUpHours += ChronoUnit.HOURS.between(watermark, to);
+            watermark = to;
+            retentionWatermarkMapper.saveRolledUpUntil(table, watermark);
+        }
+
+        long purged = deleteInBatches(watermark, delete);
+        meterRegistry.counter("security.retention.rolled.up.hours", "table", table).increment(rolledUpHours);
+        meterRegistry.counter("security.retention.purged.rows", "table", table).increment(purged);
+        if (purged > 0 || rolledUpHours > 0) {
+            logger.info("安全记录汇总清理完成: table={}, rolledUpHours={}, purged={}, watermark={}",
+                    table, rolledUpHours, purged, watermark);
+        }
+    }
+
+    /**
+     * 删除超过保留期的小时汇总
+     */
+    private void purgeHourly(String table, LocalDateTime before,
+                             BiFunction<LocalDateTime, Integer, Integer> delete) {
+        long purged = deleteInBatches(before, delete);
+        meterRegistry.counter("security.retention.purged.rows", "table", table).increment(purged);
+        if (purged > 0) {
+            logger.info("小时汇总清理完成: table={}, purged={}", table, purged);
+        }
+    }
+
+    /**
+     * 分批删除，每批单独提交，避免长事务和大范围锁
+     */
+    private long deleteInBatches(LocalDateTime before, BiFunction<LocalDateTime, Integer, Integer> delete) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = delete.apply(before, batchSize);
+            total += deleted;
+        } while (deleted >= batchSize);
+        return total;
+    }
+}
@@ -5,11 +5,24 @@ import com.family.accounting.entity.LoginAttempt;
 import com.family.accounting.exception.BusinessException;
 import com.family.accounting.mapper.IpRequestMapper;
 import com.family.accounting.mapper.LoginAttemptMapper;
+import com.family.accounting.security.RateLimitStore;
+import com.family.accounting.util.FailureWindowTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 安全防护服务类
@@ -17,6 +30,8 @@ import java.time.LocalDateTime;
 @Service
 public class SecurityService {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityService.class);
+
     @Autowired
     private LoginAttemptMapper loginAttemptMapper;
 
@@ -27,21 +42,55 @@ public class SecurityService {
     private static final int MAX_FAILED_ATTEMPTS = 5;
     private static final int FAILED_ATTEMPTS_WINDOW_MINUTES = 15;
     private static final int LOCKOUT_DURATION_MINUTES = 30;
+    private static final int MAX_TRACKED_PHONES = 100_000;
+
+    /**
+     * IP请求计数存储，由 RateLimitConfig 按部署方式提供，上限与跟踪数量见 security.rate-limit 配置
+     */
+    @Autowired
+    private RateLimitStore ipRateLimitStore;
+
+    /**
+     * 每个手机号最近几次失败登录的时间保存在内存中：本节点已判定锁定时直接拒绝，不查询数据库；
+     * 未锁定时按数据库重新加载，计入其他节点记录的失败
+     */
+    private final FailureWindowTracker loginFailureTracker = new FailureWindowTracker(
+            MAX_FAILED_ATTEMPTS, TimeUnit.MINUTES.toMillis(FAILED_ATTEMPTS_WINDOW_MINUTES),
+            TimeUnit.MINUTES.toMillis(LOCKOUT_DURATION_MINUTES), MAX_TRACKED_PHONES);
+
+    /**
+     * IP请求审计采样率（0~1），按比例将请求写入 t_ip_request，0表示不记录
+     */
+    @Value("${security.rate-limit.audit-sample-rate:0.01}")
+    private double auditSampleRate = 0.01;
 
-    // IP速率限制配置
-    private static final int MAX_REQUESTS_PER_MINUTE = 100;
+    /**
+     * 审计写入线程池（IP请求审计、成功登录记录），未配置时同步写入；队列满时会丢弃任务，失败登录不经过此线程池
+     */
+    @Autowired(required = false)
+    @Qualifier("auditExecutor")
+    private Executor auditExecutor;
 
     /**
      * 记录登录尝试
+     * 失败记录是各节点及重启后判断锁定的依据，计入内存后同步写入数据库；成功记录异步写入
      *
      * @param phone     手机号
      * @param ipAddress IP地址
      * @param success   是否成功
      */
-    @Transactional
     public void recordLoginAttempt(String phone, String ipAddress, boolean success) {
         LoginAttempt attempt = new LoginAttempt(phone, ipAddress, success);
-        loginAttemptMapper.insert(attempt);
+        if (success || phone == null) {
+            runAudit(() -> loginAttemptMapper.insert(attempt), "记录登录尝试失败");
+            return;
+        }
+        loginFailureTracker.recordFailure(phone, this::loadRecentFailures);
+        try {
+            loginAttemptMapper.insert(attempt);
+        } catch (Exception e) {
+            logger.error("记录登录失败尝试失败: phone={}", phone, e);
+        }
     }
 
     /**
@@ -51,51 +100,153 @@ public class SecurityService {
      * @return 是否被锁定
      */
     public boolean isAccountLocked(String phone) {
-        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(FAILED_ATTEMPTS_WINDOW_MINUTES);
-        int failedAttempts = loginAttemptMapper.countFailedAttempts(phone, windowStart);
-        
-        if (failedAttempts >= MAX_FAILED_ATTEMPTS) {
-            // 检查是否还在锁定期内
-            // 获取最近的失败尝试时间，如果在锁定期内则仍被锁定
-            LocalDateTime lockoutEnd = getLastFailedAttemptTime(phone).plusMinutes(LOCKOUT_DURATION_MINUTES);
-            return LocalDateTime.now().isBefore(lockoutEnd);
-        }
-        
-        return false;
+        return getRemainingLockoutMillis(phone) > 0;
     }
 
     /**
-     * 获取最后一次失败尝试的时间
+     * 获取账户剩余锁定时间（毫秒）
+     * 15分钟内失败5次后，从最后一次失败起锁定30分钟。
+     * 本节点已锁定时直接返回；否则按数据库重新加载最近的失败，多节点部署时锁定以所有节点的失败总数为准
      *
      * @param phone 手机号
-     * @return 最后一次失败尝试时间
+     * @return 剩余锁定毫秒数，0表示未锁定
      */
-    private LocalDateTime getLastFailedAttemptTime(String phone) {
+    public long getRemainingLockoutMillis(String phone) {
+        if (phone == null) {
+            return 0;
+        }
+        long remaining = loginFailureTracker.remainingLockoutMillis(phone);
+        if (remaining > 0) {
+            return remaining;
+        }
+        remaining = loginFailureTracker.reload(phone, this::loadRecentFailures);
+        return remaining >= 0 ? remaining : remainingLockoutFromDatabase(phone);
+    }
+
+    /**
+     * 从数据库加载最近的失败登录时间，用于首次访问时初始化内存窗口
+     */
+    private long[] loadRecentFailures(String phone) {
+        LocalDateTime since = LocalDateTime.now()
+                .minusMinutes(FAILED_ATTEMPTS_WINDOW_MINUTES + LOCKOUT_DURATION_MINUTES);
+        List<LocalDateTime> times = loginAttemptMapper.findRecentFailedAttemptTimes(phone, since, MAX_FAILED_ATTEMPTS);
+        long[] timestamps = new long[times.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = times.get(i).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return timestamps;
+    }
+
+    /**
+     * 内存跟踪的手机号已满时按数据库记录计算剩余锁定时间
+     */
+    private long remainingLockoutFromDatabase(String phone) {
+        LocalDateTime windowStart = LocalDateTime.now().minusMinutes(FAILED_ATTEMPTS_WINDOW_MINUTES);
+        if (loginAttemptMapper.countFailedAttempts(phone, windowStart) < MAX_FAILED_ATTEMPTS) {
+            return 0;
+        }
         LocalDateTime lastFailedTime = loginAttemptMapper.getLastFailedAttemptTime(phone);
-        return lastFailedTime != null ? lastFailedTime : LocalDateTime.now().minusHours(1);
+        if (lastFailedTime == null) {
+            return 0;
+        }
+        LocalDateTime lockoutEnd = lastFailedTime.plusMinutes(LOCKOUT_DURATION_MINUTES);
+        return Math.max(0, Duration.between(LocalDateTime.now(), lockoutEnd).toMillis());
     }
 
     /**
-     * 检查IP是否被限制
+     * 检查IP是否被限制（不计入请求）
      *
      * @param ipAddress IP地址
      * @return 是否被限制
      */
     public boolean isIpRateLimited(String ipAddress) {
-        LocalDateTime oneMinuteAgo = LocalDateTime.now().minusMinutes(1);
-        int requestCount = ipRequestMapper.countRequestsByIp(ipAddress, oneMinuteAgo);
-        return requestCount >= MAX_REQUESTS_PER_MINUTE;
+        return ipRateLimitStore.isLimited(ipAddress);
     }
 
     /**
-     * 记录IP请求
+     * 计入一次IP请求并检查速率限制
+     * 最近一分钟内（含本次）请求数达到上限时拒绝，多实例部署时计数在实例间共享；按采样率异步写入审计记录
+     *
+     * @param ipAddress   IP地址
+     * @param requestPath 请求路径
+     * @return 是否放行
+     */
+    public boolean tryAcquireIpRequest(String ipAddress, String requestPath) {
+        boolean allowed = ipRateLimitStore.tryAcquire(ipAddress);
+        if (auditSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < auditSampleRate) {
+            auditIpRequest(ipAddress, requestPath, sampleWeight());
+        }
+        return allowed;
+    }
+
+    /**
+     * 定时淘汰空闲的IP计数和登录失败记录（每分钟执行）
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleTrackers() {
+        int evicted = ipRateLimitStore.evictIdle();
+        if (evicted > 0) {
+            logger.debug("淘汰空闲IP限流计数: evicted={}, tracked={}", evicted, ipRateLimitStore.size());
+        }
+        evicted = loginFailureTracker.evictIdle();
+        if (evicted > 0) {
+            logger.debug("淘汰空闲登录失败记录: evicted={}, tracked={}", evicted, loginFailureTracker.size());
+        }
+    }
+
+    /**
+     * 每条采样记录代表的请求数（采样率的倒数），小时汇总按此权重还原请求总数
+     */
+    private int sampleWeight() {
+        return (int) Math.max(1, Math.round(1 / Math.min(1.0, auditSampleRate)));
+    }
+
+    /**
+     * 写入IP请求审计记录，失败不影响请求
+     */
+    private void auditIpRequest(String ipAddress, String requestPath, int sampleWeight) {
+        runAudit(() -> recordIpRequest(ipAddress, requestPath, sampleWeight), "记录IP请求审计失败");
+    }
+
+    /**
+     * 在审计线程池中执行写入，失败只记录日志
+     */
+    private void runAudit(Runnable write, String failureMessage) {
+        Runnable task = () -> {
+            try {
+                write.run();
+            } catch (Exception e) {
+                logger.warn("{}: {}", failureMessage, e.getMessage());
+            }
+        };
+        if (auditExecutor != null) {
+            auditExecutor.execute(task);
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 记录IP请求（审计用）
      *
      * @param ipAddress   IP地址
      * @param requestPath 请求路径
      */
     @Transactional
     public void recordIpRequest(String ipAddress, String requestPath) {
-        IpRequest request = new IpRequest(ipAddress, requestPath);
+        recordIpRequest(ipAddress, requestPath, 1);
+    }
+
+    /**
+     * 记录采样的IP请求（审计用）
+     *
+     * @param ipAddress    IP地址
+     * @param requestPath  请求路径
+     * @param sampleWeight 该记录代表的请求数
+     */
+    @Transactional
+    public void recordIpRequest(String ipAddress, String requestPath, int sampleWeight) {
+        IpRequest request = new IpRequest(ipAddress, requestPath, sampleWeight);
         ipRequestMapper.insert(request);
     }
 
@@ -112,8 +263,9 @@ public class SecurityService {
         }
 
         // 检查账户锁定状态
-        if (isAccountLocked(phone)) {
-            throw new BusinessException("账户已被锁定，请30分钟后再试");
+        int remainingMinutes = getRemainingLockoutMinutes(phone);
+        if (remainingMinutes > 0) {
+            throw new BusinessException("账户已被锁定，请" + remainingMinutes + "分钟后再试");
         }
     }
 
@@ -121,15 +273,10 @@ public class SecurityService {
      * 获取账户剩余锁定时间（分钟）
      *
      * @param phone 手机号
-     * @return 剩余锁定时间，0表示未锁定
+     * @return 剩余锁定时间（不足一分钟按一分钟计），0表示未锁定
      */
     public int getRemainingLockoutMinutes(String phone) {
-        if (!isAccountLocked(phone)) {
-            return 0;
-        }
-
-        // 这里简化处理，返回固定的锁定时间
-        // 实际应用中可以根据最后一次失败尝试时间计算精确的剩余时间
-        return LOCKOUT_DURATION_MINUTES;
+        long remainingMillis = getRemainingLockoutMillis(phone);
+        return (int) ((remainingMillis + TimeUnit.MINUTES.toMillis(1) - 1) / TimeUnit.MINUTES.toMillis(1));
     }
 }
\ No newline at end of file
@@ -2,13 +2,21 @@ package com.family.accounting.service;
 
 import com.family.accounting.entity.TokenBlacklist;
 import com.family.accounting.mapper.TokenBlacklistMapper;
+import com.family.accounting.mapper.UserMapper;
+import com.family.accounting.util.DigestBloomFilter;
 import com.family.accounting.util.JwtUtil;
+import com.family.accounting.util.LruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -16,10 +24,15 @@ import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT令牌黑名单服务
- * 管理失效的JWT令牌
+ * 管理失效的JWT令牌。黑名单令牌的摘要同时保存在内存布隆过滤器中，过滤器判定不存在的令牌（绝大多数）
+ * 无需查询数据库；最近加入的令牌另保存精确集合，命中时同样无需查询。
+ * 用户级失效（如修改密码）通过 t_user.token_valid_after 实现：签发时间早于该时间的令牌全部失效，该时间按用户缓存
  */
 @Service
 public class TokenBlacklistService {
@@ -32,6 +45,63 @@ public class TokenBlacklistService {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private UserMapper userMapper;
+
+    /**
+     * 布隆过滤器目标误判率
+     */
+    @Value("${security.blacklist.bloom-false-positive-rate:0.001}")
+    private double bloomFalsePositiveRate = 0.001;
+
+    /**
+     * 布隆过滤器最小容量
+     */
+    @Value("${security.blacklist.bloom-min-capacity:10000}")
+    private int bloomMinCapacity = 10000;
+
+    /**
+     * 最近加入黑名单的令牌精确集合上限
+     */
+    @Value("${security.blacklist.max-recent:10000}")
+    private int maxRecentHashes = 10000;
+
+    /**
+     * 用户令牌生效起点缓存容量
+     */
+    @Value("${security.token-epoch.cache-size:10000}")
+    private int tokenEpochCacheSize = 10000;
+
+    /**
+     * 用户令牌生效起点缓存有效期，其他实例修改密码后最迟在该时间后生效
+     */
+    @Value("${security.token-epoch.cache-ttl-ms:30000}")
+    private long tokenEpochCacheTtlMillis = 30000;
+
+    /**
+     * 用户ID -> 令牌生效起点，首次使用时创建
+     */
+    private volatile LruCache<Long, TokenEpoch> tokenEpochCache;
+
+    /**
+     * 增量刷新时向前重叠的时间，容忍各实例之间的时钟偏差
+     */
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
+
+    /**
+     * 黑名单摘要布隆过滤器，未加载完成前为null，此时所有检查都查询数据库
+     */
+    private volatile DigestBloomFilter bloomFilter;
+
+    /**
+     * 上次全量重建后本实例加入黑名单的令牌hash
+     */
+    private final Set<String> recentHashes = ConcurrentHashMap.newKeySet();
+
+    private final Object filterLock = new Object();
+
+    private volatile LocalDateTime lastRefreshAt;
+
     /**
      * 将令牌加入黑名单
      *
@@ -50,7 +120,8 @@ public class TokenBlacklistService {
             }
 
             // 计算令牌的hash值
-            String tokenHash = calculateTokenHash(token);
+            byte[] digest = sha256(token);
+            String tokenHash = toHex(digest);
 
             // 转换过期时间
             LocalDateTime tokenExpiredAt = expiration.toInstant()
@@ -63,6 +134,12 @@ public class TokenBlacklistService {
             // 插入数据库
             tokenBlacklistMapper.insert(blacklist);
 
+            // 事务提交后再加入内存过滤器，避免回滚后误判；已缓存的声明同时移除
+            afterCommit(() -> {
+                rememberHash(digest, tokenHash);
+                jwtUtil.evict(token);
+            });
+
             logger.info("令牌已加入黑名单: userId={}, reason={}, expiredAt={}", 
                        userId, reason, tokenExpiredAt);
 
@@ -80,7 +157,16 @@ public class TokenBlacklistService {
      */
     public boolean isTokenBlacklisted(String token) {
         try {
-            String tokenHash = calculateTokenHash(token);
+            byte[] digest = sha256(token);
+            DigestBloomFilter filter = bloomFilter;
+            if (filter != null && !filter.mightContain(digest)) {
+                return false;
+            }
+
+            String tokenHash = toHex(digest);
+            if (recentHashes.contains(tokenHash)) {
+                return true;
+            }
             return tokenBlacklistMapper.existsByTokenHash(tokenHash);
         } catch (Exception e) {
             logger.error("检查令牌黑名单状态失败", e);
@@ -90,8 +176,8 @@ public class TokenBlacklistService {
     }
 
     /**
-     * 将用户的所有令牌加入黑名单
-     * 用于密码修改等场景
+     * 使用户的所有现有令牌失效
+     * 用于密码修改等场景：将用户的令牌生效起点设为当前时间（精确到秒），此前签发的令牌全部失效
      *
      * @param userId 用户ID
      * @param reason 失效原因
@@ -99,13 +185,14 @@ public class TokenBlacklistService {
     @Transactional
     public void invalidateAllUserTokens(Long userId, String reason) {
         try {
-            // 设置一个足够长的过期时间，确保覆盖所有可能的令牌
-            LocalDateTime maxExpiredAt = LocalDateTime.now().plusDays(30);
+            // JWT签发时间精确到秒，生效起点同样取整到秒，之后签发的新令牌不受影响
+            LocalDateTime validAfter = LocalDateTime.now().withNano(0);
+            userMapper.updateTokenValidAfter(userId, validAfter);
 
-            // 批量失效用户的所有令牌
-            int affected = tokenBlacklistMapper.invalidateAllTokensByUserId(userId, reason, maxExpiredAt);
+            long validAfterMillis = validAfter.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            afterCommit(() -> tokenEpochCache().put(userId, new TokenEpoch(validAfterMillis, System.currentTimeMillis())));
 
-            logger.info("用户所有令牌已失效: userId={}, reason={}, affected={}", userId, reason, affected);
+            logger.info("用户所有令牌已失效: userId={}, reason={}, validAfter={}", userId, reason, validAfter);
 
         } catch (Exception e) {
             logger.error("批量失效用户令牌失败: userId={}, reason={}", userId, reason, e);
@@ -113,6 +200,63 @@ public class TokenBlacklistService {
         }
     }
 
+    /**
+     * 检查令牌是否已被用户级失效
+     * 生效起点缓存命中且未过期时不查询数据库
+     *
+     * @param userId   用户ID
+     * @param issuedAt 令牌签发时间
+     * @return 签发时间早于用户令牌生效起点时返回true
+     */
+    public boolean isTokenRevoked(Long userId, Date issuedAt) {
+        if (userId == null) {
+            return false;
+        }
+        try {
+            long validAfter = tokenValidAfter(userId);
+            if (validAfter <= 0) {
+                return false;
+            }
+            return issuedAt == null || issuedAt.getTime() < validAfter;
+        } catch (Exception e) {
+            logger.error("检查用户令牌生效起点失败: userId={}", userId, e);
+            // 出现异常时，为了安全起见，认为令牌已失效
+            return true;
+        }
+    }
+
+    /**
+     * 获取用户令牌生效起点（毫秒），未设置时返回0
+     */
+    private long tokenValidAfter(Long userId) {
+        long now = System.currentTimeMillis();
+        LruCache<Long, TokenEpoch> cache = tokenEpochCache();
+        TokenEpoch cached = cache.get(userId);
+        if (cached != null && now - cached.loadedAt < tokenEpochCacheTtlMillis) {
+            return cached.validAfterMillis;
+        }
+
+        LocalDateTime validAfter = userMapper.findTokenValidAfter(userId);
+        long validAfterMillis = validAfter != null
+                ? validAfter.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        cache.put(userId, new TokenEpoch(validAfterMillis, now));
+        return validAfterMillis;
+    }
+
+    private LruCache<Long, TokenEpoch> tokenEpochCache() {
+        LruCache<Long, TokenEpoch> cache = tokenEpochCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = tokenEpochCache;
+                if (cache == null) {
+                    cache = new LruCache<>(tokenEpochCacheSize);
+                    tokenEpochCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     /**
      * 计算令牌的SHA-256 hash值
      * 用于在数据库中存储令牌的唯一标识
@@ -120,28 +264,150 @@ public class TokenBlacklistService {
      * @param token JWT令牌
      * @return hash值
      */
-    private String calculateTokenHash(String token) {
+    private byte[] sha256(String token) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-            
-            // 转换为十六进制字符串
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-            
+            return digest.digest(token.getBytes(StandardCharsets.UTF_8));
         } catch (NoSuchAlgorithmException e) {
             logger.error("SHA-256算法不可用", e);
             throw new RuntimeException("计算令牌hash失败", e);
         }
     }
 
+    /**
+     * 转换为十六进制字符串
+     */
+    private static String toHex(byte[] hash) {
+        StringBuilder hexString = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
+    /**
+     * 解析十六进制的SHA-256 hash，格式不符（如批量失效记录）时返回null
+     */
+    private static byte[] fromHex(String hex) {
+        if (hex == null || hex.length() != 64) {
+            return null;
+        }
+        byte[] bytes = new byte[32];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+
+    /**
+     * 应用启动后从数据库加载黑名单过滤器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBlacklistFilter() {
+        rebuildFilter();
+    }
+
+    /**
+     * 定时增量加载其他实例加入的黑名单记录（默认每分钟）
+     * 过滤器元素数量超过容量时改为全量重建
+     */
+    @Scheduled(fixedDelayString = "${security.blacklist.refresh-interval-ms:60000}")
+    public void refreshBlacklistFilter() {
+        DigestBloomFilter filter = bloomFilter;
+        if (filter == null || filter.isSaturated()) {
+            rebuildFilter();
+            return;
+        }
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<String> hashes = tokenBlacklistMapper.findTokenHashesCreatedSince(
+                    lastRefreshAt.minusSeconds(REFRESH_OVERLAP_SECONDS));
+            for (String hash : hashes) {
+                byte[] digest = fromHex(hash);
+                if (digest != null) {
+                    filter.put(digest);
+                }
+            }
+            lastRefreshAt = startedAt;
+        } catch (Exception e) {
+            logger.error("增量加载令牌黑名单失败", e);
+        }
+    }
+
+    /**
+     * 按数据库中未过期的黑名单记录全量重建过滤器，失败时保留原过滤器
+     */
+    void rebuildFilter() {
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            List<String> hashes = tokenBlacklistMapper.findActiveTokenHashes(startedAt);
+            DigestBloomFilter next = new DigestBloomFilter(
+                    Math.max(bloomMinCapacity, hashes.size() * 2L), bloomFalsePositiveRate);
+            for (String hash : hashes) {
+                byte[] digest = fromHex(hash);
+                if (digest != null) {
+                    next.put(digest);
+                }
+            }
+
+            synchronized (filterLock) {
+                // 加载期间本实例新加入的记录可能不在查询结果中，一并放入
+                for (String hash : recentHashes) {
+                    byte[] digest = fromHex(hash);
+                    if (digest != null) {
+                        next.put(digest);
+                    }
+                }
+                bloomFilter = next;
+                lastRefreshAt = startedAt;
+                recentHashes.removeAll(hashes);
+            }
+            logger.info("令牌黑名单过滤器已重建: entries={}", hashes.size());
+        } catch (Exception e) {
+            logger.error("重建令牌黑名单过滤器失败", e);
+        }
+    }
+
+    /**
+     * 将新加入黑名单的令牌放入过滤器和精确集合
+     */
+    private void rememberHash(byte[] digest, String tokenHash) {
+        synchronized (filterLock) {
+            DigestBloomFilter filter = bloomFilter;
+            if (filter != null) {
+                filter.put(digest);
+            }
+            if (recentHashes.size() < maxRecentHashes) {
+                recentHashes.add(tokenHash);
+            }
+        }
+    }
+
+    /**
+     * 存在事务时在提交后执行，否则立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     /**
      * 定时清理已过期的黑名单记录
      * 每天凌晨2点执行
@@ -155,9 +421,24 @@ public class TokenBlacklistService {
             
             if (deleted > 0) {
                 logger.info("清理过期黑名单记录完成: deleted={}", deleted);
+                afterCommit(this::rebuildFilter);
             }
         } catch (Exception e) {
             logger.error("清理过期黑名单记录失败", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 缓存的用户令牌生效起点
+     */
+    private static final class TokenEpoch {
+
+        private final long validAfterMillis;
+        private final long loadedAt;
+
+        private TokenEpoch(long validAfterMillis, long loadedAt) {
+            this.validAfterMillis = validAfterMillis;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
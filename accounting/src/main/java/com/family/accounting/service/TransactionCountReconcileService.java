@@ -0,0 +1,95 @@
+package com.family.accounting.service;
+
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 交易数量对账服务
+ * t_category、t_account_book 的 transaction_count 由交易增删改在同一事务内维护，
+ * 定期按ID区间分批与 t_transaction 的实际数量比对，只更新不一致的行，每批单独提交
+ */
+@Service
+public class TransactionCountReconcileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionCountReconcileService.class);
+
+    static final String CATEGORY_TABLE = "t_category";
+    static final String ACCOUNT_BOOK_TABLE = "t_account_book";
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private AccountBookMapper accountBookMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 单批比对的ID区间大小
+     */
+    @Value("${transaction-count.reconcile-batch-size:1000}")
+    private int batchSize = 1000;
+
+    /**
+     * 修正交易数量计数的偏差（每天凌晨4点执行）
+     */
+    @Scheduled(cron = "${transaction-count.reconcile-cron:0 0 4 * * ?}")
+    public void reconcileTransactionCounts() {
+        reconcile();
+    }
+
+    /**
+     * 依次对账分类和账本，各表互不影响
+     *
+     * @return 修正的总行数
+     */
+    long reconcile() {
+        long total = 0;
+        try {
+            total += reconcileTable(CATEGORY_TABLE, categoryMapper::findMaxId,
+                    categoryMapper::reconcileTransactionCounts);
+        } catch (Exception e) {
+            logger.error("分类交易数量对账失败", e);
+        }
+
+        try {
+            total += reconcileTable(ACCOUNT_BOOK_TABLE, accountBookMapper::findMaxId,
+                    accountBookMapper::reconcileTransactionCounts);
+        } catch (Exception e) {
+            logger.error("账本交易数量对账失败", e);
+        }
+        return total;
+    }
+
+    private long reconcileTable(String table, LongSupplier maxId, RangeReconciler reconciler) {
+        long max = maxId.getAsLong();
+        long repaired = 0;
+        for (long from = 1; from <= max; from += batchSize) {
+            repaired += reconciler.reconcile(from, from + batchSize - 1);
+        }
+
+        meterRegistry.counter("transaction.count.repaired.rows", "table", table).increment(repaired);
+        if (repaired > 0) {
+            logger.warn("交易数量计数存在偏差，已修正: table={}, repaired={}", table, repaired);
+        }
+        return repaired;
+    }
+
+    /**
+     * 修正ID区间内计数的操作
+     */
+    @FunctionalInterface
+    private interface RangeReconciler {
+        int reconcile(long fromId, long toId);
+    }
+}
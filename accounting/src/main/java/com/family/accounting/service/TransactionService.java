@@ -2,16 +2,22 @@ package com.family.accounting.service;
 
 import com.family.accounting.dto.PageVO;
 import com.family.accounting.dto.TransactionDTO;
+import com.family.accounting.dto.TransactionMoveDTO;
 import com.family.accounting.dto.TransactionVO;
 import com.family.accounting.entity.*;
 import com.family.accounting.exception.BusinessException;
 import com.family.accounting.mapper.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +41,15 @@ public class TransactionService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 批量移动交易时单批移动的交易数量
+     */
+    @Value("${transaction.move-batch-size:5000}")
+    private int moveBatchSize = 5000;
+
     /**
      * 创建交易记录
      *
@@ -94,6 +109,9 @@ public class TransactionService {
         transaction.setTransactionDate(dto.getTransactionDate());
 
         transactionMapper.insert(transaction);
+        accountBookMapper.incrementDataVersion(accountBook.getId());
+        accountBookMapper.adjustTransactionCount(accountBook.getId(), 1);
+        categoryMapper.adjustTransactionCount(transaction.getCategoryId(), 1);
 
         return convertToVO(transaction);
     }
@@ -123,6 +141,7 @@ public class TransactionService {
         }
 
         // 验证分类
+        Long oldCategoryId = transaction.getCategoryId();
         if (dto.getCategoryId() != null) {
             Category category = categoryMapper.findById(dto.getCategoryId());
             if (category == null) {
@@ -156,7 +175,16 @@ public class TransactionService {
             transaction.setTransactionDate(dto.getTransactionDate());
         }
 
-        transactionMapper.update(transaction);
+        // 交易已被并发删除时不更新任何计数
+        if (transactionMapper.update(transaction) != 1) {
+            throw new BusinessException("交易记录不存在");
+        }
+        accountBookMapper.incrementDataVersion(accountBook.getId());
+        if (!transaction.getCategoryId().equals(oldCategoryId)) {
+            // 分类变更时转移分类的关联交易数量
+            categoryMapper.adjustTransactionCount(oldCategoryId, -1);
+            categoryMapper.adjustTransactionCount(transaction.getCategoryId(), 1);
+        }
 
         // 重新查询以获取最新数据
         transaction = transactionMapper.findById(transactionId);
@@ -184,7 +212,56 @@ public class TransactionService {
             throw new BusinessException("无权删除此交易记录");
         }
 
-        transactionMapper.deleteById(transactionId);
+        // 并发删除同一交易时只有实际删除了记录的请求调整计数
+        if (transactionMapper.deleteById(transactionId) != 1) {
+            return;
+        }
+        accountBookMapper.incrementDataVersion(accountBook.getId());
+        accountBookMapper.adjustTransactionCount(accountBook.getId(), -1);
+        categoryMapper.adjustTransactionCount(transaction.getCategoryId(), -1);
+    }
+
+    /**
+     * 批量移动交易记录到其他账本
+     * 按批在各自的事务中移动，每批同步调整两个账本的关联交易数量并递增数据版本号；
+     * 中途失败时已移动的批次保持有效，重新执行会继续移动剩余的交易
+     *
+     * @param userId 当前用户ID
+     * @param dto    源账本、目标账本及筛选条件
+     * @return 移动的交易数量
+     */
+    public int moveTransactions(Long userId, TransactionMoveDTO dto) {
+        Long familyId = getFamilyIdByUser(userId);
+
+        if (dto.getSourceAccountBookId().equals(dto.getTargetAccountBookId())) {
+            throw new BusinessException("源账本与目标账本不能相同");
+        }
+        if (dto.getStartDate() != null && dto.getEndDate() != null && dto.getStartDate().isAfter(dto.getEndDate())) {
+            throw new BusinessException("开始日期不能晚于结束日期");
+        }
+
+        // 两个账本都属于用户的家庭时，源账本中的交易即可整体移动，无需逐条验证
+        Long sourceId = checkAccountBook(dto.getSourceAccountBookId(), familyId);
+        Long targetId = checkAccountBook(dto.getTargetAccountBookId(), familyId);
+        List<Long> categoryIds = expandCategoryIds(dto.getCategoryIds());
+
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> {
+                int count = transactionMapper.moveToAccountBook(sourceId, targetId, dto.getStartDate(),
+                        dto.getEndDate(), categoryIds, dto.getMemberIds(), moveBatchSize);
+                if (count > 0) {
+                    accountBookMapper.adjustTransactionCount(sourceId, -count);
+                    accountBookMapper.adjustTransactionCount(targetId, count);
+                    accountBookMapper.incrementDataVersion(sourceId);
+                    accountBookMapper.incrementDataVersion(targetId);
+                }
+                return count;
+            });
+            total += moved;
+        } while (moved >= moveBatchSize);
+        return total;
     }
 
     /**
@@ -279,6 +356,36 @@ public class TransactionService {
         return result;
     }
 
+    /**
+     * 验证账本存在且属于家庭
+     *
+     * @return 账本ID
+     */
+    private Long checkAccountBook(Long accountBookId, Long familyId) {
+        AccountBook accountBook = accountBookMapper.findById(accountBookId);
+        if (accountBook == null) {
+            throw new BusinessException("账本不存在");
+        }
+        if (!accountBook.getFamilyId().equals(familyId)) {
+            throw new BusinessException("无权访问此账本");
+        }
+        return accountBook.getId();
+    }
+
+    /**
+     * 展开分类ID列表，包含各分类的所有子分类
+     */
+    private List<Long> expandCategoryIds(List<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        Set<Long> expanded = new LinkedHashSet<>();
+        for (Long categoryId : categoryIds) {
+            expanded.addAll(categoryMapper.findAllDescendantIds(categoryId));
+        }
+        return new ArrayList<>(expanded);
+    }
+
     /**
      * 获取用户所属家庭ID
      */
@@ -8,6 +8,8 @@ import com.family.accounting.entity.User;
 import com.family.accounting.exception.BusinessException;
 import com.family.accounting.mapper.UserMapper;
 import com.family.accounting.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -19,6 +21,8 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private UserMapper userMapper;
 
@@ -37,6 +41,9 @@ public class UserService {
     @Autowired
     private CaptchaService captchaService;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     /**
      * 用户注册
      *
@@ -105,12 +112,18 @@ public class UserService {
             // 登录成功，记录成功的登录尝试
             securityService.recordLoginAttempt(dto.getPhone(), ipAddress, true);
 
-            // 生成token
+            // 哈希 cost 低于当前配置时，借助本次明文密码重新计算
+            rehashPasswordIfNeeded(user, dto.getPassword());
+
+            // 生成访问令牌和刷新令牌
             String token = jwtUtil.generateToken(user.getId(), user.getPhone());
+            String refreshToken = refreshTokenService.issue(user.getId());
 
             // 返回token信息
             TokenVO tokenVO = new TokenVO();
             tokenVO.setToken(token);
+            tokenVO.setRefreshToken(refreshToken);
+            tokenVO.setExpiresIn(jwtUtil.getExpirationSeconds());
             tokenVO.setUserId(user.getId());
             tokenVO.setPhone(user.getPhone());
             tokenVO.setNickname(user.getNickname());
@@ -121,6 +134,21 @@ public class UserService {
         }
     }
 
+    /**
+     * 重新计算旧 cost 的密码哈希
+     * 失败（如哈希线程池繁忙）不影响本次登录，下次登录时再尝试
+     */
+    private void rehashPasswordIfNeeded(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            userMapper.updatePassword(user.getId(), passwordEncoder.encode(rawPassword));
+        } catch (RuntimeException e) {
+            logger.warn("登录时重新计算密码哈希失败: userId={}, error={}", user.getId(), e.getMessage());
+        }
+    }
+
     /**
      * 根据ID获取用户信息
      *
@@ -173,8 +201,9 @@ public class UserService {
         String encodedPassword = passwordEncoder.encode(newPassword);
         userMapper.updatePassword(userId, encodedPassword);
 
-        // 使所有现有JWT令牌失效
+        // 使所有现有JWT令牌失效，并撤销刷新令牌（访问令牌最迟在过期后失效）
         tokenBlacklistService.invalidateAllUserTokens(userId, "密码修改");
+        refreshTokenService.revokeAllUserTokens(userId);
     }
 
     /**
@@ -0,0 +1,135 @@
+package com.family.accounting.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 金额分位数草图
+ * 按对数等比分桶（DDSketch思路）计数，估算值的相对误差不超过 relativeAccuracy；
+ * 内存只与金额的数量级跨度有关，与样本数量无关，且两个草图可直接合并
+ * <p>
+ * 非线程安全，多线程使用时应各自构建后再合并
+ */
+public class AmountQuantileSketch {
+
+    /**
+     * 默认相对误差 1%
+     */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    /**
+     * 桶索引 -> 计数，索引 i 覆盖区间 (gamma^(i-1), gamma^i]
+     */
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+
+    /**
+     * 小于等于0的值单独计数
+     */
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public AmountQuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public AmountQuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * 添加一个值
+     *
+     * @param value 值
+     */
+    public void add(double value) {
+        if (value > 0) {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            bins.merge(index, 1L, Long::sum);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * 合并另一个草图（两者相对误差必须一致）
+     *
+     * @param other 另一个草图
+     */
+    public void merge(AmountQuantileSketch other) {
+        if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+            throw new IllegalArgumentException("cannot merge sketches with different accuracy");
+        }
+        for (Map.Entry<Integer, Long> entry : other.bins.entrySet()) {
+            bins.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @param quantile 分位（0~1）
+     * @return 估算值，草图为空时返回 NaN
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be in [0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = (long) Math.floor(quantile * (count - 1));
+        if (rank < zeroCount) {
+            return Math.max(min, Math.min(0, max));
+        }
+
+        long seen = zeroCount;
+        for (Map.Entry<Integer, Long> entry : bins.entrySet()) {
+            seen += entry.getValue();
+            if (seen > rank) {
+                // 取桶区间的中心（相对误差意义下），并限制在实际最值范围内
+                double estimate = 2 * Math.pow(gamma, entry.getKey()) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+}
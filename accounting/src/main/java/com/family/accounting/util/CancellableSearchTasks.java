@@ -0,0 +1,50 @@
+package com.family.accounting.util;
+
+import com.family.accounting.dto.Result;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.util.function.Supplier;
+
+/**
+ * 可取消的异步搜索任务
+ * 搜索类接口（搜索、金额分布、执行保存的筛选条件）统一在搜索请求线程池中执行；
+ * 请求超时、出错（如客户端断开）或结束时取消仍在执行的查询
+ */
+@Component
+public class CancellableSearchTasks {
+
+    private final AsyncTaskExecutor searchRequestExecutor;
+    private final long requestTimeoutMillis;
+
+    public CancellableSearchTasks(@Qualifier("searchRequestExecutor") AsyncTaskExecutor searchRequestExecutor,
+                                  @Value("${search.request-timeout-ms:10000}") long requestTimeoutMillis) {
+        this.searchRequestExecutor = searchRequestExecutor;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /**
+     * 构建可取消的异步搜索任务
+     *
+     * @param task 搜索任务
+     * @return 异步任务
+     */
+    public <T> WebAsyncTask<Result<T>> create(Supplier<Result<T>> task) {
+        QueryCancellation cancellation = new QueryCancellation();
+        WebAsyncTask<Result<T>> asyncTask = new WebAsyncTask<>(requestTimeoutMillis, searchRequestExecutor,
+                () -> QueryCancellation.runWith(cancellation, task));
+        asyncTask.onTimeout(() -> {
+            cancellation.cancel();
+            return Result.error(504, "搜索超时，请缩小搜索范围后重试");
+        });
+        asyncTask.onError(() -> {
+            cancellation.cancel();
+            return Result.error("搜索已取消");
+        });
+        asyncTask.onCompletion(cancellation::cancel);
+        return asyncTask;
+    }
+}
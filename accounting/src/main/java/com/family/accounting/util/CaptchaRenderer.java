@@ -0,0 +1,166 @@
+package com.family.accounting.util;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * 验证码图片渲染器
+ * 字体、画笔等不可变对象全局共享；图片缓冲区和输出流按线程复用，
+ * 每次渲染覆盖整张图片，编码为PNG后即可被同一线程再次使用
+ */
+public class CaptchaRenderer {
+
+    /**
+     * 图片宽度
+     */
+    public static final int IMAGE_WIDTH = 120;
+
+    /**
+     * 图片高度
+     */
+    public static final int IMAGE_HEIGHT = 40;
+
+    /**
+     * 干扰线数量
+     */
+    private static final int NOISE_LINE_COUNT = 5;
+
+    /**
+     * 噪点数量
+     */
+    private static final int NOISE_DOT_COUNT = 50;
+
+    private static final Font FONT = new Font("Arial", Font.BOLD, 28);
+
+    private static final Stroke NOISE_STROKE = new BasicStroke(1.5f);
+
+    private static final Color BACKGROUND = new Color(240, 240, 240);
+
+    private static final String DATA_URI_PREFIX = "data:image/png;base64,";
+
+    private static final ThreadLocal<BufferedImage> IMAGE = ThreadLocal.withInitial(
+            () -> new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB));
+
+    private static final ThreadLocal<ByteArrayOutputStream> BUFFER = ThreadLocal.withInitial(
+            () -> new ByteArrayOutputStream(2048));
+
+    static {
+        // 编码到内存流时不需要临时文件缓存
+        ImageIO.setUseCache(false);
+    }
+
+    private final Random random;
+
+    /**
+     * @param random 随机源（需线程安全，如 SecureRandom）
+     */
+    public CaptchaRenderer(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * 渲染验证码图片
+     *
+     * @param code 验证码内容
+     * @return base64编码的PNG图片（data URI）
+     */
+    public String render(String code) {
+        BufferedImage image = IMAGE.get();
+        Graphics2D g2d = image.createGraphics();
+        try {
+            // 设置抗锯齿
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            // 填充背景色（覆盖上一次渲染的内容）
+            g2d.setColor(BACKGROUND);
+            g2d.fillRect(0, 0, IMAGE_WIDTH, IMAGE_HEIGHT);
+
+            drawNoiseLines(g2d);
+            drawNoiseDots(g2d);
+            drawText(g2d, code);
+        } finally {
+            g2d.dispose();
+        }
+
+        ByteArrayOutputStream buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            ImageIO.write(image, "PNG", buffer);
+        } catch (IOException e) {
+            throw new RuntimeException("生成验证码图片失败", e);
+        }
+        return DATA_URI_PREFIX + Base64.getEncoder().encodeToString(buffer.toByteArray());
+    }
+
+    /**
+     * 绘制干扰线
+     */
+    private void drawNoiseLines(Graphics2D g2d) {
+        g2d.setStroke(NOISE_STROKE);
+        for (int i = 0; i < NOISE_LINE_COUNT; i++) {
+            g2d.setColor(randomColor(100, 180));
+            int x1 = random.nextInt(IMAGE_WIDTH);
+            int y1 = random.nextInt(IMAGE_HEIGHT);
+            int x2 = random.nextInt(IMAGE_WIDTH);
+            int y2 = random.nextInt(IMAGE_HEIGHT);
+            g2d.drawLine(x1, y1, x2, y2);
+        }
+    }
+
+    /**
+     * 绘制噪点
+     */
+    private void drawNoiseDots(Graphics2D g2d) {
+        for (int i = 0; i < NOISE_DOT_COUNT; i++) {
+            g2d.setColor(randomColor(100, 200));
+            int x = random.nextInt(IMAGE_WIDTH);
+            int y = random.nextInt(IMAGE_HEIGHT);
+            g2d.fillOval(x, y, 2, 2);
+        }
+    }
+
+    /**
+     * 绘制验证码文字
+     */
+    private void drawText(Graphics2D g2d, String code) {
+        g2d.setFont(FONT);
+
+        // 计算每个字符的宽度
+        int charWidth = IMAGE_WIDTH / (code.length() + 1);
+        int startX = charWidth / 2;
+        AffineTransform originalTransform = g2d.getTransform();
+
+        for (int i = 0; i < code.length(); i++) {
+            // 随机颜色（深色）
+            g2d.setColor(randomColor(20, 100));
+
+            // 随机旋转角度（-15到15度）
+            double angle = (random.nextDouble() - 0.5) * Math.PI / 6;
+
+            // 计算字符位置
+            int x = startX + i * charWidth;
+            int y = IMAGE_HEIGHT / 2 + 10;
+
+            g2d.rotate(angle, x, y - 5);
+            g2d.drawString(String.valueOf(code.charAt(i)), x, y);
+            g2d.setTransform(originalTransform);
+        }
+    }
+
+    /**
+     * 获取随机颜色
+     */
+    private Color randomColor(int min, int max) {
+        int r = min + random.nextInt(max - min);
+        int g = min + random.nextInt(max - min);
+        int b = min + random.nextInt(max - min);
+        return new Color(r, g, b);
+    }
+}
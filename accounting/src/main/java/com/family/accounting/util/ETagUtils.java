@@ -0,0 +1,56 @@
+package com.family.accounting.util;
+
+/**
+ * ETag工具类
+ * 用于条件请求（If-None-Match）的比较，内容未变化时直接返回304
+ */
+public final class ETagUtils {
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private ETagUtils() {
+    }
+
+    /**
+     * 由版本信息生成强ETag（带双引号）
+     *
+     * @param parts 能唯一确定响应内容的版本信息
+     * @return ETag
+     */
+    public static String of(Object... parts) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                sb.append('-');
+            }
+            sb.append(parts[i]);
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 判断If-None-Match请求头是否与当前ETag匹配
+     * 支持逗号分隔的多个值和 *，按弱比较忽略 W/ 前缀（经过压缩的代理可能将强ETag改为弱ETag）
+     *
+     * @param ifNoneMatch If-None-Match请求头，可为空
+     * @param etag        当前ETag
+     * @return 匹配时返回true，可以响应304
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty() || etag == null) {
+            return false;
+        }
+        String current = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value) || stripWeak(value).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
@@ -0,0 +1,209 @@
+package com.family.accounting.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 失败次数窗口跟踪器
+ * 每个键只保留最近 maxFailures 次失败的时间戳（环形缓冲区）：缓冲区已满且最早一次失败距最近一次不超过窗口长度时，
+ * 从最近一次失败起锁定 lockoutMillis。键的数量受限，超过窗口和锁定期仍无新失败的键可被淘汰
+ * <p>
+ * 所有方法线程安全
+ */
+public class FailureWindowTracker {
+
+    private final int maxFailures;
+    private final long windowMillis;
+    private final long lockoutMillis;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxFailures   触发锁定的失败次数
+     * @param windowMillis  统计失败次数的窗口长度（毫秒）
+     * @param lockoutMillis 锁定时长（毫秒）
+     * @param maxKeys       最多跟踪的键数量
+     */
+    public FailureWindowTracker(int maxFailures, long windowMillis, long lockoutMillis, int maxKeys) {
+        this(maxFailures, windowMillis, lockoutMillis, maxKeys, System::currentTimeMillis);
+    }
+
+    public FailureWindowTracker(int maxFailures, long windowMillis, long lockoutMillis, int maxKeys,
+                                LongSupplier clock) {
+        if (maxFailures <= 0 || windowMillis <= 0 || lockoutMillis <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("invalid failure tracker configuration");
+        }
+        this.maxFailures = maxFailures;
+        this.windowMillis = windowMillis;
+        this.lockoutMillis = lockoutMillis;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * 计算剩余锁定时间
+     * 键尚未跟踪时先用 loader 加载最近的失败时间戳（毫秒）
+     *
+     * @param key    键
+     * @param loader 加载最近失败时间戳，只在首次访问时调用
+     * @return 剩余锁定毫秒数，0表示未锁定；键数量已满无法跟踪时返回 -1
+     */
+    public long remainingLockoutMillis(String key, Function<String, long[]> loader) {
+        Ring ring = ringFor(key, loader);
+        return ring != null ? ring.remainingLockout(clock.getAsLong()) : -1;
+    }
+
+    /**
+     * 只按内存中的记录计算剩余锁定时间，不加载历史
+     *
+     * @param key 键
+     * @return 剩余锁定毫秒数，0表示未锁定或键尚未跟踪
+     */
+    public long remainingLockoutMillis(String key) {
+        Ring ring = rings.get(key);
+        return ring != null ? ring.remainingLockout(clock.getAsLong()) : 0;
+    }
+
+    /**
+     * 用 loader 重新加载键的失败时间戳，替换内存中的记录，并计算剩余锁定时间
+     * 用于失败记录可能来自其他节点、以外部存储为准的场景
+     *
+     * @param key    键
+     * @param loader 加载最近失败时间戳
+     * @return 剩余锁定毫秒数，0表示未锁定；键数量已满无法跟踪时返回 -1
+     */
+    public long reload(String key, Function<String, long[]> loader) {
+        if (!rings.containsKey(key) && rings.size() >= maxKeys) {
+            evictIdle();
+            if (rings.size() >= maxKeys) {
+                return -1;
+            }
+        }
+        long[] history = loader.apply(key);
+        long now = clock.getAsLong();
+        Ring ring = new Ring(history, now);
+        rings.put(key, ring);
+        return ring.remainingLockout(now);
+    }
+
+    /**
+     * 记录一次失败
+     * 键尚未跟踪时先用 loader 加载历史，保证计数包含此前的失败
+     *
+     * @param key    键
+     * @param loader 加载最近失败时间戳
+     * @return 是否已记录（键数量已满时返回false）
+     */
+    public boolean recordFailure(String key, Function<String, long[]> loader) {
+        Ring ring = ringFor(key, loader);
+        if (ring == null) {
+            return false;
+        }
+        ring.add(clock.getAsLong());
+        return true;
+    }
+
+    /**
+     * 淘汰最近一次失败已超过窗口和锁定期的键
+     *
+     * @return 淘汰数量
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = rings.size();
+        rings.values().removeIf(ring -> ring.isIdle(now));
+        return before - rings.size();
+    }
+
+    /**
+     * 当前跟踪的键数量
+     */
+    public int size() {
+        return rings.size();
+    }
+
+    /**
+     * 加载时需要的历史起点：早于该时间的失败不会影响锁定判断
+     *
+     * @return 毫秒时间戳
+     */
+    public long relevantSince() {
+        return clock.getAsLong() - windowMillis - lockoutMillis;
+    }
+
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    private Ring ringFor(String key, Function<String, long[]> loader) {
+        Ring ring = rings.get(key);
+        if (ring != null) {
+            return ring;
+        }
+        if (rings.size() >= maxKeys) {
+            evictIdle();
+            if (rings.size() >= maxKeys) {
+                return null;
+            }
+        }
+        long[] history = loader.apply(key);
+        long loadedAt = clock.getAsLong();
+        return rings.computeIfAbsent(key, k -> new Ring(history, loadedAt));
+    }
+
+    /**
+     * 单个键最近 maxFailures 次失败的时间戳
+     */
+    private final class Ring {
+
+        private final long[] timestamps = new long[maxFailures];
+        private final long loadedAt;
+        private int size;
+        private int next;
+
+        private Ring(long[] history, long loadedAt) {
+            this.loadedAt = loadedAt;
+            if (history != null) {
+                long[] sorted = history.clone();
+                Arrays.sort(sorted);
+                for (int i = Math.max(0, sorted.length - maxFailures); i < sorted.length; i++) {
+                    add(sorted[i]);
+                }
+            }
+        }
+
+        private synchronized void add(long timestamp) {
+            timestamps[next] = timestamp;
+            next = (next + 1) % maxFailures;
+            if (size < maxFailures) {
+                size++;
+            }
+        }
+
+        private synchronized long latest() {
+            return size == 0 ? Long.MIN_VALUE : timestamps[(next - 1 + maxFailures) % maxFailures];
+        }
+
+        private synchronized long remainingLockout(long now) {
+            if (size < maxFailures) {
+                return 0;
+            }
+            // 缓冲区满时 next 指向最早的一次失败
+            long oldest = timestamps[next];
+            long latest = latest();
+            if (latest - oldest > windowMillis) {
+                return 0;
+            }
+            return Math.max(0, latest + lockoutMillis - now);
+        }
+
+        private synchronized boolean isIdle(long now) {
+            return now - Math.max(loadedAt, latest()) > windowMillis + lockoutMillis;
+        }
+    }
+}
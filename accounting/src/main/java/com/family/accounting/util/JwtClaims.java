@@ -0,0 +1,48 @@
+package com.family.accounting.util;
+
+import java.util.Date;
+
+/**
+ * 已验证的JWT声明
+ * 令牌签名验证通过后解析一次得到，之后在请求内和缓存中复用
+ */
+public final class JwtClaims {
+
+    private final Long userId;
+    private final String phone;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public JwtClaims(Long userId, String phone, Date issuedAt, Date expiration) {
+        this.userId = userId;
+        this.phone = phone;
+        this.issuedAt = issuedAt != null ? new Date(issuedAt.getTime()) : null;
+        this.expiration = expiration != null ? new Date(expiration.getTime()) : null;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt != null ? new Date(issuedAt.getTime()) : null;
+    }
+
+    public Date getExpiration() {
+        return expiration != null ? new Date(expiration.getTime()) : null;
+    }
+
+    /**
+     * 是否已过期
+     *
+     * @param nowMillis 当前时间（毫秒）
+     * @return 没有过期时间或已过期时返回true
+     */
+    public boolean isExpired(long nowMillis) {
+        return expiration == null || expiration.getTime() <= nowMillis;
+    }
+}
@@ -6,13 +6,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * JWT工具类
- * 用于生成、解析和验证JWT token
+ * 用于生成、解析和验证JWT token。验证通过的声明按令牌摘要缓存到过期为止，
+ * 同一令牌的后续请求不再重复验证签名
  */
 @Component
 public class JwtUtil {
@@ -25,6 +30,17 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    /**
+     * 已验证声明缓存容量
+     */
+    @Value("${jwt.claims-cache-size:10000}")
+    private int claimsCacheSize = 10000;
+
+    /**
+     * 令牌SHA-256摘要 -> 已验证声明，首次使用时创建
+     */
+    private volatile LruCache<String, JwtClaims> claimsCache;
+
     /**
      * 生成JWT token
      *
@@ -55,6 +71,59 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * 验证并解析token
+     * 缓存命中且未过期时直接返回，否则验证签名后解析并放入缓存
+     *
+     * @param token JWT token
+     * @return 已验证的声明，token无效或已过期时返回null
+     */
+    public JwtClaims parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        LruCache<String, JwtClaims> cache = claimsCache();
+        JwtClaims cached = cache.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            cache.remove(key);
+            return null;
+        }
+
+        Claims claims = getClaimsFromToken(token);
+        if (claims == null) {
+            return null;
+        }
+        JwtClaims verified = new JwtClaims(toLong(claims.get("userId")), claims.getSubject(),
+                claims.getIssuedAt(), claims.getExpiration());
+        if (!verified.isExpired(now)) {
+            cache.put(key, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * 移除token的已验证声明缓存（令牌加入黑名单时调用）
+     *
+     * @param token JWT token
+     */
+    public void evict(String token) {
+        if (token != null && !token.isEmpty()) {
+            claimsCache().remove(digest(token));
+        }
+    }
+
+    /**
+     * 访问令牌有效期（秒）
+     */
+    public long getExpirationSeconds() {
+        return expiration / 1000;
+    }
+
     /**
      * 从token中获取用户ID
      *
@@ -62,16 +131,8 @@ public class JwtUtil {
      * @return 用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        if (claims != null) {
-            Object userId = claims.get("userId");
-            if (userId instanceof Integer) {
-                return ((Integer) userId).longValue();
-            } else if (userId instanceof Long) {
-                return (Long) userId;
-            }
-        }
-        return null;
+        JwtClaims claims = parseToken(token);
+        return claims != null ? claims.getUserId() : null;
     }
 
     /**
@@ -81,8 +142,8 @@ public class JwtUtil {
      * @return 手机号
      */
     public String getPhoneFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims != null ? claims.getSubject() : null;
+        JwtClaims claims = parseToken(token);
+        return claims != null ? claims.getPhone() : null;
     }
 
     /**
@@ -92,12 +153,12 @@ public class JwtUtil {
      * @return 过期时间
      */
     public Date getExpirationFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
+        JwtClaims claims = parseToken(token);
         return claims != null ? claims.getExpiration() : null;
     }
 
     /**
-     * 解析token获取Claims
+     * 解析token获取Claims（验证签名）
      */
     private Claims getClaimsFromToken(String token) {
         try {
@@ -130,21 +191,7 @@ public class JwtUtil {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser().setSigningKey(secret).parseClaimsJws(token);
-            return true;
-        } catch (ExpiredJwtException e) {
-            logger.warn("JWT token已过期");
-        } catch (UnsupportedJwtException e) {
-            logger.warn("不支持的JWT token");
-        } catch (MalformedJwtException e) {
-            logger.warn("JWT token格式错误");
-        } catch (SignatureException e) {
-            logger.warn("JWT签名验证失败");
-        } catch (IllegalArgumentException e) {
-            logger.warn("JWT token为空");
-        }
-        return false;
+        return parseToken(token) != null;
     }
 
     /**
@@ -157,4 +204,39 @@ public class JwtUtil {
         Date expiration = getExpirationFromToken(token);
         return expiration == null || expiration.before(new Date());
     }
+
+    private LruCache<String, JwtClaims> claimsCache() {
+        LruCache<String, JwtClaims> cache = claimsCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = claimsCache;
+                if (cache == null) {
+                    cache = new LruCache<>(claimsCacheSize);
+                    claimsCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        } else if (value instanceof Long) {
+            return (Long) value;
+        }
+        return null;
+    }
+
+    /**
+     * 令牌的SHA-256摘要（Base64），缓存中不保存令牌原文
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package com.family.accounting.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 定长LRU缓存
+ * 基于访问顺序的LinkedHashMap，超过容量时淘汰最久未访问的条目，所有操作线程安全
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> map;
+
+    public LruCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @param key 键
+     * @return 缓存值，不存在返回null
+     */
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * 写入缓存
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 键
+     */
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    /**
+     * 移除所有满足条件的键
+     *
+     * @param predicate 键条件
+     */
+    public synchronized void removeIf(Predicate<K> predicate) {
+        map.keySet().removeIf(predicate);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /**
+     * 当前缓存条目数
+     *
+     * @return 条目数
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,145 @@
+package com.family.accounting.util;
+
+import com.family.accounting.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 查询取消令牌
+ * 绑定到执行查询的线程后，该线程上准备的JDBC语句会登记到令牌中；
+ * 请求超时或客户端断开时调用 {@link #cancel()} 即可中止仍在数据库中执行的语句，及时归还连接；
+ * 令牌取消后任务抛出的异常统一转换为错误码504的业务异常；
+ * 并行执行的辅助查询使用子令牌，可以单独取消，取消父令牌时一并取消
+ */
+public class QueryCancellation {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCancellation.class);
+
+    private static final String CANCELLED_MESSAGE = "查询已取消，请缩小查询范围后重试";
+
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+    private final Set<QueryCancellation> children = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean cancelled;
+
+    /**
+     * 获取当前线程绑定的令牌
+     *
+     * @return 令牌，未绑定返回null
+     */
+    public static QueryCancellation current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在当前线程绑定令牌并执行任务，结束后解除绑定
+     *
+     * @param token 令牌，为null时直接执行
+     * @param task  任务
+     * @return 任务结果
+     * @throws BusinessException 令牌已取消或任务因取消而失败
+     */
+    public static <T> T runWith(QueryCancellation token, Supplier<T> task) {
+        if (token == null) {
+            return task.get();
+        }
+        QueryCancellation previous = CURRENT.get();
+        CURRENT.set(token);
+        try {
+            token.checkNotCancelled();
+            return task.get();
+        } catch (RuntimeException e) {
+            // 被取消的语句由驱动以各种数据访问异常的形式抛出
+            if (token.isCancelled() && !(e instanceof BusinessException)) {
+                throw new BusinessException(504, CANCELLED_MESSAGE, e);
+            }
+            throw e;
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * 登记正在准备的语句，令牌已取消时立即取消该语句
+     *
+     * @param statement JDBC语句
+     */
+    public void register(Statement statement) {
+        statements.add(statement);
+        if (cancelled) {
+            cancelQuietly(statement);
+        }
+    }
+
+    /**
+     * 语句执行结束后解除登记
+     *
+     * @param statement JDBC语句
+     */
+    public void unregister(Statement statement) {
+        statements.remove(statement);
+    }
+
+    /**
+     * 创建子令牌，父令牌已取消时子令牌创建后即为取消状态
+     *
+     * @return 子令牌
+     */
+    public QueryCancellation newChild() {
+        QueryCancellation child = new QueryCancellation();
+        children.add(child);
+        if (cancelled) {
+            child.cancel();
+        }
+        return child;
+    }
+
+    /**
+     * 取消令牌及其子令牌下所有仍在执行的语句
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            cancelQuietly(statement);
+        }
+        for (QueryCancellation child : children) {
+            child.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 令牌已取消时抛出异常，避免开始新的查询
+     *
+     * @throws BusinessException 令牌已取消
+     */
+    public void checkNotCancelled() {
+        if (cancelled) {
+            throw new BusinessException(504, CANCELLED_MESSAGE);
+        }
+    }
+
+    private void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            logger.debug("取消查询失败: {}", e.getMessage());
+        }
+    }
+}
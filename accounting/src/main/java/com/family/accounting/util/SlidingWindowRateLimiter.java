@@ -0,0 +1,192 @@
+package com.family.accounting.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 滑动窗口限流器（无锁）
+ * 每个键的窗口被划分为若干子桶，每个子桶用一个 long 同时保存桶序号和计数并通过 CAS 更新；
+ * 窗口内计数为最近 bucketCount 个子桶之和。键存放在容量受限的 ConcurrentHashMap 中，空闲的键定期淘汰；
+ * 键数量已满且无法淘汰时，新键共用一个溢出窗口，按同一上限限流而不是直接放行
+ */
+public class SlidingWindowRateLimiter {
+
+    /**
+     * 子桶计数占用的低位位数
+     */
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final int limit;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * 键数量已满时未跟踪的键共用的窗口
+     */
+    private final Window overflow;
+
+    /**
+     * @param limit        窗口内允许的最大请求数（达到即限流）
+     * @param windowMillis 窗口长度（毫秒）
+     * @param bucketCount  子桶数量，越多越接近精确滑动窗口
+     * @param maxKeys      最多跟踪的键数量
+     */
+    public SlidingWindowRateLimiter(int limit, long windowMillis, int bucketCount, int maxKeys) {
+        this(limit, windowMillis, bucketCount, maxKeys, System::currentTimeMillis);
+    }
+
+    public SlidingWindowRateLimiter(int limit, long windowMillis, int bucketCount, int maxKeys, LongSupplier clock) {
+        if (limit <= 0 || bucketCount <= 0 || windowMillis < bucketCount || maxKeys <= 0) {
+            throw new IllegalArgumentException("invalid rate limiter configuration");
+        }
+        this.limit = limit;
+        this.bucketCount = bucketCount;
+        this.bucketMillis = windowMillis / bucketCount;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.overflow = new Window(bucketCount, currentBucket());
+    }
+
+    /**
+     * 记录一次请求并判断是否放行
+     * 被拒绝的请求同样计入窗口，与按请求记录再计数的语义一致
+     *
+     * @param key 限流键（如IP地址）
+     * @return 计入本次请求后窗口内计数小于上限时返回true
+     */
+    public boolean tryAcquire(String key) {
+        return acquire(key, 1) < limit;
+    }
+
+    /**
+     * 在窗口中累加计数
+     *
+     * @param key    限流键
+     * @param amount 累加数量
+     * @return 累加后的窗口内计数；键数量已满且无法淘汰时为溢出窗口的计数
+     */
+    public long acquire(String key, long amount) {
+        long bucket = currentBucket();
+        Window window = windowFor(key, bucket);
+        window.add(bucket, amount);
+        return window.sum(bucket);
+    }
+
+    /**
+     * 查询窗口内当前计数（不累加）
+     *
+     * @param key 限流键
+     * @return 窗口内计数；键未跟踪且键数量已满时为溢出窗口的计数
+     */
+    public long currentCount(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            window = windows.size() >= maxKeys ? overflow : null;
+        }
+        return window != null ? window.sum(currentBucket()) : 0;
+    }
+
+    /**
+     * 是否已达到上限（不累加）
+     *
+     * @param key 限流键
+     * @return 是否限流
+     */
+    public boolean isLimited(String key) {
+        return currentCount(key) >= limit;
+    }
+
+    /**
+     * 淘汰整个窗口内都没有请求的键
+     *
+     * @return 淘汰数量
+     */
+    public int evictIdle() {
+        long bucket = currentBucket();
+        int before = windows.size();
+        windows.values().removeIf(window -> bucket - window.lastBucket.get() >= bucketCount);
+        return before - windows.size();
+    }
+
+    /**
+     * 当前跟踪的键数量
+     */
+    public int size() {
+        return windows.size();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 当前子桶序号
+     */
+    public long currentBucket() {
+        return clock.getAsLong() / bucketMillis;
+    }
+
+    private Window windowFor(String key, long bucket) {
+        Window window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        if (windows.size() >= maxKeys) {
+            evictIdle();
+            if (windows.size() >= maxKeys) {
+                return overflow;
+            }
+        }
+        return windows.computeIfAbsent(key, k -> new Window(bucketCount, bucket));
+    }
+
+    /**
+     * 单个键的滑动窗口
+     * slots[i] = (桶序号 << COUNT_BITS) | 计数
+     */
+    private static final class Window {
+
+        private final AtomicLongArray slots;
+        private final AtomicLong lastBucket;
+        private final int bucketCount;
+
+        private Window(int bucketCount, long bucket) {
+            this.bucketCount = bucketCount;
+            this.slots = new AtomicLongArray(bucketCount);
+            this.lastBucket = new AtomicLong(bucket);
+        }
+
+        private void add(long bucket, long amount) {
+            int index = (int) (bucket % bucketCount);
+            while (true) {
+                long current = slots.get(index);
+                long count = (current >>> COUNT_BITS) == bucket ? (current & COUNT_MASK) : 0;
+                long next = (bucket << COUNT_BITS) | Math.min(count + amount, COUNT_MASK);
+                if (slots.compareAndSet(index, current, next)) {
+                    break;
+                }
+            }
+            lastBucket.accumulateAndGet(bucket, Math::max);
+        }
+
+        private long sum(long bucket) {
+            long total = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                long slot = slots.get(i);
+                long slotBucket = slot >>> COUNT_BITS;
+                if (bucket - slotBucket < bucketCount && slotBucket <= bucket) {
+                    total += slot & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+    }
+}
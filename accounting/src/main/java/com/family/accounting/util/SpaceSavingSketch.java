@@ -0,0 +1,163 @@
+package com.family.accounting.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 高频项草图
+ * 最多跟踪 capacity 个元素：新元素到来且已满时替换计数最小的元素，并继承其计数作为误差上界。
+ * 计数不低于 N/capacity 的元素一定会被保留（N 为总计数），内存固定，与输入规模无关
+ * <p>
+ * 所有方法线程安全
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 记录一次出现
+     *
+     * @param item 元素
+     */
+    public void offer(String item) {
+        offer(item, 1, 0);
+    }
+
+    /**
+     * 记录元素计数
+     *
+     * @param item      元素
+     * @param increment 计数增量
+     * @param error     增量自带的误差上界（从持久化数据恢复时使用）
+     */
+    public synchronized void offer(String item, long increment, long error) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += increment;
+            counter.error += error;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(item, increment, error));
+            return;
+        }
+
+        // 已满：替换计数最小的元素，新元素继承其计数作为误差
+        Counter min = null;
+        for (Counter candidate : counters.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        counters.remove(min.item);
+        counters.put(item, new Counter(item, min.count + increment, min.count + error));
+    }
+
+    /**
+     * 按比例衰减所有计数，衰减后计数为0的元素被移除
+     * 用于让近期出现的元素排在前面
+     *
+     * @param factor 衰减系数（0~1）
+     */
+    public synchronized void decay(double factor) {
+        if (factor < 0 || factor > 1) {
+            throw new IllegalArgumentException("factor must be in [0, 1]");
+        }
+        counters.values().removeIf(counter -> {
+            counter.count = (long) (counter.count * factor);
+            counter.error = (long) (counter.error * factor);
+            return counter.count <= 0;
+        });
+    }
+
+    /**
+     * 获取计数最高的元素
+     *
+     * @param limit 返回数量
+     * @return 按计数降序排列的元素快照
+     */
+    public synchronized List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            entries.add(new Entry(counter.item, counter.count, counter.error));
+        }
+        entries.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * 当前跟踪的全部元素
+     *
+     * @return 按计数降序排列的元素快照
+     */
+    public List<Entry> snapshot() {
+        return top(Integer.MAX_VALUE);
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 元素计数快照
+     */
+    public static final class Entry {
+
+        private final String item;
+        private final long count;
+        private final long error;
+
+        public Entry(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getItem() {
+            return item;
+        }
+
+        /**
+         * 估算计数（不低于真实计数）
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 误差上界，真实计数不低于 count - error
+         */
+        public long getError() {
+            return error;
+        }
+    }
+
+    private static final class Counter {
+
+        private final String item;
+        private long count;
+        private long error;
+
+        private Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -204,6 +204,88 @@ CREATE TABLE IF NOT EXISTS t_saved_filter (
     CONSTRAINT fk_filter_family FOREIGN KEY (family_id) REFERENCES t_family(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='保存的筛选条件表';
 
+-- =====================================================
+-- 14. 热门搜索关键词表 (t_search_trending)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS t_search_trending (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '记录ID',
+    family_id BIGINT NOT NULL COMMENT '家庭ID',
+    keyword VARCHAR(200) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '搜索关键词(小写)',
+    score BIGINT NOT NULL DEFAULT 0 COMMENT '热度计数(按时间衰减)',
+    score_error BIGINT NOT NULL DEFAULT 0 COMMENT '计数误差上界',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_family_keyword (family_id, keyword),
+    CONSTRAINT fk_trending_family FOREIGN KEY (family_id) REFERENCES t_family(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='热门搜索关键词表';
+
+-- =====================================================
+-- 15. IP请求小时汇总表 (t_ip_request_hourly)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS t_ip_request_hourly (
+    ip_address VARCHAR(45) NOT NULL COMMENT 'IP地址',
+    hour_start DATETIME NOT NULL COMMENT '小时起始时间',
+    request_count INT NOT NULL DEFAULT 0 COMMENT '请求次数',
+    PRIMARY KEY (ip_address, hour_start),
+    INDEX idx_hour_start (hour_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='IP请求小时汇总表';
+
+-- =====================================================
+-- 16. 登录尝试小时汇总表 (t_login_attempt_hourly)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS t_login_attempt_hourly (
+    phone VARCHAR(20) NOT NULL DEFAULT '' COMMENT '手机号(未知时为空串)',
+    hour_start DATETIME NOT NULL COMMENT '小时起始时间',
+    attempt_count INT NOT NULL DEFAULT 0 COMMENT '尝试次数',
+    failed_count INT NOT NULL DEFAULT 0 COMMENT '失败次数',
+    ip_count INT NOT NULL DEFAULT 0 COMMENT '来源IP数',
+    PRIMARY KEY (phone, hour_start),
+    INDEX idx_hour_start (hour_start)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='登录尝试小时汇总表';
+
+-- =====================================================
+-- 17. 数据保留水位表 (t_retention_watermark)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS t_retention_watermark (
+    table_name VARCHAR(64) PRIMARY KEY COMMENT '明细表名',
+    rolled_up_until DATETIME NOT NULL COMMENT '已汇总到的时间(不含)',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='数据保留水位表';
+
+-- =====================================================
+-- 18. 刷新令牌表 (t_refresh_token)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS t_refresh_token (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '记录ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    token_hash CHAR(64) NOT NULL COMMENT '令牌SHA-256 hash值',
+    chain_id CHAR(36) NOT NULL COMMENT '令牌链ID(同一次登录轮换产生的令牌共用)',
+    expired_at DATETIME NOT NULL COMMENT '过期时间',
+    used_at DATETIME NULL COMMENT '轮换使用时间',
+    revoked_at DATETIME NULL COMMENT '撤销时间',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE KEY uk_token_hash (token_hash),
+    INDEX idx_user_id (user_id),
+    INDEX idx_chain_id (chain_id),
+    INDEX idx_expired_at (expired_at),
+    CONSTRAINT fk_refresh_token_user FOREIGN KEY (user_id) REFERENCES t_user(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='刷新令牌表';
+
+-- =====================================================
+-- 19. 账本删除任务表 (t_account_book_delete_job)
+-- =====================================================
+CREATE TABLE IF NOT EXISTS t_account_book_delete_job (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '任务ID',
+    account_book_id BIGINT NOT NULL COMMENT '账本ID(账本删除后保留)',
+    family_id BIGINT NOT NULL COMMENT '家庭ID',
+    total_count INT NOT NULL DEFAULT 0 COMMENT '开始时的交易数量',
+    deleted_count INT NOT NULL DEFAULT 0 COMMENT '已删除的交易数量',
+    status TINYINT NOT NULL DEFAULT 0 COMMENT '状态: 0-进行中 1-已完成',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_status (status),
+    INDEX idx_account_book_id (account_book_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='账本删除任务表';
+
 -- =====================================================
 -- 添加交易记录表的搜索优化索引
 -- =====================================================
@@ -217,4 +299,81 @@ ALTER TABLE t_transaction ADD INDEX idx_amount (amount);
 ALTER TABLE t_transaction ADD INDEX idx_book_date_amount (account_book_id, transaction_date, amount);
 
 -- 类型筛选索引
-ALTER TABLE t_transaction ADD INDEX idx_type (type);
\ No newline at end of file
+ALTER TABLE t_transaction ADD INDEX idx_type (type);
+
+-- =====================================================
+-- 数据版本号（用于缓存失效）
+-- =====================================================
+-- 账本数据版本号（账本内交易记录变更时递增）
+ALTER TABLE t_account_book ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0 COMMENT '数据版本号';
+
+-- 家庭分类版本号（家庭分类变更时递增）
+ALTER TABLE t_family ADD COLUMN category_version BIGINT NOT NULL DEFAULT 0 COMMENT '分类版本号';
+
+-- =====================================================
+-- 搜索历史索引
+-- =====================================================
+-- 搜索建议排序索引（按用户、家庭过滤后按次数、时间倒序）
+ALTER TABLE t_search_history ADD INDEX idx_user_family_count (user_id, family_id, search_count, updated_at);
+
+-- =====================================================
+-- 安全记录保留索引
+-- =====================================================
+-- 按时间分批汇总和删除过期明细
+ALTER TABLE t_ip_request ADD INDEX idx_created_at (created_at);
+ALTER TABLE t_login_attempt ADD INDEX idx_created_at (created_at);
+
+-- =====================================================
+-- 令牌黑名单索引
+-- =====================================================
+-- 增量加载新加入的黑名单记录
+ALTER TABLE t_token_blacklist ADD INDEX idx_created_at (created_at);
+
+-- =====================================================
+-- 用户令牌生效起点
+-- =====================================================
+-- 签发时间早于该时间的令牌全部失效（修改密码时更新）
+ALTER TABLE t_user ADD COLUMN token_valid_after DATETIME NULL COMMENT '令牌生效起点';
+
+-- =====================================================
+-- 交易数量计数
+-- =====================================================
+-- 交易新增、修改分类、删除时在同一事务内增减，定时任务按实际数量修正偏差
+ALTER TABLE t_category ADD COLUMN transaction_count INT NOT NULL DEFAULT 0 COMMENT '关联交易数量';
+ALTER TABLE t_account_book ADD COLUMN transaction_count INT NOT NULL DEFAULT 0 COMMENT '关联交易数量';
+
+-- 初始化已有数据的计数
+UPDATE t_category c
+SET c.transaction_count = (SELECT COUNT(1) FROM t_transaction t WHERE t.category_id = c.id);
+UPDATE t_account_book b
+SET b.transaction_count = (SELECT COUNT(1) FROM t_transaction t WHERE t.account_book_id = b.id);
+
+-- =====================================================
+-- 默认分类模板版本
+-- =====================================================
+-- 记录家庭创建默认分类时使用的模板版本，已有家庭为空
+ALTER TABLE t_family ADD COLUMN category_template_version INT NULL COMMENT '默认分类模板版本号';
+
+-- =====================================================
+-- 账本状态
+-- =====================================================
+-- 强制删除有交易的账本时先标记为删除中（对查询不可见），再由后台任务分批删除交易
+ALTER TABLE t_account_book ADD COLUMN status TINYINT NOT NULL DEFAULT 0 COMMENT '状态: 0-正常 1-删除中';
+
+-- =====================================================
+-- 邀请过期索引
+-- =====================================================
+-- 定时任务按过期时间分批将待处理邀请标记为已过期
+ALTER TABLE t_invitation ADD INDEX idx_status_expired_at (status, expired_at);
+
+-- =====================================================
+-- IP请求采样权重
+-- =====================================================
+-- 审计记录按采样率写入，每条记录代表的请求数（采样率的倒数），小时汇总按权重求和
+ALTER TABLE t_ip_request ADD COLUMN sample_weight INT NOT NULL DEFAULT 1 COMMENT '采样权重(代表的请求数)';
+
+-- =====================================================
+-- 热门关键词衰减日期
+-- =====================================================
+-- 各实例的每日衰减任务只处理当天尚未衰减的行，同一天内不会重复衰减
+ALTER TABLE t_search_trending ADD COLUMN decayed_on DATE NULL COMMENT '最近一次衰减日期';
@@ -0,0 +1,188 @@
+package com.family.accounting.security;
+
+import com.family.accounting.exception.BusinessException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 有界密码哈希编码器属性测试
+ * <p>
+ * Feature: bounded-password-hashing, Property: 哈希结果与 BCrypt 一致、线程池饱和时快速失败、旧 cost 哈希需要升级
+ */
+class BoundedPasswordEncoderPropertyTest {
+
+    /**
+     * Hashing on the executor is transparent: an encoded password matches its raw form and
+     * no other password.
+     */
+    @Property(tries = 10)
+    void encodedPasswordShouldMatchOnlyItsRawForm(
+            @ForAll @AlphaChars @NumericChars @StringLength(min = 6, max = 20) String password,
+            @ForAll @AlphaChars @NumericChars @StringLength(min = 6, max = 20) String other
+    ) {
+        ThreadPoolTaskExecutor executor = executor(2, 8);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try {
+            BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+                    new BCryptPasswordEncoder(4), executor, 5000, registry);
+
+            String encoded = encoder.encode(password);
+
+            assertTrue(encoder.matches(password, encoded));
+            assertEquals(password.equals(other), encoder.matches(other, encoded));
+            assertEquals(1, registry.get("security.password.hash").tag("op", "encode").timer().count());
+            assertEquals(2, registry.get("security.password.hash").tag("op", "matches").timer().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * For any pool size and queue capacity, once every worker is busy and the queue is full
+     * further callers are rejected immediately with the busy code instead of blocking.
+     */
+    @Property(tries = 10)
+    void saturatedExecutorShouldRejectImmediately(
+            @ForAll @IntRange(min = 1, max = 3) int threads,
+            @ForAll @IntRange(min = 1, max = 4) int queueCapacity,
+            @ForAll @IntRange(min = 1, max = 5) int extraCallers
+    ) throws Exception {
+        ThreadPoolTaskExecutor executor = executor(threads, queueCapacity);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEncoder blocking = new BlockingEncoder(release, threads);
+        try {
+            BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, executor, 10_000, registry);
+
+            List<CompletableFuture<String>> accepted = new ArrayList<>();
+            for (int i = 0; i < threads + queueCapacity; i++) {
+                accepted.add(CompletableFuture.supplyAsync(() -> encoder.encode("password")));
+            }
+            assertTrue(blocking.started.await(5, TimeUnit.SECONDS));
+            waitForQueue(registry, queueCapacity);
+
+            for (int i = 0; i < extraCallers; i++) {
+                BusinessException e = assertThrows(BusinessException.class, () -> encoder.encode("password"));
+                assertEquals(BoundedPasswordEncoder.BUSY_CODE, e.getCode());
+            }
+            assertEquals(extraCallers, registry.get("security.password.hash.rejected").counter().count());
+
+            release.countDown();
+            for (CompletableFuture<String> future : accepted) {
+                assertEquals("encoded", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A caller waiting longer than the timeout gets the busy code rather than hanging.
+     */
+    @Example
+    void slowHashShouldTimeOut() {
+        ThreadPoolTaskExecutor executor = executor(1, 1);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+                    new BlockingEncoder(release, 1), executor, 50, registry);
+
+            BusinessException e = assertThrows(BusinessException.class, () -> encoder.matches("a", "b"));
+            assertEquals(BoundedPasswordEncoder.BUSY_CODE, e.getCode());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Hashes produced with a lower cost than configured need upgrading; hashes at the configured
+     * cost do not.
+     */
+    @Property(tries = 5)
+    void lowerCostHashShouldNeedUpgrade(@ForAll @IntRange(min = 4, max = 6) int storedStrength) {
+        ThreadPoolTaskExecutor executor = executor(1, 4);
+        try {
+            BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+                    new BCryptPasswordEncoder(5), executor, 5000, new SimpleMeterRegistry());
+
+            String stored = new BCryptPasswordEncoder(storedStrength).encode("password");
+
+            assertEquals(storedStrength < 5, encoder.upgradeEncoding(stored));
+            assertTrue(encoder.matches("password", stored));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ThreadPoolTaskExecutor executor(int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    private void waitForQueue(MeterRegistry registry, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("security.password.hash.queue").gauge().value() < expected) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("queue did not fill up");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 阻塞直到放行的编码器，用于占满线程池
+     */
+    private static class BlockingEncoder implements PasswordEncoder {
+
+        private final CountDownLatch release;
+        private final CountDownLatch started;
+
+        private BlockingEncoder(CountDownLatch release, int workers) {
+            this.release = release;
+            this.started = new CountDownLatch(workers);
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            block();
+            return "encoded";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            block();
+            return false;
+        }
+
+        private void block() {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.family.accounting.security;
+
+import com.family.accounting.service.TokenBlacklistService;
+import com.family.accounting.util.JwtUtil;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * JWT认证过滤器属性测试
+ * <p>
+ * Feature: token-revocation, Property: 签发时间早于用户令牌生效起点或在黑名单中的访问令牌不能通过认证
+ */
+class JwtAuthenticationFilterPropertyTest {
+
+    /**
+     * For any valid access token, the request is authenticated only when the token is neither
+     * blacklisted nor issued before the user's token epoch (password change, log out everywhere).
+     */
+    @Property(tries = 30)
+    void revokedTokensShouldNotAuthenticate(@ForAll @LongRange(min = 1, max = 1000000) long userId,
+                                            @ForAll boolean blacklisted,
+                                            @ForAll boolean epochRevoked) throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", "test-secret-key-for-property-testing-2024");
+        setField(jwtUtil, "expiration", 900000L);
+        String token = jwtUtil.generateToken(userId, "13800000000");
+
+        TokenBlacklistService tokenBlacklistService = Mockito.mock(TokenBlacklistService.class);
+        when(tokenBlacklistService.isTokenBlacklisted(token)).thenReturn(blacklisted);
+        when(tokenBlacklistService.isTokenRevoked(eq(userId), any())).thenReturn(epochRevoked);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        try {
+            new JwtAuthenticationFilter(jwtUtil, tokenBlacklistService)
+                    .doFilter(request, new MockHttpServletResponse(), chain);
+
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (blacklisted || epochRevoked) {
+                assertNull(authentication);
+            } else {
+                assertNotNull(authentication);
+                assertEquals(userId, ((JwtUserDetails) authentication.getPrincipal()).getUserId().longValue());
+            }
+            assertNotNull(chain.getRequest());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.family.accounting.security;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 共享限流存储属性测试
+ * 多个 SyncedRateLimitStore 共用一个 InMemorySyncBackend 模拟多实例部署
+ * <p>
+ * Feature: shared-rate-limit, Property: 额度在实例间共享、同步延迟有界、共享存储故障不丢计数
+ */
+class SyncedRateLimitStorePropertyTest {
+
+    private static final int LIMIT = 100;
+
+    /**
+     * For any number of nodes behind a round-robin balancer, the total number of requests
+     * admitted across the cluster is bounded by one shared budget plus the requests each node
+     * can admit before the next sync, rather than nodes × budget.
+     */
+    @Property(tries = 50)
+    void clusterShouldShareOneBudget(
+            @ForAll @IntRange(min = 2, max = 5) int nodeCount,
+            @ForAll @IntRange(min = 1, max = 10) int syncEvery,
+            @ForAll @IntRange(min = 0, max = 600) int requests
+    ) {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        List<SyncedRateLimitStore> nodes = cluster(nodeCount, new InMemorySyncBackend(1000, now::get));
+
+        int allowed = 0;
+        for (int i = 0; i < requests; i++) {
+            if (nodes.get(i % nodeCount).tryAcquire("10.0.0.1")) {
+                allowed++;
+            }
+            if ((i + 1) % syncEvery == 0) {
+                syncAll(nodes);
+            }
+        }
+
+        assertTrue(allowed <= LIMIT - 1 + nodeCount * syncEvery,
+                "allowed " + allowed + " exceeds shared budget");
+
+        syncAll(nodes);
+        for (SyncedRateLimitStore node : nodes) {
+            assertEquals(requests >= LIMIT, node.isLimited("10.0.0.1"));
+        }
+    }
+
+    /**
+     * Syncing after every request makes the cluster behave exactly like a single limiter.
+     */
+    @Property(tries = 30)
+    void syncAfterEveryRequestShouldBeExact(
+            @ForAll @IntRange(min = 2, max = 5) int nodeCount,
+            @ForAll @IntRange(min = 0, max = 300) int requests
+    ) {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        List<SyncedRateLimitStore> nodes = cluster(nodeCount, new InMemorySyncBackend(1000, now::get));
+
+        int allowed = 0;
+        for (int i = 0; i < requests; i++) {
+            if (nodes.get(i % nodeCount).tryAcquire("10.0.0.1")) {
+                allowed++;
+            }
+            syncAll(nodes);
+        }
+
+        assertEquals(Math.min(requests, LIMIT - 1), allowed);
+    }
+
+    /**
+     * Counts shared through the backend expire once the window has passed.
+     */
+    @Property(tries = 30)
+    void sharedCountsShouldExpireAfterWindow(@ForAll @IntRange(min = 100, max = 300) int requests) {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        List<SyncedRateLimitStore> nodes = cluster(2, new InMemorySyncBackend(1000, now::get));
+        for (int i = 0; i < requests; i++) {
+            nodes.get(i % 2).tryAcquire("10.0.0.1");
+        }
+        syncAll(nodes);
+        assertTrue(nodes.get(0).isLimited("10.0.0.1"));
+
+        now.addAndGet(LocalRateLimitStore.WINDOW_MILLIS);
+        syncAll(nodes);
+
+        for (SyncedRateLimitStore node : nodes) {
+            assertFalse(node.isLimited("10.0.0.1"));
+            assertEquals(0, node.size());
+        }
+    }
+
+    /**
+     * Requests only touch local state; the backend is contacted once per sync, not per request.
+     */
+    @Property(tries = 30)
+    void requestsShouldNotContactBackend(@ForAll @IntRange(min = 1, max = 500) int requests) {
+        InMemorySyncBackend backend = new InMemorySyncBackend(1000);
+        SyncedRateLimitStore node = new SyncedRateLimitStore(backend, LIMIT, 1000);
+
+        for (int i = 0; i < requests; i++) {
+            node.tryAcquire("10.0.0." + (i % 7));
+        }
+        assertEquals(0, backend.getExchangeCount());
+
+        node.sync();
+        assertEquals(1, backend.getExchangeCount());
+    }
+
+    /**
+     * When the backend is unavailable, deltas are kept and delivered on the next successful sync.
+     */
+    @Property(tries = 30)
+    void failedSyncShouldKeepDeltas(@ForAll @IntRange(min = 1, max = 200) int requests) {
+        InMemorySyncBackend backend = new InMemorySyncBackend(1000);
+        FlakyBackend flaky = new FlakyBackend(backend);
+        SyncedRateLimitStore node = new SyncedRateLimitStore(flaky, LIMIT, 1000);
+        SyncedRateLimitStore other = new SyncedRateLimitStore(backend, LIMIT, 1000);
+
+        for (int i = 0; i < requests; i++) {
+            node.tryAcquire("10.0.0.1");
+        }
+        flaky.failing = true;
+        node.sync();
+        assertEquals(requests >= LIMIT, node.isLimited("10.0.0.1"));
+
+        flaky.failing = false;
+        node.sync();
+        other.tryAcquire("10.0.0.1");
+        other.sync();
+        assertEquals(requests + 1 >= LIMIT, other.isLimited("10.0.0.1"));
+    }
+
+    /**
+     * Once the store tracks maxKeys keys, new keys share one overflow budget across the cluster
+     * instead of being admitted unconditionally.
+     */
+    @Property(tries = 30)
+    void fullStoreShouldLimitNewKeysTogether(@ForAll @IntRange(min = 1, max = 300) int newKeys) {
+        InMemorySyncBackend backend = new InMemorySyncBackend(1000);
+        SyncedRateLimitStore node = new SyncedRateLimitStore(backend, LIMIT, 2);
+        node.tryAcquire("10.0.0.1");
+        node.tryAcquire("10.0.0.2");
+        node.sync();
+
+        int allowed = 0;
+        for (int i = 0; i < newKeys; i++) {
+            if (node.tryAcquire("10.1.0." + i)) {
+                allowed++;
+            }
+        }
+
+        assertEquals(Math.min(newKeys, LIMIT - 1), allowed);
+        node.sync();
+        assertEquals(newKeys >= LIMIT, node.isLimited("10.2.0.1"));
+    }
+
+    /**
+     * 同步两轮：第二轮让先同步的实例取回后同步实例提交的增量
+     */
+    private void syncAll(List<SyncedRateLimitStore> nodes) {
+        nodes.forEach(SyncedRateLimitStore::sync);
+        nodes.forEach(SyncedRateLimitStore::sync);
+    }
+
+    private List<SyncedRateLimitStore> cluster(int nodeCount, RateLimitSyncBackend backend) {
+        List<SyncedRateLimitStore> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new SyncedRateLimitStore(backend, LIMIT, 1000));
+        }
+        return nodes;
+    }
+
+    private static final class FlakyBackend implements RateLimitSyncBackend {
+
+        private final RateLimitSyncBackend delegate;
+        private volatile boolean failing;
+
+        private FlakyBackend(RateLimitSyncBackend delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Map<String, Long> exchange(Map<String, Long> deltas, Set<String> keys) {
+            if (failing) {
+                throw new IllegalStateException("backend unavailable");
+            }
+            return delegate.exchange(deltas, keys);
+        }
+    }
+}
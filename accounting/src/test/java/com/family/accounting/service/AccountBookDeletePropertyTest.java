@@ -0,0 +1,238 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.AccountBookDeleteJobVO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.AccountBookDeleteJob;
+import com.family.accounting.entity.Family;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.mapper.AccountBookDeleteJobMapper;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 账本分批删除属性测试
+ * <p>
+ * Feature: account-book-async-delete, Property: 强制删除时账本立即不可见，后台按批删除全部交易并同步扣减计数，中断后继续执行结果一致
+ */
+class AccountBookDeletePropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long BOOK_ID = 100L;
+    private static final long JOB_ID = 7L;
+
+    /**
+     * For any number of transactions and batch size, the job deletes every transaction of the
+     * book in batches no larger than the batch size, subtracts exactly the deleted rows from the
+     * category and book counters, reports full progress and only then deletes the book.
+     */
+    @Property(tries = 50)
+    void jobShouldDeleteEveryTransactionInBatches(@ForAll @IntRange(min = 0, max = 500) int transactionCount,
+                                                  @ForAll @IntRange(min = 1, max = 150) int batchSize) {
+        Fixture fixture = new Fixture(transactionCount, batchSize);
+
+        assertTrue(fixture.service.run(fixture.job));
+
+        assertTrue(fixture.transactions.isEmpty());
+        assertTrue(fixture.batchSizes.stream().allMatch(size -> size <= batchSize));
+        assertEquals(transactionCount / batchSize + 1, fixture.batches);
+        fixture.categoryCounts.values().forEach(count -> assertEquals(0, count.intValue()));
+        assertEquals(-transactionCount, fixture.bookDelta.get());
+        assertEquals(transactionCount, fixture.progress.get());
+        verify(fixture.accountBookMapper).deleteById(BOOK_ID);
+        verify(fixture.jobMapper).markCompleted(JOB_ID);
+    }
+
+    /**
+     * A job interrupted after some committed batches keeps running state and the book; running
+     * it again continues from the remaining transactions without counting any row twice.
+     */
+    @Property(tries = 50)
+    void interruptedJobShouldResume(@ForAll @IntRange(min = 1, max = 500) int transactionCount,
+                                    @ForAll @IntRange(min = 1, max = 150) int batchSize,
+                                    @ForAll @IntRange(min = 1, max = 5) int failAtBatch) {
+        Fixture fixture = new Fixture(transactionCount, batchSize);
+        fixture.failAtBatch = failAtBatch;
+
+        boolean completed = fixture.service.run(fixture.job);
+        if (!completed) {
+            verify(fixture.accountBookMapper, never()).deleteById(anyLong());
+            verify(fixture.jobMapper, never()).markCompleted(anyLong());
+            assertTrue(fixture.service.run(fixture.job));
+        }
+
+        assertTrue(fixture.transactions.isEmpty());
+        fixture.categoryCounts.values().forEach(count -> assertEquals(0, count.intValue()));
+        assertEquals(-transactionCount, fixture.bookDelta.get());
+        assertEquals(transactionCount, fixture.progress.get());
+        verify(fixture.accountBookMapper, times(1)).deleteById(BOOK_ID);
+    }
+
+    /**
+     * Forced deletion of a book with transactions hides the book and starts a job instead of
+     * deleting it in the request; a book without transactions is still deleted directly.
+     */
+    @Property(tries = 20)
+    void forcedDeletionShouldStartJob(@ForAll @IntRange(min = 0, max = 100000) int transactionCount) {
+        Fixture fixture = new Fixture(0, 100);
+        AccountBook book = new AccountBook();
+        book.setId(BOOK_ID);
+        book.setFamilyId(FAMILY_ID);
+        book.setIsDefault(0);
+        book.setTransactionCount(transactionCount);
+        when(fixture.accountBookMapper.findById(BOOK_ID)).thenReturn(book);
+        when(fixture.accountBookMapper.markDeleting(BOOK_ID)).thenReturn(1);
+        doAnswer(invocation -> {
+            invocation.<AccountBookDeleteJob>getArgument(0).setId(JOB_ID);
+            return 1;
+        }).when(fixture.jobMapper).insert(any(AccountBookDeleteJob.class));
+        Executor executor = mock(Executor.class);
+        setField(fixture.service, "accountBookDeleteExecutor", executor);
+
+        AccountBookDeleteJobVO job = createAccountBookService(fixture).deleteAccountBook(USER_ID, BOOK_ID, true);
+
+        if (transactionCount == 0) {
+            assertNull(job);
+            verify(fixture.accountBookMapper).deleteById(BOOK_ID);
+            verify(fixture.accountBookMapper, never()).markDeleting(anyLong());
+        } else {
+            assertEquals(JOB_ID, job.getId());
+            assertEquals(transactionCount, job.getTotalCount().intValue());
+            assertFalse(job.getCompleted());
+            verify(fixture.accountBookMapper).markDeleting(BOOK_ID);
+            verify(fixture.accountBookMapper, never()).deleteById(anyLong());
+            verify(executor).execute(any(Runnable.class));
+        }
+    }
+
+    private AccountBookService createAccountBookService(Fixture fixture) {
+        FamilyMemberMapper familyMemberMapper = mock(FamilyMemberMapper.class);
+        FamilyMember member = new FamilyMember();
+        member.setFamilyId(FAMILY_ID);
+        member.setUserId(USER_ID);
+        when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+        FamilyMapper familyMapper = mock(FamilyMapper.class);
+        Family family = new Family();
+        family.setId(FAMILY_ID);
+        family.setAdminId(USER_ID);
+        when(familyMapper.findById(FAMILY_ID)).thenReturn(family);
+
+        AccountBookService service = new AccountBookService();
+        setField(service, "accountBookMapper", fixture.accountBookMapper);
+        setField(service, "familyMemberMapper", familyMemberMapper);
+        setField(service, "familyMapper", familyMapper);
+        setField(service, "accountBookDeleteJobMapper", fixture.jobMapper);
+        setField(service, "accountBookDeleteService", fixture.service);
+        return service;
+    }
+
+    /**
+     * 内存中的账本交易（交易ID -> 分类ID）及计数
+     */
+    private class Fixture {
+        final TreeMap<Long, Long> transactions = new TreeMap<>();
+        final Map<Long, Integer> categoryCounts = new HashMap<>();
+        final AtomicInteger bookDelta = new AtomicInteger();
+        final AtomicInteger progress = new AtomicInteger();
+        final List<Integer> batchSizes = new ArrayList<>();
+        final AccountBookMapper accountBookMapper = mock(AccountBookMapper.class);
+        final CategoryMapper categoryMapper = mock(CategoryMapper.class);
+        final TransactionMapper transactionMapper = mock(TransactionMapper.class);
+        final AccountBookDeleteJobMapper jobMapper = mock(AccountBookDeleteJobMapper.class);
+        final AccountBookDeleteService service = new AccountBookDeleteService();
+        final AccountBookDeleteJob job = new AccountBookDeleteJob();
+        int failAtBatch;
+        int batches;
+
+        Fixture(int transactionCount, int batchSize) {
+            for (long id = 1; id <= transactionCount; id++) {
+                long categoryId = id % 5 + 1;
+                transactions.put(id, categoryId);
+                categoryCounts.merge(categoryId, 1, Integer::sum);
+            }
+            job.setId(JOB_ID);
+            job.setAccountBookId(BOOK_ID);
+            job.setFamilyId(FAMILY_ID);
+            job.setTotalCount(transactionCount);
+            job.setDeletedCount(0);
+            job.setStatus(AccountBookDeleteJob.STATUS_RUNNING);
+
+            when(transactionMapper.findIdsByAccountBookIdForUpdate(eq(BOOK_ID), anyInt())).thenAnswer(invocation -> {
+                if (++batches == failAtBatch) {
+                    throw new IllegalStateException("connection lost");
+                }
+                int limit = invocation.getArgument(1);
+                List<Long> ids = new ArrayList<>();
+                for (Long id : transactions.keySet()) {
+                    if (ids.size() >= limit) {
+                        break;
+                    }
+                    ids.add(id);
+                }
+                return ids;
+            });
+            doAnswer(invocation -> {
+                List<Long> ids = invocation.getArgument(0);
+                for (Long id : ids) {
+                    categoryCounts.merge(transactions.get(id), -1, Integer::sum);
+                }
+                return ids.size();
+            }).when(categoryMapper).subtractTransactionCountsByTransactionIds(anyList());
+            when(transactionMapper.deleteByIds(anyList())).thenAnswer(invocation -> {
+                List<Long> ids = invocation.getArgument(0);
+                batchSizes.add(ids.size());
+                ids.forEach(transactions::remove);
+                return ids.size();
+            });
+            doAnswer(invocation -> bookDelta.addAndGet(invocation.getArgument(1)))
+                    .when(accountBookMapper).adjustTransactionCount(eq(BOOK_ID), anyInt());
+            doAnswer(invocation -> progress.addAndGet(invocation.getArgument(1)))
+                    .when(jobMapper).addDeletedCount(eq(JOB_ID), anyInt());
+
+            setField(service, "accountBookDeleteJobMapper", jobMapper);
+            setField(service, "accountBookMapper", accountBookMapper);
+            setField(service, "transactionMapper", transactionMapper);
+            setField(service, "categoryMapper", categoryMapper);
+            setField(service, "transactionTemplate", new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+            setField(service, "accountBookDeleteExecutor", (Executor) Runnable::run);
+            setField(service, "batchSize", batchSize);
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.AmountDistributionVO;
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.SearchHistoryMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import com.family.accounting.security.JwtUserDetails;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 金额分布权限属性测试
+ * <p>
+ * Feature: amount-distribution, Property: 只统计当前家庭的账本，其他家庭的账本在查询前被拒绝，未指定账本时使用默认账本
+ */
+class AmountDistributionPropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long BOOK_ID = 100L;
+    private static final long DEFAULT_BOOK_ID = 101L;
+    private static final long OTHER_FAMILY_BOOK_ID = 300L;
+
+    /**
+     * For any amounts in one of the family's books, the distribution counts and sums exactly
+     * the streamed rows of that book; without a book the family's default book is used.
+     */
+    @Property(tries = 50)
+    void ownBookShouldBeStreamed(@ForAll("amounts") List<BigDecimal> amounts,
+                                 @ForAll boolean useDefaultBook) {
+        Fixture fixture = new Fixture(amounts);
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setAccountBookId(useDefaultBook ? null : BOOK_ID);
+
+        AmountDistributionVO vo = withUser(() -> fixture.service.getAmountDistribution(request));
+
+        long expectedBook = useDefaultBook ? DEFAULT_BOOK_ID : BOOK_ID;
+        verify(fixture.transactionMapper).streamSearchAmounts(eq(expectedBook), any(), any(), any(), any(), any(),
+                any(), any(), any(), any());
+        assertEquals(amounts.size(), vo.getCount().longValue());
+        assertEquals(0, amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add).compareTo(vo.getTotalAmount()));
+    }
+
+    /**
+     * A book of another family, or one that does not exist, is rejected before any amount is read.
+     */
+    @Property(tries = 10)
+    void foreignBookShouldBeRejected(@ForAll("foreignBooks") long accountBookId) {
+        Fixture fixture = new Fixture(Collections.singletonList(BigDecimal.ONE));
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setAccountBookId(accountBookId);
+
+        assertThrows(BusinessException.class, () -> withUser(() -> fixture.service.getAmountDistribution(request)));
+        verify(fixture.transactionMapper, never()).streamSearchAmounts(any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), any());
+    }
+
+    @Provide
+    Arbitrary<List<BigDecimal>> amounts() {
+        return Arbitraries.bigDecimals().between(new BigDecimal("0.01"), new BigDecimal("20000"))
+                .ofScale(2).list().ofMaxSize(50);
+    }
+
+    @Provide
+    Arbitrary<Long> foreignBooks() {
+        return Arbitraries.of(OTHER_FAMILY_BOOK_ID, 999L);
+    }
+
+    /**
+     * 当前家庭两个账本、另一家庭一个账本
+     */
+    private static class Fixture {
+        final TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        final SearchService service;
+
+        Fixture(List<BigDecimal> amounts) {
+            doAnswer(invocation -> {
+                ResultHandler<BigDecimal> handler = invocation.getArgument(9);
+                DefaultResultContext<BigDecimal> context = new DefaultResultContext<>();
+                for (BigDecimal amount : amounts) {
+                    context.nextResultObject(amount);
+                    handler.handleResult(context);
+                }
+                return null;
+            }).when(transactionMapper).streamSearchAmounts(any(), any(), any(), any(), any(), any(), any(), any(),
+                    any(), any());
+
+            FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+            FamilyMember member = new FamilyMember();
+            member.setUserId(USER_ID);
+            member.setFamilyId(FAMILY_ID);
+            when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+            AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+            when(accountBookMapper.findById(BOOK_ID)).thenReturn(book(BOOK_ID, FAMILY_ID));
+            when(accountBookMapper.findById(OTHER_FAMILY_BOOK_ID)).thenReturn(book(OTHER_FAMILY_BOOK_ID, 99L));
+            when(accountBookMapper.findDefaultByFamilyId(FAMILY_ID)).thenReturn(book(DEFAULT_BOOK_ID, FAMILY_ID));
+
+            service = new SearchService(transactionMapper, Mockito.mock(CategoryMapper.class),
+                    Mockito.mock(SearchHistoryMapper.class), familyMemberMapper, accountBookMapper, Runnable::run,
+                    new SearchCostGuard(60, 150), Mockito.mock(SearchTrendingService.class), 3000);
+        }
+
+        private static AccountBook book(long id, long familyId) {
+            AccountBook book = new AccountBook();
+            book.setId(id);
+            book.setFamilyId(familyId);
+            return book;
+        }
+    }
+
+    /**
+     * 以登录用户身份执行
+     */
+    private static <T> T withUser(Supplier<T> action) {
+        JwtUserDetails user = new JwtUserDetails(USER_ID, "13800000000");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
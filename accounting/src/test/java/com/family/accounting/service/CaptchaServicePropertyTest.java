@@ -0,0 +1,206 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.CaptchaVO;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.security.CaptchaStore;
+import com.family.accounting.security.LocalCaptchaStore;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图片验证码服务属性测试
+ * <p>
+ * Feature: captcha-store, Property: 验证码一次性使用、大小写不敏感、过期失效，预渲染池在渲染线程池中按容量补充且每张只发放一次
+ */
+class CaptchaServicePropertyTest {
+
+    private static final long EXPIRE_MILLIS = 5 * 60_000L;
+
+    /**
+     * For any generated captcha, the correct code (in any letter case) verifies exactly once;
+     * every later attempt with the same key fails.
+     */
+    @Property(tries = 10)
+    void captchaShouldVerifyOnceIgnoringCase(@ForAll boolean lowerCase,
+                                             @ForAll @IntRange(min = 1, max = 3) int retries) {
+        RecordingStore store = new RecordingStore(new LocalCaptchaStore(100));
+        CaptchaService service = createService(store, 0);
+
+        CaptchaVO vo = service.generateCaptcha();
+        String code = store.codes.get(vo.getCaptchaKey());
+        String input = lowerCase ? code.toLowerCase() : code;
+
+        assertTrue(vo.getCaptchaImage().startsWith("data:image/png;base64,"));
+        assertTrue(service.verifyCaptcha(vo.getCaptchaKey(), input));
+        for (int i = 0; i < retries; i++) {
+            assertFalse(service.verifyCaptcha(vo.getCaptchaKey(), input));
+        }
+    }
+
+    /**
+     * A wrong code fails and also consumes the captcha, so the correct code cannot be tried next.
+     */
+    @Property(tries = 10)
+    void wrongCodeShouldConsumeCaptcha(@ForAll @AlphaChars @StringLength(min = 1, max = 6) String guess) {
+        RecordingStore store = new RecordingStore(new LocalCaptchaStore(100));
+        CaptchaService service = createService(store, 0);
+
+        CaptchaVO vo = service.generateCaptcha();
+        String code = store.codes.get(vo.getCaptchaKey());
+        Assume.that(!code.equalsIgnoreCase(guess));
+
+        assertFalse(service.verifyCaptcha(vo.getCaptchaKey(), guess));
+        assertFalse(service.verifyCaptcha(vo.getCaptchaKey(), code));
+    }
+
+    /**
+     * A captcha verified after its expiry fails even with the correct code, and expired entries
+     * are evicted by the cleanup task.
+     */
+    @Property(tries = 10)
+    void expiredCaptchaShouldFail(@ForAll @LongRange(min = 1, max = 600_000) long extraMillis) {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        LocalCaptchaStore local = new LocalCaptchaStore(100, now::get);
+        RecordingStore store = new RecordingStore(local);
+        CaptchaService service = createService(store, 0);
+
+        CaptchaVO first = service.generateCaptcha();
+        CaptchaVO second = service.generateCaptcha();
+        now.addAndGet(EXPIRE_MILLIS + extraMillis + 1000);
+
+        assertFalse(service.verifyCaptcha(first.getCaptchaKey(), store.codes.get(first.getCaptchaKey())));
+        service.cleanExpiredCaptchas();
+        assertEquals(0, local.size());
+        assertFalse(service.verifyCaptcha(second.getCaptchaKey(), store.codes.get(second.getCaptchaKey())));
+    }
+
+    /**
+     * Refilling fills the pool up to its capacity; every request takes one pre-rendered image,
+     * and keys are never reused.
+     */
+    @Property(tries = 5)
+    void poolShouldServePreRenderedCaptchasOnce(@ForAll @IntRange(min = 1, max = 20) int poolSize,
+                                                @ForAll @IntRange(min = 1, max = 30) int requests) {
+        RecordingStore store = new RecordingStore(new LocalCaptchaStore(100));
+        CaptchaService service = createService(store, poolSize);
+
+        service.refillPool();
+        assertEquals(poolSize, service.getPoolSize());
+
+        Set<String> keys = new HashSet<>();
+        Set<String> images = new HashSet<>();
+        for (int i = 0; i < requests; i++) {
+            CaptchaVO vo = service.generateCaptcha();
+            keys.add(vo.getCaptchaKey());
+            images.add(vo.getCaptchaImage());
+        }
+
+        assertEquals(Math.max(poolSize - requests, 0), service.getPoolSize());
+        assertEquals(requests, keys.size());
+        assertEquals(requests, images.size());
+
+        service.refillPool();
+        assertEquals(poolSize, service.getPoolSize());
+    }
+
+    /**
+     * With a render executor, the scheduled refill only submits work: nothing is rendered on the
+     * calling thread, repeated triggers while a refill is pending submit nothing more, and the pool
+     * is full once the submitted task has run.
+     */
+    @Property(tries = 5)
+    void refillShouldRenderOnExecutorOnce(@ForAll @IntRange(min = 1, max = 20) int poolSize,
+                                          @ForAll @IntRange(min = 1, max = 5) int triggers) {
+        CaptchaService service = createService(new LocalCaptchaStore(100), poolSize);
+        List<Runnable> submitted = new ArrayList<>();
+        setField(service, "renderExecutor", (Executor) submitted::add);
+
+        for (int i = 0; i < triggers; i++) {
+            service.refillPool();
+        }
+        assertEquals(0, service.getPoolSize());
+        assertEquals(1, submitted.size());
+
+        submitted.remove(0).run();
+        assertEquals(poolSize, service.getPoolSize());
+
+        service.generateCaptcha();
+        service.refillPool();
+        assertEquals(1, submitted.size());
+    }
+
+    /**
+     * When the store is full of live captchas, generation fails fast with the busy code.
+     */
+    @Property(tries = 5)
+    void fullStoreShouldRejectGeneration(@ForAll @IntRange(min = 1, max = 10) int capacity) {
+        CaptchaService service = createService(new LocalCaptchaStore(capacity), 0);
+
+        for (int i = 0; i < capacity; i++) {
+            service.generateCaptcha();
+        }
+
+        BusinessException e = assertThrows(BusinessException.class, service::generateCaptcha);
+        assertEquals(503, e.getCode());
+    }
+
+    private CaptchaService createService(CaptchaStore store, int poolSize) {
+        CaptchaService service = new CaptchaService();
+        setField(service, "captchaStore", store);
+        setField(service, "poolSize", poolSize);
+        return service;
+    }
+
+    /**
+     * 记录已保存验证码内容的存储，用于在测试中得到正确答案
+     */
+    private static class RecordingStore implements CaptchaStore {
+
+        private final CaptchaStore delegate;
+        private final Map<String, String> codes = new HashMap<>();
+
+        private RecordingStore(CaptchaStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean save(String captchaKey, String code, long expireAtMillis) {
+            codes.put(captchaKey, code);
+            return delegate.save(captchaKey, code, expireAtMillis);
+        }
+
+        @Override
+        public String take(String captchaKey) {
+            return delegate.take(captchaKey);
+        }
+
+        @Override
+        public int evictExpired() {
+            return delegate.evictExpired();
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
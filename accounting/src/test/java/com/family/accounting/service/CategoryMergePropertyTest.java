@@ -0,0 +1,198 @@
+package com.family.accounting.service;
+
+import com.family.accounting.entity.Category;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分类合并属性测试
+ * <p>
+ * Feature: category-merge, Property: 源分类子树的交易按批全部转入目标分类，目标分类计数同步增加，源分类被删除且分类版本号递增
+ */
+class CategoryMergePropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long SOURCE_ID = 1L;
+    private static final long SOURCE_CHILD_ID = 2L;
+    private static final long TARGET_ID = 3L;
+    private static final long OTHER_ID = 4L;
+
+    /**
+     * For any distribution of transactions over the source subtree and any batch size, every
+     * source transaction ends up in the target, others are untouched, the target's counter
+     * grows by the number moved, and the emptied source categories are deleted once.
+     */
+    @Property(tries = 50)
+    void mergeShouldMoveEverySourceTransaction(@ForAll @IntRange(min = 0, max = 300) int inSource,
+                                               @ForAll @IntRange(min = 0, max = 300) int inChild,
+                                               @ForAll @IntRange(min = 0, max = 50) int inOther,
+                                               @ForAll @IntRange(min = 1, max = 120) int batchSize) {
+        Map<Long, Long> transactions = new HashMap<>();
+        long id = 1;
+        for (int i = 0; i < inSource; i++) {
+            transactions.put(id++, SOURCE_ID);
+        }
+        for (int i = 0; i < inChild; i++) {
+            transactions.put(id++, SOURCE_CHILD_ID);
+        }
+        for (int i = 0; i < inOther; i++) {
+            transactions.put(id++, OTHER_ID);
+        }
+
+        CategoryMapper categoryMapper = mockCategories();
+        TransactionMapper transactionMapper = inMemoryTransactions(transactions);
+        FamilyMapper familyMapper = Mockito.mock(FamilyMapper.class);
+        AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+        Map<Long, Integer> counts = new HashMap<>();
+        doAnswer(invocation -> {
+            counts.merge(invocation.getArgument(0), invocation.<Integer>getArgument(1), Integer::sum);
+            return 1;
+        }).when(categoryMapper).adjustTransactionCount(anyLong(), anyInt());
+        CategoryService service = createService(categoryMapper, transactionMapper, familyMapper, accountBookMapper, batchSize);
+
+        service.mergeCategory(USER_ID, SOURCE_ID, TARGET_ID);
+
+        int moved = inSource + inChild;
+        assertEquals(moved, transactions.values().stream().filter(c -> c == TARGET_ID).count());
+        assertEquals(inOther, transactions.values().stream().filter(c -> c == OTHER_ID).count());
+        assertEquals(moved, (int) counts.getOrDefault(TARGET_ID, 0));
+        assertTrue(counts.keySet().stream().allMatch(c -> c == TARGET_ID), "only the target counter changes");
+
+        // 每批不超过批大小，最后一次不限数量
+        verify(transactionMapper, times(moved / batchSize + 1))
+                .reassignCategory(anyList(), eq(TARGET_ID), eq(batchSize));
+        verify(transactionMapper).reassignCategory(anyList(), eq(TARGET_ID), isNull());
+        verify(categoryMapper).deleteByIds(Arrays.asList(SOURCE_ID, SOURCE_CHILD_ID));
+        verify(familyMapper).incrementCategoryVersion(FAMILY_ID);
+        verify(accountBookMapper, moved > 0 ? atLeastOnce() : never()).incrementDataVersionByFamilyId(FAMILY_ID);
+    }
+
+    /**
+     * Merging into the source itself or one of its descendants, or across types, is rejected
+     * before any transaction moves.
+     */
+    @Property(tries = 10)
+    void invalidTargetShouldBeRejected(@ForAll("invalidTargets") long targetId) {
+        CategoryMapper categoryMapper = mockCategories();
+        TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        FamilyMapper familyMapper = Mockito.mock(FamilyMapper.class);
+        CategoryService service = createService(categoryMapper, transactionMapper, familyMapper,
+                Mockito.mock(AccountBookMapper.class), 100);
+
+        assertThrows(BusinessException.class, () -> service.mergeCategory(USER_ID, SOURCE_ID, targetId));
+        verify(transactionMapper, never()).reassignCategory(anyList(), any(), any());
+        verify(categoryMapper, never()).deleteByIds(anyList());
+        verify(familyMapper, never()).incrementCategoryVersion(any());
+    }
+
+    @Provide
+    Arbitrary<Long> invalidTargets() {
+        // 源分类自身、源分类的子分类、收入分类
+        return Arbitraries.of(SOURCE_ID, SOURCE_CHILD_ID, 5L);
+    }
+
+    /**
+     * 分类：1（源）-> 2（源的子分类），3（目标），4（其他），5（收入分类）
+     */
+    private CategoryMapper mockCategories() {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        when(categoryMapper.findById(SOURCE_ID)).thenReturn(category(SOURCE_ID, null, Category.TYPE_EXPENSE));
+        when(categoryMapper.findById(SOURCE_CHILD_ID)).thenReturn(category(SOURCE_CHILD_ID, SOURCE_ID, Category.TYPE_EXPENSE));
+        when(categoryMapper.findById(TARGET_ID)).thenReturn(category(TARGET_ID, null, Category.TYPE_EXPENSE));
+        when(categoryMapper.findById(OTHER_ID)).thenReturn(category(OTHER_ID, null, Category.TYPE_EXPENSE));
+        when(categoryMapper.findById(5L)).thenReturn(category(5L, null, Category.TYPE_INCOME));
+        when(categoryMapper.findAllDescendantIds(SOURCE_ID)).thenReturn(Arrays.asList(SOURCE_ID, SOURCE_CHILD_ID));
+        return categoryMapper;
+    }
+
+    private Category category(long id, Long parentId, int type) {
+        Category category = new Category();
+        category.setId(id);
+        category.setFamilyId(FAMILY_ID);
+        category.setParentId(parentId);
+        category.setName("分类" + id);
+        category.setType(type);
+        return category;
+    }
+
+    /**
+     * 内存中的交易表（交易ID -> 分类ID），支持带LIMIT的批量转移
+     */
+    private TransactionMapper inMemoryTransactions(Map<Long, Long> transactions) {
+        TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        when(transactionMapper.reassignCategory(anyList(), anyLong(), any())).thenAnswer(invocation -> {
+            List<Long> from = invocation.getArgument(0);
+            Long target = invocation.getArgument(1);
+            Integer limit = invocation.getArgument(2);
+            int moved = 0;
+            for (Map.Entry<Long, Long> entry : new ArrayList<>(transactions.entrySet())) {
+                if (limit != null && moved >= limit) {
+                    break;
+                }
+                if (from.contains(entry.getValue())) {
+                    transactions.put(entry.getKey(), target);
+                    moved++;
+                }
+            }
+            return moved;
+        });
+        return transactionMapper;
+    }
+
+    private CategoryService createService(CategoryMapper categoryMapper, TransactionMapper transactionMapper,
+                                          FamilyMapper familyMapper, AccountBookMapper accountBookMapper,
+                                          int batchSize) {
+        FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+        FamilyMember member = new FamilyMember();
+        member.setFamilyId(FAMILY_ID);
+        member.setUserId(USER_ID);
+        when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+        CategoryService service = new CategoryService();
+        setField(service, "categoryMapper", categoryMapper);
+        setField(service, "familyMemberMapper", familyMemberMapper);
+        setField(service, "familyMapper", familyMapper);
+        setField(service, "transactionMapper", transactionMapper);
+        setField(service, "accountBookMapper", accountBookMapper);
+        setField(service, "transactionTemplate", new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+        setField(service, "mergeBatchSize", batchSize);
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
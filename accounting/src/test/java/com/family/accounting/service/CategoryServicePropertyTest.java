@@ -5,6 +5,7 @@ import com.family.accounting.dto.CategoryVO;
 import com.family.accounting.entity.Category;
 import com.family.accounting.entity.FamilyMember;
 import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMapper;
 import com.family.accounting.mapper.FamilyMemberMapper;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.*;
@@ -50,6 +51,7 @@ class CategoryServicePropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -118,6 +120,7 @@ class CategoryServicePropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -176,6 +179,7 @@ class CategoryServicePropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -211,7 +215,6 @@ class CategoryServicePropertyTest {
         allCategories.add(childCategory2);
 
         when(categoryMapper.findByFamilyIdAndType(familyId, categoryType)).thenReturn(allCategories);
-        when(categoryMapper.countTransactionsByCategoryId(any())).thenReturn(0);
 
         // When: getting category tree
         List<CategoryVO> tree = categoryService.getCategoryTree(userId, categoryType);
@@ -277,6 +280,7 @@ class CategoryDeletionPropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -293,7 +297,7 @@ class CategoryDeletionPropertyTest {
         when(categoryMapper.findById(categoryId)).thenReturn(category);
 
         // Setup: category has transactions
-        when(categoryMapper.countTransactionsByCategoryId(categoryId)).thenReturn(transactionCount);
+        category.setTransactionCount(transactionCount);
 
         // When/Then: attempting to delete should throw exception
         com.family.accounting.exception.BusinessException exception =
@@ -327,6 +331,7 @@ class CategoryDeletionPropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -343,7 +348,7 @@ class CategoryDeletionPropertyTest {
         when(categoryMapper.findById(categoryId)).thenReturn(category);
 
         // Setup: category has NO transactions
-        when(categoryMapper.countTransactionsByCategoryId(categoryId)).thenReturn(0);
+        category.setTransactionCount(0);
 
         // Setup: category has NO children
         when(categoryMapper.findByParentId(categoryId)).thenReturn(new ArrayList<>());
@@ -375,6 +380,7 @@ class CategoryDeletionPropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -391,7 +397,7 @@ class CategoryDeletionPropertyTest {
         when(categoryMapper.findById(categoryId)).thenReturn(category);
 
         // Setup: category has NO transactions
-        when(categoryMapper.countTransactionsByCategoryId(categoryId)).thenReturn(0);
+        category.setTransactionCount(0);
 
         // Setup: category has children
         List<Category> children = new ArrayList<>();
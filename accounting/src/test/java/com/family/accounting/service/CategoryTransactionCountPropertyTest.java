@@ -0,0 +1,142 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.CategoryVO;
+import com.family.accounting.entity.Category;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分类关联交易数量属性测试
+ * <p>
+ * Feature: category-transaction-count, Property: 分类树和列表的交易数量直接读取分类上维护的计数，withCounts=false 时不返回
+ */
+class CategoryTransactionCountPropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+
+    /**
+     * For any set of categories, the tree and the flat list report each category's maintained
+     * transaction_count (0 when unset) without running any count query.
+     */
+    @Property(tries = 50)
+    void countsShouldComeFromCategoryRows(@ForAll @IntRange(min = 1, max = 60) int categoryCount,
+                                          @ForAll("counts") List<Integer> counts,
+                                          @ForAll boolean tree) {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        CategoryService service = createService(categoryMapper);
+
+        List<Category> categories = categories(categoryCount);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < categoryCount && i < counts.size(); i++) {
+            categories.get(i).setTransactionCount(counts.get(i));
+            expected.put(categories.get(i).getId(), counts.get(i));
+        }
+        when(categoryMapper.findByFamilyIdAndType(FAMILY_ID, Category.TYPE_EXPENSE)).thenReturn(categories);
+
+        List<CategoryVO> result = tree
+                ? flatten(service.getCategoryTree(USER_ID, Category.TYPE_EXPENSE))
+                : service.getCategoryList(USER_ID, Category.TYPE_EXPENSE);
+
+        assertEquals(categoryCount, result.size());
+        for (CategoryVO vo : result) {
+            assertEquals(expected.getOrDefault(vo.getId(), 0), vo.getTransactionCount());
+        }
+        verify(categoryMapper).findByFamilyIdAndType(FAMILY_ID, Category.TYPE_EXPENSE);
+        verifyNoMoreInteractions(categoryMapper);
+    }
+
+    /**
+     * With withCounts=false transactionCount is left empty.
+     */
+    @Property(tries = 20)
+    void withoutCountsShouldSkipCounting(@ForAll @IntRange(min = 1, max = 60) int categoryCount,
+                                         @ForAll boolean tree) {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        CategoryService service = createService(categoryMapper);
+        when(categoryMapper.findByFamilyId(FAMILY_ID)).thenReturn(categories(categoryCount));
+
+        List<CategoryVO> result = tree
+                ? flatten(service.getCategoryTree(USER_ID, null, false))
+                : service.getCategoryList(USER_ID, null, false);
+
+        assertEquals(categoryCount, result.size());
+        for (CategoryVO vo : result) {
+            assertNull(vo.getTransactionCount());
+        }
+        verify(categoryMapper).findByFamilyId(FAMILY_ID);
+        verifyNoMoreInteractions(categoryMapper);
+    }
+
+    @Provide
+    Arbitrary<List<Integer>> counts() {
+        return Arbitraries.integers().between(0, 500).list().ofMaxSize(60);
+    }
+
+    /**
+     * 生成分类：前三分之一为根分类，其余挂在根分类下
+     */
+    private List<Category> categories(int count) {
+        int roots = Math.max(1, count / 3);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Category category = new Category();
+            category.setId((long) i);
+            category.setFamilyId(FAMILY_ID);
+            category.setParentId(i <= roots ? null : (long) (i % roots + 1));
+            category.setName("分类" + i);
+            category.setType(Category.TYPE_EXPENSE);
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    private List<CategoryVO> flatten(List<CategoryVO> tree) {
+        List<CategoryVO> result = new ArrayList<>();
+        for (CategoryVO vo : tree) {
+            result.add(vo);
+            result.addAll(flatten(vo.getChildren()));
+        }
+        return result;
+    }
+
+    private CategoryService createService(CategoryMapper categoryMapper) {
+        FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+        FamilyMember member = new FamilyMember();
+        member.setFamilyId(FAMILY_ID);
+        member.setUserId(USER_ID);
+        when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+        CategoryService service = new CategoryService();
+        setField(service, "categoryMapper", categoryMapper);
+        setField(service, "familyMemberMapper", familyMemberMapper);
+        setField(service, "familyMapper", Mockito.mock(FamilyMapper.class));
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
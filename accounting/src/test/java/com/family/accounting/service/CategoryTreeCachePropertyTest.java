@@ -0,0 +1,142 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.CategoryVO;
+import com.family.accounting.entity.Category;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分类树缓存属性测试
+ * <p>
+ * Feature: category-tree-cache, Property: 分类版本号不变时复用已序列化的分类树且不查询分类，版本号变化后重建并更换ETag
+ */
+class CategoryTreeCachePropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    /**
+     * For any number of reads at the same category version, the categories are queried once
+     * and every read returns the same snapshot; the body equals the freshly built tree.
+     */
+    @Property(tries = 30)
+    void sameVersionShouldReuseSnapshot(@ForAll @IntRange(min = 1, max = 40) int categoryCount,
+                                        @ForAll @IntRange(min = 1, max = 10) int reads,
+                                        @ForAll @LongRange(min = 0, max = 1000) long version) throws Exception {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        FamilyMapper familyMapper = Mockito.mock(FamilyMapper.class);
+        CategoryService service = createService(categoryMapper, familyMapper);
+        when(categoryMapper.findByFamilyIdAndType(FAMILY_ID, Category.TYPE_EXPENSE))
+                .thenReturn(categories(categoryCount));
+        when(familyMapper.findCategoryVersion(FAMILY_ID)).thenReturn(version);
+
+        CategoryTreeSnapshot first = service.getCategoryTreeSnapshot(USER_ID, Category.TYPE_EXPENSE);
+        for (int i = 1; i < reads; i++) {
+            assertSame(first, service.getCategoryTreeSnapshot(USER_ID, Category.TYPE_EXPENSE));
+        }
+        verify(categoryMapper, times(1)).findByFamilyIdAndType(FAMILY_ID, Category.TYPE_EXPENSE);
+
+        JsonNode body = objectMapper.readTree(first.getBody());
+        List<CategoryVO> expected = service.getCategoryTree(USER_ID, Category.TYPE_EXPENSE, false);
+        assertEquals(200, body.get("code").asInt());
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(expected)), body.get("data"));
+    }
+
+    /**
+     * Bumping the category version rebuilds the snapshot with the new categories and a new
+     * ETag; the tree of one type never answers a request for another type.
+     */
+    @Property(tries = 30)
+    void versionChangeShouldRebuildSnapshot(@ForAll @IntRange(min = 1, max = 40) int before,
+                                            @ForAll @IntRange(min = 1, max = 40) int after,
+                                            @ForAll @LongRange(min = 0, max = 1000) long version) throws Exception {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        FamilyMapper familyMapper = Mockito.mock(FamilyMapper.class);
+        CategoryService service = createService(categoryMapper, familyMapper);
+        when(familyMapper.findCategoryVersion(FAMILY_ID)).thenReturn(version, version + 1);
+        when(categoryMapper.findByFamilyIdAndType(FAMILY_ID, Category.TYPE_EXPENSE))
+                .thenReturn(categories(before)).thenReturn(categories(after));
+
+        CategoryTreeSnapshot old = service.getCategoryTreeSnapshot(USER_ID, Category.TYPE_EXPENSE);
+        CategoryTreeSnapshot fresh = service.getCategoryTreeSnapshot(USER_ID, Category.TYPE_EXPENSE);
+
+        assertNotEquals(old.getEtag(), fresh.getEtag());
+        assertEquals(version + 1, fresh.getCategoryVersion());
+        assertEquals(countNodes(objectMapper.readTree(fresh.getBody()).get("data")), after);
+
+        when(categoryMapper.findByFamilyId(FAMILY_ID)).thenReturn(categories(before + after));
+        CategoryTreeSnapshot all = service.getCategoryTreeSnapshot(USER_ID, null);
+        assertNotEquals(fresh.getEtag(), all.getEtag());
+        assertEquals(countNodes(objectMapper.readTree(all.getBody()).get("data")), before + after);
+    }
+
+    private int countNodes(JsonNode tree) {
+        int count = 0;
+        for (JsonNode node : tree) {
+            count += 1 + countNodes(node.get("children"));
+        }
+        return count;
+    }
+
+    /**
+     * 生成分类：前三分之一为根分类，其余挂在根分类下
+     */
+    private List<Category> categories(int count) {
+        int roots = Math.max(1, count / 3);
+        List<Category> categories = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Category category = new Category();
+            category.setId((long) i);
+            category.setFamilyId(FAMILY_ID);
+            category.setParentId(i <= roots ? null : (long) (i % roots + 1));
+            category.setName("分类" + i);
+            category.setType(Category.TYPE_EXPENSE);
+            category.setTransactionCount(i);
+            categories.add(category);
+        }
+        return categories;
+    }
+
+    private CategoryService createService(CategoryMapper categoryMapper, FamilyMapper familyMapper) {
+        FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+        FamilyMember member = new FamilyMember();
+        member.setFamilyId(FAMILY_ID);
+        member.setUserId(USER_ID);
+        when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+        CategoryService service = new CategoryService();
+        setField(service, "categoryMapper", categoryMapper);
+        setField(service, "familyMemberMapper", familyMemberMapper);
+        setField(service, "familyMapper", familyMapper);
+        setField(service, "objectMapper", objectMapper);
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -131,6 +131,7 @@ class ChineseCharacterPropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -148,9 +149,6 @@ class ChineseCharacterPropertyTest {
             return 1;
         }).when(categoryMapper).insert(any(Category.class));
 
-        // Setup: count transactions returns 0
-        when(categoryMapper.countTransactionsByCategoryId(any())).thenReturn(0);
-
         // When: creating a category with Chinese name
         CategoryDTO dto = new CategoryDTO();
         dto.setName(categoryName);
@@ -275,6 +273,7 @@ class ChineseCharacterPropertyTest {
         CategoryService categoryService = new CategoryService();
         setField(categoryService, "categoryMapper", categoryMapper);
         setField(categoryService, "familyMemberMapper", familyMemberMapper);
+        setField(categoryService, "familyMapper", Mockito.mock(FamilyMapper.class));
 
         // Setup: user belongs to a family
         FamilyMember member = new FamilyMember();
@@ -292,9 +291,6 @@ class ChineseCharacterPropertyTest {
             return 1;
         }).when(categoryMapper).insert(any(Category.class));
 
-        // Setup: count transactions returns 0
-        when(categoryMapper.countTransactionsByCategoryId(any())).thenReturn(0);
-
         // When: creating a category with mixed Chinese text
         CategoryDTO dto = new CategoryDTO();
         dto.setName(text);
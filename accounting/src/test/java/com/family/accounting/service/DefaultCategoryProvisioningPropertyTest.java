@@ -0,0 +1,161 @@
+package com.family.accounting.service;
+
+import com.family.accounting.config.DefaultCategoryConfig;
+import com.family.accounting.config.DefaultCategoryConfig.CategoryTemplate;
+import com.family.accounting.entity.Category;
+import com.family.accounting.mapper.CategoryMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 默认分类批量创建属性测试
+ * <p>
+ * Feature: default-category-provisioning, Property: 按模板快照逐层批量插入，每层一条语句，创建的分类树与模板树一致
+ */
+class DefaultCategoryProvisioningPropertyTest {
+
+    private static final long FAMILY_ID = 10L;
+
+    /**
+     * For any template tree, provisioning issues one batch insert per level and never a
+     * single-row insert, and the created categories reproduce the template tree exactly
+     * (names, icons, sort orders, types and parent links).
+     */
+    @Property(tries = 50)
+    void provisioningShouldReproduceTemplateLevelByLevel(@ForAll("templates") List<CategoryTemplate> expenses,
+                                                         @ForAll("templates") List<CategoryTemplate> incomes) {
+        Assume.that(!expenses.isEmpty() || !incomes.isEmpty());
+        DefaultCategoryConfig.TemplateSnapshot snapshot = DefaultCategoryConfig.TemplateSnapshot.of(7, expenses, incomes);
+
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        List<Category> inserted = recordBatchInserts(categoryMapper);
+        createService(categoryMapper).createDefaultCategories(FAMILY_ID, snapshot);
+
+        verify(categoryMapper, times(depth(expenses, incomes))).batchInsert(anyList());
+        verify(categoryMapper, never()).insert(any(Category.class));
+
+        Map<Long, List<Category>> children = new HashMap<>();
+        for (Category category : inserted) {
+            assertEquals(FAMILY_ID, category.getFamilyId());
+            children.computeIfAbsent(category.getParentId(), k -> new ArrayList<>()).add(category);
+        }
+        List<Category> roots = children.getOrDefault(null, new ArrayList<>());
+        assertEquals(expenses.size() + incomes.size(), roots.size());
+        assertTree(expenses, roots.subList(0, expenses.size()), Category.TYPE_EXPENSE, children);
+        assertTree(incomes, roots.subList(expenses.size(), roots.size()), Category.TYPE_INCOME, children);
+    }
+
+    /**
+     * The built-in template creates every default category in two statements.
+     */
+    @Example
+    void defaultTemplateShouldNeedTwoStatements() {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        List<Category> inserted = recordBatchInserts(categoryMapper);
+
+        createService(categoryMapper).createDefaultCategories(FAMILY_ID, DefaultCategoryConfig.DEFAULT_TEMPLATE);
+
+        verify(categoryMapper, times(2)).batchInsert(anyList());
+        assertEquals(count(DefaultCategoryConfig.DEFAULT_EXPENSE_CATEGORIES)
+                + count(DefaultCategoryConfig.DEFAULT_INCOME_CATEGORIES), inserted.size());
+        assertEquals(DefaultCategoryConfig.TEMPLATE_VERSION, DefaultCategoryConfig.DEFAULT_TEMPLATE.getVersion());
+    }
+
+    @Provide
+    Arbitrary<List<CategoryTemplate>> templates() {
+        return templates(3);
+    }
+
+    private Arbitrary<List<CategoryTemplate>> templates(int depth) {
+        Arbitrary<List<CategoryTemplate>> children = depth > 1
+                ? templates(depth - 1)
+                : Arbitraries.just(new ArrayList<>());
+        return Combinators.combine(
+                Arbitraries.strings().withCharRange('a', 'z').ofMinLength(1).ofMaxLength(6),
+                Arbitraries.integers().between(1, 99),
+                children
+        ).as((name, sortOrder, kids) -> new CategoryTemplate(name, "icon-" + name, sortOrder, kids))
+                .list().ofMaxSize(4);
+    }
+
+    private void assertTree(List<CategoryTemplate> templates, List<Category> categories, int type,
+                            Map<Long, List<Category>> children) {
+        assertEquals(templates.size(), categories.size());
+        for (int i = 0; i < templates.size(); i++) {
+            CategoryTemplate template = templates.get(i);
+            Category category = categories.get(i);
+            assertEquals(template.getName(), category.getName());
+            assertEquals(template.getIcon(), category.getIcon());
+            assertEquals(template.getSortOrder(), category.getSortOrder().intValue());
+            assertEquals(type, category.getType().intValue());
+            List<CategoryTemplate> templateChildren = template.hasChildren() ? template.getChildren() : new ArrayList<>();
+            assertTree(templateChildren, children.getOrDefault(category.getId(), new ArrayList<>()), type, children);
+        }
+    }
+
+    private int depth(List<CategoryTemplate> expenses, List<CategoryTemplate> incomes) {
+        return Math.max(depth(expenses), depth(incomes));
+    }
+
+    private int depth(List<CategoryTemplate> templates) {
+        int depth = 0;
+        for (CategoryTemplate template : templates) {
+            depth = Math.max(depth, 1 + (template.hasChildren() ? depth(template.getChildren()) : 0));
+        }
+        return depth;
+    }
+
+    private int count(List<CategoryTemplate> templates) {
+        int count = 0;
+        for (CategoryTemplate template : templates) {
+            count += 1 + (template.hasChildren() ? count(template.getChildren()) : 0);
+        }
+        return count;
+    }
+
+    /**
+     * 模拟批量插入按顺序回填ID，并记录插入的分类
+     */
+    private List<Category> recordBatchInserts(CategoryMapper categoryMapper) {
+        List<Category> inserted = new ArrayList<>();
+        AtomicLong idCounter = new AtomicLong(1);
+        doAnswer(invocation -> {
+            List<Category> categories = invocation.getArgument(0);
+            for (Category category : categories) {
+                category.setId(idCounter.getAndIncrement());
+                inserted.add(category);
+            }
+            return categories.size();
+        }).when(categoryMapper).batchInsert(anyList());
+        return inserted;
+    }
+
+    private FamilyService createService(CategoryMapper categoryMapper) {
+        FamilyService service = new FamilyService();
+        setField(service, "categoryMapper", categoryMapper);
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.InvitationVO;
+import com.family.accounting.dto.MemberVO;
+import com.family.accounting.entity.Family;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.entity.Invitation;
+import com.family.accounting.entity.User;
+import com.family.accounting.mapper.FamilyMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.InvitationMapper;
+import com.family.accounting.mapper.UserMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 家庭成员与邀请列表批量查询属性测试
+ * <p>
+ * Feature: family-enrichment, Property: 成员与邀请列表的查询次数与列表长度无关，批量查询的用户和家庭信息正确填充到每一项
+ */
+class FamilyEnrichmentPropertyTest {
+
+    private static final long ADMIN_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+
+    /**
+     * For any number of members, the member list is built with one batched user lookup and
+     * every member carries its own user's phone and nickname.
+     */
+    @Property(tries = 30)
+    void membersShouldUseOneUserLookup(@ForAll @IntRange(min = 1, max = 60) int memberCount) {
+        Fixture fixture = new Fixture();
+        List<FamilyMember> members = new ArrayList<>();
+        for (long userId = 1; userId <= memberCount; userId++) {
+            FamilyMember member = new FamilyMember();
+            member.setId(userId + 100);
+            member.setFamilyId(FAMILY_ID);
+            member.setUserId(userId);
+            members.add(member);
+        }
+        when(fixture.familyMemberMapper.findByUserId(ADMIN_ID)).thenReturn(members.get(0));
+        when(fixture.familyMemberMapper.findByFamilyId(FAMILY_ID)).thenReturn(members);
+
+        List<MemberVO> result = fixture.service.getMembers(ADMIN_ID);
+
+        assertEquals(memberCount, result.size());
+        for (MemberVO vo : result) {
+            assertEquals(phone(vo.getUserId()), vo.getPhone());
+            assertEquals("用户" + vo.getUserId(), vo.getUserNickname());
+            assertEquals(vo.getUserId() == ADMIN_ID, vo.getIsAdmin());
+        }
+        verify(fixture.userMapper, times(1)).findByIds(anyList());
+        verify(fixture.userMapper, never()).findById(anyLong());
+    }
+
+    /**
+     * For any number of pending invitations from any families, the list needs one family
+     * lookup and one user lookup, and each item names its own family, inviter and invitee.
+     */
+    @Property(tries = 30)
+    void pendingInvitationsShouldUseBatchedLookups(@ForAll @IntRange(min = 0, max = 40) int invitationCount,
+                                                   @ForAll @IntRange(min = 1, max = 5) int familyCount) {
+        Fixture fixture = new Fixture();
+        long inviteeId = 1000L;
+        List<Invitation> invitations = invitations(invitationCount, familyCount, inviteeId);
+        when(fixture.invitationMapper.findPendingByInviteeId(inviteeId)).thenReturn(invitations);
+
+        List<InvitationVO> result = fixture.service.getPendingInvitations(inviteeId);
+
+        assertInvitations(invitations, result);
+        int lookups = invitationCount == 0 ? 0 : 1;
+        verify(fixture.familyMapper, times(lookups)).findByIds(anyList());
+        verify(fixture.userMapper, times(lookups)).findByIds(anyList());
+        verify(fixture.familyMapper, never()).findById(anyLong());
+        verify(fixture.userMapper, never()).findById(anyLong());
+    }
+
+    /**
+     * The admin's invitation list reuses the admin's family and needs one user lookup.
+     */
+    @Property(tries = 30)
+    void familyInvitationsShouldUseOneUserLookup(@ForAll @IntRange(min = 0, max = 40) int invitationCount) {
+        Fixture fixture = new Fixture();
+        when(fixture.familyMapper.findByAdminId(ADMIN_ID)).thenReturn(family(FAMILY_ID));
+        List<Invitation> invitations = invitations(invitationCount, 1, null);
+        when(fixture.invitationMapper.findByFamilyId(FAMILY_ID)).thenReturn(invitations);
+
+        List<InvitationVO> result = fixture.service.getFamilyInvitations(ADMIN_ID);
+
+        assertInvitations(invitations, result);
+        verify(fixture.userMapper, times(invitationCount == 0 ? 0 : 1)).findByIds(anyList());
+        verify(fixture.familyMapper, never()).findByIds(anyList());
+        verify(fixture.familyMapper, never()).findById(anyLong());
+        verify(fixture.userMapper, never()).findById(anyLong());
+    }
+
+    private void assertInvitations(List<Invitation> invitations, List<InvitationVO> result) {
+        assertEquals(invitations.size(), result.size());
+        for (int i = 0; i < invitations.size(); i++) {
+            Invitation invitation = invitations.get(i);
+            InvitationVO vo = result.get(i);
+            assertEquals("家庭" + invitation.getFamilyId(), vo.getFamilyName());
+            assertEquals("用户" + invitation.getInviterId(), vo.getInviterNickname());
+            assertEquals("用户" + invitation.getInviteeId(), vo.getInviteeNickname());
+            assertEquals(phone(invitation.getInviteeId()), vo.getInviteePhone());
+        }
+    }
+
+    /**
+     * 生成邀请：家庭ID从 FAMILY_ID 起轮换，被邀请人为空时各不相同
+     */
+    private List<Invitation> invitations(int count, int familyCount, Long inviteeId) {
+        List<Invitation> invitations = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Invitation invitation = new Invitation();
+            invitation.setId((long) i + 1);
+            invitation.setFamilyId(FAMILY_ID + i % familyCount);
+            invitation.setInviterId(ADMIN_ID + i % familyCount);
+            invitation.setInviteeId(inviteeId != null ? inviteeId : 2000L + i);
+            invitation.setStatus(Invitation.STATUS_PENDING);
+            invitations.add(invitation);
+        }
+        return invitations;
+    }
+
+    private static String phone(long userId) {
+        return String.format("138%08d", userId);
+    }
+
+    private static Family family(long id) {
+        Family family = new Family();
+        family.setId(id);
+        family.setName("家庭" + id);
+        family.setAdminId(ADMIN_ID);
+        return family;
+    }
+
+    /**
+     * 批量查询按请求的ID返回用户和家庭
+     */
+    private static class Fixture {
+        final FamilyMapper familyMapper = Mockito.mock(FamilyMapper.class);
+        final FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+        final UserMapper userMapper = Mockito.mock(UserMapper.class);
+        final InvitationMapper invitationMapper = Mockito.mock(InvitationMapper.class);
+        final FamilyService service = new FamilyService();
+
+        Fixture() {
+            when(familyMapper.findById(FAMILY_ID)).thenReturn(family(FAMILY_ID));
+            when(userMapper.findByIds(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0)
+                    .stream()
+                    .map(id -> {
+                        User user = new User();
+                        user.setId(id);
+                        user.setPhone(phone(id));
+                        user.setNickname("用户" + id);
+                        return user;
+                    })
+                    .collect(Collectors.toList()));
+            when(familyMapper.findByIds(anyList())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0)
+                    .stream()
+                    .map(FamilyEnrichmentPropertyTest::family)
+                    .collect(Collectors.toList()));
+
+            setField(service, "familyMapper", familyMapper);
+            setField(service, "familyMemberMapper", familyMemberMapper);
+            setField(service, "userMapper", userMapper);
+            setField(service, "invitationMapper", invitationMapper);
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private static void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
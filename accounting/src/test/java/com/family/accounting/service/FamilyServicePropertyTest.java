@@ -83,10 +83,10 @@ class FamilyServicePropertyTest {
         }).when(familyMemberMapper).insert(any(FamilyMember.class));
 
         doAnswer(invocation -> {
-            Category category = invocation.getArgument(0);
-            category.setId(System.nanoTime());
-            return 1;
-        }).when(categoryMapper).insert(any(Category.class));
+            List<Category> categories = invocation.getArgument(0);
+            categories.forEach(category -> category.setId(System.nanoTime()));
+            return categories.size();
+        }).when(categoryMapper).batchInsert(anyList());
 
         doAnswer(invocation -> {
             AccountBook book = invocation.getArgument(0);
@@ -170,11 +170,13 @@ class FamilyServicePropertyTest {
 
         List<Category> insertedCategories = new ArrayList<>();
         doAnswer(invocation -> {
-            Category category = invocation.getArgument(0);
-            category.setId(idCounter.getAndIncrement());
-            insertedCategories.add(category);
-            return 1;
-        }).when(categoryMapper).insert(any(Category.class));
+            List<Category> categories = invocation.getArgument(0);
+            for (Category category : categories) {
+                category.setId(idCounter.getAndIncrement());
+                insertedCategories.add(category);
+            }
+            return categories.size();
+        }).when(categoryMapper).batchInsert(anyList());
 
         List<AccountBook> insertedBooks = new ArrayList<>();
         doAnswer(invocation -> {
@@ -0,0 +1,273 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.FilterConditionVO;
+import com.family.accounting.dto.PageVO;
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.dto.TransactionVO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.entity.SavedFilter;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.FamilyMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.SavedFilterMapper;
+import com.family.accounting.security.JwtUserDetails;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 筛选条件编译与执行结果缓存属性测试
+ * <p>
+ * Feature: saved-filter-cache, Property: 筛选条件JSON只解析一次，执行结果按账本数据版本和分类版本缓存，命中时返回互不影响的副本，执行前经过搜索代价评估
+ */
+class FilterServicePropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long FILTER_ID = 5L;
+    private static final long BOOK_ID = 100L;
+
+    /**
+     * For any saved condition, applying it repeatedly returns the same condition while the
+     * JSON is parsed only once; changing the stored JSON compiles it again.
+     */
+    @Property(tries = 50)
+    void compiledFilterShouldBeParsedOnce(@ForAll("conditions") FilterConditionVO condition,
+                                          @ForAll @IntRange(min = 1, max = 5) int applyCount) throws Exception {
+        Fixture fixture = new Fixture(condition);
+
+        for (int i = 0; i < applyCount; i++) {
+            FilterConditionVO applied = fixture.run(() -> fixture.service.applyFilter(FILTER_ID));
+            assertConditionEquals(condition, applied);
+        }
+        verify(fixture.objectMapper, times(1)).readValue(anyString(), eq(FilterConditionVO.class));
+
+        FilterConditionVO changed = new FilterConditionVO();
+        changed.setType(condition.getType() != null && condition.getType() == 1 ? 2 : 1);
+        fixture.savedFilter.setFilterJson(fixture.objectMapper.writeValueAsString(changed));
+        assertConditionEquals(changed, fixture.run(() -> fixture.service.applyFilter(FILTER_ID)));
+        verify(fixture.objectMapper, times(2)).readValue(anyString(), eq(FilterConditionVO.class));
+    }
+
+    /**
+     * For any number of repeated executions with unchanged data, the query runs once and every
+     * call gets its own copy: changing a returned page or its items never leaks into later hits.
+     */
+    @Property(tries = 50)
+    void cachedResultShouldBeReturnedAsCopy(@ForAll("conditions") FilterConditionVO condition,
+                                            @ForAll @IntRange(min = 2, max = 5) int executeCount,
+                                            @ForAll @IntRange(min = 0, max = 10) int rows) {
+        Fixture fixture = new Fixture(condition);
+        fixture.rows = rows;
+
+        PageVO<TransactionVO> first = fixture.run(() -> fixture.service.executeFilter(FILTER_ID, 1, 20));
+        for (int i = 1; i < executeCount; i++) {
+            first.setTotal(-1L);
+            first.getList().forEach(vo -> vo.setNote("changed"));
+            first.getList().clear();
+
+            PageVO<TransactionVO> next = fixture.run(() -> fixture.service.executeFilter(FILTER_ID, 1, 20));
+            assertNotSame(first, next);
+            assertEquals((long) rows, next.getTotal().longValue());
+            assertEquals(rows, next.getList().size());
+            next.getList().forEach(vo -> assertEquals("交易" + vo.getId(), vo.getNote()));
+            first = next;
+        }
+        verify(fixture.searchService, times(1)).queryPage(any(SearchRequestDTO.class), any());
+    }
+
+    /**
+     * Bumping the account book's data version or the family's category version invalidates the
+     * cached result; a category version change also expands the categories again.
+     */
+    @Property(tries = 50)
+    void versionChangeShouldInvalidateResult(@ForAll("conditions") FilterConditionVO condition,
+                                             @ForAll boolean bumpDataVersion) {
+        Fixture fixture = new Fixture(condition);
+        fixture.run(() -> fixture.service.executeFilter(FILTER_ID, 1, 20));
+        fixture.run(() -> fixture.service.executeFilter(FILTER_ID, 1, 20));
+        verify(fixture.searchService, times(1)).queryPage(any(SearchRequestDTO.class), any());
+        boolean hasCategories = condition.getCategoryIds() != null && !condition.getCategoryIds().isEmpty();
+        verify(fixture.searchService, times(hasCategories ? 1 : 0)).expandCategoryIds(anyList());
+
+        if (bumpDataVersion) {
+            fixture.accountBook.setDataVersion(fixture.accountBook.getDataVersion() + 1);
+        } else {
+            fixture.categoryVersion++;
+        }
+        fixture.run(() -> fixture.service.executeFilter(FILTER_ID, 1, 20));
+
+        // 未指定分类时缓存键中的分类版本号恒为null，分类变更不影响结果
+        boolean invalidated = bumpDataVersion || hasCategories;
+        verify(fixture.searchService, times(invalidated ? 2 : 1)).queryPage(any(SearchRequestDTO.class), any());
+        verify(fixture.searchService, times(hasCategories ? (bumpDataVersion ? 1 : 2) : 0))
+                .expandCategoryIds(anyList());
+    }
+
+    /**
+     * Saved filters go through the same cost guard as other searches: too many expanded
+     * categories or a page beyond the offset cap is rejected before any query runs.
+     */
+    @Property(tries = 30)
+    void expensiveFilterShouldBeRejected(@ForAll("conditions") FilterConditionVO condition,
+                                         @ForAll boolean tooManyCategories) {
+        int page = 1;
+        if (tooManyCategories) {
+            List<Long> categoryIds = new ArrayList<>();
+            for (long id = 1; id <= SearchCostGuard.MAX_CATEGORY_IDS + 1; id++) {
+                categoryIds.add(id);
+            }
+            condition.setCategoryIds(categoryIds);
+        } else {
+            page = SearchCostGuard.MAX_OFFSET / 20 + 2;
+        }
+        Fixture fixture = new Fixture(condition);
+        int requestedPage = page;
+
+        assertThrows(BusinessException.class,
+                () -> fixture.run(() -> fixture.service.executeFilter(FILTER_ID, requestedPage, 20)));
+        verify(fixture.searchService, never()).queryPage(any(SearchRequestDTO.class), any());
+    }
+
+    /**
+     * A costly saved filter (unbounded dates, many categories and members) is run downgraded:
+     * the page size is capped and facets stay off.
+     */
+    @Property(tries = 30)
+    void costlyFilterShouldBeDowngraded(@ForAll @IntRange(min = 21, max = 100) int size) {
+        FilterConditionVO condition = new FilterConditionVO();
+        List<Long> categoryIds = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            categoryIds.add(id);
+        }
+        List<Long> memberIds = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            memberIds.add(id);
+        }
+        condition.setCategoryIds(categoryIds);
+        condition.setMemberIds(memberIds);
+        Fixture fixture = new Fixture(condition);
+
+        fixture.run(() -> fixture.service.executeFilter(FILTER_ID, 1, size));
+
+        verify(fixture.searchService).queryPage(argThat(request ->
+                request.getSize() == SearchCostGuard.DOWNGRADED_PAGE_SIZE
+                        && !Boolean.TRUE.equals(request.getIncludeFacets())), any());
+    }
+
+    @Provide
+    Arbitrary<FilterConditionVO> conditions() {
+        Arbitrary<LocalDate> dates = Arbitraries.integers().between(0, 365)
+                .map(days -> LocalDate.of(2024, 1, 1).plusDays(days)).injectNull(0.3);
+        Arbitrary<BigDecimal> amounts = Arbitraries.bigDecimals().between(BigDecimal.ZERO, new BigDecimal("10000"))
+                .ofScale(2).injectNull(0.3);
+        Arbitrary<List<Long>> ids = Arbitraries.longs().between(1, 50).list().ofMaxSize(5).injectNull(0.3);
+        Arbitrary<Integer> types = Arbitraries.of(1, 2).injectNull(0.3);
+        return Combinators.combine(dates, amounts, ids, ids, types).as((date, amount, categoryIds, memberIds, type) -> {
+            FilterConditionVO condition = new FilterConditionVO();
+            condition.setStartDate(date);
+            condition.setMinAmount(amount);
+            condition.setCategoryIds(categoryIds);
+            condition.setMemberIds(memberIds);
+            condition.setType(type);
+            return condition;
+        });
+    }
+
+    private void assertConditionEquals(FilterConditionVO expected, FilterConditionVO actual) {
+        assertEquals(expected.getStartDate(), actual.getStartDate());
+        assertEquals(expected.getEndDate(), actual.getEndDate());
+        assertEquals(expected.getMinAmount(), actual.getMinAmount());
+        assertEquals(expected.getMaxAmount(), actual.getMaxAmount());
+        assertEquals(expected.getCategoryIds(), actual.getCategoryIds());
+        assertEquals(expected.getMemberIds(), actual.getMemberIds());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getAccountBookId(), actual.getAccountBookId());
+    }
+
+    /**
+     * 保存的筛选条件、账本版本号与分类版本号
+     */
+    private class Fixture {
+        final ObjectMapper objectMapper = spy(new ObjectMapper().registerModule(new JavaTimeModule()));
+        final SearchService searchService = Mockito.mock(SearchService.class);
+        final SavedFilter savedFilter = new SavedFilter();
+        final AccountBook accountBook = new AccountBook();
+        final FilterService service;
+        long categoryVersion = 1L;
+        int rows = 3;
+
+        Fixture(FilterConditionVO condition) {
+            try {
+                savedFilter.setFilterJson(objectMapper.writeValueAsString(condition));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            savedFilter.setId(FILTER_ID);
+            savedFilter.setUserId(USER_ID);
+            savedFilter.setFamilyId(FAMILY_ID);
+            savedFilter.setName("筛选");
+            accountBook.setId(BOOK_ID);
+            accountBook.setFamilyId(FAMILY_ID);
+            accountBook.setDataVersion(1L);
+
+            SavedFilterMapper savedFilterMapper = Mockito.mock(SavedFilterMapper.class);
+            when(savedFilterMapper.findById(FILTER_ID, USER_ID)).thenReturn(savedFilter);
+            FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+            FamilyMember member = new FamilyMember();
+            member.setUserId(USER_ID);
+            member.setFamilyId(FAMILY_ID);
+            when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+            FamilyMapper familyMapper = Mockito.mock(FamilyMapper.class);
+            when(familyMapper.findCategoryVersion(FAMILY_ID)).thenAnswer(invocation -> categoryVersion);
+            AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+            when(accountBookMapper.findDefaultByFamilyId(FAMILY_ID)).thenReturn(accountBook);
+
+            when(searchService.expandCategoryIds(anyList()))
+                    .thenAnswer(invocation -> new ArrayList<>(invocation.<List<Long>>getArgument(0)));
+            when(searchService.queryPage(any(SearchRequestDTO.class), any())).thenAnswer(invocation -> {
+                List<TransactionVO> list = new ArrayList<>();
+                for (long id = 1; id <= rows; id++) {
+                    TransactionVO vo = new TransactionVO();
+                    vo.setId(id);
+                    vo.setNote("交易" + id);
+                    list.add(vo);
+                }
+                return PageVO.of(list, 1, 20, rows);
+            });
+
+            service = new FilterService(savedFilterMapper, familyMemberMapper, familyMapper, accountBookMapper,
+                    searchService, new SearchCostGuard(60, 150), objectMapper);
+        }
+
+        /**
+         * 以登录用户身份执行
+         */
+        <T> T run(Supplier<T> action) {
+            JwtUserDetails user = new JwtUserDetails(USER_ID, "13800000000");
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            try {
+                return action.get();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.family.accounting.service;
+
+import com.family.accounting.config.DefaultCategoryConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jqwik.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图标目录服务属性测试
+ * <p>
+ * Feature: icon-catalog, Property: 预先序列化的图标目录与图标库一致，gzip版本解压后相同，ETag由内容决定且两种编码不同
+ */
+class IconCatalogServicePropertyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The serialized catalog lists every icon of the library under its category, and the gzip
+     * variant decompresses to the same bytes.
+     */
+    @Example
+    void catalogShouldMatchIconLibrary() throws IOException {
+        IconCatalogService service = new IconCatalogService(objectMapper);
+
+        JsonNode body = objectMapper.readTree(service.getBody(false));
+        assertEquals(200, body.get("code").asInt());
+        JsonNode data = body.get("data");
+        assertEquals(DefaultCategoryConfig.ICON_LIBRARY.size(), data.size());
+        int index = 0;
+        for (String category : DefaultCategoryConfig.ICON_LIBRARY.keySet()) {
+            JsonNode node = data.get(index++);
+            List<DefaultCategoryConfig.IconInfo> icons = DefaultCategoryConfig.ICON_LIBRARY.get(category);
+            assertEquals(category, node.get("category").asText());
+            assertEquals(icons.size(), node.get("icons").size());
+            for (int i = 0; i < icons.size(); i++) {
+                assertEquals(icons.get(i).getId(), node.get("icons").get(i).get("id").asText());
+            }
+        }
+
+        assertArrayEquals(service.getBody(false), gunzip(service.getBody(true)));
+        assertTrue(service.getBody(true).length < service.getBody(false).length);
+    }
+
+    /**
+     * ETags are content hashes: independent instances agree, the two encodings differ, and
+     * either encoding's ETag (weak or strong) counts as not modified.
+     */
+    @Property(tries = 20)
+    void etagShouldDependOnContentOnly(@ForAll boolean gzip, @ForAll boolean weak) {
+        IconCatalogService first = new IconCatalogService(objectMapper);
+        IconCatalogService second = new IconCatalogService(new ObjectMapper());
+
+        assertEquals(first.getEtag(gzip), second.getEtag(gzip));
+        assertNotEquals(first.getEtag(true), first.getEtag(false));
+
+        String sent = weak ? "W/" + first.getEtag(gzip) : first.getEtag(gzip);
+        assertTrue(second.isNotModified(sent));
+        assertFalse(second.isNotModified("\"icons-stale\""));
+        assertFalse(second.isNotModified(null));
+    }
+
+    private byte[] gunzip(byte[] data) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.family.accounting.service;
+
+import com.family.accounting.mapper.InvitationMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 邀请过期属性测试
+ * Feature: invitation-expiry, Property: 分批标记全部过期邀请，每批不超过批大小，标记数量计入指标
+ */
+class InvitationExpiryServicePropertyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 10, 5);
+
+    /**
+     * Property: 过期邀请全部被标记，批次数为 ⌊n/批大小⌋+1，指标按次记录标记数量
+     * For any number of expired pending invitations and batch size, the sweep updates them in
+     * batches bounded by the batch size until a short batch, and the summary records each run's total.
+     */
+    @Property(tries = 50)
+    void sweepShouldExpireAllInBoundedBatches(@ForAll @IntRange(min = 0, max = 5000) int expiredCount,
+                                              @ForAll @IntRange(min = 1, max = 500) int batchSize) {
+        InvitationMapper invitationMapper = Mockito.mock(InvitationMapper.class);
+        AtomicInteger remaining = new AtomicInteger(expiredCount);
+        when(invitationMapper.expireBefore(eq(NOW), anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(1);
+            int updated = Math.min(limit, remaining.get());
+            remaining.addAndGet(-updated);
+            return updated;
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InvitationExpiryService service = createService(invitationMapper, registry, batchSize);
+
+        long expired = service.expire(NOW);
+
+        assertThat(expired).isEqualTo(expiredCount);
+        assertThat(remaining.get()).isZero();
+        verify(invitationMapper, times(expiredCount / batchSize + 1)).expireBefore(NOW, batchSize);
+        DistributionSummary summary = registry.get("invitation.expired.rows").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo((double) expiredCount);
+
+        // 再次执行没有可标记的邀请，记录为单独一次
+        assertThat(service.expire(NOW)).isZero();
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.totalAmount()).isEqualTo((double) expiredCount);
+        assertThat(summary.max()).isEqualTo((double) expiredCount);
+    }
+
+    /**
+     * Property: 执行失败不向调度器抛出异常
+     */
+    @Example
+    void scheduledSweepShouldSwallowFailures() {
+        InvitationMapper invitationMapper = Mockito.mock(InvitationMapper.class);
+        when(invitationMapper.expireBefore(any(), anyInt())).thenThrow(new IllegalStateException("db down"));
+        InvitationExpiryService service = createService(invitationMapper, new SimpleMeterRegistry(), 100);
+
+        service.expireInvitations();
+
+        verify(invitationMapper).expireBefore(any(), eq(100));
+    }
+
+    private InvitationExpiryService createService(InvitationMapper invitationMapper, SimpleMeterRegistry registry,
+                                                  int batchSize) {
+        InvitationExpiryService service = new InvitationExpiryService();
+        setField(service, "invitationMapper", invitationMapper);
+        setField(service, "meterRegistry", registry);
+        setField(service, "batchSize", batchSize);
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package com.family.accounting.service;
 
+import com.family.accounting.entity.IpRequest;
 import com.family.accounting.mapper.IpRequestMapper;
 import com.family.accounting.mapper.LoginAttemptMapper;
+import com.family.accounting.security.LocalRateLimitStore;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.IntRange;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -22,25 +24,23 @@ class IpRateLimitPropertyTest {
 
     /**
      * Property 20: IP地址速率限制
-     * For any IP address making more than 100 requests per minute, the system should implement rate limiting.
+     * For any IP address making 100 or more requests within a minute, the system should implement rate limiting.
      * **Validates: Requirements 10.3**
      */
     @Property(tries = 10)
     void ipRateLimitShouldBlockExcessiveRequests(@ForAll("validIpAddresses") String ipAddress) {
-        // Given: mock mappers and SecurityService
-        LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
+        // Given: SecurityService with mock mappers
         IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
-        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
-
-        // Setup: simulate 100 or more requests from this IP in the last minute
-        when(mockIpRequestMapper.countRequestsByIp(eq(ipAddress), any(LocalDateTime.class)))
-                .thenReturn(100);
+        SecurityService securityService = createSecurityService(Mockito.mock(LoginAttemptMapper.class), mockIpRequestMapper);
 
-        // When: checking if IP is rate limited
-        boolean isLimited = securityService.isIpRateLimited(ipAddress);
+        // When: the IP makes 99 requests, all should pass
+        for (int i = 0; i < 99; i++) {
+            assertThat(securityService.tryAcquireIpRequest(ipAddress, "/api/transaction")).isTrue();
+        }
 
-        // Then: IP should be rate limited
-        assertThat(isLimited).isTrue();
+        // Then: the 100th request within the minute should be rejected and the IP reported as limited
+        assertThat(securityService.tryAcquireIpRequest(ipAddress, "/api/transaction")).isFalse();
+        assertThat(securityService.isIpRateLimited(ipAddress)).isTrue();
     }
 
     /**
@@ -49,20 +49,17 @@ class IpRateLimitPropertyTest {
     @Property(tries = 10)
     void lessThanHundredRequestsShouldNotBeLimited(@ForAll("validIpAddresses") String ipAddress,
                                                    @ForAll @IntRange(min = 0, max = 99) int requestCount) {
-        // Given: mock mappers and SecurityService
-        LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
-        IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
-        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
-
-        // Setup: simulate less than 100 requests from this IP
-        when(mockIpRequestMapper.countRequestsByIp(eq(ipAddress), any(LocalDateTime.class)))
-                .thenReturn(requestCount);
+        // Given: SecurityService with mock mappers
+        SecurityService securityService = createSecurityService(
+                Mockito.mock(LoginAttemptMapper.class), Mockito.mock(IpRequestMapper.class));
 
-        // When: checking if IP is rate limited
-        boolean isLimited = securityService.isIpRateLimited(ipAddress);
+        // When: the IP makes fewer than 100 requests
+        for (int i = 0; i < requestCount; i++) {
+            securityService.tryAcquireIpRequest(ipAddress, "/api/transaction");
+        }
 
         // Then: IP should NOT be rate limited
-        assertThat(isLimited).isFalse();
+        assertThat(securityService.isIpRateLimited(ipAddress)).isFalse();
     }
 
     /**
@@ -74,16 +71,17 @@ class IpRateLimitPropertyTest {
         // Skip if same IP
         Assume.that(!ip1.equals(ip2));
 
-        // Given: mock mappers and SecurityService
-        LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
-        IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
-        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
+        // Given: SecurityService with mock mappers
+        SecurityService securityService = createSecurityService(
+                Mockito.mock(LoginAttemptMapper.class), Mockito.mock(IpRequestMapper.class));
 
-        // Setup: IP1 has 100+ requests (should be limited), IP2 has 50 requests (should not be limited)
-        when(mockIpRequestMapper.countRequestsByIp(eq(ip1), any(LocalDateTime.class)))
-                .thenReturn(101);
-        when(mockIpRequestMapper.countRequestsByIp(eq(ip2), any(LocalDateTime.class)))
-                .thenReturn(50);
+        // Setup: IP1 makes 101 requests (should be limited), IP2 makes 50 requests (should not be limited)
+        for (int i = 0; i < 101; i++) {
+            securityService.tryAcquireIpRequest(ip1, "/api/family");
+        }
+        for (int i = 0; i < 50; i++) {
+            securityService.tryAcquireIpRequest(ip2, "/api/family");
+        }
 
         // When/Then: IP1 should be limited, IP2 should not
         assertThat(securityService.isIpRateLimited(ip1)).isTrue();
@@ -107,29 +105,65 @@ class IpRateLimitPropertyTest {
         // Then: mapper insert should be called with correct data
         verify(mockIpRequestMapper).insert(argThat(request ->
                 request.getIpAddress().equals(ipAddress) &&
-                request.getRequestPath().equals(requestPath)
+                request.getRequestPath().equals(requestPath) &&
+                request.getSampleWeight() == 1
         ));
     }
 
     /**
-     * Property: 恰好100次请求应该被限制
+     * Property: 限流检查不访问数据库，审计记录按采样率写入
      */
     @Property(tries = 10)
-    void exactlyHundredRequestsShouldBeLimited(@ForAll("validIpAddresses") String ipAddress) {
-        // Given: mock mappers and SecurityService
-        LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
+    void rateLimitCheckShouldOnlyWriteSampledAudits(@ForAll("validIpAddresses") String ipAddress,
+                                                    @ForAll("validRequestPaths") String requestPath,
+                                                    @ForAll @IntRange(min = 1, max = 50) int requestCount,
+                                                    @ForAll boolean auditAll) {
+        // Given: sample rate of either 100% or 0%
         IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
-        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
+        SecurityService securityService = createSecurityService(Mockito.mock(LoginAttemptMapper.class), mockIpRequestMapper);
+        setField(securityService, "auditSampleRate", auditAll ? 1.0 : 0.0);
+
+        // When: the IP makes requests
+        for (int i = 0; i < requestCount; i++) {
+            securityService.tryAcquireIpRequest(ipAddress, requestPath);
+        }
+
+        // Then: counting never queries the database, audit inserts follow the sample rate
+        verify(mockIpRequestMapper, never()).countRequestsByIp(any(), any(LocalDateTime.class));
+        verify(mockIpRequestMapper, times(auditAll ? requestCount : 0)).insert(any());
+    }
 
-        // Setup: simulate exactly 100 requests from this IP
-        when(mockIpRequestMapper.countRequestsByIp(eq(ipAddress), any(LocalDateTime.class)))
-                .thenReturn(100);
+    /**
+     * Property: 采样写入的审计记录携带采样率的倒数作为权重，小时汇总按权重求和还原请求数
+     */
+    @Property(tries = 20)
+    void sampledAuditShouldCarryInverseRateAsWeight(@ForAll("validIpAddresses") String ipAddress,
+                                                    @ForAll("sampleRates") double sampleRate,
+                                                    @ForAll @IntRange(min = 1, max = 300) int requestCount) {
+        // Given: a sample rate between 1% and 100%
+        IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
+        SecurityService securityService = createSecurityService(Mockito.mock(LoginAttemptMapper.class), mockIpRequestMapper);
+        setField(securityService, "auditSampleRate", sampleRate);
+
+        // When: the IP makes requests, including ones rejected by the rate limit
+        for (int i = 0; i < requestCount; i++) {
+            securityService.tryAcquireIpRequest(ipAddress, "/api/transaction");
+        }
 
-        // When: checking if IP is rate limited
-        boolean isLimited = securityService.isIpRateLimited(ipAddress);
+        // Then: every sampled record stands for 1/rate requests
+        ArgumentCaptor<IpRequest> captor = ArgumentCaptor.forClass(IpRequest.class);
+        verify(mockIpRequestMapper, atLeast(0)).insert(captor.capture());
+        int expectedWeight = (int) Math.round(1 / sampleRate);
+        assertThat(captor.getAllValues()).allSatisfy(request ->
+                assertThat(request.getSampleWeight()).isEqualTo(expectedWeight));
+        if (sampleRate == 1.0) {
+            assertThat(captor.getAllValues()).hasSize(requestCount);
+        }
+    }
 
-        // Then: IP should be rate limited (>= 100 triggers limit)
-        assertThat(isLimited).isTrue();
+    @Provide
+    Arbitrary<Double> sampleRates() {
+        return Arbitraries.of(1.0, 0.5, 0.25, 0.1, 0.01);
     }
 
     @Provide
@@ -168,6 +202,7 @@ class IpRateLimitPropertyTest {
         SecurityService service = new SecurityService();
         setField(service, "loginAttemptMapper", loginAttemptMapper);
         setField(service, "ipRequestMapper", ipRequestMapper);
+        setField(service, "ipRateLimitStore", new LocalRateLimitStore(100, 100_000));
         return service;
     }
 
@@ -3,6 +3,7 @@ package com.family.accounting.service;
 import com.family.accounting.entity.LoginAttempt;
 import com.family.accounting.mapper.IpRequestMapper;
 import com.family.accounting.mapper.LoginAttemptMapper;
+import com.family.accounting.security.LocalRateLimitStore;
 import net.jqwik.api.*;
 import org.mockito.Mockito;
 
@@ -193,6 +194,7 @@ class LoginAttemptRecordPropertyTest {
         SecurityService service = new SecurityService();
         setField(service, "loginAttemptMapper", loginAttemptMapper);
         setField(service, "ipRequestMapper", ipRequestMapper);
+        setField(service, "ipRateLimitStore", new LocalRateLimitStore(100, 100_000));
         return service;
     }
 
@@ -1,17 +1,23 @@
 package com.family.accounting.service;
 
+import com.family.accounting.entity.LoginAttempt;
 import com.family.accounting.exception.BusinessException;
 import com.family.accounting.mapper.IpRequestMapper;
 import com.family.accounting.mapper.LoginAttemptMapper;
+import com.family.accounting.security.LocalRateLimitStore;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.IntRange;
 import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -35,13 +41,9 @@ class LoginFailureLockoutPropertyTest {
         IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
         SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
 
-        // Setup: simulate 5 failed attempts already recorded
-        when(mockLoginAttemptMapper.countFailedAttempts(eq(phone), any(LocalDateTime.class)))
-                .thenReturn(5);
-        when(mockLoginAttemptMapper.getLastFailedAttemptTime(phone))
-                .thenReturn(LocalDateTime.now().minusMinutes(1)); // Last failure was 1 minute ago
-        when(mockIpRequestMapper.countRequestsByIp(eq(ipAddress), any(LocalDateTime.class)))
-                .thenReturn(0);
+        // Setup: simulate 5 failed attempts already recorded, the last one 1 minute ago
+        when(mockLoginAttemptMapper.findRecentFailedAttemptTimes(eq(phone), any(LocalDateTime.class), anyInt()))
+                .thenReturn(failuresEndingMinutesAgo(5, 1));
 
         // When: checking if account is locked
         boolean isLocked = securityService.isAccountLocked(phone);
@@ -68,10 +70,8 @@ class LoginFailureLockoutPropertyTest {
         SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
 
         // Setup: simulate less than 5 failed attempts
-        when(mockLoginAttemptMapper.countFailedAttempts(eq(phone), any(LocalDateTime.class)))
-                .thenReturn(failureCount);
-        when(mockIpRequestMapper.countRequestsByIp(eq(ipAddress), any(LocalDateTime.class)))
-                .thenReturn(0);
+        when(mockLoginAttemptMapper.findRecentFailedAttemptTimes(eq(phone), any(LocalDateTime.class), anyInt()))
+                .thenReturn(failuresEndingMinutesAgo(failureCount, 1));
 
         // When: checking if account is locked
         boolean isLocked = securityService.isAccountLocked(phone);
@@ -92,18 +92,15 @@ class LoginFailureLockoutPropertyTest {
         SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
 
         // Setup: simulate 5 failed attempts, but last failure was 31 minutes ago (past lockout period)
-        when(mockLoginAttemptMapper.countFailedAttempts(eq(phone), any(LocalDateTime.class)))
-                .thenReturn(5);
-        when(mockLoginAttemptMapper.getLastFailedAttemptTime(phone))
-                .thenReturn(LocalDateTime.now().minusMinutes(31)); // Last failure was 31 minutes ago
-        when(mockIpRequestMapper.countRequestsByIp(eq(ipAddress), any(LocalDateTime.class)))
-                .thenReturn(0);
+        when(mockLoginAttemptMapper.findRecentFailedAttemptTimes(eq(phone), any(LocalDateTime.class), anyInt()))
+                .thenReturn(failuresEndingMinutesAgo(5, 31));
 
         // When: checking if account is locked
         boolean isLocked = securityService.isAccountLocked(phone);
 
         // Then: account should NOT be locked (lockout period expired)
         assertThat(isLocked).isFalse();
+        assertThat(securityService.getRemainingLockoutMinutes(phone)).isZero();
     }
 
     /**
@@ -133,23 +130,156 @@ class LoginFailureLockoutPropertyTest {
      * Property: 恰好5次失败应该锁定账户
      */
     @Property(tries = 10)
-    void exactlyFiveFailuresShouldLockAccount(@ForAll("validPhoneNumbers") String phone) {
-        // Given: mock mappers and SecurityService
+    void exactlyFiveFailuresShouldLockAccount(@ForAll("validPhoneNumbers") String phone,
+                                              @ForAll("validIpAddresses") String ipAddress) {
+        // Given: SecurityService backed by a mapper that keeps inserted failures
+        LoginAttemptMapper loginAttemptMapper = failureStoringMapper(new ArrayList<>());
+        SecurityService securityService = createSecurityService(loginAttemptMapper, Mockito.mock(IpRequestMapper.class));
+
+        // When: recording 4 failed attempts the account stays unlocked, the 5th locks it
+        for (int i = 0; i < 4; i++) {
+            securityService.recordLoginAttempt(phone, ipAddress, false);
+        }
+        assertThat(securityService.isAccountLocked(phone)).isFalse();
+        securityService.recordLoginAttempt(phone, ipAddress, false);
+
+        // Then: account should be locked for the full lockout duration
+        assertThat(securityService.isAccountLocked(phone)).isTrue();
+        assertThat(securityService.getRemainingLockoutMinutes(phone)).isEqualTo(30);
+    }
+
+    /**
+     * Property: 多节点部署时，失败分散在不同节点上，合计达到5次后所有节点都应锁定账户
+     */
+    @Property(tries = 10)
+    void failuresAcrossNodesShouldLockAccount(@ForAll("validPhoneNumbers") String phone,
+                                              @ForAll("validIpAddresses") String ipAddress,
+                                              @ForAll @IntRange(min = 1, max = 4) int failuresOnFirstNode) {
+        // Given: two nodes sharing the same login attempt table
+        List<LocalDateTime> failures = new ArrayList<>();
+        SecurityService node1 = createSecurityService(failureStoringMapper(failures), Mockito.mock(IpRequestMapper.class));
+        SecurityService node2 = createSecurityService(failureStoringMapper(failures), Mockito.mock(IpRequestMapper.class));
+
+        // When: 5 failures are split between the nodes, each node having checked the account first
+        assertThat(node1.isAccountLocked(phone)).isFalse();
+        assertThat(node2.isAccountLocked(phone)).isFalse();
+        for (int i = 0; i < failuresOnFirstNode; i++) {
+            node1.recordLoginAttempt(phone, ipAddress, false);
+        }
+        for (int i = failuresOnFirstNode; i < 5; i++) {
+            node2.recordLoginAttempt(phone, ipAddress, false);
+        }
+
+        // Then: both nodes reject the next login
+        assertThat(node1.isAccountLocked(phone)).isTrue();
+        assertThat(node2.isAccountLocked(phone)).isTrue();
+    }
+
+    /**
+     * Property: 审计线程池丢弃任务时，失败登录记录仍然写入数据库
+     */
+    @Property(tries = 10)
+    void failedAttemptsShouldNotBeDroppedByAuditExecutor(@ForAll("validPhoneNumbers") String phone,
+                                                         @ForAll("validIpAddresses") String ipAddress,
+                                                         @ForAll @IntRange(min = 1, max = 10) int failureCount) {
+        // Given: an audit executor that discards every task, like a saturated DiscardPolicy pool
         LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
-        IpRequestMapper mockIpRequestMapper = Mockito.mock(IpRequestMapper.class);
-        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, mockIpRequestMapper);
+        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, Mockito.mock(IpRequestMapper.class));
+        Executor discarding = task -> { };
+        setField(securityService, "auditExecutor", discarding);
 
-        // Setup: simulate exactly 5 failed attempts within window
-        when(mockLoginAttemptMapper.countFailedAttempts(eq(phone), any(LocalDateTime.class)))
-                .thenReturn(5);
-        when(mockLoginAttemptMapper.getLastFailedAttemptTime(phone))
-                .thenReturn(LocalDateTime.now().minusMinutes(5)); // Last failure was 5 minutes ago
+        // When: recording failed attempts
+        for (int i = 0; i < failureCount; i++) {
+            securityService.recordLoginAttempt(phone, ipAddress, false);
+        }
 
-        // When: checking if account is locked
-        boolean isLocked = securityService.isAccountLocked(phone);
+        // Then: every failure reaches the mapper
+        verify(mockLoginAttemptMapper, times(failureCount)).insert(argThat(attempt ->
+                attempt.getPhone().equals(phone) && !attempt.getSuccess()));
+    }
 
-        // Then: account should be locked
-        assertThat(isLocked).isTrue();
+    /**
+     * Property: 剩余锁定时间按最后一次失败精确计算
+     */
+    @Property(tries = 10)
+    void remainingLockoutShouldBeExact(@ForAll("validPhoneNumbers") String phone,
+                                       @ForAll @IntRange(min = 1, max = 29) int minutesAgo) {
+        // Given: 5 failures, the last one minutesAgo minutes ago
+        LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
+        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, Mockito.mock(IpRequestMapper.class));
+        when(mockLoginAttemptMapper.findRecentFailedAttemptTimes(eq(phone), any(LocalDateTime.class), anyInt()))
+                .thenReturn(failuresEndingMinutesAgo(5, minutesAgo));
+
+        // When/Then: remaining time counts down from the last failure
+        assertThat(securityService.getRemainingLockoutMinutes(phone)).isEqualTo(30 - minutesAgo);
+    }
+
+    /**
+     * Property: 本节点已锁定的账户，后续登录检查不再查询数据库
+     */
+    @Property(tries = 10)
+    void lockedAccountChecksShouldNotQueryDatabaseRepeatedly(@ForAll("validPhoneNumbers") String phone,
+                                                             @ForAll("validIpAddresses") String ipAddress,
+                                                             @ForAll @IntRange(min = 1, max = 20) int checks) {
+        // Given: 5 failures already recorded, the last one 1 minute ago
+        LoginAttemptMapper mockLoginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
+        SecurityService securityService = createSecurityService(mockLoginAttemptMapper, Mockito.mock(IpRequestMapper.class));
+        when(mockLoginAttemptMapper.findRecentFailedAttemptTimes(eq(phone), any(LocalDateTime.class), anyInt()))
+                .thenReturn(failuresEndingMinutesAgo(5, 1));
+
+        // When: validating repeatedly
+        for (int i = 0; i < checks; i++) {
+            assertThatThrownBy(() -> securityService.validateLoginSecurity(phone, ipAddress))
+                    .isInstanceOf(BusinessException.class);
+            securityService.getRemainingLockoutMinutes(phone);
+        }
+
+        // Then: history is loaded once, range counts are never run
+        verify(mockLoginAttemptMapper, times(1)).findRecentFailedAttemptTimes(eq(phone), any(LocalDateTime.class), anyInt());
+        verify(mockLoginAttemptMapper, never()).countFailedAttempts(any(), any(LocalDateTime.class));
+        verify(mockLoginAttemptMapper, never()).getLastFailedAttemptTime(any());
+    }
+
+    /**
+     * 创建一个把失败记录写入共享列表的mapper，模拟多个节点共用的登录尝试表
+     */
+    private LoginAttemptMapper failureStoringMapper(List<LocalDateTime> failures) {
+        LoginAttemptMapper mapper = Mockito.mock(LoginAttemptMapper.class);
+        doAnswer(invocation -> {
+            LoginAttempt attempt = invocation.getArgument(0);
+            if (!attempt.getSuccess()) {
+                synchronized (failures) {
+                    failures.add(0, LocalDateTime.now());
+                }
+            }
+            return null;
+        }).when(mapper).insert(any(LoginAttempt.class));
+        when(mapper.findRecentFailedAttemptTimes(any(), any(LocalDateTime.class), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime since = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            List<LocalDateTime> recent = new ArrayList<>();
+            synchronized (failures) {
+                for (LocalDateTime time : failures) {
+                    if (recent.size() < limit && time.isAfter(since)) {
+                        recent.add(time);
+                    }
+                }
+            }
+            return recent;
+        });
+        return mapper;
+    }
+
+    /**
+     * 生成count次间隔1分钟的失败时间，最后一次在lastMinutesAgo分钟前（按时间倒序，与查询结果一致）
+     */
+    private List<LocalDateTime> failuresEndingMinutesAgo(int count, int lastMinutesAgo) {
+        LocalDateTime now = LocalDateTime.now();
+        List<LocalDateTime> times = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            times.add(now.minusMinutes(lastMinutesAgo + i));
+        }
+        return times;
     }
 
     @Provide
@@ -184,6 +314,7 @@ class LoginFailureLockoutPropertyTest {
         SecurityService service = new SecurityService();
         setField(service, "loginAttemptMapper", loginAttemptMapper);
         setField(service, "ipRequestMapper", ipRequestMapper);
+        setField(service, "ipRateLimitStore", new LocalRateLimitStore(100, 100_000));
         return service;
     }
 
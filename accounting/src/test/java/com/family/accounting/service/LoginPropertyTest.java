@@ -49,6 +49,7 @@ class LoginPropertyTest {
         setField(userService, "jwtUtil", jwtUtil);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", mock(RefreshTokenService.class));
         setField(userService, "captchaService", mockCaptchaService);
 
         // Setup: user exists with encrypted password
@@ -111,6 +112,7 @@ class LoginPropertyTest {
         setField(userService, "jwtUtil", jwtUtil);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", mock(RefreshTokenService.class));
         setField(userService, "captchaService", mockCaptchaService);
 
         // Setup: user exists with encrypted correct password
@@ -153,6 +155,7 @@ class LoginPropertyTest {
         setField(userService, "jwtUtil", jwtUtil);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", mock(RefreshTokenService.class));
         setField(userService, "captchaService", mockCaptchaService);
 
         // Setup: user does not exist
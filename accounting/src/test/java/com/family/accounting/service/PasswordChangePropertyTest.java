@@ -50,6 +50,7 @@ class PasswordChangePropertyTest {
         setField(userService, "passwordEncoder", passwordEncoder);
         setField(userService, "jwtUtil", mockJwtUtil);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "captchaService", mockCaptchaService);
 
@@ -114,6 +115,7 @@ class PasswordChangePropertyTest {
         setField(userService, "passwordEncoder", passwordEncoder);
         setField(userService, "jwtUtil", mockJwtUtil);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "captchaService", mockCaptchaService);
 
@@ -162,6 +164,7 @@ class PasswordChangePropertyTest {
         setField(userService, "passwordEncoder", passwordEncoder);
         setField(userService, "jwtUtil", mockJwtUtil);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "captchaService", mockCaptchaService);
 
@@ -44,6 +44,7 @@ class PasswordChangeTokenInvalidationPropertyTest {
         JwtUtil mockJwtUtil = Mockito.mock(JwtUtil.class);
         SecurityService mockSecurityService = Mockito.mock(SecurityService.class);
         TokenBlacklistService mockTokenBlacklistService = Mockito.mock(TokenBlacklistService.class);
+        RefreshTokenService mockRefreshTokenService = Mockito.mock(RefreshTokenService.class);
 
         UserService userService = new UserService();
         setField(userService, "userMapper", mockMapper);
@@ -51,6 +52,7 @@ class PasswordChangeTokenInvalidationPropertyTest {
         setField(userService, "jwtUtil", mockJwtUtil);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", mockRefreshTokenService);
 
         // Setup: user exists with old password
         String encodedOldPassword = passwordEncoder.encode(oldPassword);
@@ -70,6 +72,9 @@ class PasswordChangeTokenInvalidationPropertyTest {
 
         // And: all user tokens should be invalidated
         verify(mockTokenBlacklistService).invalidateAllUserTokens(eq(userId), eq("密码修改"));
+
+        // And: refresh tokens should be revoked so no new access token can be obtained
+        verify(mockRefreshTokenService).revokeAllUserTokens(userId);
     }
 
     /**
@@ -99,6 +104,7 @@ class PasswordChangeTokenInvalidationPropertyTest {
         setField(userService, "jwtUtil", mockJwtUtil);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
 
         // Setup: user exists with old password
         String encodedOldPassword = passwordEncoder.encode(oldPassword);
@@ -156,6 +162,7 @@ class PasswordChangeTokenInvalidationPropertyTest {
         setField(userService, "jwtUtil", mockJwtUtil);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
 
         // Setup: user exists with actual old password
         String encodedActualPassword = passwordEncoder.encode(actualOldPassword);
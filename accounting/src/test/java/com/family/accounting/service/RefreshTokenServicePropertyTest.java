@@ -0,0 +1,311 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.TokenVO;
+import com.family.accounting.entity.RefreshToken;
+import com.family.accounting.entity.User;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.RefreshTokenMapper;
+import com.family.accounting.mapper.UserMapper;
+import com.family.accounting.util.JwtUtil;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * 刷新令牌服务属性测试
+ * <p>
+ * Feature: refresh-token, Property: 刷新令牌每次使用后轮换、宽限期内的并发刷新不视为泄露、宽限期后重复使用撤销整条令牌链、撤销和用户级失效后无法刷新
+ */
+class RefreshTokenServicePropertyTest {
+
+    private static final long REUSE_GRACE_SECONDS = 30;
+
+    /**
+     * For any number of consecutive refreshes, each refresh returns a new access token for the
+     * same user and a new refresh token, and only the latest refresh token is usable.
+     */
+    @Property(tries = 20)
+    void refreshShouldRotateTokens(@ForAll @LongRange(min = 1, max = 1000000) long userId,
+                                   @ForAll @IntRange(min = 1, max = 5) int rounds) {
+        InMemoryRefreshTokenMapper mapper = new InMemoryRefreshTokenMapper();
+        JwtUtil jwtUtil = createJwtUtil();
+        RefreshTokenService service = createService(mapper, jwtUtil, userId, false);
+
+        String refreshToken = service.issue(userId);
+        List<String> rawTokens = new ArrayList<>();
+        for (int i = 0; i < rounds; i++) {
+            TokenVO tokenVO = service.refresh(refreshToken);
+
+            assertEquals(Long.valueOf(userId), jwtUtil.getUserIdFromToken(tokenVO.getToken()));
+            assertEquals(Long.valueOf(900), tokenVO.getExpiresIn());
+            assertNotEquals(refreshToken, tokenVO.getRefreshToken());
+            rawTokens.add(refreshToken);
+            refreshToken = tokenVO.getRefreshToken();
+        }
+
+        // 只保存hash值，不保存令牌原文
+        rawTokens.add(refreshToken);
+        assertEquals(rawTokens.size(), mapper.rows.size());
+        for (String token : rawTokens) {
+            assertTrue(mapper.rows.containsKey(sha256Hex(token)));
+            assertFalse(mapper.rows.containsKey(token));
+        }
+        for (RefreshToken stored : mapper.rows.values()) {
+            assertEquals(64, stored.getTokenHash().length());
+        }
+        assertNotNull(service.refresh(refreshToken).getToken());
+    }
+
+    /**
+     * For any number of tabs refreshing with the same token at once, every refresh within the
+     * grace period succeeds, the chain stays valid, and each returned token can be refreshed.
+     */
+    @Property(tries = 20)
+    void concurrentReuseWithinGraceShouldNotRevokeChain(@ForAll @LongRange(min = 1, max = 1000000) long userId,
+                                                        @ForAll @IntRange(min = 2, max = 5) int tabs) {
+        InMemoryRefreshTokenMapper mapper = new InMemoryRefreshTokenMapper();
+        RefreshTokenService service = createService(mapper, createJwtUtil(), userId, false);
+        String shared = service.issue(userId);
+
+        List<String> rotated = new ArrayList<>();
+        for (int i = 0; i < tabs; i++) {
+            rotated.add(service.refresh(shared).getRefreshToken());
+        }
+
+        for (RefreshToken stored : mapper.rows.values()) {
+            assertNull(stored.getRevokedAt());
+        }
+        for (String token : rotated) {
+            assertNotNull(service.refresh(token).getToken());
+        }
+    }
+
+    /**
+     * Replaying a refresh token after the reuse grace period revokes the whole chain, so the
+     * legitimate holder of the newest token is forced to log in again.
+     */
+    @Property(tries = 20)
+    void reusedTokenShouldRevokeChain(@ForAll @LongRange(min = 1, max = 1000000) long userId,
+                                      @ForAll @IntRange(min = 1, max = 4) int rounds,
+                                      @ForAll @IntRange(min = 0, max = 3) int replayIndex) {
+        Assume.that(replayIndex < rounds);
+        InMemoryRefreshTokenMapper mapper = new InMemoryRefreshTokenMapper();
+        RefreshTokenService service = createService(mapper, createJwtUtil(), userId, false);
+
+        // 另一次登录产生的令牌链不受影响
+        String otherSession = service.issue(userId);
+
+        List<String> tokens = new ArrayList<>();
+        tokens.add(service.issue(userId));
+        for (int i = 0; i < rounds; i++) {
+            tokens.add(service.refresh(tokens.get(i)).getRefreshToken());
+        }
+        // 重放发生在重复使用宽限期之后
+        for (RefreshToken stored : mapper.rows.values()) {
+            if (stored.getUsedAt() != null) {
+                stored.setUsedAt(stored.getUsedAt().minusSeconds(REUSE_GRACE_SECONDS + 1));
+            }
+        }
+
+        assertInvalid(service, tokens.get(replayIndex));
+        assertInvalid(service, tokens.get(rounds));
+        assertNotNull(service.refresh(otherSession).getRefreshToken());
+    }
+
+    /**
+     * Logging out revokes the chain; revoking all user tokens (password change) revokes every chain.
+     */
+    @Property(tries = 20)
+    void revokedTokensShouldNotRefresh(@ForAll @LongRange(min = 1, max = 1000000) long userId,
+                                       @ForAll @IntRange(min = 1, max = 5) int sessions,
+                                       @ForAll boolean revokeAll) {
+        InMemoryRefreshTokenMapper mapper = new InMemoryRefreshTokenMapper();
+        RefreshTokenService service = createService(mapper, createJwtUtil(), userId, false);
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            tokens.add(service.issue(userId));
+        }
+
+        if (revokeAll) {
+            service.revokeAllUserTokens(userId);
+            for (String token : tokens) {
+                assertInvalid(service, token);
+            }
+        } else {
+            service.revoke(tokens.get(0));
+            assertInvalid(service, tokens.get(0));
+            for (int i = 1; i < sessions; i++) {
+                assertNotNull(service.refresh(tokens.get(i)).getToken());
+            }
+        }
+    }
+
+    /**
+     * Tokens issued before the user's token epoch, expired tokens and unknown tokens are rejected.
+     */
+    @Property(tries = 20)
+    void staleTokensShouldNotRefresh(@ForAll @LongRange(min = 1, max = 1000000) long userId,
+                                     @ForAll @AlphaChars @StringLength(min = 10, max = 43) String unknown) {
+        InMemoryRefreshTokenMapper mapper = new InMemoryRefreshTokenMapper();
+        RefreshTokenService revokedService = createService(mapper, createJwtUtil(), userId, true);
+        assertInvalid(revokedService, revokedService.issue(userId));
+
+        RefreshTokenService service = createService(mapper, createJwtUtil(), userId, false);
+        String expired = service.issue(userId);
+        for (RefreshToken stored : mapper.rows.values()) {
+            stored.setExpiredAt(LocalDateTime.now().minusSeconds(1));
+        }
+        assertInvalid(service, expired);
+        assertInvalid(service, unknown);
+    }
+
+    private void assertInvalid(RefreshTokenService service, String token) {
+        BusinessException e = assertThrows(BusinessException.class, () -> service.refresh(token));
+        assertEquals(401, e.getCode());
+    }
+
+    private RefreshTokenService createService(RefreshTokenMapper mapper, JwtUtil jwtUtil,
+                                              long userId, boolean epochRevoked) {
+        User user = new User();
+        user.setId(userId);
+        user.setPhone("13800000000");
+        user.setNickname("TestUser");
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        when(userMapper.findById(userId)).thenReturn(user);
+
+        TokenBlacklistService tokenBlacklistService = Mockito.mock(TokenBlacklistService.class);
+        when(tokenBlacklistService.isTokenRevoked(anyLong(), any())).thenReturn(epochRevoked);
+
+        RefreshTokenService service = new RefreshTokenService();
+        setField(service, "refreshTokenMapper", mapper);
+        setField(service, "userMapper", userMapper);
+        setField(service, "jwtUtil", jwtUtil);
+        setField(service, "tokenBlacklistService", tokenBlacklistService);
+        setField(service, "reuseGraceSeconds", REUSE_GRACE_SECONDS);
+        return service;
+    }
+
+    private JwtUtil createJwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", "test-secret-key-for-property-testing-2024");
+        setField(jwtUtil, "expiration", 900000L);
+        return jwtUtil;
+    }
+
+    /**
+     * 内存中的刷新令牌表
+     */
+    private static class InMemoryRefreshTokenMapper implements RefreshTokenMapper {
+
+        private final Map<String, RefreshToken> rows = new HashMap<>();
+        private long nextId = 1;
+
+        @Override
+        public int insert(RefreshToken refreshToken) {
+            refreshToken.setId(nextId++);
+            rows.put(refreshToken.getTokenHash(), refreshToken);
+            return 1;
+        }
+
+        @Override
+        public RefreshToken findByTokenHashForUpdate(String tokenHash) {
+            RefreshToken row = rows.get(tokenHash);
+            if (row == null) {
+                return null;
+            }
+            RefreshToken copy = new RefreshToken();
+            copy.setId(row.getId());
+            copy.setUserId(row.getUserId());
+            copy.setTokenHash(row.getTokenHash());
+            copy.setChainId(row.getChainId());
+            copy.setExpiredAt(row.getExpiredAt());
+            copy.setUsedAt(row.getUsedAt());
+            copy.setRevokedAt(row.getRevokedAt());
+            copy.setCreatedAt(row.getCreatedAt());
+            return copy;
+        }
+
+        @Override
+        public int markUsed(Long id, LocalDateTime usedAt) {
+            for (RefreshToken row : rows.values()) {
+                if (row.getId().equals(id) && row.getUsedAt() == null && row.getRevokedAt() == null) {
+                    row.setUsedAt(usedAt);
+                    return 1;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public int revokeChain(String chainId, LocalDateTime revokedAt) {
+            int count = 0;
+            for (RefreshToken row : rows.values()) {
+                if (row.getChainId().equals(chainId) && row.getRevokedAt() == null) {
+                    row.setRevokedAt(revokedAt);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public int revokeByUserId(Long userId, LocalDateTime revokedAt) {
+            int count = 0;
+            for (RefreshToken row : rows.values()) {
+                if (row.getUserId().equals(userId) && row.getRevokedAt() == null) {
+                    row.setRevokedAt(revokedAt);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public int deleteExpired(LocalDateTime before, int limit) {
+            return 0;
+        }
+    }
+
+    /**
+     * 刷新令牌原文的SHA-256 hash值（十六进制），与数据库中保存的格式一致
+     */
+    private static String sha256Hex(String rawToken) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.exception.BusinessException;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 搜索代价评估属性测试
+ * <p>
+ * Feature: search-cost-guard, Property: 低代价放行、高代价降级、超限拒绝
+ */
+class SearchCostGuardPropertyTest {
+
+    private final SearchCostGuard guard = new SearchCostGuard(60, 150);
+
+    /**
+     * For any search bounded to at most one month with a real keyword and small filter
+     * lists, the request should pass unchanged.
+     */
+    @Property(tries = 100)
+    void narrowSearchShouldPassUnchanged(
+            @ForAll @IntRange(min = 0, max = 31) int spanDays,
+            @ForAll @IntRange(min = 1, max = 10) int page,
+            @ForAll @IntRange(min = 1, max = 100) int size,
+            @ForAll @IntRange(min = 0, max = 20) int categoryCount,
+            @ForAll boolean includeFacets
+    ) {
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setStartDate(LocalDate.of(2024, 1, 1));
+        request.setEndDate(LocalDate.of(2024, 1, 1).plusDays(spanDays));
+        request.setKeyword("午饭");
+        request.setPage(page);
+        request.setSize(size);
+        request.setIncludeFacets(includeFacets);
+
+        boolean downgraded = guard.checkSearch(request, ids(categoryCount));
+
+        assertFalse(downgraded);
+        assertEquals(page, request.getPage());
+        assertEquals(size, request.getSize());
+        assertEquals(includeFacets, request.getIncludeFacets());
+    }
+
+    /**
+     * For any search whose cost reaches the downgrade threshold but not the reject
+     * threshold, facets should be dropped and the page size capped.
+     */
+    @Property(tries = 100)
+    void expensiveSearchShouldBeDowngraded(
+            @ForAll @IntRange(min = 21, max = 100) int size
+    ) {
+        // 无日期范围（30）+ 单字关键词（40）= 70
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setKeyword("饭");
+        request.setPage(1);
+        request.setSize(size);
+        request.setIncludeFacets(true);
+
+        boolean downgraded = guard.checkSearch(request, null);
+
+        assertTrue(downgraded);
+        assertFalse(request.getIncludeFacets());
+        assertEquals(SearchCostGuard.DOWNGRADED_PAGE_SIZE, request.getSize());
+    }
+
+    /**
+     * For any request exceeding the hard limits on list sizes or paging depth,
+     * the guard should reject it before any query runs.
+     */
+    @Property(tries = 50)
+    void oversizedRequestShouldBeRejected(
+            @ForAll @IntRange(min = 0, max = 2) int violation,
+            @ForAll @IntRange(min = 1, max = 100) int extra
+    ) {
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setPage(1);
+        request.setSize(20);
+        List<Long> categoryIds = null;
+        if (violation == 0) {
+            categoryIds = ids(SearchCostGuard.MAX_CATEGORY_IDS + extra);
+        } else if (violation == 1) {
+            request.setMemberIds(ids(SearchCostGuard.MAX_MEMBER_IDS + extra));
+        } else {
+            request.setPage(SearchCostGuard.MAX_OFFSET / 20 + 1 + extra);
+        }
+
+        List<Long> expanded = categoryIds;
+        assertThrows(BusinessException.class, () -> guard.checkSearch(request, expanded));
+    }
+
+    /**
+     * Oversized page sizes are capped rather than rejected.
+     */
+    @Example
+    void oversizedPageShouldBeCapped() {
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setStartDate(LocalDate.of(2024, 1, 1));
+        request.setEndDate(LocalDate.of(2024, 1, 31));
+        request.setPage(1);
+        request.setSize(1000);
+
+        assertTrue(guard.checkSearch(request, null));
+        assertEquals(SearchCostGuard.MAX_PAGE_SIZE, request.getSize());
+    }
+
+    private List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,284 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.SearchFacetsVO;
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.dto.SearchResultVO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.Category;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.entity.Transaction;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.SearchHistoryMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import com.family.accounting.security.JwtUserDetails;
+import com.family.accounting.util.QueryCancellation;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 搜索分面统计属性测试
+ * <p>
+ * Feature: search-facets, Property: 在线程池中并行计算的分面与同步计算结果一致，分面查询失败或超时时仍返回分页结果
+ */
+class SearchFacetsPropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long BOOK_ID = 100L;
+
+    /**
+     * 分类父子关系：1、2 为顶级分类，11、12 属于 1，111 属于 11，21 属于 2
+     */
+    private static final Map<Long, Long> PARENT_IDS = new HashMap<>();
+
+    static {
+        PARENT_IDS.put(1L, null);
+        PARENT_IDS.put(2L, null);
+        PARENT_IDS.put(11L, 1L);
+        PARENT_IDS.put(12L, 1L);
+        PARENT_IDS.put(111L, 11L);
+        PARENT_IDS.put(21L, 2L);
+    }
+
+    /**
+     * For any grouped facet rows, facets computed on a worker pool equal the facets computed
+     * on the calling thread and the expected per-dimension totals, with sub-categories rolled
+     * up to their root category, and the page is returned unchanged.
+     */
+    @Property(tries = 50)
+    void asyncFacetsShouldMatchSynchronousFacets(@ForAll("facetRows") List<Map<String, Object>> rows,
+                                                 @ForAll @IntRange(min = 0, max = 20) int pageRows) {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            SearchResultVO async = withUser(() -> createService(rows, pageRows, pool, 3000)
+                    .searchTransactions(facetsRequest()));
+            SearchResultVO sync = withUser(() -> createService(rows, pageRows, Runnable::run, 3000)
+                    .searchTransactions(facetsRequest()));
+
+            assertFacetsEqual(expectedFacets(rows), async.getFacets());
+            assertFacetsEqual(sync.getFacets(), async.getFacets());
+            assertEquals(pageRows, async.getList().size());
+            assertEquals(sync.getTotal(), async.getTotal());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * A failing facet query does not fail the search: the page is still returned and the
+     * facets are left empty.
+     */
+    @Property(tries = 20)
+    void facetFailureShouldReturnPageWithoutFacets(@ForAll @IntRange(min = 0, max = 20) int pageRows) {
+        SearchService service = createService(new ArrayList<>(), pageRows, Runnable::run, 3000);
+        when(transactionMapperOf(service).countSearchFacets(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("facet query failed"));
+
+        SearchResultVO result = withUser(() -> service.searchTransactions(facetsRequest()));
+
+        assertNull(result.getFacets());
+        assertEquals(pageRows, result.getList().size());
+    }
+
+    /**
+     * A facet query that does not finish within the facet timeout is abandoned and the page
+     * is returned without facets instead of waiting for the request timeout; the facet
+     * statement still running in the database is cancelled through its token.
+     */
+    @Example
+    void facetTimeoutShouldReturnPageWithoutFacets() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Statement facetStatement = Mockito.mock(Statement.class);
+        doAnswer(invocation -> {
+            release.countDown();
+            return null;
+        }).when(facetStatement).cancel();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            SearchService service = createService(new ArrayList<>(), 5, pool, 50);
+            when(transactionMapperOf(service).countSearchFacets(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                    .thenAnswer(invocation -> {
+                        // 模拟 QueryCancellationInterceptor 登记正在执行的语句
+                        QueryCancellation token = QueryCancellation.current();
+                        token.register(facetStatement);
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } finally {
+                            token.unregister(facetStatement);
+                        }
+                        return new ArrayList<>();
+                    });
+
+            long start = System.nanoTime();
+            SearchResultVO result = withUser(() -> service.searchTransactions(facetsRequest()));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertNull(result.getFacets());
+            assertEquals(5, result.getList().size());
+            assertTrue(elapsedMillis < 3000, "search waited " + elapsedMillis + "ms for facets");
+            verify(facetStatement, timeout(1000)).cancel();
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Without includeFacets the facet query is never issued.
+     */
+    @Example
+    void facetsShouldNotRunUnlessRequested() {
+        SearchService service = createService(new ArrayList<>(), 3, Runnable::run, 3000);
+        SearchRequestDTO request = facetsRequest();
+        request.setIncludeFacets(false);
+
+        SearchResultVO result = withUser(() -> service.searchTransactions(request));
+
+        assertNull(result.getFacets());
+        verify(transactionMapperOf(service), never())
+                .countSearchFacets(any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Provide
+    Arbitrary<List<Map<String, Object>>> facetRows() {
+        Arbitrary<Map<String, Object>> row = Combinators.combine(
+                Arbitraries.of(new ArrayList<>(PARENT_IDS.keySet())),
+                Arbitraries.longs().between(1, 4),
+                Arbitraries.integers().between(1, 2),
+                Arbitraries.longs().between(1, 1000)
+        ).as((categoryId, userId, type, count) -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("categoryId", categoryId);
+            map.put("userId", userId);
+            map.put("type", type);
+            map.put("count", count);
+            return map;
+        });
+        return row.list().ofMaxSize(30);
+    }
+
+    private SearchRequestDTO facetsRequest() {
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setAccountBookId(BOOK_ID);
+        request.setPage(1);
+        request.setSize(20);
+        request.setIncludeFacets(true);
+        return request;
+    }
+
+    /**
+     * 按维度独立汇总分组行，分类计数汇总到顶级分类
+     */
+    private SearchFacetsVO expectedFacets(List<Map<String, Object>> rows) {
+        SearchFacetsVO facets = new SearchFacetsVO();
+        for (Map<String, Object> row : rows) {
+            long count = (Long) row.get("count");
+            Long root = (Long) row.get("categoryId");
+            while (PARENT_IDS.get(root) != null) {
+                root = PARENT_IDS.get(root);
+            }
+            facets.getCategoryCounts().merge(root, count, Long::sum);
+            facets.getMemberCounts().merge((Long) row.get("userId"), count, Long::sum);
+            facets.getTypeCounts().merge((Integer) row.get("type"), count, Long::sum);
+        }
+        return facets;
+    }
+
+    private void assertFacetsEqual(SearchFacetsVO expected, SearchFacetsVO actual) {
+        assertNotNull(actual);
+        assertEquals(new HashMap<>(expected.getCategoryCounts()), new HashMap<>(actual.getCategoryCounts()));
+        assertEquals(new HashMap<>(expected.getMemberCounts()), new HashMap<>(actual.getMemberCounts()));
+        assertEquals(new HashMap<>(expected.getTypeCounts()), new HashMap<>(actual.getTypeCounts()));
+    }
+
+    private SearchService createService(List<Map<String, Object>> facetRows, int pageRows, Executor executor,
+                                        long facetsTimeoutMillis) {
+        TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        List<Transaction> page = new ArrayList<>();
+        for (long id = 1; id <= pageRows; id++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(id);
+            page.add(transaction);
+        }
+        when(transactionMapper.searchTransactions(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                anyInt(), anyInt())).thenReturn(page);
+        when(transactionMapper.countSearchTransactions(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(pageRows);
+        when(transactionMapper.countSearchFacets(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(facetRows);
+
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        List<Category> categories = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : new LinkedHashMap<>(PARENT_IDS).entrySet()) {
+            Category category = new Category();
+            category.setId(entry.getKey());
+            category.setParentId(entry.getValue());
+            category.setFamilyId(FAMILY_ID);
+            categories.add(category);
+        }
+        when(categoryMapper.findByFamilyId(FAMILY_ID)).thenReturn(categories);
+
+        FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+        FamilyMember member = new FamilyMember();
+        member.setUserId(USER_ID);
+        member.setFamilyId(FAMILY_ID);
+        when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+        AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+        AccountBook accountBook = new AccountBook();
+        accountBook.setId(BOOK_ID);
+        accountBook.setFamilyId(FAMILY_ID);
+        when(accountBookMapper.findById(BOOK_ID)).thenReturn(accountBook);
+
+        return new SearchService(transactionMapper, categoryMapper, Mockito.mock(SearchHistoryMapper.class),
+                familyMemberMapper, accountBookMapper, executor, new SearchCostGuard(60, 150),
+                Mockito.mock(SearchTrendingService.class), facetsTimeoutMillis);
+    }
+
+    private TransactionMapper transactionMapperOf(SearchService service) {
+        try {
+            java.lang.reflect.Field field = SearchService.class.getDeclaredField("transactionMapper");
+            field.setAccessible(true);
+            return (TransactionMapper) field.get(service);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get field: transactionMapper", e);
+        }
+    }
+
+    /**
+     * 以登录用户身份执行
+     */
+    private <T> T withUser(Supplier<T> action) {
+        JwtUserDetails user = new JwtUserDetails(USER_ID, "13800000000");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        try {
+            return action.get();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.SearchRequestDTO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.SearchHistoryMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import com.family.accounting.security.JwtUserDetails;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 搜索服务属性测试
+ * <p>
+ * Feature: search-cost-guard, Property: 代价评估先于搜索历史和热门关键词记录，被拒绝的搜索不留下任何记录
+ */
+class SearchServicePropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long BOOK_ID = 100L;
+
+    /**
+     * For any keyword search rejected by the cost guard (too many members or paging too deep),
+     * neither the search history nor the trending keywords are touched and no query runs.
+     */
+    @Property(tries = 30)
+    void rejectedSearchShouldNotBeRecorded(@ForAll("keywords") String keyword,
+                                           @ForAll boolean tooManyMembers) {
+        Fixture fixture = new Fixture();
+        SearchRequestDTO request = request(keyword);
+        if (tooManyMembers) {
+            List<Long> memberIds = new ArrayList<>();
+            for (long id = 1; id <= SearchCostGuard.MAX_MEMBER_IDS + 1; id++) {
+                memberIds.add(id);
+            }
+            request.setMemberIds(memberIds);
+        } else {
+            request.setPage(SearchCostGuard.MAX_OFFSET / 20 + 2);
+        }
+
+        assertThrows(BusinessException.class, () -> fixture.search(request));
+
+        verifyNoInteractions(fixture.searchHistoryMapper, fixture.searchTrendingService);
+        verify(fixture.transactionMapper, never()).searchTransactions(any(), any(), any(), any(), any(), any(),
+                any(), any(), any(), anyInt(), anyInt());
+    }
+
+    /**
+     * For any accepted keyword search, the trimmed keyword is recorded once in the history and
+     * once in the trending keywords.
+     */
+    @Property(tries = 30)
+    void acceptedSearchShouldBeRecordedOnce(@ForAll("keywords") String keyword) {
+        Fixture fixture = new Fixture();
+
+        fixture.search(request(" " + keyword + " "));
+
+        verify(fixture.searchHistoryMapper).findByUserFamilyAndKeyword(USER_ID, FAMILY_ID, keyword);
+        verify(fixture.searchHistoryMapper).insert(any());
+        verify(fixture.searchTrendingService).recordKeyword(FAMILY_ID, keyword);
+    }
+
+    @Provide
+    Arbitrary<String> keywords() {
+        return Arbitraries.strings().withChars("午饭超市水电打车").ofMinLength(2).ofMaxLength(6);
+    }
+
+    private SearchRequestDTO request(String keyword) {
+        SearchRequestDTO request = new SearchRequestDTO();
+        request.setAccountBookId(BOOK_ID);
+        request.setKeyword(keyword);
+        request.setPage(1);
+        request.setSize(20);
+        return request;
+    }
+
+    private static class Fixture {
+        final TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        final SearchHistoryMapper searchHistoryMapper = Mockito.mock(SearchHistoryMapper.class);
+        final SearchTrendingService searchTrendingService = Mockito.mock(SearchTrendingService.class);
+        final SearchService service;
+
+        Fixture() {
+            when(transactionMapper.searchTransactions(any(), any(), any(), any(), any(), any(), any(), any(), any(),
+                    anyInt(), anyInt())).thenReturn(new ArrayList<>());
+
+            FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+            FamilyMember member = new FamilyMember();
+            member.setUserId(USER_ID);
+            member.setFamilyId(FAMILY_ID);
+            when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+            AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+            AccountBook accountBook = new AccountBook();
+            accountBook.setId(BOOK_ID);
+            accountBook.setFamilyId(FAMILY_ID);
+            when(accountBookMapper.findById(BOOK_ID)).thenReturn(accountBook);
+
+            service = new SearchService(transactionMapper, Mockito.mock(CategoryMapper.class), searchHistoryMapper,
+                    familyMemberMapper, accountBookMapper, Runnable::run, new SearchCostGuard(60, 150),
+                    searchTrendingService, 3000);
+        }
+
+        /**
+         * 以登录用户身份搜索
+         */
+        void search(SearchRequestDTO request) {
+            JwtUserDetails user = new JwtUserDetails(USER_ID, "13800000000");
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            try {
+                service.searchTransactions(request);
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }
+    }
+}
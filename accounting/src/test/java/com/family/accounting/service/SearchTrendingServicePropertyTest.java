@@ -0,0 +1,243 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.TrendingKeywordVO;
+import com.family.accounting.entity.SearchTrending;
+import com.family.accounting.mapper.SearchHistoryMapper;
+import com.family.accounting.mapper.SearchTrendingMapper;
+import com.family.accounting.util.LruCache;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 热门搜索关键词属性测试
+ * <p>
+ * Feature: search-trending, Property: 仅大小写不同的关键词计为同一个，持久化时每个家庭单独提交，单个家庭失败不影响其他家庭，
+ * 多个实例的增量在数据库中累加，内存占用受限
+ */
+class SearchTrendingServicePropertyTest {
+
+    /**
+     * For any keyword searched in any mix of upper and lower case, the family tracks a single
+     * lower-case entry whose score is the total number of searches.
+     */
+    @Property(tries = 50)
+    void caseVariantsShouldCountAsOneKeyword(@ForAll("caseVariants") List<String> variants) {
+        Fixture fixture = new Fixture();
+
+        variants.forEach(keyword -> fixture.service.recordKeyword(1L, keyword));
+
+        List<TrendingKeywordVO> trending = fixture.service.getTrending(1L, 10);
+        assertEquals(1, trending.size());
+        assertEquals(variants.get(0).toLowerCase(Locale.ROOT), trending.get(0).getKeyword());
+        assertEquals(variants.size(), trending.get(0).getScore().longValue());
+    }
+
+    /**
+     * For any set of dirty families where one family's write fails, every other family is
+     * still persisted, and the failed family is written again on the next flush.
+     */
+    @Property(tries = 30)
+    void failedFamilyShouldNotBlockOthers(@ForAll @IntRange(min = 2, max = 8) int familyCount,
+                                          @ForAll @IntRange(min = 1, max = 8) int failingFamily) {
+        Assume.that(failingFamily <= familyCount);
+        Fixture fixture = new Fixture();
+        fixture.failingFamilies.add((long) failingFamily);
+        for (long familyId = 1; familyId <= familyCount; familyId++) {
+            fixture.service.recordKeyword(familyId, "Food");
+            fixture.service.recordKeyword(familyId, "food");
+        }
+
+        fixture.service.flushTrending();
+
+        for (long familyId = 1; familyId <= familyCount; familyId++) {
+            if (familyId == failingFamily) {
+                assertFalse(fixture.stored.containsKey(familyId));
+            } else {
+                assertEquals(2L, fixture.stored.get(familyId).get("food").longValue());
+                assertEquals(1, fixture.stored.get(familyId).size());
+            }
+        }
+
+        fixture.failingFamilies.clear();
+        fixture.service.flushTrending();
+
+        assertEquals(2L, fixture.stored.get((long) failingFamily).get("food").longValue());
+        verify(fixture.searchTrendingMapper, times(familyCount + 1)).batchIncrement(anyList());
+    }
+
+    /**
+     * For any split of searches between two instances sharing one table, the stored score is the
+     * sum of both instances' searches, and each instance sees the combined score after flushing.
+     */
+    @Property(tries = 30)
+    void instancesShouldAddUpInsteadOfOverwriting(@ForAll @IntRange(min = 0, max = 20) int onFirst,
+                                                  @ForAll @IntRange(min = 0, max = 20) int onSecond) {
+        Assume.that(onFirst + onSecond > 0);
+        Map<Long, Map<String, Long>> stored = new HashMap<>();
+        Fixture first = new Fixture(stored);
+        Fixture second = new Fixture(stored);
+
+        for (int i = 0; i < onFirst; i++) {
+            first.service.recordKeyword(1L, "Food");
+        }
+        for (int i = 0; i < onSecond; i++) {
+            second.service.recordKeyword(1L, "food");
+        }
+        first.service.flushTrending();
+        second.service.flushTrending();
+
+        assertEquals(onFirst + onSecond, stored.get(1L).get("food").longValue());
+        assertEquals(onFirst + onSecond, first.service.getTrending(1L, 10).get(0).getScore().longValue());
+        assertEquals(onFirst + onSecond, second.service.getTrending(1L, 10).get(0).getScore().longValue());
+    }
+
+    /**
+     * Only the capacity highest-scoring keywords of a family stay in the table.
+     */
+    @Example
+    void storedKeywordsShouldBeTrimmedToCapacity() {
+        Fixture fixture = new Fixture();
+        setField(fixture.service, "capacity", 2);
+        fixture.stored.computeIfAbsent(1L, id -> new HashMap<>()).put("old", 1L);
+
+        fixture.service.recordKeyword(1L, "Food");
+        fixture.service.recordKeyword(1L, "Food");
+        fixture.service.recordKeyword(1L, "Rent");
+        fixture.service.recordKeyword(1L, "Rent");
+        fixture.service.flushTrending();
+
+        assertEquals(2, fixture.stored.get(1L).size());
+        assertFalse(fixture.stored.get(1L).containsKey("old"));
+    }
+
+    /**
+     * For any number of families searched, pending increments are dropped once flushed and the
+     * cached sketches never exceed the configured number of families.
+     */
+    @Property(tries = 20)
+    void memoryShouldStayBounded(@ForAll @IntRange(min = 1, max = 50) int familyCount) {
+        Fixture fixture = new Fixture();
+        setField(fixture.service, "cacheSize", 5);
+
+        for (long familyId = 1; familyId <= familyCount; familyId++) {
+            fixture.service.recordKeyword(familyId, "food");
+            fixture.service.getTrending(familyId, 10);
+        }
+        fixture.service.flushTrending();
+
+        assertTrue(((Map<?, ?>) getField(fixture.service, "pending")).isEmpty());
+        assertTrue(((LruCache<?, ?>) getField(fixture.service, "sketches")).size() <= 5);
+    }
+
+    @Provide
+    Arbitrary<List<String>> caseVariants() {
+        return Arbitraries.strings().withChars("abcdef").ofMinLength(2).ofMaxLength(6).flatMap(base ->
+                Arbitraries.strings().withChars("01").ofLength(base.length()).map(mask -> {
+                    StringBuilder variant = new StringBuilder();
+                    for (int i = 0; i < base.length(); i++) {
+                        char c = base.charAt(i);
+                        variant.append(mask.charAt(i) == '1' ? Character.toUpperCase(c) : c);
+                    }
+                    return variant.toString();
+                }).list().ofMinSize(1).ofMaxSize(20));
+    }
+
+    /**
+     * 内存中的热门关键词表（家庭ID -> 关键词 -> 热度），按二进制比较关键词
+     */
+    private static class Fixture {
+        final Map<Long, Map<String, Long>> stored;
+        final Set<Long> failingFamilies = new HashSet<>();
+        final SearchTrendingMapper searchTrendingMapper = Mockito.mock(SearchTrendingMapper.class);
+        final SearchTrendingService service = new SearchTrendingService();
+
+        Fixture() {
+            this(new HashMap<>());
+        }
+
+        Fixture(Map<Long, Map<String, Long>> stored) {
+            this.stored = stored;
+            when(searchTrendingMapper.findByFamilyId(anyLong())).thenAnswer(invocation -> {
+                Long familyId = invocation.getArgument(0);
+                List<SearchTrending> rows = new ArrayList<>();
+                stored.getOrDefault(familyId, new HashMap<>()).forEach((keyword, score) -> {
+                    SearchTrending row = new SearchTrending();
+                    row.setFamilyId(familyId);
+                    row.setKeyword(keyword);
+                    row.setScore(score);
+                    row.setScoreError(0L);
+                    rows.add(row);
+                });
+                return rows;
+            });
+            when(searchTrendingMapper.batchIncrement(anyList())).thenAnswer(invocation -> {
+                List<SearchTrending> rows = invocation.getArgument(0);
+                Long familyId = rows.get(0).getFamilyId();
+                if (failingFamilies.contains(familyId)) {
+                    throw new IllegalStateException("Lock wait timeout exceeded");
+                }
+                for (SearchTrending row : rows) {
+                    stored.computeIfAbsent(familyId, id -> new HashMap<>()).merge(row.getKeyword(), row.getScore(), Long::sum);
+                }
+                return rows.size();
+            });
+            when(searchTrendingMapper.deleteBeyondTop(anyLong(), anyInt())).thenAnswer(invocation -> {
+                Map<String, Long> rows = stored.get(invocation.<Long>getArgument(0));
+                int keep = invocation.getArgument(1);
+                if (rows == null || rows.size() <= keep) {
+                    return 0;
+                }
+                List<String> ranked = new ArrayList<>(rows.keySet());
+                ranked.sort((a, b) -> Long.compare(rows.get(b), rows.get(a)));
+                int before = rows.size();
+                ranked.subList(keep, ranked.size()).forEach(rows::remove);
+                return before - rows.size();
+            });
+
+            setField(service, "searchTrendingMapper", searchTrendingMapper);
+            setField(service, "searchHistoryMapper", Mockito.mock(SearchHistoryMapper.class));
+            setField(service, "transactionTemplate", new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+        }
+    }
+
+    /**
+     * 使用反射读取私有字段
+     */
+    private static Object getField(Object target, String fieldName) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get field: " + fieldName, e);
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private static void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.family.accounting.service;
+
+import com.family.accounting.mapper.IpRequestMapper;
+import com.family.accounting.mapper.LoginAttemptMapper;
+import com.family.accounting.mapper.RetentionWatermarkMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 安全记录保留属性测试
+ * Feature: security-retention, Property: 汇总连续覆盖、只删除已汇总数据、分批删除与计数
+ */
+class SecurityRetentionServicePropertyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 10, 30);
+
+    /**
+     * Property: 汇总从最早记录所在小时连续推进到截止时间，水位最终等于截止时间
+     * For any earliest record time, rollup ranges are contiguous, non-overlapping, and end at the retention cutoff.
+     */
+    @Property(tries = 30)
+    void rollupShouldCoverRangeContiguously(@ForAll @IntRange(min = 7, max = 60) int ageDays,
+                                            @ForAll @IntRange(min = 0, max = 23) int hour) {
+        IpRequestMapper ipRequestMapper = Mockito.mock(IpRequestMapper.class);
+        RetentionWatermarkMapper watermarkMapper = Mockito.mock(RetentionWatermarkMapper.class);
+        when(ipRequestMapper.findEarliestCreatedAt()).thenReturn(NOW.minusDays(ageDays).withHour(hour).withMinute(17));
+        SecurityRetentionService service = createService(ipRequestMapper, Mockito.mock(LoginAttemptMapper.class),
+                watermarkMapper, new SimpleMeterRegistry());
+
+        service.purge(NOW);
+
+        LocalDateTime cutoff = NOW.minusDays(7).truncatedTo(ChronoUnit.HOURS);
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> to = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(ipRequestMapper, atLeast(0)).rollupHourly(from.capture(), to.capture());
+
+        List<LocalDateTime> froms = from.getAllValues();
+        List<LocalDateTime> tos = to.getAllValues();
+        LocalDateTime expectedStart = NOW.minusDays(ageDays).withHour(hour).truncatedTo(ChronoUnit.HOURS);
+        if (expectedStart.isBefore(cutoff)) {
+            assertThat(froms.get(0)).isEqualTo(expectedStart);
+            for (int i = 1; i < froms.size(); i++) {
+                assertThat(froms.get(i)).isEqualTo(tos.get(i - 1));
+            }
+            assertThat(tos.get(tos.size() - 1)).isEqualTo(cutoff);
+        } else {
+            assertThat(froms).isEmpty();
+        }
+        verify(watermarkMapper, atLeastOnce()).saveRolledUpUntil(SecurityRetentionService.IP_REQUEST_TABLE, cutoff);
+        verify(ipRequestMapper, atLeastOnce()).deleteBefore(eq(cutoff), anyInt());
+    }
+
+    /**
+     * Property: 已有水位时从水位继续汇总
+     */
+    @Property(tries = 20)
+    void rollupShouldResumeFromWatermark(@ForAll @IntRange(min = 1, max = 72) int hoursBehind) {
+        IpRequestMapper ipRequestMapper = Mockito.mock(IpRequestMapper.class);
+        RetentionWatermarkMapper watermarkMapper = Mockito.mock(RetentionWatermarkMapper.class);
+        LocalDateTime cutoff = NOW.minusDays(7).truncatedTo(ChronoUnit.HOURS);
+        when(watermarkMapper.findRolledUpUntil(SecurityRetentionService.IP_REQUEST_TABLE))
+                .thenReturn(cutoff.minusHours(hoursBehind));
+        SecurityRetentionService service = createService(ipRequestMapper, Mockito.mock(LoginAttemptMapper.class),
+                watermarkMapper, new SimpleMeterRegistry());
+
+        service.purge(NOW);
+
+        verify(ipRequestMapper).rollupHourly(eq(cutoff.minusHours(hoursBehind)), any());
+        verify(ipRequestMapper, never()).findEarliestCreatedAt();
+        verify(watermarkMapper).saveRolledUpUntil(SecurityRetentionService.IP_REQUEST_TABLE, cutoff);
+    }
+
+    /**
+     * Property: 分批删除直到不足一批，清理行数计入指标
+     * For any number of expired rows and batch size, deletion proceeds in bounded batches until exhausted.
+     */
+    @Property(tries = 30)
+    void deleteShouldProceedInBatches(@ForAll @IntRange(min = 0, max = 5000) int expiredRows,
+                                      @ForAll @IntRange(min = 1, max = 1000) int batchSize) {
+        IpRequestMapper ipRequestMapper = Mockito.mock(IpRequestMapper.class);
+        AtomicInteger remaining = new AtomicInteger(expiredRows);
+        AtomicInteger calls = new AtomicInteger();
+        when(ipRequestMapper.deleteBefore(any(), anyInt())).thenAnswer(invocation -> {
+            calls.incrementAndGet();
+            int limit = invocation.getArgument(1);
+            int deleted = Math.min(limit, remaining.get());
+            remaining.addAndGet(-deleted);
+            return deleted;
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SecurityRetentionService service = createService(ipRequestMapper, Mockito.mock(LoginAttemptMapper.class),
+                Mockito.mock(RetentionWatermarkMapper.class), registry);
+        setField(service, "batchSize", batchSize);
+
+        service.purge(NOW);
+
+        assertThat(remaining.get()).isZero();
+        assertThat(calls.get()).isEqualTo(expiredRows / batchSize + 1);
+        assertThat(registry.counter("security.retention.purged.rows", "table", SecurityRetentionService.IP_REQUEST_TABLE).count())
+                .isEqualTo((double) expiredRows);
+    }
+
+    /**
+     * Property: 汇总失败时不删除明细，且不影响另一张表
+     */
+    @Example
+    void rollupFailureShouldNotDeleteRawRows() {
+        IpRequestMapper ipRequestMapper = Mockito.mock(IpRequestMapper.class);
+        LoginAttemptMapper loginAttemptMapper = Mockito.mock(LoginAttemptMapper.class);
+        when(ipRequestMapper.findEarliestCreatedAt()).thenReturn(NOW.minusDays(30));
+        when(ipRequestMapper.rollupHourly(any(), any())).thenThrow(new RuntimeException("lock wait timeout"));
+        when(loginAttemptMapper.findEarliestCreatedAt()).thenReturn(NOW.minusDays(60));
+        SecurityRetentionService service = createService(ipRequestMapper, loginAttemptMapper,
+                Mockito.mock(RetentionWatermarkMapper.class), new SimpleMeterRegistry());
+
+        service.purge(NOW);
+
+        verify(ipRequestMapper, never()).deleteBefore(any(), anyInt());
+        verify(loginAttemptMapper, atLeastOnce()).rollupHourly(any(), any());
+        verify(loginAttemptMapper, atLeastOnce()).deleteBefore(eq(NOW.minusDays(30).truncatedTo(ChronoUnit.HOURS)), anyInt());
+    }
+
+    private SecurityRetentionService createService(IpRequestMapper ipRequestMapper,
+                                                   LoginAttemptMapper loginAttemptMapper,
+                                                   RetentionWatermarkMapper watermarkMapper,
+                                                   SimpleMeterRegistry registry) {
+        SecurityRetentionService service = new SecurityRetentionService();
+        setField(service, "ipRequestMapper", ipRequestMapper);
+        setField(service, "loginAttemptMapper", loginAttemptMapper);
+        setField(service, "retentionWatermarkMapper", watermarkMapper);
+        setField(service, "meterRegistry", registry);
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.family.accounting.service;
+
+import com.family.accounting.mapper.TokenBlacklistMapper;
+import com.family.accounting.mapper.UserMapper;
+import com.family.accounting.util.JwtUtil;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 令牌黑名单过滤器属性测试
+ * Feature: blacklist-bloom-filter, Property: 过滤器前置后黑名单判定不变，未命中的令牌不查询数据库
+ * Feature: token-revocation-epoch, Property: 用户级失效按签发时间判定且不逐请求查询
+ */
+class TokenBlacklistServicePropertyTest {
+
+    /**
+     * Property: 过滤器加载后，黑名单令牌仍被拒绝，正常令牌不查询数据库
+     * For any blacklist contents, blacklisted tokens are still reported, and non-blacklisted tokens
+     * are answered from memory except for rare false positives.
+     */
+    @Property(tries = 20)
+    void filterShouldAnswerNonBlacklistedTokensWithoutQuery(@ForAll @IntRange(min = 0, max = 200) int blacklistedCount,
+                                                            @ForAll @IntRange(min = 1, max = 200) int normalCount) {
+        TokenBlacklistMapper mapper = Mockito.mock(TokenBlacklistMapper.class);
+        List<String> blacklistedHashes = new ArrayList<>();
+        for (int i = 0; i < blacklistedCount; i++) {
+            blacklistedHashes.add(sha256Hex("blacklisted-" + i));
+        }
+        blacklistedHashes.add("USER_1_1700000000");
+        when(mapper.findActiveTokenHashes(any())).thenReturn(blacklistedHashes);
+        when(mapper.existsByTokenHash(anyString())).thenAnswer(invocation -> blacklistedHashes.contains(invocation.<String>getArgument(0)));
+        TokenBlacklistService service = createService(mapper, Mockito.mock(JwtUtil.class));
+
+        service.rebuildFilter();
+
+        for (int i = 0; i < blacklistedCount; i++) {
+            assertThat(service.isTokenBlacklisted("blacklisted-" + i)).isTrue();
+        }
+        clearInvocations(mapper);
+        for (int i = 0; i < normalCount; i++) {
+            assertThat(service.isTokenBlacklisted("normal-" + i)).isFalse();
+        }
+        verify(mapper, atMost(2)).existsByTokenHash(anyString());
+    }
+
+    /**
+     * Property: 过滤器加载前所有检查都查询数据库
+     */
+    @Property(tries = 10)
+    void unloadedFilterShouldFallBackToDatabase(@ForAll @AlphaChars @StringLength(min = 10, max = 50) String token,
+                                                @ForAll boolean blacklisted) {
+        TokenBlacklistMapper mapper = Mockito.mock(TokenBlacklistMapper.class);
+        when(mapper.existsByTokenHash(sha256Hex(token))).thenReturn(blacklisted);
+        TokenBlacklistService service = createService(mapper, Mockito.mock(JwtUtil.class));
+
+        assertThat(service.isTokenBlacklisted(token)).isEqualTo(blacklisted);
+        verify(mapper).existsByTokenHash(sha256Hex(token));
+    }
+
+    /**
+     * Property: 新加入黑名单的令牌立即生效，且不需要查询数据库
+     */
+    @Property(tries = 10)
+    void addedTokenShouldBeBlacklistedImmediately(@ForAll @AlphaChars @StringLength(min = 10, max = 50) String token) {
+        TokenBlacklistMapper mapper = Mockito.mock(TokenBlacklistMapper.class);
+        when(mapper.findActiveTokenHashes(any())).thenReturn(Collections.emptyList());
+        JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+        when(jwtUtil.getExpirationFromToken(token)).thenReturn(new Date(System.currentTimeMillis() + 3_600_000L));
+        TokenBlacklistService service = createService(mapper, jwtUtil);
+        service.rebuildFilter();
+
+        service.addToBlacklist(token, 1L, "用户登出");
+
+        assertThat(service.isTokenBlacklisted(token)).isTrue();
+        verify(mapper, never()).existsByTokenHash(anyString());
+    }
+
+    /**
+     * Property: 增量刷新加载其他实例加入的黑名单记录
+     */
+    @Property(tries = 10)
+    void refreshShouldPickUpEntriesFromOtherNodes(@ForAll @AlphaChars @StringLength(min = 10, max = 50) String token) {
+        TokenBlacklistMapper mapper = Mockito.mock(TokenBlacklistMapper.class);
+        when(mapper.findActiveTokenHashes(any())).thenReturn(Collections.emptyList());
+        TokenBlacklistService service = createService(mapper, Mockito.mock(JwtUtil.class));
+        service.rebuildFilter();
+        assertThat(service.isTokenBlacklisted(token)).isFalse();
+
+        when(mapper.findTokenHashesCreatedSince(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(sha256Hex(token)));
+        when(mapper.existsByTokenHash(sha256Hex(token))).thenReturn(true);
+        service.refreshBlacklistFilter();
+
+        assertThat(service.isTokenBlacklisted(token)).isTrue();
+    }
+
+    /**
+     * Property: 签发时间早于用户令牌生效起点的令牌失效，生效起点在缓存有效期内只查询一次
+     * For any token issue time, the token is revoked exactly when issued before the user's epoch.
+     */
+    @Property(tries = 20)
+    void tokensIssuedBeforeEpochShouldBeRevoked(@ForAll @LongRange(min = 1, max = 100_000) long userId,
+                                                @ForAll @IntRange(min = -3600, max = 3600) int issuedOffsetSeconds,
+                                                @ForAll @IntRange(min = 1, max = 20) int checks) {
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        LocalDateTime epoch = LocalDateTime.now().withNano(0).minusHours(2);
+        when(userMapper.findTokenValidAfter(userId)).thenReturn(epoch);
+        TokenBlacklistService service = createService(Mockito.mock(TokenBlacklistMapper.class), Mockito.mock(JwtUtil.class), userMapper);
+        Date issuedAt = Date.from(epoch.plusSeconds(issuedOffsetSeconds).atZone(ZoneId.systemDefault()).toInstant());
+
+        for (int i = 0; i < checks; i++) {
+            assertThat(service.isTokenRevoked(userId, issuedAt)).isEqualTo(issuedOffsetSeconds < 0);
+        }
+        verify(userMapper, times(1)).findTokenValidAfter(userId);
+    }
+
+    /**
+     * Property: 用户未设置令牌生效起点时令牌均有效
+     */
+    @Property(tries = 10)
+    void tokensShouldBeValidWithoutEpoch(@ForAll @LongRange(min = 1, max = 100_000) long userId) {
+        TokenBlacklistService service = createService(Mockito.mock(TokenBlacklistMapper.class),
+                Mockito.mock(JwtUtil.class), Mockito.mock(UserMapper.class));
+
+        assertThat(service.isTokenRevoked(userId, new Date())).isFalse();
+    }
+
+    /**
+     * Property: 批量失效后此前签发的令牌立即失效，之后签发的令牌不受影响，且不再插入黑名单记录
+     */
+    @Property(tries = 10)
+    void invalidateAllShouldRevokeEarlierTokensImmediately(@ForAll @LongRange(min = 1, max = 100_000) long userId) {
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        TokenBlacklistMapper mapper = Mockito.mock(TokenBlacklistMapper.class);
+        TokenBlacklistService service = createService(mapper, Mockito.mock(JwtUtil.class), userMapper);
+        assertThat(service.isTokenRevoked(userId, new Date(System.currentTimeMillis() - 5000))).isFalse();
+
+        service.invalidateAllUserTokens(userId, "密码修改");
+
+        verify(userMapper).updateTokenValidAfter(eq(userId), any(LocalDateTime.class));
+        verify(mapper, never()).insert(any());
+        assertThat(service.isTokenRevoked(userId, new Date(System.currentTimeMillis() - 5000))).isTrue();
+        assertThat(service.isTokenRevoked(userId, new Date(System.currentTimeMillis() + 1000))).isFalse();
+        verify(userMapper, times(1)).findTokenValidAfter(userId);
+    }
+
+    private TokenBlacklistService createService(TokenBlacklistMapper mapper, JwtUtil jwtUtil) {
+        return createService(mapper, jwtUtil, Mockito.mock(UserMapper.class));
+    }
+
+    private TokenBlacklistService createService(TokenBlacklistMapper mapper, JwtUtil jwtUtil, UserMapper userMapper) {
+        TokenBlacklistService service = new TokenBlacklistService();
+        setField(service, "tokenBlacklistMapper", mapper);
+        setField(service, "jwtUtil", jwtUtil);
+        setField(service, "userMapper", userMapper);
+        return service;
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.TransactionDTO;
+import com.family.accounting.entity.*;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 交易数量计数属性测试
+ * <p>
+ * Feature: transaction-count, Property: 交易增删改后分类和账本的计数等于实际交易数量，对账任务分批覆盖全部ID并统计修正行数
+ */
+class TransactionCountPropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long ACCOUNT_BOOK_ID = 100L;
+    private static final int CATEGORY_COUNT = 4;
+
+    /**
+     * For any sequence of creates, category changes and deletes, each category's and the
+     * account book's counter equals the number of live transactions referencing it.
+     */
+    @Property(tries = 50)
+    void countersShouldMatchLiveTransactions(@ForAll("operations") List<int[]> operations) {
+        Map<Long, Transaction> rows = new HashMap<>();
+        Map<Long, Integer> categoryCounts = new HashMap<>();
+        int[] bookCount = new int[1];
+
+        TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        TransactionService service = createService(transactionMapper, accountBookMapper, categoryMapper);
+
+        long[] nextId = {1};
+        doAnswer(invocation -> {
+            Transaction t = invocation.getArgument(0);
+            t.setId(nextId[0]++);
+            rows.put(t.getId(), copy(t));
+            return 1;
+        }).when(transactionMapper).insert(any(Transaction.class));
+        doAnswer(invocation -> {
+            Transaction t = invocation.getArgument(0);
+            if (!rows.containsKey(t.getId())) {
+                return 0;
+            }
+            rows.put(t.getId(), copy(t));
+            return 1;
+        }).when(transactionMapper).update(any(Transaction.class));
+        doAnswer(invocation -> rows.remove(invocation.<Long>getArgument(0)) != null ? 1 : 0)
+                .when(transactionMapper).deleteById(anyLong());
+        when(transactionMapper.findById(anyLong())).thenAnswer(invocation -> {
+            Transaction t = rows.get(invocation.<Long>getArgument(0));
+            return t != null ? copy(t) : null;
+        });
+        doAnswer(invocation -> {
+            categoryCounts.merge(invocation.getArgument(0), invocation.<Integer>getArgument(1), Integer::sum);
+            return 1;
+        }).when(categoryMapper).adjustTransactionCount(anyLong(), anyInt());
+        doAnswer(invocation -> {
+            bookCount[0] += invocation.<Integer>getArgument(1);
+            return 1;
+        }).when(accountBookMapper).adjustTransactionCount(eq(ACCOUNT_BOOK_ID), anyInt());
+
+        for (int[] op : operations) {
+            long categoryId = op[1] + 1;
+            List<Long> ids = new ArrayList<>(rows.keySet());
+            if (op[0] == 0 || ids.isEmpty()) {
+                service.createTransaction(USER_ID, dto(categoryId));
+            } else if (op[0] == 1) {
+                service.updateTransaction(USER_ID, ids.get(op[2] % ids.size()), dto(categoryId));
+            } else {
+                service.deleteTransaction(USER_ID, ids.get(op[2] % ids.size()));
+            }
+        }
+
+        assertEquals(rows.size(), bookCount[0]);
+        for (long categoryId = 1; categoryId <= CATEGORY_COUNT; categoryId++) {
+            long id = categoryId;
+            long expected = rows.values().stream().filter(t -> t.getCategoryId() == id).count();
+            assertEquals(expected, (long) categoryCounts.getOrDefault(categoryId, 0));
+        }
+    }
+
+    /**
+     * When another request deletes the transaction between the lookup and the write, the
+     * losing delete or update leaves every counter untouched.
+     */
+    @Property(tries = 30)
+    void concurrentDeleteShouldNotAdjustCountersTwice(@ForAll boolean update,
+                                                      @ForAll @IntRange(min = 1, max = CATEGORY_COUNT) int newCategory) {
+        TransactionMapper transactionMapper = Mockito.mock(TransactionMapper.class);
+        AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        TransactionService service = createService(transactionMapper, accountBookMapper, categoryMapper);
+
+        // Given: the row is still visible to the lookup but already gone when written
+        Transaction existing = new Transaction();
+        existing.setId(7L);
+        existing.setAccountBookId(ACCOUNT_BOOK_ID);
+        existing.setCategoryId(1L);
+        existing.setType(Transaction.TYPE_EXPENSE);
+        existing.setAmount(new BigDecimal("10.00"));
+        existing.setTransactionDate(LocalDate.now());
+        when(transactionMapper.findById(7L)).thenAnswer(invocation -> copy(existing));
+        when(transactionMapper.update(any(Transaction.class))).thenReturn(0);
+        when(transactionMapper.deleteById(7L)).thenReturn(0);
+
+        // When: the losing request runs
+        if (update) {
+            assertThrows(BusinessException.class, () -> service.updateTransaction(USER_ID, 7L, dto(newCategory)));
+        } else {
+            service.deleteTransaction(USER_ID, 7L);
+        }
+
+        // Then: no counter is adjusted
+        verify(categoryMapper, never()).adjustTransactionCount(anyLong(), anyInt());
+        verify(accountBookMapper, never()).adjustTransactionCount(anyLong(), anyInt());
+    }
+
+    /**
+     * For any max id and batch size, reconciliation covers ids 1..max in contiguous,
+     * non-overlapping ranges for both tables and reports the repaired rows as a metric.
+     */
+    @Property(tries = 50)
+    void reconcileShouldCoverAllIdsInBatches(@ForAll @LongRange(min = 0, max = 5000) long maxCategoryId,
+                                             @ForAll @LongRange(min = 0, max = 5000) long maxAccountBookId,
+                                             @ForAll @IntRange(min = 1, max = 700) int batchSize,
+                                             @ForAll @IntRange(min = 0, max = 3) int repairedPerBatch) {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TransactionCountReconcileService service = new TransactionCountReconcileService();
+        setField(service, "categoryMapper", categoryMapper);
+        setField(service, "accountBookMapper", accountBookMapper);
+        setField(service, "meterRegistry", registry);
+        setField(service, "batchSize", batchSize);
+
+        List<long[]> categoryRanges = new ArrayList<>();
+        List<long[]> accountBookRanges = new ArrayList<>();
+        when(categoryMapper.findMaxId()).thenReturn(maxCategoryId);
+        when(accountBookMapper.findMaxId()).thenReturn(maxAccountBookId);
+        when(categoryMapper.reconcileTransactionCounts(anyLong(), anyLong())).thenAnswer(invocation -> {
+            categoryRanges.add(new long[]{invocation.getArgument(0), invocation.getArgument(1)});
+            return repairedPerBatch;
+        });
+        when(accountBookMapper.reconcileTransactionCounts(anyLong(), anyLong())).thenAnswer(invocation -> {
+            accountBookRanges.add(new long[]{invocation.getArgument(0), invocation.getArgument(1)});
+            return repairedPerBatch;
+        });
+
+        long repaired = service.reconcile();
+
+        assertCovers(categoryRanges, maxCategoryId, batchSize);
+        assertCovers(accountBookRanges, maxAccountBookId, batchSize);
+        assertEquals((long) (categoryRanges.size() + accountBookRanges.size()) * repairedPerBatch, repaired);
+        assertEquals((double) categoryRanges.size() * repairedPerBatch, registry.counter(
+                "transaction.count.repaired.rows", "table", TransactionCountReconcileService.CATEGORY_TABLE).count());
+        assertEquals((double) accountBookRanges.size() * repairedPerBatch, registry.counter(
+                "transaction.count.repaired.rows", "table", TransactionCountReconcileService.ACCOUNT_BOOK_TABLE).count());
+    }
+
+    /**
+     * A failure while reconciling categories does not stop the account book reconciliation.
+     */
+    @Example
+    void categoryFailureShouldNotStopAccountBooks() {
+        CategoryMapper categoryMapper = Mockito.mock(CategoryMapper.class);
+        AccountBookMapper accountBookMapper = Mockito.mock(AccountBookMapper.class);
+        TransactionCountReconcileService service = new TransactionCountReconcileService();
+        setField(service, "categoryMapper", categoryMapper);
+        setField(service, "accountBookMapper", accountBookMapper);
+        setField(service, "meterRegistry", new SimpleMeterRegistry());
+
+        when(categoryMapper.findMaxId()).thenThrow(new RuntimeException("db down"));
+        when(accountBookMapper.findMaxId()).thenReturn(10L);
+        when(accountBookMapper.reconcileTransactionCounts(anyLong(), anyLong())).thenReturn(2);
+
+        assertEquals(2, service.reconcile());
+        verify(accountBookMapper).reconcileTransactionCounts(1L, 1000L);
+    }
+
+    @Provide
+    Arbitrary<List<int[]>> operations() {
+        Arbitrary<int[]> op = Combinators.combine(
+                Arbitraries.integers().between(0, 2),
+                Arbitraries.integers().between(0, CATEGORY_COUNT - 1),
+                Arbitraries.integers().between(0, 1000)
+        ).as((kind, category, index) -> new int[]{kind, category, index});
+        return op.list().ofMinSize(1).ofMaxSize(40);
+    }
+
+    private void assertCovers(List<long[]> ranges, long maxId, int batchSize) {
+        long next = 1;
+        for (long[] range : ranges) {
+            assertEquals(next, range[0]);
+            assertTrue(range[1] - range[0] + 1 <= batchSize);
+            next = range[1] + 1;
+        }
+        assertTrue(next > maxId);
+        assertEquals(maxId == 0 ? 0 : (maxId + batchSize - 1) / batchSize, ranges.size());
+    }
+
+    private TransactionDTO dto(long categoryId) {
+        TransactionDTO dto = new TransactionDTO();
+        dto.setAccountBookId(ACCOUNT_BOOK_ID);
+        dto.setCategoryId(categoryId);
+        dto.setType(Transaction.TYPE_EXPENSE);
+        dto.setAmount(new BigDecimal("10.00"));
+        dto.setTransactionDate(LocalDate.now());
+        return dto;
+    }
+
+    private Transaction copy(Transaction source) {
+        Transaction t = new Transaction();
+        t.setId(source.getId());
+        t.setAccountBookId(source.getAccountBookId());
+        t.setCategoryId(source.getCategoryId());
+        t.setUserId(source.getUserId());
+        t.setType(source.getType());
+        t.setAmount(source.getAmount());
+        t.setNote(source.getNote());
+        t.setTransactionDate(source.getTransactionDate());
+        return t;
+    }
+
+    private TransactionService createService(TransactionMapper transactionMapper,
+                                             AccountBookMapper accountBookMapper,
+                                             CategoryMapper categoryMapper) {
+        FamilyMemberMapper familyMemberMapper = Mockito.mock(FamilyMemberMapper.class);
+        FamilyMember member = new FamilyMember();
+        member.setFamilyId(FAMILY_ID);
+        member.setUserId(USER_ID);
+        when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+        AccountBook accountBook = new AccountBook();
+        accountBook.setId(ACCOUNT_BOOK_ID);
+        accountBook.setFamilyId(FAMILY_ID);
+        accountBook.setName("默认账本");
+        when(accountBookMapper.findById(ACCOUNT_BOOK_ID)).thenReturn(accountBook);
+
+        for (long categoryId = 1; categoryId <= CATEGORY_COUNT; categoryId++) {
+            Category category = new Category();
+            category.setId(categoryId);
+            category.setFamilyId(FAMILY_ID);
+            category.setName("分类" + categoryId);
+            category.setType(Category.TYPE_EXPENSE);
+            when(categoryMapper.findById(categoryId)).thenReturn(category);
+        }
+
+        UserMapper userMapper = Mockito.mock(UserMapper.class);
+        User user = new User();
+        user.setId(USER_ID);
+        user.setNickname("测试用户");
+        when(userMapper.findById(USER_ID)).thenReturn(user);
+
+        TransactionService service = new TransactionService();
+        setField(service, "transactionMapper", transactionMapper);
+        setField(service, "accountBookMapper", accountBookMapper);
+        setField(service, "categoryMapper", categoryMapper);
+        setField(service, "familyMemberMapper", familyMemberMapper);
+        setField(service, "userMapper", userMapper);
+        return service;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.family.accounting.service;
+
+import com.family.accounting.dto.TransactionMoveDTO;
+import com.family.accounting.entity.AccountBook;
+import com.family.accounting.entity.FamilyMember;
+import com.family.accounting.entity.Transaction;
+import com.family.accounting.exception.BusinessException;
+import com.family.accounting.mapper.AccountBookMapper;
+import com.family.accounting.mapper.CategoryMapper;
+import com.family.accounting.mapper.FamilyMemberMapper;
+import com.family.accounting.mapper.TransactionMapper;
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 交易批量移动属性测试
+ * <p>
+ * Feature: transaction-move, Property: 只移动源账本中符合筛选条件的交易，按批提交，两个账本的计数与数据版本号同步更新
+ */
+class TransactionMovePropertyTest {
+
+    private static final long USER_ID = 1L;
+    private static final long FAMILY_ID = 10L;
+    private static final long SOURCE_ID = 100L;
+    private static final long TARGET_ID = 200L;
+    private static final long OTHER_FAMILY_BOOK_ID = 300L;
+    private static final LocalDate BASE_DATE = LocalDate.of(2024, 1, 1);
+
+    /**
+     * For any set of transactions and any filter, exactly the source book's matching rows end
+     * up in the target, the book counters move by the same amount, and both books' data
+     * versions are bumped for every batch that moved rows.
+     */
+    @Property(tries = 50)
+    void moveShouldReassignExactlyTheMatchingRows(@ForAll @IntRange(min = 0, max = 400) int count,
+                                                  @ForAll @IntRange(min = 1, max = 100) int batchSize,
+                                                  @ForAll("dateBounds") Integer startOffset,
+                                                  @ForAll("dateBounds") Integer endOffset,
+                                                  @ForAll boolean filterCategories,
+                                                  @ForAll boolean filterMembers) {
+        List<Transaction> transactions = transactions(count);
+        TransactionMoveDTO dto = new TransactionMoveDTO();
+        dto.setSourceAccountBookId(SOURCE_ID);
+        dto.setTargetAccountBookId(TARGET_ID);
+        dto.setStartDate(startOffset != null ? BASE_DATE.plusDays(startOffset) : null);
+        dto.setEndDate(endOffset != null ? BASE_DATE.plusDays(endOffset) : null);
+        Assume.that(dto.getStartDate() == null || dto.getEndDate() == null || !dto.getStartDate().isAfter(dto.getEndDate()));
+        dto.setCategoryIds(filterCategories ? Collections.singletonList(1L) : null);
+        dto.setMemberIds(filterMembers ? Collections.singletonList(2L) : null);
+
+        List<Long> expected = new ArrayList<>();
+        for (Transaction t : transactions) {
+            if (matches(t, dto.getStartDate(), dto.getEndDate(), filterCategories ? children(1L) : null, dto.getMemberIds())) {
+                expected.add(t.getId());
+            }
+        }
+
+        Fixture fixture = new Fixture(transactions, batchSize);
+        int moved = fixture.service.moveTransactions(USER_ID, dto);
+
+        assertEquals(expected.size(), moved);
+        for (Transaction t : transactions) {
+            if (expected.contains(t.getId())) {
+                assertEquals(TARGET_ID, t.getAccountBookId());
+            } else {
+                assertNotEquals(TARGET_ID, t.getAccountBookId());
+            }
+        }
+        assertEquals(-moved, fixture.bookDeltas.getOrDefault(SOURCE_ID, 0).intValue());
+        assertEquals(moved, fixture.bookDeltas.getOrDefault(TARGET_ID, 0).intValue());
+        int batches = (moved + batchSize - 1) / batchSize;
+        verify(fixture.accountBookMapper, times(batches)).incrementDataVersion(SOURCE_ID);
+        verify(fixture.accountBookMapper, times(batches)).incrementDataVersion(TARGET_ID);
+        verify(fixture.categoryMapper, never()).adjustTransactionCount(anyLong(), anyInt());
+    }
+
+    /**
+     * Moving into the same book or into another family's book is rejected before any row moves.
+     */
+    @Property(tries = 10)
+    void invalidTargetShouldBeRejected(@ForAll("invalidTargets") long targetId) {
+        Fixture fixture = new Fixture(transactions(20), 10);
+        TransactionMoveDTO dto = new TransactionMoveDTO();
+        dto.setSourceAccountBookId(SOURCE_ID);
+        dto.setTargetAccountBookId(targetId);
+
+        assertThrows(BusinessException.class, () -> fixture.service.moveTransactions(USER_ID, dto));
+        verify(fixture.transactionMapper, never()).moveToAccountBook(any(), any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Provide
+    Arbitrary<Integer> dateBounds() {
+        return Arbitraries.integers().between(0, 60).injectNull(0.4);
+    }
+
+    @Provide
+    Arbitrary<Long> invalidTargets() {
+        return Arbitraries.of(SOURCE_ID, OTHER_FAMILY_BOOK_ID);
+    }
+
+    /**
+     * 源账本与另一账本中的交易，分类1有子分类11
+     */
+    private List<Transaction> transactions(int count) {
+        List<Transaction> transactions = new ArrayList<>();
+        long[] categories = {1L, 11L, 2L, 3L};
+        for (int i = 0; i < count; i++) {
+            Transaction t = new Transaction();
+            t.setId((long) i + 1);
+            t.setAccountBookId(i % 5 == 0 ? 400L : SOURCE_ID);
+            t.setCategoryId(categories[i % categories.length]);
+            t.setUserId((long) (i % 3 + 1));
+            t.setTransactionDate(BASE_DATE.plusDays(i % 61));
+            transactions.add(t);
+        }
+        return transactions;
+    }
+
+    private List<Long> children(long categoryId) {
+        return categoryId == 1L ? Arrays.asList(1L, 11L) : Collections.singletonList(categoryId);
+    }
+
+    private boolean matches(Transaction t, LocalDate startDate, LocalDate endDate, List<Long> categoryIds, List<Long> memberIds) {
+        return t.getAccountBookId() == SOURCE_ID
+                && (startDate == null || !t.getTransactionDate().isBefore(startDate))
+                && (endDate == null || !t.getTransactionDate().isAfter(endDate))
+                && (categoryIds == null || categoryIds.contains(t.getCategoryId()))
+                && (memberIds == null || memberIds.contains(t.getUserId()));
+    }
+
+    /**
+     * 内存中的交易表及账本计数
+     */
+    private class Fixture {
+        final Map<Long, Integer> bookDeltas = new HashMap<>();
+        final TransactionMapper transactionMapper = mock(TransactionMapper.class);
+        final AccountBookMapper accountBookMapper = mock(AccountBookMapper.class);
+        final CategoryMapper categoryMapper = mock(CategoryMapper.class);
+        final TransactionService service = new TransactionService();
+
+        Fixture(List<Transaction> transactions, int batchSize) {
+            when(accountBookMapper.findById(SOURCE_ID)).thenReturn(book(SOURCE_ID, FAMILY_ID));
+            when(accountBookMapper.findById(TARGET_ID)).thenReturn(book(TARGET_ID, FAMILY_ID));
+            when(accountBookMapper.findById(OTHER_FAMILY_BOOK_ID)).thenReturn(book(OTHER_FAMILY_BOOK_ID, 99L));
+            doAnswer(invocation -> {
+                bookDeltas.merge(invocation.getArgument(0), invocation.<Integer>getArgument(1), Integer::sum);
+                return 1;
+            }).when(accountBookMapper).adjustTransactionCount(anyLong(), anyInt());
+            when(categoryMapper.findAllDescendantIds(anyLong()))
+                    .thenAnswer(invocation -> children(invocation.getArgument(0)));
+
+            when(transactionMapper.moveToAccountBook(any(), any(), any(), any(), any(), any(), anyInt()))
+                    .thenAnswer(invocation -> {
+                        int limit = invocation.getArgument(6);
+                        int moved = 0;
+                        for (Transaction t : transactions) {
+                            if (moved >= limit) {
+                                break;
+                            }
+                            if (invocation.<Long>getArgument(0).equals(t.getAccountBookId())
+                                    && matches(t, invocation.getArgument(2), invocation.getArgument(3),
+                                    invocation.getArgument(4), invocation.getArgument(5))) {
+                                t.setAccountBookId(invocation.getArgument(1));
+                                moved++;
+                            }
+                        }
+                        return moved;
+                    });
+
+            FamilyMemberMapper familyMemberMapper = mock(FamilyMemberMapper.class);
+            FamilyMember member = new FamilyMember();
+            member.setFamilyId(FAMILY_ID);
+            member.setUserId(USER_ID);
+            when(familyMemberMapper.findByUserId(USER_ID)).thenReturn(member);
+
+            setField(service, "transactionMapper", transactionMapper);
+            setField(service, "accountBookMapper", accountBookMapper);
+            setField(service, "categoryMapper", categoryMapper);
+            setField(service, "familyMemberMapper", familyMemberMapper);
+            setField(service, "transactionTemplate", new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)));
+            setField(service, "moveBatchSize", batchSize);
+        }
+    }
+
+    private AccountBook book(long id, long familyId) {
+        AccountBook book = new AccountBook();
+        book.setId(id);
+        book.setFamilyId(familyId);
+        book.setIsDefault(0);
+        return book;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -51,6 +51,7 @@ class UserServicePropertyTest {
         setField(userService, "captchaService", mockCaptchaService);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
 
         // Setup: captcha verification returns true (bypass captcha check)
         when(mockCaptchaService.verifyCaptcha(any(), any())).thenReturn(true);
@@ -109,6 +110,7 @@ class UserServicePropertyTest {
         setField(userService, "captchaService", mockCaptchaService);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
 
         // Setup: captcha verification returns true (bypass captcha check)
         when(mockCaptchaService.verifyCaptcha(any(), any())).thenReturn(true);
@@ -163,6 +165,7 @@ class UserServicePropertyTest {
         setField(userService, "captchaService", mockCaptchaService);
         setField(userService, "securityService", mockSecurityService);
         setField(userService, "tokenBlacklistService", mockTokenBlacklistService);
+        setField(userService, "refreshTokenService", Mockito.mock(RefreshTokenService.class));
 
         // Setup: captcha verification returns true (bypass captcha check)
         when(mockCaptchaService.verifyCaptcha(any(), any())).thenReturn(true);
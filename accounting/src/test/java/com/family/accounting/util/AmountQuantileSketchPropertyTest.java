@@ -0,0 +1,85 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 金额分位数草图属性测试
+ * <p>
+ * Feature: search-amount-distribution, Property: 分位数相对误差与可合并性
+ */
+class AmountQuantileSketchPropertyTest {
+
+    /**
+     * For any set of positive amounts, the estimated quantile should be within
+     * the configured relative accuracy of the exact quantile at the same rank.
+     */
+    @Property(tries = 100)
+    void quantileShouldBeWithinRelativeAccuracy(
+            @ForAll("amountLists") List<Double> amounts,
+            @ForAll @DoubleRange(min = 0.0, max = 1.0) double quantile
+    ) {
+        AmountQuantileSketch sketch = new AmountQuantileSketch();
+        amounts.forEach(sketch::add);
+
+        List<Double> sorted = new ArrayList<>(amounts);
+        Collections.sort(sorted);
+        double exact = sorted.get((int) Math.floor(quantile * (sorted.size() - 1)));
+
+        double estimate = sketch.quantile(quantile);
+        assertTrue(Math.abs(estimate - exact) <= exact * sketch.getRelativeAccuracy() + 1e-9,
+                "estimate " + estimate + " too far from exact " + exact);
+    }
+
+    /**
+     * For any split of the input, merging the two partial sketches should give the
+     * same quantiles, count, min and max as one sketch built over the whole input.
+     */
+    @Property(tries = 100)
+    void mergedSketchShouldEqualSingleSketch(
+            @ForAll("amountLists") List<Double> amounts,
+            @ForAll @IntRange(min = 0, max = 200) int splitSeed
+    ) {
+        int split = splitSeed % (amounts.size() + 1);
+
+        AmountQuantileSketch whole = new AmountQuantileSketch();
+        AmountQuantileSketch left = new AmountQuantileSketch();
+        AmountQuantileSketch right = new AmountQuantileSketch();
+        for (int i = 0; i < amounts.size(); i++) {
+            whole.add(amounts.get(i));
+            (i < split ? left : right).add(amounts.get(i));
+        }
+        left.merge(right);
+
+        assertEquals(whole.getCount(), left.getCount());
+        assertEquals(whole.getMin(), left.getMin());
+        assertEquals(whole.getMax(), left.getMax());
+        for (double q : new double[]{0.0, 0.5, 0.9, 0.99, 1.0}) {
+            assertEquals(whole.quantile(q), left.quantile(q));
+        }
+    }
+
+    /**
+     * An empty sketch has no quantiles.
+     */
+    @Example
+    void emptySketchShouldReturnNaN() {
+        AmountQuantileSketch sketch = new AmountQuantileSketch();
+        assertTrue(sketch.isEmpty());
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    }
+
+    @Provide
+    Arbitrary<List<Double>> amountLists() {
+        // 金额 0.01 ~ 9999999999.99，与 DECIMAL(12,2) 范围一致
+        return Arbitraries.longs().between(1L, 999_999_999_999L)
+                .map(cents -> cents / 100.0)
+                .list().ofMinSize(1).ofMaxSize(300);
+    }
+}
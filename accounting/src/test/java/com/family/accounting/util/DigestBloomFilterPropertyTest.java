@@ -0,0 +1,64 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 摘要布隆过滤器属性测试
+ * <p>
+ * Feature: blacklist-bloom-filter, Property: 无漏判、误判率接近目标值
+ */
+class DigestBloomFilterPropertyTest {
+
+    /**
+     * For any set of inserted digests, every one of them is reported as possibly present.
+     */
+    @Property(tries = 50)
+    void shouldHaveNoFalseNegatives(@ForAll @Size(max = 500) List<@AlphaChars @StringLength(min = 1, max = 20) String> items) throws Exception {
+        DigestBloomFilter filter = new DigestBloomFilter(1000, 0.001);
+        for (String item : items) {
+            filter.put(sha256(item));
+        }
+        for (String item : items) {
+            assertTrue(filter.mightContain(sha256(item)));
+        }
+    }
+
+    /**
+     * At the expected capacity, the observed false positive rate stays near the target.
+     */
+    @Example
+    void falsePositiveRateShouldStayNearTarget() throws Exception {
+        DigestBloomFilter filter = new DigestBloomFilter(10_000, 0.001);
+        Set<String> inserted = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            inserted.add("token-" + i);
+            filter.put(sha256("token-" + i));
+        }
+        assertFalse(filter.isSaturated());
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(sha256("other-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.003, "false positives: " + falsePositives);
+
+        filter.put(sha256("one-more"));
+        assertTrue(filter.isSaturated());
+    }
+
+    private static byte[] sha256(String value) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
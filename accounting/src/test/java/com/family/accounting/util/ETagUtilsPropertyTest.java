@@ -0,0 +1,46 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETag工具类属性测试
+ * <p>
+ * Feature: etag, Property: If-None-Match 中任一值（含弱ETag和 *）与当前ETag相同即匹配，版本不同不匹配
+ */
+class ETagUtilsPropertyTest {
+
+    /**
+     * An ETag matches itself, its weak form, and any list containing it.
+     */
+    @Property(tries = 100)
+    void etagShouldMatchItselfInAnyForm(@ForAll @LongRange(min = 1, max = 100000) long familyId,
+                                        @ForAll @LongRange(min = 0, max = 100000) long version,
+                                        @ForAll @LongRange(min = 0, max = 100000) long other,
+                                        @ForAll boolean weak) {
+        String etag = ETagUtils.of("category", familyId, version);
+        String sent = weak ? "W/" + etag : etag;
+
+        assertTrue(ETagUtils.matches(sent, etag));
+        assertTrue(ETagUtils.matches(ETagUtils.of("category", familyId, other) + " , " + sent, etag));
+        assertTrue(ETagUtils.matches("*", etag));
+    }
+
+    /**
+     * Different versions or families never match, and a missing header never matches.
+     */
+    @Property(tries = 100)
+    void differentEtagShouldNotMatch(@ForAll @LongRange(min = 1, max = 100000) long familyId,
+                                     @ForAll @LongRange(min = 0, max = 100000) long version,
+                                     @ForAll @LongRange(min = 0, max = 100000) long other) {
+        Assume.that(version != other);
+        String etag = ETagUtils.of("category", familyId, version);
+
+        assertFalse(ETagUtils.matches(ETagUtils.of("category", familyId, other), etag));
+        assertFalse(ETagUtils.matches(ETagUtils.of("category", familyId + 1, version), etag));
+        assertFalse(ETagUtils.matches(null, etag));
+        assertFalse(ETagUtils.matches("", etag));
+    }
+}
@@ -0,0 +1,111 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 失败次数窗口跟踪器属性测试
+ * <p>
+ * Feature: login-lockout-tracker, Property: 窗口内失败次数触发锁定、锁定精确到期、历史只加载一次
+ */
+class FailureWindowTrackerPropertyTest {
+
+    private static final long MINUTE = 60_000L;
+
+    /**
+     * For any gap between failures, the key is locked exactly when the last 5 failures
+     * span no more than the window, and the lock lasts 30 minutes from the last failure.
+     */
+    @Property(tries = 100)
+    void shouldLockOnlyWhenFailuresFitWindow(
+            @ForAll @LongRange(min = 0, max = 10 * MINUTE) long gap,
+            @ForAll @LongRange(min = 0, max = 40 * MINUTE) long elapsed
+    ) {
+        AtomicLong now = new AtomicLong(100 * MINUTE);
+        FailureWindowTracker tracker = new FailureWindowTracker(5, 15 * MINUTE, 30 * MINUTE, 100, now::get);
+
+        for (int i = 0; i < 5; i++) {
+            if (i > 0) {
+                now.addAndGet(gap);
+            }
+            tracker.recordFailure("13800000000", key -> new long[0]);
+        }
+        long lastFailure = now.get();
+        now.addAndGet(elapsed);
+
+        long remaining = tracker.remainingLockoutMillis("13800000000", key -> new long[0]);
+        if (4 * gap <= 15 * MINUTE) {
+            assertEquals(Math.max(0, lastFailure + 30 * MINUTE - now.get()), remaining);
+        } else {
+            assertEquals(0, remaining);
+        }
+    }
+
+    /**
+     * Only the most recent failures are kept; loaded history is applied once per key.
+     */
+    @Property(tries = 50)
+    void shouldLoadHistoryOnceAndKeepLatestFailures(@ForAll @Size(max = 20) long[] offsets) {
+        AtomicLong now = new AtomicLong(1000 * MINUTE);
+        FailureWindowTracker tracker = new FailureWindowTracker(5, 15 * MINUTE, 30 * MINUTE, 100, now::get);
+        AtomicInteger loads = new AtomicInteger();
+        long[] history = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            history[i] = now.get() - Math.floorMod(offsets[i], 60 * MINUTE);
+        }
+
+        tracker.remainingLockoutMillis("k", key -> {
+            loads.incrementAndGet();
+            return history;
+        });
+        tracker.recordFailure("k", key -> {
+            loads.incrementAndGet();
+            return history;
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(1, tracker.size());
+    }
+
+    /**
+     * Reloading replaces the in-memory failures with the loaded ones, so failures recorded
+     * elsewhere (another node) count toward the lock.
+     */
+    @Property(tries = 20)
+    void reloadShouldApplyExternalFailures(@ForAll @IntRange(min = 1, max = 4) int localFailures) {
+        AtomicLong now = new AtomicLong(100 * MINUTE);
+        FailureWindowTracker tracker = new FailureWindowTracker(5, 15 * MINUTE, 30 * MINUTE, 100, now::get);
+        for (int i = 0; i < localFailures; i++) {
+            tracker.recordFailure("k", key -> new long[0]);
+        }
+        assertEquals(0, tracker.remainingLockoutMillis("k"));
+
+        long[] shared = new long[5];
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = now.get();
+        }
+        assertEquals(30 * MINUTE, tracker.reload("k", key -> shared));
+        assertEquals(30 * MINUTE, tracker.remainingLockoutMillis("k"));
+    }
+
+    /**
+     * Keys idle beyond window + lockout are evicted; a full tracker reports -1 for new keys.
+     */
+    @Example
+    void idleKeysShouldBeEvictedAndFullTrackerShouldDecline() {
+        AtomicLong now = new AtomicLong(100 * MINUTE);
+        FailureWindowTracker tracker = new FailureWindowTracker(5, 15 * MINUTE, 30 * MINUTE, 1, now::get);
+        tracker.recordFailure("a", key -> new long[0]);
+
+        assertEquals(-1, tracker.remainingLockoutMillis("b", key -> new long[0]));
+
+        now.addAndGet(46 * MINUTE);
+        assertEquals(0, tracker.remainingLockoutMillis("b", key -> new long[0]));
+        assertEquals(1, tracker.size());
+    }
+}
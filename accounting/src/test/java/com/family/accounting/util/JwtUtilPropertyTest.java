@@ -0,0 +1,99 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JWT单次解析与声明缓存属性测试
+ * <p>
+ * Feature: jwt-claims-cache, Property: 解析结果与签发内容一致、缓存命中不重复验签、篡改与过期令牌被拒绝
+ */
+class JwtUtilPropertyTest {
+
+    /**
+     * For any issued token, a single parse returns the same user id and phone that were signed.
+     */
+    @Property(tries = 50)
+    void parseShouldReturnIssuedClaims(@ForAll @LongRange(min = 1, max = 1_000_000) long userId,
+                                       @ForAll @NumericChars @StringLength(11) String phone) {
+        JwtUtil jwtUtil = createJwtUtil(86_400_000L);
+        String token = jwtUtil.generateToken(userId, phone);
+
+        JwtClaims claims = jwtUtil.parseToken(token);
+
+        assertNotNull(claims);
+        assertEquals(Long.valueOf(userId), claims.getUserId());
+        assertEquals(phone, claims.getPhone());
+        assertNotNull(claims.getIssuedAt());
+        assertFalse(claims.isExpired(System.currentTimeMillis()));
+        assertTrue(jwtUtil.validateToken(token));
+    }
+
+    /**
+     * Repeat parses of a verified token are served from the cache: even after the signing key
+     * changes, the cached claims are returned without re-verifying the signature.
+     */
+    @Property(tries = 20)
+    void repeatParseShouldSkipSignatureVerification(@ForAll @LongRange(min = 1, max = 1_000_000) long userId) {
+        JwtUtil jwtUtil = createJwtUtil(86_400_000L);
+        String token = jwtUtil.generateToken(userId, "13800000000");
+        JwtClaims first = jwtUtil.parseToken(token);
+
+        setField(jwtUtil, "secret", "another-secret-key-used-after-caching");
+
+        assertSame(first, jwtUtil.parseToken(token));
+        assertNull(jwtUtil.parseToken(token + "x"));
+    }
+
+    /**
+     * Tampered tokens fail verification and are never cached.
+     */
+    @Property(tries = 20)
+    void tamperedTokenShouldBeRejected(@ForAll @LongRange(min = 1, max = 1_000_000) long userId) {
+        JwtUtil jwtUtil = createJwtUtil(86_400_000L);
+        JwtUtil otherIssuer = createJwtUtil(86_400_000L);
+        setField(otherIssuer, "secret", "forged-secret-key-for-property-testing");
+        String forged = otherIssuer.generateToken(userId, "13800000000");
+
+        assertNull(jwtUtil.parseToken(forged));
+        assertNull(jwtUtil.parseToken(forged));
+        assertFalse(jwtUtil.validateToken(forged));
+    }
+
+    /**
+     * Expired tokens are rejected even if their claims were cached earlier.
+     */
+    @Example
+    void expiredTokenShouldBeRejected() throws InterruptedException {
+        JwtUtil jwtUtil = createJwtUtil(1500L);
+        String token = jwtUtil.generateToken(1L, "13800000000");
+        assertNotNull(jwtUtil.parseToken(token));
+
+        Thread.sleep(1600L);
+
+        assertNull(jwtUtil.parseToken(token));
+        assertTrue(jwtUtil.isTokenExpired(token));
+    }
+
+    private JwtUtil createJwtUtil(long expiration) {
+        JwtUtil jwtUtil = new JwtUtil();
+        setField(jwtUtil, "secret", "test-secret-key-for-property-testing-2024");
+        setField(jwtUtil, "expiration", expiration);
+        return jwtUtil;
+    }
+
+    /**
+     * 使用反射设置私有字段
+     */
+    private void setField(Object target, String fieldName, Object value) {
+        try {
+            java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to set field: " + fieldName, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.family.accounting.util;
+
+import com.family.accounting.exception.BusinessException;
+import net.jqwik.api.*;
+import org.mockito.Mockito;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 查询取消令牌属性测试
+ * <p>
+ * Feature: query-cancellation, Property: 取消后的查询以错误码504的业务异常结束，未取消时异常原样抛出
+ */
+class QueryCancellationPropertyTest {
+
+    /**
+     * A token cancelled before the task starts rejects the task with a 504 business error
+     * without running it.
+     */
+    @Example
+    void cancelledTokenShouldNotRunTask() {
+        QueryCancellation token = new QueryCancellation();
+        token.cancel();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> QueryCancellation.runWith(token, () -> ran.getAndSet(true)));
+
+        assertEquals(504, e.getCode());
+        assertFalse(ran.get());
+        assertNull(QueryCancellation.current());
+    }
+
+    /**
+     * Cancelling a child token cancels only its own statements; cancelling the parent cancels
+     * the child's statements too, including children created after the parent was cancelled.
+     */
+    @Example
+    void childTokenShouldFollowParentButCancelAlone() throws SQLException {
+        QueryCancellation parent = new QueryCancellation();
+        QueryCancellation child = parent.newChild();
+        Statement parentStatement = Mockito.mock(Statement.class);
+        Statement childStatement = Mockito.mock(Statement.class);
+        parent.register(parentStatement);
+        child.register(childStatement);
+
+        child.cancel();
+        verify(childStatement).cancel();
+        verify(parentStatement, never()).cancel();
+        assertFalse(parent.isCancelled());
+
+        QueryCancellation sibling = parent.newChild();
+        parent.cancel();
+        verify(parentStatement).cancel();
+        assertTrue(sibling.isCancelled());
+        assertTrue(parent.newChild().isCancelled());
+    }
+
+    /**
+     * For any failure raised by a task whose token was cancelled meanwhile, the caller sees a
+     * 504 business error carrying the original failure; without cancellation the failure is
+     * rethrown unchanged.
+     */
+    @Property(tries = 20)
+    void failureAfterCancelShouldBecomeBusinessError(@ForAll boolean cancelled,
+                                                     @ForAll("failures") RuntimeException failure) {
+        QueryCancellation token = new QueryCancellation();
+
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> QueryCancellation.runWith(token, () -> {
+            if (cancelled) {
+                token.cancel();
+            }
+            throw failure;
+        }));
+
+        if (cancelled) {
+            assertTrue(thrown instanceof BusinessException);
+            assertEquals(504, ((BusinessException) thrown).getCode());
+            assertSame(failure, thrown.getCause());
+        } else {
+            assertSame(failure, thrown);
+        }
+        assertNull(QueryCancellation.current());
+    }
+
+    @Provide
+    Arbitrary<RuntimeException> failures() {
+        return Arbitraries.of(
+                new IllegalStateException("statement cancelled"),
+                new QueryTimeoutException("timeout"),
+                new RuntimeException("connection reset"));
+    }
+}
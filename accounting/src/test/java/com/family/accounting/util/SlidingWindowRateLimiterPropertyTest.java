@@ -0,0 +1,101 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 滑动窗口限流器属性测试
+ * <p>
+ * Feature: in-memory-rate-limit, Property: 窗口内计数、窗口滑动与空闲淘汰
+ */
+class SlidingWindowRateLimiterPropertyTest {
+
+    /**
+     * For any number of requests within one sub-bucket, the limiter allows exactly
+     * limit - 1 of them and rejects the rest.
+     */
+    @Property(tries = 50)
+    void shouldAllowUpToLimitWithinWindow(
+            @ForAll @IntRange(min = 1, max = 200) int limit,
+            @ForAll @IntRange(min = 0, max = 400) int requests
+    ) {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(limit, 60_000L, 12, 100, now::get);
+
+        int allowed = 0;
+        for (int i = 0; i < requests; i++) {
+            if (limiter.tryAcquire("10.0.0.1")) {
+                allowed++;
+            }
+        }
+
+        assertEquals(Math.min(requests, limit - 1), allowed);
+        assertEquals(requests, limiter.currentCount("10.0.0.1"));
+    }
+
+    /**
+     * For any request burst, counts leave the window once a full window has passed.
+     */
+    @Property(tries = 50)
+    void countsShouldExpireAfterWindow(
+            @ForAll @IntRange(min = 1, max = 300) int requests,
+            @ForAll @LongRange(min = 60_000L, max = 600_000L) long elapsed
+    ) {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(100, 60_000L, 12, 100, now::get);
+        for (int i = 0; i < requests; i++) {
+            limiter.tryAcquire("10.0.0.1");
+        }
+
+        now.addAndGet(elapsed);
+
+        assertEquals(0, limiter.currentCount("10.0.0.1"));
+        assertFalse(limiter.isLimited("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+    }
+
+    /**
+     * Idle keys are evicted, and a full limiter evicts idle keys to admit new ones.
+     */
+    @Example
+    void idleKeysShouldBeEvicted() {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(100, 60_000L, 12, 2, now::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        assertEquals(2, limiter.size());
+
+        now.addAndGet(60_000L);
+        limiter.tryAcquire("c");
+
+        assertEquals(1, limiter.size());
+        assertEquals(1, limiter.currentCount("c"));
+    }
+
+    /**
+     * For any number of new keys arriving while the limiter is full of active keys, the new keys
+     * share one overflow window and are limited together instead of being admitted unconditionally.
+     */
+    @Property(tries = 30)
+    void fullLimiterShouldLimitNewKeysTogether(@ForAll @IntRange(min = 1, max = 300) int newKeys) {
+        AtomicLong now = new AtomicLong(1_000_000L);
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(100, 60_000L, 12, 2, now::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+
+        int allowed = 0;
+        for (int i = 0; i < newKeys; i++) {
+            if (limiter.tryAcquire("overflow-" + i)) {
+                allowed++;
+            }
+        }
+
+        assertEquals(Math.min(newKeys, 99), allowed);
+        assertEquals(2, limiter.size());
+        assertEquals(newKeys >= 100, limiter.isLimited("another"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.family.accounting.util;
+
+import net.jqwik.api.*;
+import net.jqwik.api.constraints.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Space-Saving 草图属性测试
+ * <p>
+ * Feature: search-trending, Property: 固定容量、计数上下界与高频项保留
+ */
+class SpaceSavingSketchPropertyTest {
+
+    /**
+     * For any stream of keywords, the sketch never tracks more than its capacity, and
+     * every tracked item satisfies count - error <= true count <= count.
+     */
+    @Property(tries = 100)
+    void countsShouldBoundTrueFrequency(
+            @ForAll("keywordStreams") List<String> stream,
+            @ForAll @IntRange(min = 1, max = 20) int capacity
+    ) {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<String, Long> exact = new HashMap<>();
+        for (String keyword : stream) {
+            sketch.offer(keyword);
+            exact.merge(keyword, 1L, Long::sum);
+        }
+
+        assertTrue(sketch.size() <= capacity);
+        for (SpaceSavingSketch.Entry entry : sketch.snapshot()) {
+            long trueCount = exact.getOrDefault(entry.getItem(), 0L);
+            assertTrue(entry.getCount() >= trueCount, "count must not underestimate");
+            assertTrue(entry.getCount() - entry.getError() <= trueCount, "lower bound must hold");
+        }
+    }
+
+    /**
+     * For any stream, every keyword occurring more than N / capacity times must be tracked.
+     */
+    @Property(tries = 100)
+    void heavyHittersShouldBeRetained(
+            @ForAll("keywordStreams") List<String> stream,
+            @ForAll @IntRange(min = 1, max = 20) int capacity
+    ) {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+        Map<String, Long> exact = new HashMap<>();
+        for (String keyword : stream) {
+            sketch.offer(keyword);
+            exact.merge(keyword, 1L, Long::sum);
+        }
+
+        Map<String, Long> tracked = new HashMap<>();
+        sketch.snapshot().forEach(entry -> tracked.put(entry.getItem(), entry.getCount()));
+        double threshold = (double) stream.size() / capacity;
+        exact.forEach((keyword, count) -> {
+            if (count > threshold) {
+                assertTrue(tracked.containsKey(keyword), keyword + " occurs " + count + " times but was evicted");
+            }
+        });
+    }
+
+    /**
+     * Decay scales counts down and drops items whose count reaches zero.
+     */
+    @Example
+    void decayShouldDropExhaustedItems() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+        sketch.offer("买菜", 10, 0);
+        sketch.offer("打车", 1, 0);
+
+        sketch.decay(0.5);
+
+        List<SpaceSavingSketch.Entry> top = sketch.top(10);
+        assertEquals(1, top.size());
+        assertEquals("买菜", top.get(0).getItem());
+        assertEquals(5, top.get(0).getCount());
+    }
+
+    @Provide
+    Arbitrary<List<String>> keywordStreams() {
+        // 偏斜分布：少数关键词出现频率高
+        Arbitrary<String> keyword = Arbitraries.frequencyOf(
+                Tuple.of(10, Arbitraries.of("早餐", "午饭", "超市")),
+                Tuple.of(1, Arbitraries.strings().withCharRange('a', 'z').ofLength(3))
+        );
+        return keyword.list().ofMinSize(1).ofMaxSize(500);
+    }
+}
@@ -16,9 +16,14 @@ export default {
     return request.put(`/account-book/${id}`, data)
   },
 
-  // 删除账本
-  delete (id) {
-    return request.delete(`/account-book/${id}`)
+  // 删除账本（有交易时需强制删除，由后台分批删除）
+  delete (id, force = false) {
+    return request.delete(`/account-book/${id}`, { params: { force } })
+  },
+
+  // 获取账本删除任务进度
+  getDeleteJob (jobId) {
+    return request.get(`/account-book/delete-jobs/${jobId}`)
   },
 
   // 设为默认账本
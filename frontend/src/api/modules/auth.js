@@ -16,9 +16,14 @@ export default {
     return request.post('/auth/login', data)
   },
 
-  // 用户登出
-  logout () {
-    return request.post('/auth/logout')
+  // 刷新访问令牌
+  refresh (refreshToken) {
+    return request.post('/auth/refresh', { refreshToken })
+  },
+
+  // 用户登出（同时撤销刷新令牌）
+  logout (refreshToken) {
+    return request.post('/auth/logout', refreshToken ? { refreshToken } : undefined)
   },
 
   // 获取当前用户信息
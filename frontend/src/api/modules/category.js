@@ -1,9 +1,9 @@
 import request from '../request'
 
 export default {
-  // 获取分类树
-  getTree (type) {
-    return request.get('/category', { params: { type } })
+  // 获取分类树（withCounts为false时不统计关联交易数量）
+  getTree (type, withCounts = true) {
+    return request.get('/category', { params: { type, withCounts } })
   },
 
   // 创建分类
@@ -21,6 +21,11 @@ export default {
     return request.delete(`/category/${id}`)
   },
 
+  // 合并分类（源分类及其子分类的交易转入目标分类后删除源分类）
+  merge (id, targetId) {
+    return request.post(`/category/${id}/merge`, { targetId })
+  },
+
   // 获取可用图标列表
   getIcons () {
     return request.get('/category/icons')
@@ -19,5 +19,11 @@ export default {
   // 删除交易记录
   delete (id) {
     return request.delete(`/transaction/${id}`)
+  },
+
+  // 批量移动交易记录到其他账本
+  // data: { sourceAccountBookId, targetAccountBookId, startDate, endDate, categoryIds, memberIds }
+  move (data) {
+    return request.post('/transaction/move', data)
   }
 }
@@ -1,5 +1,5 @@
 import axios from 'axios'
-import store from '@/store'
+import store, { PERSIST_KEY } from '@/store'
 import router from '@/router'
 import { Toast, Dialog } from 'vant'
 
@@ -32,6 +32,59 @@ const service = axios.create({
   }
 })
 
+// 正在进行的令牌刷新，多个请求同时遇到401时共用同一次刷新
+let refreshPromise = null
+
+// 跨标签页的刷新锁名称
+const REFRESH_LOCK_NAME = 'family-accounting-refresh'
+
+// 读取 localStorage 中持久化的令牌（其他标签页刷新后会更新）
+function readPersistedUser () {
+  try {
+    const persisted = JSON.parse(localStorage.getItem(PERSIST_KEY))
+    return (persisted && persisted.user) || {}
+  } catch (e) {
+    return {}
+  }
+}
+
+// 多个标签页共用同一个刷新令牌，通过 Web Locks 串行刷新；不支持时直接执行，由服务端宽限期兜底
+function withRefreshLock (task) {
+  if (navigator.locks && navigator.locks.request) {
+    return navigator.locks.request(REFRESH_LOCK_NAME, task)
+  }
+  return task()
+}
+
+// 使用刷新令牌换取新的访问令牌（不经过拦截器，避免递归）
+function refreshAccessToken () {
+  if (!refreshPromise) {
+    const staleRefreshToken = store.state.user.refreshToken
+    refreshPromise = withRefreshLock(() => {
+      // 等待锁期间其他标签页已完成轮换，直接使用其结果
+      const persisted = readPersistedUser()
+      if (persisted.token && persisted.refreshToken && persisted.refreshToken !== staleRefreshToken) {
+        store.dispatch('user/setToken', persisted.token)
+        store.dispatch('user/setRefreshToken', persisted.refreshToken)
+        return persisted.token
+      }
+      return axios.post('/family-accounting/api/auth/refresh', { refreshToken: staleRefreshToken })
+        .then(response => {
+          const res = response.data
+          if (res.code !== 200) {
+            throw new Error(res.message || '刷新令牌失败')
+          }
+          store.dispatch('user/setToken', res.data.token)
+          store.dispatch('user/setRefreshToken', res.data.refreshToken)
+          return res.data.token
+        })
+    }).finally(() => {
+      refreshPromise = null
+    })
+  }
+  return refreshPromise
+}
+
 // 请求拦截器
 service.interceptors.request.use(
   config => {
@@ -112,6 +165,28 @@ service.interceptors.response.use(
         return Promise.reject(error)
       }
 
+      // 访问令牌过期时使用刷新令牌换取新令牌后重试一次
+      const config = error.config
+      if (status === 401 && store.state.user.refreshToken && config && !config._retried) {
+        config._retried = true
+        // 其他标签页已刷新令牌时直接使用新的访问令牌重试
+        const currentToken = store.state.user.token
+        const tokenRefreshed = currentToken && config.headers.Authorization !== `Bearer ${currentToken}`
+        return (tokenRefreshed ? Promise.resolve(currentToken) : refreshAccessToken())
+          .then(token => {
+            config.headers.Authorization = `Bearer ${token}`
+            return service(config)
+          })
+          .catch(() => {
+            Toast.fail('登录已过期，请重新登录')
+            store.dispatch('user/logout')
+            if (router.currentRoute.path !== '/login') {
+              router.replace('/login')
+            }
+            return Promise.reject(error)
+          })
+      }
+
       if (status === 401) {
         Toast.fail('登录已过期，请重新登录')
         store.dispatch('user/logout')
@@ -7,7 +7,10 @@ import transaction from './modules/transaction'
 
 Vue.use(Vuex)
 
-export default new Vuex.Store({
+// 持久化到 localStorage 的键，多个标签页共用
+export const PERSIST_KEY = 'family-accounting'
+
+const store = new Vuex.Store({
   modules: {
     user,
     family,
@@ -15,8 +18,26 @@ export default new Vuex.Store({
   },
   plugins: [
     createPersistedState({
-      key: 'family-accounting',
-      paths: ['user.token', 'user.userInfo']
+      key: PERSIST_KEY,
+      paths: ['user.token', 'user.refreshToken', 'user.userInfo']
     })
   ]
 })
+
+// 其他标签页刷新或清除令牌后同步到当前标签页，避免继续使用已轮换的刷新令牌
+window.addEventListener('storage', event => {
+  if (event.key !== PERSIST_KEY) {
+    return
+  }
+  let user = {}
+  try {
+    user = (JSON.parse(event.newValue) || {}).user || {}
+  } catch (e) {
+    return
+  }
+  store.commit('user/SET_TOKEN', user.token || '')
+  store.commit('user/SET_REFRESH_TOKEN', user.refreshToken || '')
+  store.commit('user/SET_USER_INFO', user.userInfo || null)
+})
+
+export default store
@@ -1,5 +1,6 @@
 const state = {
   token: '',
+  refreshToken: '',
   userInfo: null
 }
 
@@ -7,11 +8,15 @@ const mutations = {
   SET_TOKEN (state, token) {
     state.token = token
   },
+  SET_REFRESH_TOKEN (state, refreshToken) {
+    state.refreshToken = refreshToken
+  },
   SET_USER_INFO (state, userInfo) {
     state.userInfo = userInfo
   },
   CLEAR_USER (state) {
     state.token = ''
+    state.refreshToken = ''
     state.userInfo = null
   }
 }
@@ -20,6 +25,9 @@ const actions = {
   setToken ({ commit }, token) {
     commit('SET_TOKEN', token)
   },
+  setRefreshToken ({ commit }, refreshToken) {
+    commit('SET_REFRESH_TOKEN', refreshToken)
+  },
   setUserInfo ({ commit }, userInfo) {
     commit('SET_USER_INFO', userInfo)
   },